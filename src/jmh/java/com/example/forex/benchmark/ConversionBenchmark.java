@@ -0,0 +1,127 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.dto.ConversionRequest;
+import com.example.forex.dto.ConversionResponse;
+import com.example.forex.model.CurrencyCode;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import com.example.forex.service.CurrencyConversionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /api/exchangeRates/convert 的換算效能：一個請求 100k 筆任意幣別組合的金額。
+ * <p>
+ * convert 為服務本身（交叉匯率表已快取，定點數運算），convertAndSerialize 再加上 Jackson 序列化；
+ * bigDecimalTriangulation 是下游服務原本的做法：取出當日報價後每筆以 BigDecimal 經美元推算，作為比較基準。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    @Param({"100000"})
+    public int conversions;
+
+    // 請求中不同日期的數量（依序分組排列）
+    @Param({"1", "30"})
+    public int dates;
+
+    private CurrencyConversionService service;
+    private ConversionRequest request;
+    private Map<String, ExchangeRate> ratesByDate;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        InMemoryExchangeRateRepository repository = SyntheticData.repository(400);
+        ExchangeRateCache cache = new ExchangeRateCache(repository);
+        cache.warmUp();
+        service = new CurrencyConversionService(repository, cache);
+        objectMapper = new ObjectMapper();
+
+        CurrencyCode[] currencies = CurrencyCode.values();
+        Random random = new Random(42);
+        List<ConversionRequest.Conversion> items = new ArrayList<>(conversions);
+        ratesByDate = new HashMap<>();
+        for (int i = 0; i < conversions; i++) {
+            LocalDate date = LocalDate.now().minusDays(1 + (long) i * dates / conversions);
+            String text = date.format(REQUEST_FORMATTER);
+            ratesByDate.computeIfAbsent(text, key -> repository.findByDate(date).orElseThrow());
+            String amount = random.nextInt(10_000_000) + "." + random.nextInt(100);
+            items.add(new ConversionRequest.Conversion(amount,
+                    currencies[random.nextInt(currencies.length)].getCode(),
+                    currencies[random.nextInt(currencies.length)].getCode(), text));
+        }
+        request = new ConversionRequest();
+        request.setConversions(items);
+        service.convert(request); // 建立交叉匯率表
+    }
+
+    @Benchmark
+    public ConversionResponse convert() {
+        return service.convert(request);
+    }
+
+    @Benchmark
+    public byte[] convertAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(service.convert(request));
+    }
+
+    @Benchmark
+    public List<String> bigDecimalTriangulation() {
+        List<String> results = new ArrayList<>(conversions);
+        for (ConversionRequest.Conversion conversion : request.getConversions()) {
+            ExchangeRate rate = ratesByDate.get(conversion.getDate());
+            BigDecimal from = usdValue(rate, CurrencyCode.fromName(conversion.getFrom()));
+            BigDecimal to = usdValue(rate, CurrencyCode.fromName(conversion.getTo()));
+            results.add(new BigDecimal(conversion.getAmount()).multiply(from)
+                    .divide(to, MathContext.DECIMAL64).setScale(4, RoundingMode.HALF_UP).toPlainString());
+        }
+        return results;
+    }
+
+    private static BigDecimal usdValue(ExchangeRate rate, CurrencyCode currency) {
+        return switch (currency) {
+            case USD -> BigDecimal.ONE;
+            case NTD -> BigDecimal.ONE.divide(rate.getRate(CurrencyPair.USD), MathContext.DECIMAL64);
+            case RMB -> rate.getRate(CurrencyPair.RMB).divide(rate.getRate(CurrencyPair.USD), MathContext.DECIMAL64);
+            case EUR -> rate.getRate(CurrencyPair.EUR_USD);
+            case GBP -> rate.getRate(CurrencyPair.GBP_USD);
+            case AUD -> rate.getRate(CurrencyPair.AUD_USD);
+            case NZD -> rate.getRate(CurrencyPair.NZD_USD);
+            case JPY -> BigDecimal.ONE.divide(rate.getRate(CurrencyPair.USD_JPY), MathContext.DECIMAL64);
+            case HKD -> BigDecimal.ONE.divide(rate.getRate(CurrencyPair.USD_HKD), MathContext.DECIMAL64);
+            case ZAR -> BigDecimal.ONE.divide(rate.getRate(CurrencyPair.USD_ZAR), MathContext.DECIMAL64);
+        };
+    }
+}
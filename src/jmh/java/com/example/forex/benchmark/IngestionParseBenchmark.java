@@ -0,0 +1,49 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.service.ExchangeRateStreamParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 匯入流程的 JSON 解析效能，輸入為 1k / 100k / 1M 筆的合成 TAIFEX 回應（含所有幣別）。
+ * 只量測解析與批次切分，不含寫入。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class IngestionParseBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private byte[] payload;
+    private ExchangeRateStreamParser parser;
+
+    @Setup
+    public void setUp() {
+        payload = SyntheticData.taifexPayload(rows);
+        parser = new ExchangeRateStreamParser();
+    }
+
+    @Benchmark
+    public long parse(Blackhole blackhole) {
+        return parser.parse(new ByteArrayInputStream(payload), ExchangeRateStreamParser.DEFAULT_BATCH_SIZE,
+                blackhole::consume);
+    }
+}
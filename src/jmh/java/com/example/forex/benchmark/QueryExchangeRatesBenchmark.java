@@ -0,0 +1,95 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.dto.ExchangeRateQueryRequest;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import com.example.forex.service.ExchangeRateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * queryExchangeRates 端到端效能：日期解析、驗證、CurrencyInfo 組裝（BigDecimal.setScale）
+ * 以及 ExchangeRateQueryResponse 的 Jackson 序列化。
+ * repository 以記憶體實作取代，數字不受 MongoDB 影響。
+ * 加上 -prof gc 可看到每次呼叫的配置量（gc.alloc.rate.norm）。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryExchangeRatesBenchmark {
+
+    // warm：快取預熱後由快取回答；cold：快取未預熱，每次都查 repository
+    @Param({"warm", "cold"})
+    public String cache;
+
+    @Param({"usd", "usd,rmb,eur_usd,usd_jpy"})
+    public String currency;
+
+    // 查詢區間天數（最長 1 年）
+    @Param({"30", "365"})
+    public int rangeDays;
+
+    private ExchangeRateService service;
+    private ExchangeRateQueryRequest request;
+    private ExchangeRateQueryRequest invalidRangeRequest;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        InMemoryExchangeRateRepository repository = SyntheticData.repository(400);
+        ExchangeRateCache exchangeRateCache = new ExchangeRateCache(repository);
+        if ("warm".equals(cache)) {
+            exchangeRateCache.warmUp();
+        }
+        // 只量測查詢，不會呼叫 TAIFEX API
+        service = new ExchangeRateService(repository, exchangeRateCache, event -> { }, null);
+        objectMapper = new ObjectMapper();
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+        LocalDate endDate = LocalDate.now().minusDays(1);
+        LocalDate startDate = rangeDays >= 365 ? LocalDate.now().minusYears(1) : endDate.minusDays(rangeDays - 1);
+        request = new ExchangeRateQueryRequest();
+        request.setStartDate(startDate.format(formatter));
+        request.setEndDate(endDate.format(formatter));
+        request.setCurrency(currency);
+
+        // 起始日期大於結束日期（E001）
+        invalidRangeRequest = new ExchangeRateQueryRequest();
+        invalidRangeRequest.setStartDate(endDate.format(formatter));
+        invalidRangeRequest.setEndDate(startDate.minusDays(1).format(formatter));
+        invalidRangeRequest.setCurrency(currency);
+    }
+
+    @Benchmark
+    public ExchangeRateQueryResponse query() {
+        return service.queryExchangeRates(request);
+    }
+
+    @Benchmark
+    public byte[] queryAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(service.queryExchangeRates(request));
+    }
+
+    @Benchmark
+    public ExchangeRateQueryResponse queryInvalidRange() {
+        return service.queryExchangeRates(invalidRangeRequest);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.ForexApplication;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * /api/exchangeRates/query 的壓力測試，比較 Tomcat 平台執行緒與 virtual threads 兩種處理模式。
+ * <p>
+ * 每種模式各啟動一次完整的應用程式（隨機 port），MongoDB 以記憶體 repository 取代，
+ * 並在範圍查詢時固定睡眠 latencyMs 模擬資料庫往返；快取停用，所有請求都會阻塞在 repository。
+ * clients 個執行緒以封閉迴圈持續送出請求，暖機後量測 seconds 秒，輸出吞吐量與 p50/p99 延遲。
+ * <p>
+ * 參數（依序，皆可省略）：模式（platform,virtual）、clients（1000）、seconds（20）、latencyMs（20）。
+ * virtual 模式需以 JDK 21 執行（-Pbenchmark,java21），否則略過。
+ */
+public class QueryLoadTest {
+
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int WARMUP_SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        // devtools 的重新啟動會在另一個執行緒重跑 main，壓力測試不需要
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        String[] modes = (args.length > 0 ? args[0] : "platform,virtual").split(",");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 20;
+
+        System.out.printf("%-10s %8s %12s %10s %10s %10s %8s%n",
+                "mode", "clients", "req/s", "p50(ms)", "p99(ms)", "max(ms)", "errors");
+        for (String mode : modes) {
+            boolean virtual = "virtual".equals(mode.trim());
+            if (virtual && Runtime.version().feature() < 21) {
+                System.out.printf("%-10s 略過：需要 JDK 21 以上（目前 %s）%n", mode, Runtime.version());
+                continue;
+            }
+            try (ConfigurableApplicationContext context = start(virtual, latencyMs)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                Result result = run(port, clients, seconds);
+                System.out.printf("%-10s %8d %12.1f %10.2f %10.2f %10.2f %8d%n", mode.trim(), clients,
+                        result.throughput(), result.percentile(0.50), result.percentile(0.99),
+                        result.percentile(1.0), result.errors);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, long latencyMs) {
+        ExchangeRateRepository repository = SyntheticData.fill(new SlowRepository(latencyMs), 400);
+        return new SpringApplicationBuilder(ForexApplication.class)
+                .initializers(context -> ((GenericApplicationContext) context)
+                        .registerBean(ExchangeRateRepository.class, () -> repository))
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "spring.data.mongodb.repositories.type=none",
+                        "forex.cache.enabled=false",
+                        "forex.store.enabled=false",
+                        "forex.journal.enabled=false",
+                        "forex.cluster.enabled=false",
+                        "logging.level.root=warn")
+                .run();
+    }
+
+    private static Result run(int port, int clients, int seconds) throws InterruptedException {
+        LocalDate endDate = LocalDate.now().minusDays(1);
+        String body = "{\"startDate\":\"" + endDate.minusDays(29).format(REQUEST_FORMATTER)
+                + "\",\"endDate\":\"" + endDate.format(REQUEST_FORMATTER) + "\",\"currency\":\"usd\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/exchangeRates/query"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        // HttpClient 內部的非同步工作使用預設執行緒池，不能與阻塞在 send 的客戶端執行緒共用
+        HttpClient httpClient = HttpClient.newHttpClient();
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(WARMUP_SECONDS).toNanos();
+        long measureUntil = measureFrom + Duration.ofSeconds(seconds).toNanos();
+        long[][] latencies = new long[clients][];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            executor.execute(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                try {
+                    long now;
+                    while ((now = System.nanoTime()) < measureUntil) {
+                        boolean ok;
+                        try {
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long end = System.nanoTime();
+                        if (now < measureFrom || end > measureUntil) {
+                            continue;
+                        }
+                        if (!ok) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = end - now;
+                    }
+                } finally {
+                    latencies[client] = Arrays.copyOf(samples, count);
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdownNow();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, errors.get(), seconds);
+    }
+
+    // 範圍查詢前固定睡眠，模擬阻塞式 MongoDB 呼叫（Spring 會以 CGLIB 代理，不能是 final/private）
+    static class SlowRepository extends InMemoryExchangeRateRepository {
+
+        private final long latencyMs;
+
+        SlowRepository(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public List<ExchangeRate> findByDateGreaterThanEqualAndDateLessThanEqual(LocalDate startDate, LocalDate endDate) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.findByDateGreaterThanEqualAndDateLessThanEqual(startDate, endDate);
+        }
+    }
+
+    private record Result(long[] sortedNanos, long errors, int seconds) {
+
+        double throughput() {
+            return (double) sortedNanos.length / seconds;
+        }
+
+        double percentile(double p) {
+            if (sortedNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+            return sortedNanos[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
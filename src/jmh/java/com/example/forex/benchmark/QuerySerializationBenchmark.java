@@ -0,0 +1,72 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.dto.ExchangeRateQueryRequest;
+import com.example.forex.format.ExchangeRateSeriesBinaryConverter;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import com.example.forex.service.ExchangeRateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三種回應格式的查詢加序列化時間：一般 JSON（每日一個物件、匯率為字串）、
+ * 欄位式 JSON（dates[] 與每幣別一條 rates[]）與固定寬度二進位。
+ * 快取已預熱，量測的是組裝結果與輸出 bytes 的成本；各格式的回應大小在 setUp 時印出。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuerySerializationBenchmark {
+
+    @Param({"json", "columnar", "binary"})
+    public String format;
+
+    @Param({"usd", "usd,rmb,eur_usd,usd_jpy"})
+    public String currency;
+
+    private ExchangeRateService service;
+    private ExchangeRateQueryRequest request;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() throws Exception {
+        InMemoryExchangeRateRepository repository = SyntheticData.repository(400);
+        ExchangeRateCache exchangeRateCache = new ExchangeRateCache(repository);
+        exchangeRateCache.warmUp();
+        service = new ExchangeRateService(repository, exchangeRateCache, event -> { }, null);
+        objectMapper = new ObjectMapper();
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+        request = new ExchangeRateQueryRequest();
+        request.setStartDate(LocalDate.now().minusYears(1).format(formatter));
+        request.setEndDate(LocalDate.now().minusDays(1).format(formatter));
+        request.setCurrency(currency);
+        System.out.printf("%n%s / %s: %d bytes%n", format, currency, queryAndSerialize().length);
+    }
+
+    @Benchmark
+    public byte[] queryAndSerialize() throws Exception {
+        return switch (format) {
+            case "columnar" -> objectMapper.writeValueAsBytes(service.querySeries(request));
+            case "binary" -> ExchangeRateSeriesBinaryConverter.encode(service.querySeries(request));
+            default -> objectMapper.writeValueAsBytes(service.queryExchangeRates(request));
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.store.LocalRateStore;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 從啟動 JVM 到第一個成功查詢（POST /api/exchangeRates/query 回 200 且 code 為 0000）的時間（非 JMH）。
+ * <p>
+ * 需先以 mvn -Pfast-startup -DskipTests package 建置，每種方式各啟動 runs 次獨立的 JVM：
+ * <ul>
+ *   <li>fat-jar：java -jar target/forex-*.jar（原本的啟動方式）</li>
+ *   <li>extracted：解開後的 target/cds/forex-*.jar</li>
+ *   <li>lazy：extracted 加上 fast 設定檔（延遲初始化）</li>
+ *   <li>lazy-aot：再加上 -Dspring.aot.enabled=true</li>
+ *   <li>lazy-aot-cds：再加上 CDS 封存檔 target/cds/application.jsa</li>
+ * </ul>
+ * MongoDB 不需要啟動：查詢由預先同步好的本機匯率檔（400 天合成資料）回答，啟動時間不含資料庫連線。
+ * <p>
+ * 參數（依序，皆可省略）：runs（5）、方式（以逗號分隔，預設全部）。
+ */
+public class StartupBenchmark {
+
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+    private static final List<String> VARIANTS = List.of("fat-jar", "extracted", "lazy", "lazy-aot", "lazy-aot-cds");
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        List<String> variants = args.length > 1 ? Arrays.asList(args[1].split(",")) : VARIANTS;
+        Path fatJar = findJar(Path.of("target"));
+        Path extractedJar = findJar(Path.of("target", "cds"));
+        Path archive = Path.of("target", "cds", "application.jsa");
+        Path storeFile = prepareStore();
+
+        System.out.printf("%-14s %8s %8s %8s%n", "variant", "min(ms)", "p50(ms)", "max(ms)");
+        for (String variant : variants) {
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            if (variant.endsWith("-cds")) {
+                command.add("-XX:SharedArchiveFile=" + archive);
+                command.add("-Xlog:cds=off");
+            }
+            if (variant.startsWith("lazy")) {
+                command.add("-Dspring.profiles.active=fast");
+            }
+            if (variant.contains("-aot")) {
+                command.add("-Dspring.aot.enabled=true");
+            }
+            command.add("-jar");
+            command.add((variant.equals("fat-jar") ? fatJar : extractedJar).toString());
+
+            long[] millis = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                millis[i] = timeToFirstQuery(command, storeFile);
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-14s %8d %8d %8d%n", variant, millis[0], millis[runs / 2], millis[runs - 1]);
+        }
+    }
+
+    private static long timeToFirstQuery(List<String> command, Path storeFile) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> full = new ArrayList<>(command);
+        full.add("--server.port=" + port);
+        full.add("--forex.store.path=" + storeFile);
+        full.add("--forex.journal.enabled=false");
+        // 無法連線的位址：背景的預熱與同步很快失敗，不影響量測
+        full.add("--spring.data.mongodb.uri=mongodb://127.0.0.1:1/forex_db?serverSelectionTimeoutMS=500");
+        full.add("--logging.level.root=warn");
+
+        LocalDate endDate = LocalDate.now().minusDays(1);
+        String body = "{\"startDate\":\"" + endDate.minusDays(29).format(REQUEST_FORMATTER)
+                + "\",\"endDate\":\"" + endDate.format(REQUEST_FORMATTER) + "\",\"currency\":\"usd\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/exchangeRates/query"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+        long startedAt = System.nanoTime();
+        Process process = new ProcessBuilder(full)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (System.nanoTime() - startedAt < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("應用程式已結束，exit code " + process.exitValue() + "：" + full);
+                }
+                try {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() == 200 && response.body().contains("\"0000\"")) {
+                        return (System.nanoTime() - startedAt) / 1_000_000;
+                    }
+                } catch (ConnectException e) {
+                    // 尚未開始接受連線
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("逾時仍無成功的查詢：" + full);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // 建立已與（記憶體中的）資料庫同步的本機匯率檔，應用程式啟動時直接以此回答查詢
+    private static Path prepareStore() throws IOException {
+        Path file = Files.createTempDirectory("forex-startup").resolve("rates.fxs");
+        LocalRateStore store = new LocalRateStore(SyntheticData.repository(400), file);
+        store.synchronize();
+        store.destroy();
+        return file;
+    }
+
+    private static Path findJar(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().matches("forex-.*\\.jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException(dir + " 下沒有 forex-*.jar，請先執行 mvn -Pfast-startup -DskipTests package"));
+        }
+    }
+}
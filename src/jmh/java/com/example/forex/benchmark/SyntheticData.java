@@ -0,0 +1,65 @@
+package com.example.forex.benchmark;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+//產生效能測試用的合成資料，數值固定以便每次測量可重現
+final class SyntheticData {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private SyntheticData() {
+    }
+
+    // 與臺交所 DailyForeignExchangeRates 相同格式的 JSON 陣列，每筆包含所有幣別
+    static byte[] taifexPayload(int rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 200);
+        StringBuilder row = new StringBuilder(256);
+        LocalDate date = LocalDate.of(1990, 1, 1);
+        out.write('[');
+        for (int i = 0; i < rows; i++) {
+            row.setLength(0);
+            if (i > 0) {
+                row.append(',');
+            }
+            row.append("{\"Date\":\"").append(date.plusDays(i).format(DATE_FORMATTER)).append('"');
+            for (CurrencyPair pair : CurrencyPair.values()) {
+                row.append(",\"").append(pair.getFeedKey()).append("\":\"").append(rate(pair, i)).append('"');
+            }
+            row.append('}');
+            out.writeBytes(row.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    // 建立填好最近 days 天資料（含所有幣別）的記憶體 repository
+    static InMemoryExchangeRateRepository repository(int days) {
+        return fill(new InMemoryExchangeRateRepository(), days);
+    }
+
+    static <R extends InMemoryExchangeRateRepository> R fill(R repository, int days) {
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i <= days; i++) {
+            ExchangeRate exchangeRate = new ExchangeRate();
+            exchangeRate.setDate(today.minusDays(i));
+            for (CurrencyPair pair : CurrencyPair.values()) {
+                exchangeRate.setRate(pair, new BigDecimal(rate(pair, i)));
+            }
+            repository.save(exchangeRate);
+        }
+        return repository;
+    }
+
+    private static String rate(CurrencyPair pair, int i) {
+        int base = 1 + pair.ordinal() * 3;
+        return base + "." + (1000 + (i * 37 + pair.ordinal()) % 9000);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.forex.backfill;
+
+import com.example.forex.client.TaifexClient;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.service.ExchangeRateStreamParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 以臺交所 API 作為回補來源。API 不支援依日期查詢，
+ * 第一次讀取時下載一次完整內容（不使用條件式 GET），之後各區段都從這份資料過濾。
+ */
+public class ApiBackfillSource implements BackfillSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiBackfillSource.class);
+
+    private final TaifexClient taifexClient;
+    private final ExchangeRateStreamParser streamParser = new ExchangeRateStreamParser();
+
+    private List<ExchangeRate> downloaded;
+
+    public ApiBackfillSource(TaifexClient taifexClient) {
+        this.taifexClient = taifexClient;
+    }
+
+    @Override
+    public long read(LocalDate from, LocalDate to, Consumer<ExchangeRate> consumer) {
+        List<ExchangeRate> rates = download();
+        for (ExchangeRate rate : rates) {
+            if (!rate.getDate().isBefore(from) && !rate.getDate().isAfter(to)) {
+                consumer.accept(rate);
+            }
+        }
+        return 0;
+    }
+
+    private synchronized List<ExchangeRate> download() {
+        if (downloaded == null) {
+            List<ExchangeRate> rates = new ArrayList<>();
+            Long failed = taifexClient.fetchFull(in ->
+                    streamParser.parse(in, ExchangeRateStreamParser.DEFAULT_BATCH_SIZE, rates::addAll));
+            logger.info("已下載 API 資料 {} 筆，無法解析 {} 筆", rates.size(), failed);
+            downloaded = rates;
+        }
+        return downloaded;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.forex.backfill;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.service.ExchangeRateStreamParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 從本機目錄中的歷史檔讀取匯率：
+ * <ul>
+ *     <li>*.json：與臺交所 DailyForeignExchangeRates 回應相同格式的 JSON 陣列</li>
+ *     <li>*.csv：第一列為欄位名稱，"Date"（yyyyMMdd）加上 API 的幣別欄位名稱（例如 "USD/NTD"）</li>
+ * </ul>
+ * 檔名以 yyyy 或 yyyyMM 開頭（例如 2015.csv、201503.json）時視為只包含該年/月的資料，
+ * 讀取區段時只開啟有重疊的檔案；其他檔名每個區段都會讀取並依日期過濾。
+ */
+public class ArchiveBackfillSource implements BackfillSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveBackfillSource.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern PERIOD_FILE_NAME = Pattern.compile("^(\\d{4})(\\d{2})?(\\D.*)?$");
+
+    private final List<Path> files;
+    // 一個檔案會被多個區段讀取，無法解析的筆數只在第一次讀到時回報
+    private final Set<Path> failuresReported = ConcurrentHashMap.newKeySet();
+    private final ExchangeRateStreamParser streamParser = new ExchangeRateStreamParser();
+
+    public ArchiveBackfillSource(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("歷史資料目錄不存在: " + directory);
+        }
+        try (Stream<Path> stream = Files.list(directory)) {
+            this.files = stream.filter(path -> isJson(path) || isCsv(path)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法讀取歷史資料目錄: " + directory, e);
+        }
+    }
+
+    @Override
+    public long read(LocalDate from, LocalDate to, Consumer<ExchangeRate> consumer) {
+        Consumer<ExchangeRate> inRange = rate -> {
+            if (!rate.getDate().isBefore(from) && !rate.getDate().isAfter(to)) {
+                consumer.accept(rate);
+            }
+        };
+        long failed = 0;
+        for (Path file : files) {
+            if (!overlaps(file, from, to)) {
+                continue;
+            }
+            try (InputStream in = Files.newInputStream(file)) {
+                long fileFailed = isJson(file)
+                        ? streamParser.parse(in, ExchangeRateStreamParser.DEFAULT_BATCH_SIZE, batch -> batch.forEach(inRange))
+                        : readCsv(in, inRange);
+                if (fileFailed > 0 && failuresReported.add(file)) {
+                    failed += fileFailed;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("無法讀取歷史資料檔: " + file, e);
+            }
+        }
+        return failed;
+    }
+
+    private static long readCsv(InputStream in, Consumer<ExchangeRate> consumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return 0;
+        }
+        String[] columns = header.split(",", -1);
+        int dateColumn = -1;
+        CurrencyPair[] pairs = new CurrencyPair[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            String column = unquote(columns[i]);
+            if ("Date".equals(column)) {
+                dateColumn = i;
+            } else {
+                pairs[i] = CurrencyPair.fromFeedKey(column);
+            }
+        }
+        if (dateColumn < 0) {
+            throw new IllegalArgumentException("CSV 缺少 Date 欄位");
+        }
+
+        long failed = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = line.split(",", -1);
+            try {
+                ExchangeRate exchangeRate = new ExchangeRate();
+                exchangeRate.setDate(LocalDate.parse(unquote(values[dateColumn]), DATE_FORMATTER));
+                boolean hasRate = false;
+                for (int i = 0; i < values.length && i < pairs.length; i++) {
+                    String value = unquote(values[i]);
+                    // 空白代表當日該幣別無報價
+                    if (pairs[i] != null && !value.isEmpty()) {
+                        exchangeRate.setRate(pairs[i], new BigDecimal(value));
+                        hasRate = true;
+                    }
+                }
+                if (hasRate) {
+                    consumer.accept(exchangeRate);
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                logger.warn("略過無法解析的 CSV 資料: {}", line);
+            }
+        }
+        return failed;
+    }
+
+    // 檔名代表的年/月與區段沒有重疊時不需要開啟
+    private static boolean overlaps(Path file, LocalDate from, LocalDate to) {
+        Matcher matcher = PERIOD_FILE_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return true;
+        }
+        int year = Integer.parseInt(matcher.group(1));
+        LocalDate start;
+        LocalDate end;
+        if (matcher.group(2) != null) {
+            int month = Integer.parseInt(matcher.group(2));
+            if (month < 1 || month > 12) {
+                return true;
+            }
+            YearMonth yearMonth = YearMonth.of(year, month);
+            start = yearMonth.atDay(1);
+            end = yearMonth.atEndOfMonth();
+        } else {
+            start = LocalDate.of(year, 1, 1);
+            end = LocalDate.of(year, 12, 31);
+        }
+        return !start.isAfter(to) && !end.isBefore(from);
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    private static boolean isJson(Path path) {
+        return path.getFileName().toString().endsWith(".json");
+    }
+
+    private static boolean isCsv(Path path) {
+        return path.getFileName().toString().endsWith(".csv");
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.forex.backfill;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 回補進度檔：每完成一個區段就附加一行區段起始日（yyyyMMdd）並 fsync。
+ * 程式中斷後重新執行同一工作時，已記錄的區段直接略過；
+ * 中斷時寫到一半的最後一行無法解析，視為未完成。
+ */
+public class BackfillCheckpoint {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path file;
+    private final Set<LocalDate> completed = new HashSet<>();
+
+    public BackfillCheckpoint(Path file) {
+        this.file = file;
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                try {
+                    completed.add(LocalDate.parse(line.trim(), DATE_FORMATTER));
+                } catch (DateTimeParseException e) {
+                    // 中斷時未寫完的一行
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法讀取回補進度檔: " + file, e);
+        }
+    }
+
+    public synchronized boolean isCompleted(LocalDate chunkStart) {
+        return completed.contains(chunkStart);
+    }
+
+    public synchronized int completedCount() {
+        return completed.size();
+    }
+
+    public synchronized void markCompleted(LocalDate chunkStart) {
+        byte[] line = (chunkStart.format(DATE_FORMATTER) + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(line));
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法寫入回補進度檔: " + file, e);
+        }
+        completed.add(chunkStart);
+    }
+
+    // 全部區段完成後刪除，之後以相同參數重新執行時會重新匯入
+    public synchronized void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法刪除回補進度檔: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.forex.backfill;
+
+import com.example.forex.model.ExchangeRate;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+// 回補歷史資料的來源，會被多個工作執行緒同時呼叫
+public interface BackfillSource {
+
+    /**
+     * 讀取日期落在 [from, to] 的匯率，逐筆交給 consumer，回傳無法解析的筆數。
+     */
+    long read(LocalDate from, LocalDate to, Consumer<ExchangeRate> consumer);
+}
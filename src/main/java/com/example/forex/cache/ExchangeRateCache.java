@@ -0,0 +1,354 @@
+package com.example.forex.cache;
+
+import com.example.forex.dto.CacheStatsResponse;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.scheduler.StartupTask;
+import com.example.forex.store.LocalRateStore;
+import com.example.forex.util.FixedWidthFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查詢視窗（1年前 ~ 昨天）的 read-through 快取。
+ * 以排序好的 epoch-day int 陣列，加上每個幣別一條平行的 long 陣列（匯率放大 10^4）保存，
+ * 區間查詢以二分搜尋回答，不需要呼叫 MongoDB。
+ * 讀取端只看 volatile 的不可變 Snapshot，寫入時整份替換（copy-on-write）。
+ * 每個日期另外記錄寫入快取時的版本號，預熱時用來判斷哪些日期在預熱期間已寫入較新的資料。
+ */
+@Component
+public class ExchangeRateCache implements StartupTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateCache.class);
+
+    // 匯率以小數 4 位的整數保存，例如 32.9451 -> 329451
+    public static final int RATE_SCALE = 4;
+    // 當日該幣別無資料
+    public static final long MISSING = Long.MIN_VALUE;
+    private static final int PAIR_COUNT = CurrencyPair.values().length;
+
+    private final ExchangeRateRepository repository;
+    // 已與 MongoDB 同步的本機匯率檔，啟動時先以此預熱；未設定時為 null
+    private final LocalRateStore localStore;
+    // 停用時不預熱也不保存新資料，所有查詢都直接讀資料庫（壓力測試 repository 路徑用）
+    private final boolean enabled;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean warmed;
+    private long revision; // 只在 synchronized 中修改
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ExchangeRateCache(ExchangeRateRepository repository) {
+        this(repository, null, true);
+    }
+
+    @Autowired
+    public ExchangeRateCache(ExchangeRateRepository repository, LocalRateStore localStore,
+                             @Value("${forex.cache.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.localStore = localStore;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public String getStartupTaskName() {
+        return "匯率快取預熱";
+    }
+
+    // 啟動完成後在背景預熱，MongoDB 尚未就緒時不拖慢啟動，查詢會先直接讀資料庫；
+    // 本機匯率檔只在第一次執行時讀取，重試時只重新讀取 MongoDB
+    @Override
+    public void runStartupTask() {
+        if (!enabled) {
+            logger.info("匯率快取已停用，查詢將直接讀取資料庫");
+            return;
+        }
+        if (!warmed) {
+            warmUpFromLocalStore();
+        }
+        warmUp();
+    }
+
+    // 本機匯率檔已同步過時先以檔案內容預熱（不需連線 MongoDB），之後 MongoDB 的預熱只補上檔案中缺少的日期
+    void warmUpFromLocalStore() {
+        if (localStore == null || !localStore.wasSynchronized()) {
+            return;
+        }
+        LocalDate from = LocalDate.now().minusYears(1);
+        List<ExchangeRate> rates = localStore.findRates(from, LocalDate.now(), List.of(CurrencyPair.values()));
+        synchronized (this) {
+            snapshot = snapshot.merge(rates, 0, -1).withCoveredFrom((int) from.toEpochDay());
+            warmed = true;
+        }
+        logger.info("匯率快取已由本機匯率檔預熱，共 {} 筆", snapshot.size());
+    }
+
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusYears(1);
+        long startRevision;
+        synchronized (this) {
+            startRevision = revision;
+        }
+        List<ExchangeRate> rates = repository.findByDateGreaterThanEqualAndDateLessThanEqual(from, today);
+        synchronized (this) {
+            // 預熱期間若已有新資料寫入，與查詢結果合併並保留新寫入的值；
+            // 本機匯率檔預熱的值可能是停機期間其他節點更正前的舊值，以資料庫為準
+            snapshot = snapshot.merge(rates, 0, startRevision)
+                    .withCoveredFrom((int) from.toEpochDay());
+            warmed = true;
+        }
+        logger.info("匯率快取預熱完成，共 {} 筆", snapshot.size());
+    }
+
+    @EventListener
+    public synchronized void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // 合併剛寫入的資料（含更正既有日期），並淘汰已超出查詢視窗的舊資料
+        int retainFrom = (int) LocalDate.now().minusYears(1).toEpochDay();
+        snapshot = snapshot.merge(event.getRates(), ++revision, Long.MAX_VALUE).retainFrom(retainFrom);
+    }
+
+    /**
+     * 區間資料的版本（HTTP ETag 用）：由區間內的日期與匯率計算的雜湊，只要內容相同，
+     * 重新啟動後或在其他 replica 上都得到相同的值。
+     * 區間不在快取涵蓋範圍內（或尚未預熱）時回傳 null。
+     */
+    public String version(LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        if (!warmed || startDate.toEpochDay() < current.coveredFrom || startDate.isAfter(endDate)) {
+            return null;
+        }
+        int from = current.lowerBound((int) startDate.toEpochDay());
+        int to = current.upperBound((int) Math.min(endDate.toEpochDay(), Integer.MAX_VALUE));
+        return Long.toUnsignedString(current.contentHash(from, to), 36);
+    }
+
+    /**
+     * 結束日早於快取中最新的資料日期時，區間內不會再有新的每日資料。
+     */
+    public boolean isSettled(LocalDate endDate) {
+        Snapshot current = snapshot;
+        return warmed && current.size() > 0 && endDate.toEpochDay() < current.epochDay(current.size() - 1);
+    }
+
+    /**
+     * 區間完全落在快取涵蓋範圍內時回傳 Snapshot（命中），否則回傳 null（未命中，應改查資料庫）。
+     */
+    public Snapshot lookup(LocalDate startDate, LocalDate endDate) {
+        Snapshot current = snapshot;
+        if (warmed && startDate.toEpochDay() >= current.coveredFrom && !startDate.isAfter(endDate)) {
+            hits.incrementAndGet();
+            return current;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public CacheStatsResponse getStats() {
+        Snapshot current = snapshot;
+        CacheStatsResponse stats = new CacheStatsResponse();
+        stats.setWarmed(warmed);
+        stats.setSize(current.size());
+        if (current.coveredFrom != Integer.MAX_VALUE) {
+            stats.setCoveredFrom(LocalDate.ofEpochDay(current.coveredFrom).format(DateTimeFormatter.BASIC_ISO_DATE));
+        }
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        return stats;
+    }
+
+    public static long toScaled(BigDecimal rate) {
+        return rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromScaled(long scaledRate) {
+        return BigDecimal.valueOf(scaledRate, RATE_SCALE);
+    }
+
+    // 不可變的快取內容，epochDays 由小到大排序且不重複，rates[幣別 ordinal][index] 為對應匯率
+    // 回傳用的日期與匯率字串在寫入時就格式化好，查詢時直接共用，不再產生新字串
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new int[0], new long[PAIR_COUNT][0],
+                new String[0], new String[PAIR_COUNT][0], new long[0], Integer.MAX_VALUE);
+
+        private final int[] epochDays;
+        private final long[][] rates;
+        private final String[] dateTexts;   // yyyyMMdd
+        private final String[][] rateTexts; // 依 CurrencyPair.displayScale 格式化，無資料為 null
+        private final long[] revisions;     // 該日期寫入快取時的版本號，預熱載入的為 0
+        private final int coveredFrom; // 此日（含）之後的資料都在快取中
+
+        private Snapshot(int[] epochDays, long[][] rates, String[] dateTexts, String[][] rateTexts,
+                         long[] revisions, int coveredFrom) {
+            this.epochDays = epochDays;
+            this.rates = rates;
+            this.dateTexts = dateTexts;
+            this.rateTexts = rateTexts;
+            this.revisions = revisions;
+            this.coveredFrom = coveredFrom;
+        }
+
+        public int size() {
+            return epochDays.length;
+        }
+
+        public int epochDay(int index) {
+            return epochDays[index];
+        }
+
+        // 沒有資料時回傳 MISSING
+        public long scaledRate(CurrencyPair pair, int index) {
+            return rates[pair.ordinal()][index];
+        }
+
+        public String dateText(int index) {
+            return dateTexts[index];
+        }
+
+        // 沒有資料時回傳 null
+        public String rateText(CurrencyPair pair, int index) {
+            return rateTexts[pair.ordinal()][index];
+        }
+
+        // [from, to) 之間的日期與所有幣別匯率（無資料為 MISSING）的雜湊
+        long contentHash(int from, int to) {
+            long hash = mix(to - from);
+            for (int i = from; i < to; i++) {
+                hash = mix(hash ^ epochDays[i]);
+                for (int p = 0; p < PAIR_COUNT; p++) {
+                    hash = mix(hash ^ rates[p][i]);
+                }
+            }
+            return hash;
+        }
+
+        // SplitMix64 的混合函式
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31) ^ 0x9E3779B97F4A7C15L;
+        }
+
+        // 第一個 epochDay >= day 的位置
+        public int lowerBound(int day) {
+            int low = 0;
+            int high = epochDays.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDays[mid] < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // 第一個 epochDay > day 的位置
+        public int upperBound(int day) {
+            return day == Integer.MAX_VALUE ? epochDays.length : lowerBound(day + 1);
+        }
+
+        Snapshot withCoveredFrom(int day) {
+            return new Snapshot(epochDays, rates, dateTexts, rateTexts, revisions, Math.min(coveredFrom, day));
+        }
+
+        Snapshot retainFrom(int day) {
+            int from = lowerBound(day);
+            if (from == 0) {
+                return this;
+            }
+            int[] days = Arrays.copyOfRange(epochDays, from, epochDays.length);
+            String[] dates = Arrays.copyOfRange(dateTexts, from, epochDays.length);
+            long[] revs = Arrays.copyOfRange(revisions, from, epochDays.length);
+            long[][] values = new long[PAIR_COUNT][];
+            String[][] texts = new String[PAIR_COUNT][];
+            for (int p = 0; p < PAIR_COUNT; p++) {
+                values[p] = Arrays.copyOfRange(rates[p], from, epochDays.length);
+                texts[p] = Arrays.copyOfRange(rateTexts[p], from, epochDays.length);
+            }
+            return new Snapshot(days, values, dates, texts, revs, Math.max(coveredFrom, day));
+        }
+
+        // 與新資料合併，新增或改變的日期記錄為 revision 版本。
+        // 同一天已存在且原值的版本不大於 replaceUpTo 時以新資料為準（剛寫入資料庫的資料，例如更正，傳 Long.MAX_VALUE），
+        // 否則保留原值（預熱讀到的資料可能比預熱期間寫入的舊；一律保留時傳 -1）
+        Snapshot merge(List<ExchangeRate> added, long revision, long replaceUpTo) {
+            List<ExchangeRate> sorted = added.stream()
+                    .filter(rate -> rate.getDate() != null)
+                    .sorted(Comparator.comparing(ExchangeRate::getDate))
+                    .toList();
+            int capacity = epochDays.length + sorted.size();
+            int[] days = new int[capacity];
+            long[][] values = new long[PAIR_COUNT][capacity];
+            String[] dates = new String[capacity];
+            String[][] texts = new String[PAIR_COUNT][capacity];
+            long[] revs = new long[capacity];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < epochDays.length || j < sorted.size()) {
+                int addedDay = j < sorted.size() ? (int) sorted.get(j).getDate().toEpochDay() : Integer.MAX_VALUE;
+                if (i < epochDays.length && epochDays[i] == addedDay && revisions[i] <= replaceUpTo) {
+                    // 由下面的分支寫入新資料，同一天的原值略過
+                    i++;
+                } else if (i < epochDays.length && epochDays[i] <= addedDay) {
+                    if (epochDays[i] == addedDay) {
+                        j++;
+                    }
+                    days[n] = epochDays[i];
+                    dates[n] = dateTexts[i];
+                    revs[n] = revisions[i];
+                    for (int p = 0; p < PAIR_COUNT; p++) {
+                        values[p][n] = rates[p][i];
+                        texts[p][n] = rateTexts[p][i];
+                    }
+                    n++;
+                    i++;
+                } else {
+                    if (n == 0 || days[n - 1] != addedDay) {
+                        ExchangeRate rate = sorted.get(j);
+                        days[n] = addedDay;
+                        dates[n] = FixedWidthFormat.formatDate(addedDay);
+                        revs[n] = revision;
+                        for (CurrencyPair pair : CurrencyPair.values()) {
+                            BigDecimal value = rate.getRate(pair);
+                            long scaled = value == null ? MISSING : toScaled(value);
+                            values[pair.ordinal()][n] = scaled;
+                            texts[pair.ordinal()][n] = scaled == MISSING ? null
+                                    : FixedWidthFormat.formatScaled(scaled, RATE_SCALE, pair.getDisplayScale());
+                        }
+                        n++;
+                    }
+                    j++;
+                }
+            }
+            for (int p = 0; p < PAIR_COUNT; p++) {
+                values[p] = Arrays.copyOf(values[p], n);
+                texts[p] = Arrays.copyOf(texts[p], n);
+            }
+            return new Snapshot(Arrays.copyOf(days, n), values, Arrays.copyOf(dates, n), texts,
+                    Arrays.copyOf(revs, n), coveredFrom);
+        }
+    }
+}
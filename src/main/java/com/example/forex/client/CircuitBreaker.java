@@ -0,0 +1,57 @@
+package com.example.forex.client;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * 簡易熔斷器：連續失敗達 failureThreshold 次後進入 OPEN，openDuration 內直接拒絕呼叫；
+ * 時間到後進入 HALF_OPEN，只放行一次試探呼叫，成功則回到 CLOSED，失敗則重新 OPEN。
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    // 是否允許本次呼叫，OPEN 期滿時轉為 HALF_OPEN 並放行一次
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openDuration.toMillis()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        }
+        // HALF_OPEN 時已有試探呼叫進行中
+        return state == State.CLOSED;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
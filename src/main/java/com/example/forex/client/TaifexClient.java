@@ -0,0 +1,219 @@
+package com.example.forex.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * 臺交所 DailyForeignExchangeRates API 的專用呼叫端：
+ * <ul>
+ *     <li>明確的連線與讀取逾時（讀取逾時作用在每次 socket read，回應內容中途停住也會中斷）</li>
+ *     <li>連線沿用 JDK HTTP keep-alive 連線池</li>
+ *     <li>連線失敗、5xx 與 429 以指數退避加隨機抖動重試</li>
+ *     <li>連續失敗時熔斷，避免上游異常時持續送出請求；只有連線、回應狀態與讀取回應內容的錯誤計為失敗，
+ *         bodyReader 處理內容時的錯誤（例如寫入資料庫失敗）不影響熔斷器</li>
+ *     <li>以 ETag / Last-Modified 發送條件式 GET，資料未變更（304）時不解析</li>
+ * </ul>
+ */
+@Component
+public class TaifexClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaifexClient.class);
+
+    private final String apiUrl;
+    private final RestTemplate restTemplate;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final CircuitBreaker circuitBreaker;
+
+    // 上次成功處理的回應標頭，用於條件式 GET
+    private volatile String lastETag;
+    private volatile String lastModified;
+
+    public TaifexClient(@Value("${forex.taifex.url:https://openapi.taifex.com.tw/v1/DailyForeignExchangeRates}") String apiUrl,
+                        @Value("${forex.taifex.connect-timeout:5s}") Duration connectTimeout,
+                        @Value("${forex.taifex.read-timeout:30s}") Duration readTimeout,
+                        @Value("${forex.taifex.max-attempts:4}") int maxAttempts,
+                        @Value("${forex.taifex.initial-backoff:1s}") Duration initialBackoff,
+                        @Value("${forex.taifex.max-backoff:30s}") Duration maxBackoff,
+                        @Value("${forex.taifex.circuit-failure-threshold:3}") int circuitFailureThreshold,
+                        @Value("${forex.taifex.circuit-open-duration:5m}") Duration circuitOpenDuration) {
+        this.apiUrl = apiUrl;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.circuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenDuration, Clock.systemUTC());
+    }
+
+    /**
+     * 取得最新資料並交給 bodyReader 以串流方式處理。
+     * 回應為 304（與上次成功處理的內容相同）時回傳 Optional.empty()，bodyReader 不會被呼叫。
+     * 重試只涵蓋連線與回應狀態階段；bodyReader 拋出的例外直接往外拋，不重試，
+     * 其中只有讀取回應內容時發生的 IOException（例如讀到一半逾時）計為熔斷器的失敗。
+     */
+    public <T> Optional<T> fetch(Function<InputStream, T> bodyReader) {
+        return fetch(bodyReader, true);
+    }
+
+    /**
+     * 不帶 ETag / Last-Modified，一定下載完整內容（例如回補歷史資料時），
+     * 也不更新條件式 GET 使用的標頭，不影響每日排程。
+     */
+    public <T> T fetchFull(Function<InputStream, T> bodyReader) {
+        return fetch(bodyReader, false).orElse(null);
+    }
+
+    private <T> Optional<T> fetch(Function<InputStream, T> bodyReader, boolean conditional) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new TaifexClientException("TAIFEX API 熔斷中，暫停呼叫");
+        }
+
+        // 一定記錄結果：重試等待被中斷或拋出 Error 時也計為失敗，HALF_OPEN 不會一直停留而拒絕之後的呼叫
+        boolean upstreamHealthy = false;
+        try {
+            RuntimeException lastError = null;
+            for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+                boolean[] readFailed = {false};
+                try {
+                    Optional<T> result = fetchOnce(bodyReader, conditional, readFailed);
+                    upstreamHealthy = true;
+                    return result;
+                } catch (ResourceAccessException | HttpServerErrorException e) {
+                    lastError = e;
+                } catch (HttpClientErrorException e) {
+                    if (e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                        throw new TaifexClientException("TAIFEX API 回應錯誤: " + e.getStatusCode(), e);
+                    }
+                    lastError = e;
+                } catch (RuntimeException e) {
+                    // bodyReader 處理途中失敗，不重試；回應內容讀取失敗才是上游的問題
+                    upstreamHealthy = !readFailed[0];
+                    throw e;
+                }
+
+                if (attempt < maxAttempts) {
+                    long delay = backoffMillis(attempt);
+                    logger.warn("呼叫 TAIFEX API 失敗（第 {}/{} 次），{} ms 後重試: {}",
+                            attempt, maxAttempts, delay, lastError.getMessage());
+                    sleep(delay);
+                }
+            }
+            throw new TaifexClientException("呼叫 TAIFEX API 失敗，已重試 " + maxAttempts + " 次", lastError);
+        } finally {
+            if (upstreamHealthy) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> Optional<T> fetchOnce(Function<InputStream, T> bodyReader, boolean conditional, boolean[] readFailed) {
+        String eTag = conditional ? lastETag : null;
+        String modified = conditional ? lastModified : null;
+        return restTemplate.execute(apiUrl, HttpMethod.GET,
+                request -> {
+                    if (eTag != null) {
+                        request.getHeaders().set(HttpHeaders.IF_NONE_MATCH, eTag);
+                    }
+                    if (modified != null) {
+                        request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, modified);
+                    }
+                },
+                response -> {
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                        return Optional.empty();
+                    }
+                    T result = bodyReader.apply(new ReadFailureTrackingInputStream(response.getBody(), readFailed));
+                    // 處理成功才記住這份內容的標頭，處理失敗時下次仍會重新下載
+                    if (conditional) {
+                        lastETag = response.getHeaders().getETag();
+                        lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+                    }
+                    return Optional.ofNullable(result);
+                });
+    }
+
+    // 指數退避加 full jitter：0 ~ min(maxBackoff, initialBackoff * 2^(attempt-1)) 之間隨機
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // 記錄讀取回應內容時是否發生 IOException，bodyReader 可能將其包裝成其他例外
+    private static final class ReadFailureTrackingInputStream extends FilterInputStream {
+
+        private final boolean[] readFailed;
+
+        ReadFailureTrackingInputStream(InputStream in, boolean[] readFailed) {
+            super(in);
+            this.readFailed = readFailed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                readFailed[0] = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                readFailed[0] = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            try {
+                return super.skip(n);
+            } catch (IOException e) {
+                readFailed[0] = true;
+                throw e;
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaifexClientException("重試等待被中斷", e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.forex.client;
+
+//呼叫臺交所 API 失敗（重試用盡、熔斷中或不可重試的錯誤）
+public class TaifexClientException extends RuntimeException {
+
+    public TaifexClientException(String message) {
+        super(message);
+    }
+
+    public TaifexClientException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.forex.cluster;
+
+import java.time.LocalDate;
+
+// 某個節點寫入 [fromDate, toDate] 區間資料的通知
+public class ClusterChange {
+
+    private final long sequence;
+    private final String origin;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+
+    public ClusterChange(long sequence, String origin, LocalDate fromDate, LocalDate toDate) {
+        this.sequence = sequence;
+        this.origin = origin;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+    public String getOrigin() {
+        return origin;
+    }
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+    public LocalDate getToDate() {
+        return toDate;
+    }
+}
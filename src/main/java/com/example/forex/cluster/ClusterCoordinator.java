@@ -0,0 +1,182 @@
+package com.example.forex.cluster;
+
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 多個 replica 之間的協調：
+ * <ul>
+ *   <li>runIfLeader：排程工作先取得 MongoDB 中的租約，只有取得的節點執行，其他節點略過</li>
+ *   <li>本節點寫入新資料後發布異動通知（日期區間）；其他節點定期輪詢通知，
+ *       從資料庫讀回該區間並在本機發布 ExchangeRatesSavedEvent，快取與統計索引因此同步更新</li>
+ * </ul>
+ * 停用時（forex.cluster.enabled=false）視為單機部署，排程直接執行，也不發布或輪詢通知。
+ */
+@Component
+public class ClusterCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCoordinator.class);
+    private static final int POLL_BATCH = 100;
+
+    private final ClusterStore store;
+    private final ExchangeRateRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration leaseTtl;
+    private final Duration gapTimeout;
+    private final String nodeId;
+
+    // 已套用的最大連續序號，-1 表示尚未初始化
+    private long lastSequence = -1;
+    // 序號出現空洞（已配置但通知尚未寫入）的起始時間，0 表示沒有空洞
+    private long gapSince;
+
+    // 與 ExchangeRateScheduler 相同，MongoDB 相關的相依以 @Lazy 注入，在排程執行緒第一次使用時才建立
+    @Autowired
+    public ClusterCoordinator(@Lazy ClusterStore store, @Lazy ExchangeRateRepository repository,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${forex.cluster.enabled:true}") boolean enabled,
+                              @Value("${forex.cluster.lease-ttl:10m}") Duration leaseTtl,
+                              @Value("${forex.cluster.poll-interval:30s}") Duration pollInterval) {
+        this(store, repository, eventPublisher, enabled, leaseTtl, pollInterval.multipliedBy(2), defaultNodeId());
+    }
+
+    public ClusterCoordinator(ClusterStore store, ExchangeRateRepository repository,
+                              ApplicationEventPublisher eventPublisher, boolean enabled,
+                              Duration leaseTtl, Duration gapTimeout, String nodeId) {
+        this.store = store;
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.leaseTtl = leaseTtl;
+        this.gapTimeout = gapTimeout;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * 取得租約後執行 task，回傳是否有執行。
+     * 成功時不釋放租約，讓時鐘稍慢、較晚觸發同一排程的節點在租約期間內也會略過；
+     * 失敗時釋放，其他節點或下一次手動觸發可以立即重試。
+     */
+    public boolean runIfLeader(String leaseName, Runnable task) {
+        if (!enabled) {
+            task.run();
+            return true;
+        }
+        if (!store.tryAcquireLease(leaseName, nodeId, leaseTtl)) {
+            logger.info("租約 {} 由其他節點持有，本節點 {} 略過", leaseName, nodeId);
+            return false;
+        }
+        try {
+            task.run();
+            return true;
+        } catch (RuntimeException e) {
+            store.releaseLease(leaseName, nodeId);
+            throw e;
+        }
+    }
+
+    // 本節點寫入新資料後通知其他節點；由其他節點的通知重新載入的資料不再轉發
+    @EventListener
+    public void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        if (!enabled || event.isReplicated() || event.getRates().isEmpty()) {
+            return;
+        }
+        LocalDate from = event.getRates().get(0).getDate();
+        LocalDate to = from;
+        for (ExchangeRate rate : event.getRates()) {
+            from = rate.getDate().isBefore(from) ? rate.getDate() : from;
+            to = rate.getDate().isAfter(to) ? rate.getDate() : to;
+        }
+        try {
+            store.publishChange(nodeId, from, to);
+        } catch (RuntimeException e) {
+            // 資料已寫入，只是其他節點要等到重新啟動才會看到
+            logger.warn("發布資料異動通知 {} ~ {} 失敗: {}", from, to, e.getMessage());
+        }
+    }
+
+    /**
+     * 輪詢其他節點的異動通知。第一次執行只記錄目前序號：排程在快取預熱之前就開始，
+     * 之後的異動都會再套用一次（重新載入同一區間不影響結果）。
+     */
+    @Scheduled(fixedDelayString = "${forex.cluster.poll-interval:30s}")
+    public synchronized void pollChanges() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (lastSequence < 0) {
+                lastSequence = store.latestSequence();
+                return;
+            }
+            List<ClusterChange> changes;
+            do {
+                changes = store.changesSince(lastSequence, POLL_BATCH);
+                for (ClusterChange change : changes) {
+                    if (change.getSequence() != lastSequence + 1 && !gapExpired()) {
+                        // 較小的序號可能還在寫入中，下次輪詢再處理
+                        return;
+                    }
+                    gapSince = 0;
+                    if (!nodeId.equals(change.getOrigin())) {
+                        reload(change);
+                    }
+                    lastSequence = change.getSequence();
+                }
+            } while (changes.size() == POLL_BATCH);
+        } catch (RuntimeException e) {
+            logger.warn("輪詢資料異動通知失敗: {}", e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private boolean gapExpired() {
+        long now = System.nanoTime();
+        if (gapSince == 0) {
+            gapSince = now;
+        }
+        return now - gapSince >= gapTimeout.toNanos();
+    }
+
+    private void reload(ClusterChange change) {
+        List<ExchangeRate> rates = repository.findByDateGreaterThanEqualAndDateLessThanEqual(
+                change.getFromDate(), change.getToDate());
+        logger.info("節點 {} 寫入 {} ~ {}，重新載入 {} 筆", change.getOrigin(), change.getFromDate(),
+                change.getToDate(), rates.size());
+        if (!rates.isEmpty()) {
+            eventPublisher.publishEvent(new ExchangeRatesSavedEvent(rates, true));
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + ManagementFactory.getRuntimeMXBean().getPid() + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.forex.cluster;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 多個 replica 共用的協調資料：排程的租約（lease）與資料異動通知。
+ * 正式環境存在同一個 MongoDB（MongoClusterStore），測試以記憶體實作取代。
+ */
+public interface ClusterStore {
+
+    /**
+     * 取得或延長租約：租約不存在、已過期或本來就屬於 owner 時成功，原子操作。
+     */
+    boolean tryAcquireLease(String name, String owner, Duration ttl);
+
+    // 只有持有者可以釋放
+    void releaseLease(String name, String owner);
+
+    // 記錄一筆資料異動，回傳遞增的序號
+    long publishChange(String origin, LocalDate fromDate, LocalDate toDate);
+
+    // 序號大於 sequence 的異動，依序號由小到大，最多 limit 筆
+    List<ClusterChange> changesSince(long sequence, int limit);
+
+    // 目前最大的序號，沒有任何異動時回傳 0
+    long latestSequence();
+}
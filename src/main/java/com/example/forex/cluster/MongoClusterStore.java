@@ -0,0 +1,106 @@
+package com.example.forex.cluster;
+
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以 MongoDB 實作的 ClusterStore：
+ * <ul>
+ *   <li>cluster_leases：{_id: 租約名稱, owner, expiresAt}。以條件 upsert 取得租約，
+ *       他人持有且未過期時條件不成立，upsert 改為新增同 _id 文件而觸發 duplicate key，即為取得失敗</li>
+ *   <li>cluster_changes：{_id: 序號, origin, fromDate, toDate, createdAt}，序號由 cluster_counters 以 $inc 配置，
+ *       createdAt 上的 TTL 索引自動清除 7 天前的通知</li>
+ * </ul>
+ * 過期時間以各節點的時鐘計算，節點間時鐘誤差須遠小於租約長度。
+ */
+@Component
+public class MongoClusterStore implements ClusterStore {
+
+    private static final String LEASES = "cluster_leases";
+    private static final String COUNTERS = "cluster_counters";
+    private static final String CHANGES = "cluster_changes";
+    private static final Duration CHANGE_RETENTION = Duration.ofDays(7);
+
+    private final MongoTemplate mongoTemplate;
+    private volatile boolean indexesEnsured;
+
+    public MongoClusterStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean tryAcquireLease(String name, String owner, Duration ttl) {
+        Instant now = Instant.now();
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").is(name),
+                new Criteria().orOperator(Criteria.where("owner").is(owner), Criteria.where("expiresAt").lt(Date.from(now)))));
+        Update update = new Update().set("owner", owner).set("expiresAt", Date.from(now.plus(ttl)));
+        try {
+            mongoTemplate.upsert(query, update, LEASES);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void releaseLease(String name, String owner) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(name).and("owner").is(owner)), LEASES);
+    }
+
+    @Override
+    public long publishChange(String origin, LocalDate fromDate, LocalDate toDate) {
+        ensureIndexes();
+        Document counter = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(CHANGES)),
+                new Update().inc("seq", 1L), FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, COUNTERS);
+        long sequence = ((Number) counter.get("seq")).longValue();
+        mongoTemplate.insert(new Document("_id", sequence)
+                .append("origin", origin)
+                .append("fromDate", fromDate.toString())
+                .append("toDate", toDate.toString())
+                .append("createdAt", new Date()), CHANGES);
+        return sequence;
+    }
+
+    @Override
+    public List<ClusterChange> changesSince(long sequence, int limit) {
+        Query query = new Query(Criteria.where("_id").gt(sequence)).with(Sort.by("_id")).limit(limit);
+        List<ClusterChange> changes = new ArrayList<>();
+        for (Document document : mongoTemplate.find(query, Document.class, CHANGES)) {
+            changes.add(new ClusterChange(((Number) document.get("_id")).longValue(), document.getString("origin"),
+                    LocalDate.parse(document.getString("fromDate")), LocalDate.parse(document.getString("toDate"))));
+        }
+        return changes;
+    }
+
+    @Override
+    public long latestSequence() {
+        Document counter = mongoTemplate.findOne(new Query(Criteria.where("_id").is(CHANGES)), Document.class, COUNTERS);
+        return counter == null ? 0 : ((Number) counter.get("seq")).longValue();
+    }
+
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        mongoTemplate.indexOps(CHANGES).ensureIndex(new Index().on("createdAt", Sort.Direction.ASC)
+                .expire(CHANGE_RETENTION.toSeconds(), TimeUnit.SECONDS));
+        indexesEnsured = true;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.forex.config;
+
+import com.example.forex.format.ExchangeRateSeriesBinaryConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // 查詢端點的二進位格式（application/vnd.forex.binary）
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ExchangeRateSeriesBinaryConverter());
+    }
+}
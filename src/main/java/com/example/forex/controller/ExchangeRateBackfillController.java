@@ -0,0 +1,35 @@
+package com.example.forex.controller;
+
+import com.example.forex.dto.BackfillRequest;
+import com.example.forex.dto.BackfillResponse;
+import com.example.forex.service.ExchangeRateBackfillService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/exchangeRates")
+public class ExchangeRateBackfillController {
+
+    private final ExchangeRateBackfillService backfillService;
+
+    public ExchangeRateBackfillController(ExchangeRateBackfillService backfillService) {
+        this.backfillService = backfillService;
+    }
+
+    // 同步執行，回傳時回補已完成（或部分失敗）
+    @PostMapping("/backfill")
+    public ResponseEntity<BackfillResponse> backfill(@RequestBody BackfillRequest request) {
+        BackfillResponse response = backfillService.backfill(request);
+        return switch (response.getError().getCode()) {
+            case "0000" -> ResponseEntity.ok(response);
+            case "E008" -> ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            case "E009" -> ResponseEntity.internalServerError().body(response);
+            default -> ResponseEntity.badRequest().body(response);
+        };
+    }
+}
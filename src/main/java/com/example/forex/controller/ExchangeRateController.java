@@ -1,22 +1,42 @@
 package com.example.forex.controller;
 
+import com.example.forex.dto.BatchQueryRequest;
+import com.example.forex.dto.BatchQueryResponse;
+import com.example.forex.dto.CacheStatsResponse;
 import com.example.forex.dto.ExchangeRateQueryRequest;
 import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.dto.ExchangeRateSeries;
+import com.example.forex.format.SeriesMediaTypes;
 import com.example.forex.service.ExchangeRateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/exchangeRates")
 public class ExchangeRateController {
 
     private final ExchangeRateService exchangeRateService;
+    private final CacheControl settledCacheControl;
+    private final CacheControl recentCacheControl;
 
     @Autowired
-    public ExchangeRateController(ExchangeRateService exchangeRateService) {
+    public ExchangeRateController(ExchangeRateService exchangeRateService,
+                                  @Value("${forex.http.settled-max-age:30d}") Duration settledMaxAge,
+                                  @Value("${forex.http.recent-max-age:5m}") Duration recentMaxAge) {
         this.exchangeRateService = exchangeRateService;
+        this.settledCacheControl = CacheControl.maxAge(settledMaxAge).cachePublic();
+        this.recentCacheControl = CacheControl.maxAge(recentMaxAge).cachePublic();
     }
 
     @GetMapping ("/fetch")
@@ -32,4 +52,158 @@ public class ExchangeRateController {
         }
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * 欄位式 JSON 或二進位格式的查詢，依 Accept 選擇（見 SeriesMediaTypes）。
+     * 未要求這兩種格式的請求仍由上面的 queryExchangeRates 以一般 JSON 回應。
+     */
+    @PostMapping(value = "/query", produces = {SeriesMediaTypes.COLUMNAR_JSON_VALUE, SeriesMediaTypes.BINARY_VALUE})
+    public ResponseEntity<ExchangeRateSeries> querySeries(
+            @RequestBody ExchangeRateQueryRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ExchangeRateSeries series = exchangeRateService.querySeries(request);
+        if (!"0000".equals(series.getError().getCode())) {
+            return seriesError(series);
+        }
+        return ResponseEntity.ok().contentType(seriesMediaType(accept)).body(series);
+    }
+
+    /**
+     * 可快取的查詢：條件放在 query string，回應帶 ETag 與 Cache-Control。
+     * If-None-Match 與目前版本相同時直接回 304，不查詢資料也不序列化。
+     * 結束日早於最新資料日期的區間使用較長的 max-age。
+     */
+    @GetMapping("/query")
+    public ResponseEntity<ExchangeRateQueryResponse> queryExchangeRates(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String currency,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ExchangeRateQueryRequest request = queryRequest(startDate, endDate, currency);
+        String eTag = eTag(request, "");
+        CacheControl cacheControl = cacheControl(request);
+        if (eTag != null && matches(ifNoneMatch, eTag)) {
+            return notModified(eTag, cacheControl);
+        }
+
+        ExchangeRateQueryResponse response = exchangeRateService.queryExchangeRates(request);
+        if (!"0000".equals(response.getError().getCode())) {
+            return ResponseEntity.badRequest().cacheControl(CacheControl.noStore()).body(response);
+        }
+        return cacheable(eTag, cacheControl).body(response);
+    }
+
+    // GET 版本的欄位式 JSON / 二進位查詢，快取規則與一般 JSON 相同，各格式使用不同的 ETag
+    @GetMapping(value = "/query", produces = {SeriesMediaTypes.COLUMNAR_JSON_VALUE, SeriesMediaTypes.BINARY_VALUE})
+    public ResponseEntity<ExchangeRateSeries> querySeries(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String currency,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ExchangeRateQueryRequest request = queryRequest(startDate, endDate, currency);
+        MediaType mediaType = seriesMediaType(accept);
+        String eTag = eTag(request, mediaType == SeriesMediaTypes.BINARY ? "-bin" : "-col");
+        CacheControl cacheControl = cacheControl(request);
+        if (eTag != null && matches(ifNoneMatch, eTag)) {
+            return notModified(eTag, cacheControl);
+        }
+
+        ExchangeRateSeries series = exchangeRateService.querySeries(request);
+        if (!"0000".equals(series.getError().getCode())) {
+            return seriesError(series);
+        }
+        return cacheable(eTag, cacheControl).contentType(mediaType).body(series);
+    }
+
+    /**
+     * 批次查詢多個區間：區間本身的錯誤放在各自的結果中，整批仍回 200；
+     * 只有區間數為 0 或超過上限時回 400。
+     */
+    @PostMapping("/query/batch")
+    public ResponseEntity<BatchQueryResponse> queryBatch(@RequestBody BatchQueryRequest request) {
+        BatchQueryResponse response = exchangeRateService.queryBatch(request);
+        if (!"0000".equals(response.getError().getCode())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsResponse> getCacheStats() {
+        return ResponseEntity.ok(exchangeRateService.getCacheStats());
+    }
+
+    private static ExchangeRateQueryRequest queryRequest(String startDate, String endDate, String currency) {
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setCurrency(currency);
+        return request;
+    }
+
+    // 版本必須在查詢前取得：查詢期間若有新資料寫入，回應內容只會比 ETag 新，下次驗證時會重新下載
+    // 不合法的請求沒有 ETag（null），不做 If-None-Match 比對，由查詢回 400
+    private String eTag(ExchangeRateQueryRequest request, String variant) {
+        String version = exchangeRateService.queryVersion(request);
+        return version == null ? null : "\"" + version + variant + "\"";
+    }
+
+    private CacheControl cacheControl(ExchangeRateQueryRequest request) {
+        return exchangeRateService.isSettledRange(request) ? settledCacheControl : recentCacheControl;
+    }
+
+    // 同一網址依 Accept 回傳不同格式，共用快取必須以 Accept 區分
+    private static <T> ResponseEntity<T> notModified(String eTag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    private static ResponseEntity.BodyBuilder cacheable(String eTag, CacheControl cacheControl) {
+        if (eTag == null) {
+            // 快取尚未預熱，無法判斷版本
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).varyBy(HttpHeaders.ACCEPT);
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    // 錯誤一律以欄位式 JSON（只含 error，與一般 JSON 的錯誤結構相同）回傳，二進位格式沒有錯誤訊息的位置
+    private static ResponseEntity<ExchangeRateSeries> seriesError(ExchangeRateSeries series) {
+        return ResponseEntity.badRequest().cacheControl(CacheControl.noStore())
+                .contentType(SeriesMediaTypes.COLUMNAR_JSON).body(series);
+    }
+
+    // 依 Accept 的品質值與明確程度選擇格式，兩者都可接受（例如 */*）時使用欄位式 JSON
+    private static MediaType seriesMediaType(String accept) {
+        if (accept != null) {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType mediaType : accepted) {
+                if (mediaType.isCompatibleWith(SeriesMediaTypes.COLUMNAR_JSON)) {
+                    return SeriesMediaTypes.COLUMNAR_JSON;
+                }
+                if (mediaType.isCompatibleWith(SeriesMediaTypes.BINARY)) {
+                    return SeriesMediaTypes.BINARY;
+                }
+            }
+        }
+        return SeriesMediaTypes.COLUMNAR_JSON;
+    }
+
+    // If-None-Match 使用弱比較：忽略 W/ 前綴，支援多個 ETag 與 *
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.forex.controller;
+
+import com.example.forex.dto.ConversionRequest;
+import com.example.forex.dto.ConversionResponse;
+import com.example.forex.service.CurrencyConversionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/exchangeRates")
+public class ExchangeRateConversionController {
+
+    private final CurrencyConversionService conversionService;
+
+    public ExchangeRateConversionController(CurrencyConversionService conversionService) {
+        this.conversionService = conversionService;
+    }
+
+    @PostMapping("/convert")
+    public ResponseEntity<ConversionResponse> convert(@RequestBody ConversionRequest request) {
+        ConversionResponse response = conversionService.convert(request);
+        if (!"0000".equals(response.getError().getCode())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.forex.controller;
+
+import com.example.forex.dto.ExchangeRateHistoryRequest;
+import com.example.forex.dto.ExchangeRateHistoryResponse;
+import com.example.forex.service.ExchangeRateHistoryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/exchangeRates")
+public class ExchangeRateHistoryController {
+
+    private final ExchangeRateHistoryService historyService;
+
+    public ExchangeRateHistoryController(ExchangeRateHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    @PostMapping("/history")
+    public ResponseEntity<ExchangeRateHistoryResponse> queryHistory(@RequestBody ExchangeRateHistoryRequest request) {
+        ExchangeRateHistoryResponse response = historyService.queryHistory(request);
+        if (!"0000".equals(response.getError().getCode())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.forex.controller;
+
+import com.example.forex.dto.ExchangeRateStatsRequest;
+import com.example.forex.dto.ExchangeRateStatsResponse;
+import com.example.forex.service.ExchangeRateStatsService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+
+@RestController
+@RequestMapping("/api/exchangeRates")
+public class ExchangeRateStatsController {
+
+    private final ExchangeRateStatsService statsService;
+
+    public ExchangeRateStatsController(ExchangeRateStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @PostMapping("/stats")
+    public ResponseEntity<ExchangeRateStatsResponse> queryStats(@RequestBody ExchangeRateStatsRequest request) {
+        ExchangeRateStatsResponse response = statsService.queryStats(request);
+        return switch (response.getError().getCode()) {
+            case "0000" -> ResponseEntity.ok(response);
+            // 統計索引尚在建立（啟動後 MongoDB 尚未就緒），稍後重試即可
+            case "E015" -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            default -> ResponseEntity.badRequest().body(response);
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.forex.controller;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.push.RateEventBroadcaster;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+
+@RestController
+@RequestMapping("/api/exchangeRates")
+public class ExchangeRateStreamController {
+
+    private final RateEventBroadcaster broadcaster;
+
+    public ExchangeRateStreamController(RateEventBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * 訂閱新匯率（text/event-stream），currency 與查詢 API 相同可用逗號分隔，未指定時為美元，all 為全部幣別。
+     * 每筆 rate 事件為 {"date":"20250324","currency":"usd","rate":"31.01"}；
+     * 收到 resync 事件表示有事件遺漏，應改以查詢 API 重新取得資料。
+     */
+    @GetMapping("/stream")
+    public SseEmitter stream(@RequestParam(required = false) String currency,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = broadcaster.subscribe(parseCurrencies(currency), lastEventId);
+        if (emitter == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "訂閱數已達上限");
+        }
+        return emitter;
+    }
+
+    private static Set<CurrencyPair> parseCurrencies(String currency) {
+        if (currency == null || currency.isBlank()) {
+            return EnumSet.of(CurrencyPair.USD);
+        }
+        if ("all".equalsIgnoreCase(currency.trim())) {
+            return EnumSet.allOf(CurrencyPair.class);
+        }
+        Set<CurrencyPair> pairs = EnumSet.noneOf(CurrencyPair.class);
+        for (String name : currency.split(",")) {
+            CurrencyPair pair = CurrencyPair.fromName(name);
+            if (pair == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支援的幣別");
+            }
+            pairs.add(pair);
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.forex.conversion;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.model.CurrencyCode;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.util.FixedPoint;
+import com.example.forex.util.FixedWidthFormat;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * 單一日期的交叉匯率表：rate(from, to) 為 1 單位 from 可換得的 to，放大 10^RATE_SCALE 倍。
+ * <p>
+ * 建立時以 BigDecimal 將各幣別換算成美元價值（台幣與人民幣優先使用對台幣的報價），
+ * 再兩兩相除後捨入成整數；換算時只做一次 128 位元乘除，不再產生 BigDecimal。
+ * 建立後不再變動，可由多個執行緒共用。
+ */
+public final class CrossRateMatrix {
+
+    // 交叉匯率小數位數：來源報價只有 4 位小數，9 位足以保留日圓等小額幣別的有效位數
+    public static final int RATE_SCALE = 9;
+    public static final long MISSING = ExchangeRateCache.MISSING;
+
+    private static final int COUNT = CurrencyCode.values().length;
+    private static final MathContext CONTEXT = MathContext.DECIMAL128;
+
+    // 沒有任何報價時使用，所有幣別組合皆無法推算
+    public static final CrossRateMatrix EMPTY = new CrossRateMatrix(0, filled(MISSING));
+
+    private final int epochDay;
+    private final String dateText;
+    private final long[] rates;       // [from * COUNT + to]，無法推算為 MISSING
+    private final String[] rateTexts; // 與 rates 對應的字串，回傳時共用
+
+    private CrossRateMatrix(int epochDay, long[] rates) {
+        this.epochDay = epochDay;
+        this.dateText = FixedWidthFormat.formatDate(epochDay);
+        this.rates = rates;
+        this.rateTexts = new String[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            if (rates[i] != MISSING) {
+                rateTexts[i] = FixedWidthFormat.formatScaled(rates[i], RATE_SCALE, RATE_SCALE);
+            }
+        }
+    }
+
+    /**
+     * 以某日的報價建立交叉匯率表，scaledRates 依 CurrencyPair ordinal 排列，
+     * 值為放大 10^ExchangeRateCache.RATE_SCALE 的匯率，無資料為 MISSING。
+     */
+    public static CrossRateMatrix of(int epochDay, long[] scaledRates) {
+        BigDecimal[] usdValues = new BigDecimal[COUNT];
+        usdValues[CurrencyCode.USD.ordinal()] = BigDecimal.ONE;
+        BigDecimal usdNtd = quote(scaledRates, CurrencyPair.USD);
+        BigDecimal rmbNtd = quote(scaledRates, CurrencyPair.RMB);
+        if (usdNtd != null) {
+            usdValues[CurrencyCode.NTD.ordinal()] = inverse(usdNtd);
+        }
+        if (usdNtd != null && rmbNtd != null) {
+            usdValues[CurrencyCode.RMB.ordinal()] = rmbNtd.divide(usdNtd, CONTEXT);
+        } else {
+            usdValues[CurrencyCode.RMB.ordinal()] = inverse(quote(scaledRates, CurrencyPair.USD_RMB));
+        }
+        usdValues[CurrencyCode.EUR.ordinal()] = quote(scaledRates, CurrencyPair.EUR_USD);
+        usdValues[CurrencyCode.GBP.ordinal()] = quote(scaledRates, CurrencyPair.GBP_USD);
+        usdValues[CurrencyCode.AUD.ordinal()] = quote(scaledRates, CurrencyPair.AUD_USD);
+        usdValues[CurrencyCode.NZD.ordinal()] = quote(scaledRates, CurrencyPair.NZD_USD);
+        usdValues[CurrencyCode.JPY.ordinal()] = inverse(quote(scaledRates, CurrencyPair.USD_JPY));
+        usdValues[CurrencyCode.HKD.ordinal()] = inverse(quote(scaledRates, CurrencyPair.USD_HKD));
+        usdValues[CurrencyCode.ZAR.ordinal()] = inverse(quote(scaledRates, CurrencyPair.USD_ZAR));
+
+        long[] rates = new long[COUNT * COUNT];
+        for (int from = 0; from < COUNT; from++) {
+            for (int to = 0; to < COUNT; to++) {
+                if (usdValues[from] == null || usdValues[to] == null) {
+                    rates[from * COUNT + to] = MISSING;
+                } else if (from == to) {
+                    rates[from * COUNT + to] = FixedPoint.pow10(RATE_SCALE);
+                } else {
+                    rates[from * COUNT + to] = crossRate(usdValues[from], usdValues[to]);
+                }
+            }
+        }
+        return new CrossRateMatrix(epochDay, rates);
+    }
+
+    // 實際使用的報價日期（可能早於查詢日期）
+    public int epochDay() {
+        return epochDay;
+    }
+
+    // yyyyMMdd
+    public String dateText() {
+        return dateText;
+    }
+
+    // 無法推算（當日缺少相關報價）時回傳 MISSING
+    public long rate(CurrencyCode from, CurrencyCode to) {
+        return rates[from.ordinal() * COUNT + to.ordinal()];
+    }
+
+    // 無法推算時回傳 null
+    public String rateText(CurrencyCode from, CurrencyCode to) {
+        return rateTexts[from.ordinal() * COUNT + to.ordinal()];
+    }
+
+    /**
+     * 換算金額：amount 與結果皆為放大 10^scale 的整數，以 HALF_UP 捨入；
+     * 無法推算時回傳 MISSING，結果超出 long 時丟出 ArithmeticException。
+     */
+    public long convert(long amount, CurrencyCode from, CurrencyCode to) {
+        long rate = rate(from, to);
+        return rate == MISSING ? MISSING : FixedPoint.multiplyDivide(amount, rate, FixedPoint.pow10(RATE_SCALE));
+    }
+
+    private static BigDecimal quote(long[] scaledRates, CurrencyPair pair) {
+        long scaled = scaledRates[pair.ordinal()];
+        return scaled == MISSING || scaled <= 0 ? null : ExchangeRateCache.fromScaled(scaled);
+    }
+
+    // 異常報價使交叉匯率超出 long 時視為無法推算
+    private static long crossRate(BigDecimal from, BigDecimal to) {
+        BigInteger rate = from.divide(to, CONTEXT).setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue();
+        return rate.bitLength() < Long.SIZE ? rate.longValue() : MISSING;
+    }
+
+    private static long[] filled(long value) {
+        long[] values = new long[COUNT * COUNT];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private static BigDecimal inverse(BigDecimal value) {
+        return value == null ? null : BigDecimal.ONE.divide(value, CONTEXT);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.forex.dto;
+//回補歷史資料的條件
+public class BackfillRequest {
+    private String startDate; // 格式：yyyy/MM/dd
+    private String endDate;   // 格式：yyyy/MM/dd
+    private String source;    // "archive"（本機歷史檔，預設）或 "api"
+    private Integer chunkDays; // 每個區段的天數，未指定時使用 forex.backfill.chunk-days
+
+    public String getStartDate() {
+        return startDate;
+    }
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+    public String getEndDate() {
+        return endDate;
+    }
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+    public String getSource() {
+        return source;
+    }
+    public void setSource(String source) {
+        this.source = source;
+    }
+    public Integer getChunkDays() {
+        return chunkDays;
+    }
+    public void setChunkDays(Integer chunkDays) {
+        this.chunkDays = chunkDays;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.forex.dto;
+//回補結果：區段數（含從進度檔續傳略過的）與匯入筆數
+public class BackfillResponse {
+    private ExchangeRateQueryResponse.ErrorInfo error;
+    private int chunks;
+    private int resumedChunks; // 先前已完成、本次略過的區段
+    private int failedChunks;  // 失敗的區段，重新執行時會再處理
+    private long inserted;
+    private long skipped;
+    private long failed;
+    private long elapsedMillis;
+
+    public ExchangeRateQueryResponse.ErrorInfo getError() {
+        return error;
+    }
+    public void setError(ExchangeRateQueryResponse.ErrorInfo error) {
+        this.error = error;
+    }
+    public int getChunks() {
+        return chunks;
+    }
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+    public int getResumedChunks() {
+        return resumedChunks;
+    }
+    public void setResumedChunks(int resumedChunks) {
+        this.resumedChunks = resumedChunks;
+    }
+    public int getFailedChunks() {
+        return failedChunks;
+    }
+    public void setFailedChunks(int failedChunks) {
+        this.failedChunks = failedChunks;
+    }
+    public long getInserted() {
+        return inserted;
+    }
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+    public long getSkipped() {
+        return skipped;
+    }
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+    public long getFailed() {
+        return failed;
+    }
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
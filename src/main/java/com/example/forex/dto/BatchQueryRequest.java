@@ -0,0 +1,15 @@
+package com.example.forex.dto;
+
+import java.util.List;
+
+//批次查詢：多個區間的查詢條件，每個區間與單筆查詢的格式相同
+public class BatchQueryRequest {
+    private List<ExchangeRateQueryRequest> queries;
+
+    public List<ExchangeRateQueryRequest> getQueries() {
+        return queries;
+    }
+    public void setQueries(List<ExchangeRateQueryRequest> queries) {
+        this.queries = queries;
+    }
+}
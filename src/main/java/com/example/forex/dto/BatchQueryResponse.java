@@ -0,0 +1,30 @@
+package com.example.forex.dto;
+
+import java.util.List;
+
+//批次查詢結果：results 依請求中區間的順序排列，各自帶有自己的錯誤代碼
+public class BatchQueryResponse {
+    private ExchangeRateQueryResponse.ErrorInfo error;
+    private List<ExchangeRateQueryResponse> results;
+
+    public BatchQueryResponse() {
+    }
+
+    public BatchQueryResponse(ExchangeRateQueryResponse.ErrorInfo error, List<ExchangeRateQueryResponse> results) {
+        this.error = error;
+        this.results = results;
+    }
+
+    public ExchangeRateQueryResponse.ErrorInfo getError() {
+        return error;
+    }
+    public void setError(ExchangeRateQueryResponse.ErrorInfo error) {
+        this.error = error;
+    }
+    public List<ExchangeRateQueryResponse> getResults() {
+        return results;
+    }
+    public void setResults(List<ExchangeRateQueryResponse> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.forex.dto;
+//匯率快取的命中統計，回傳給前端監控用
+public class CacheStatsResponse {
+
+    private boolean warmed;
+    private int size;            // 快取中的日期筆數
+    private String coveredFrom;  // 快取涵蓋的起始日期，格式：yyyyMMdd
+    private long hits;
+    private long misses;
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+    public void setWarmed(boolean warmed) {
+        this.warmed = warmed;
+    }
+    public int getSize() {
+        return size;
+    }
+    public void setSize(int size) {
+        this.size = size;
+    }
+    public String getCoveredFrom() {
+        return coveredFrom;
+    }
+    public void setCoveredFrom(String coveredFrom) {
+        this.coveredFrom = coveredFrom;
+    }
+    public long getHits() {
+        return hits;
+    }
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+    public long getMisses() {
+        return misses;
+    }
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.forex.dto;
+
+import java.util.List;
+
+//匯率換算：一次可換算多筆金額，每筆各自指定幣別與日期
+public class ConversionRequest {
+    private List<Conversion> conversions;
+
+    public List<Conversion> getConversions() {
+        return conversions;
+    }
+    public void setConversions(List<Conversion> conversions) {
+        this.conversions = conversions;
+    }
+
+    //單筆換算條件，例如 {"amount":"1000","from":"jpy","to":"eur","date":"2025/03/21"}
+    public static class Conversion {
+        private String amount; // 金額，最多 4 位小數（超過的部分四捨五入）
+        private String from;   // 原幣別
+        private String to;     // 目標幣別
+        private String date;   // 格式：yyyy/MM/dd，非交易日使用之前最近一個交易日的匯率
+
+        public Conversion() {
+        }
+
+        public Conversion(String amount, String from, String to, String date) {
+            this.amount = amount;
+            this.from = from;
+            this.to = to;
+            this.date = date;
+        }
+
+        public String getAmount() {
+            return amount;
+        }
+        public void setAmount(String amount) {
+            this.amount = amount;
+        }
+        public String getFrom() {
+            return from;
+        }
+        public void setFrom(String from) {
+            this.from = from;
+        }
+        public String getTo() {
+            return to;
+        }
+        public void setTo(String to) {
+            this.to = to;
+        }
+        public String getDate() {
+            return date;
+        }
+        public void setDate(String date) {
+            this.date = date;
+        }
+    }
+}
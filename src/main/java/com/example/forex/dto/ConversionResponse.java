@@ -0,0 +1,123 @@
+package com.example.forex.dto;
+
+import com.example.forex.util.FixedWidthFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+//匯率換算結果：results 依請求中的順序排列，各自帶有自己的錯誤代碼
+public class ConversionResponse {
+    private ExchangeRateQueryResponse.ErrorInfo error;
+    private List<Result> results;
+
+    public ConversionResponse() {
+    }
+
+    public ConversionResponse(ExchangeRateQueryResponse.ErrorInfo error, List<Result> results) {
+        this.error = error;
+        this.results = results;
+    }
+
+    public ExchangeRateQueryResponse.ErrorInfo getError() {
+        return error;
+    }
+    public void setError(ExchangeRateQueryResponse.ErrorInfo error) {
+        this.error = error;
+    }
+    public List<Result> getResults() {
+        return results;
+    }
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+
+    //單筆換算結果，成功時例如 {"code":"0000","amount":"6.1234","rate":"0.006123400","rateDate":"20250321"}
+    //失敗時只有 code 與 message
+    //換算後金額以放大 10^4 的整數保存，序列化時才格式化，換算時每筆只建立這一個物件
+    @JsonSerialize(using = Result.Serializer.class)
+    public static class Result {
+        public static final int AMOUNT_SCALE = 4; // 換算後金額的小數位數
+
+        private String code;
+        private String message;
+        private String amount;       // 換算後金額，4 位小數
+        private long scaledAmount;   // amount 為 null 時使用
+        private String rate;     // 使用的交叉匯率（1 單位原幣別可換得的目標幣別），9 位小數
+        private String rateDate; // 匯率實際日期，格式：yyyyMMdd
+
+        public Result() {
+        }
+
+        public Result(String code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
+        public Result(long scaledAmount, String rate, String rateDate) {
+            this.code = "0000";
+            this.scaledAmount = scaledAmount;
+            this.rate = rate;
+            this.rateDate = rateDate;
+        }
+
+        public String getCode() {
+            return code;
+        }
+        public void setCode(String code) {
+            this.code = code;
+        }
+        public String getMessage() {
+            return message;
+        }
+        public void setMessage(String message) {
+            this.message = message;
+        }
+        public String getAmount() {
+            if (amount == null && rate != null) {
+                return FixedWidthFormat.formatScaled(scaledAmount, AMOUNT_SCALE, AMOUNT_SCALE);
+            }
+            return amount;
+        }
+        public void setAmount(String amount) {
+            this.amount = amount;
+        }
+        public String getRate() {
+            return rate;
+        }
+        public void setRate(String rate) {
+            this.rate = rate;
+        }
+        public String getRateDate() {
+            return rateDate;
+        }
+        public void setRateDate(String rateDate) {
+            this.rateDate = rateDate;
+        }
+
+        static class Serializer extends StdSerializer<Result> {
+            Serializer() {
+                super(Result.class);
+            }
+
+            @Override
+            public void serialize(Result result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                gen.writeStringField("code", result.code);
+                if (result.message != null) {
+                    gen.writeStringField("message", result.message);
+                }
+                String amount = result.getAmount();
+                if (amount != null) {
+                    gen.writeStringField("amount", amount);
+                    gen.writeStringField("rate", result.rate);
+                    gen.writeStringField("rateDate", result.rateDate);
+                }
+                gen.writeEndObject();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.forex.dto;
+
+//接收前端傳進來的長期走勢查詢條件，區間不限 1 年
+public class ExchangeRateHistoryRequest {
+    private String startDate; // 格式：yyyy/MM/dd，例如 "2015/01/01"
+    private String endDate;   // 格式：yyyy/MM/dd，例如 "2025/03/26"
+    private String currency;  // 單一幣別，例如 "usd"
+    private String interval;  // day / week / month，未指定時為 day
+
+    public String getStartDate() {
+        return startDate;
+    }
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+    public String getEndDate() {
+        return endDate;
+    }
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+    public String getCurrency() {
+        return currency;
+    }
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    public String getInterval() {
+        return interval;
+    }
+    public void setInterval(String interval) {
+        this.interval = interval;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.forex.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+//長期走勢查詢結果：依日期排序，週、月為 OHLC 彙總，日資料只有 close
+public class ExchangeRateHistoryResponse {
+
+    private ExchangeRateQueryResponse.ErrorInfo error;
+    private String currency;
+    private String interval;
+    private List<Point> points;
+
+    public ExchangeRateQueryResponse.ErrorInfo getError() {
+        return error;
+    }
+    public void setError(ExchangeRateQueryResponse.ErrorInfo error) {
+        this.error = error;
+    }
+    public String getCurrency() {
+        return currency;
+    }
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    public String getInterval() {
+        return interval;
+    }
+    public void setInterval(String interval) {
+        this.interval = interval;
+    }
+    public List<Point> getPoints() {
+        return points;
+    }
+    public void setPoints(List<Point> points) {
+        this.points = points;
+    }
+
+    //單一資料點，例如 {"date":"20250301","open":"30.51","high":"31.02","low":"30.44","close":"30.98"}
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Point {
+        private String date; // 格式：yyyyMMdd，週、月為期間第一天
+        private String open;
+        private String high;
+        private String low;
+        private String close;
+
+        public Point() {
+        }
+
+        public Point(String date, String open, String high, String low, String close) {
+            this.date = date;
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+        }
+
+        public String getDate() {
+            return date;
+        }
+        public void setDate(String date) {
+            this.date = date;
+        }
+        public String getOpen() {
+            return open;
+        }
+        public void setOpen(String open) {
+            this.open = open;
+        }
+        public String getHigh() {
+            return high;
+        }
+        public void setHigh(String high) {
+            this.high = high;
+        }
+        public String getLow() {
+            return low;
+        }
+        public void setLow(String low) {
+            this.low = low;
+        }
+        public String getClose() {
+            return close;
+        }
+        public void setClose(String close) {
+            this.close = close;
+        }
+    }
+}
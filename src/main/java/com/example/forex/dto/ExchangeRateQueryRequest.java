@@ -3,7 +3,7 @@ package com.example.forex.dto;
 public class ExchangeRateQueryRequest {
     private String startDate; // 格式：yyyy/MM/dd，例如 "2025/03/24"
     private String endDate;   // 格式：yyyy/MM/dd，例如 "2025/03/26"
-    private String currency;  // 例如 "usd"
+    private String currency;  // 例如 "usd"，多個幣別以逗號分隔，例如 "usd,rmb,usd_jpy"
 
     public String getStartDate() {
         return startDate;
@@ -1,6 +1,17 @@
 package com.example.forex.dto;
 
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 //查完資料以後，組成一個格式，回傳給前端
 public class ExchangeRateQueryResponse {
 
@@ -25,6 +36,14 @@ public class ExchangeRateQueryResponse {
         private String code;
         private String message;
 
+        public ErrorInfo() {
+        }
+
+        public ErrorInfo(String code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
         public String getCode() {
             return code;
         }
@@ -39,10 +58,25 @@ public class ExchangeRateQueryResponse {
         }
     }
 
-    // 回傳結果中的幣別資料
+    // 回傳結果中的幣別資料，每個查詢幣別一個欄位，例如 {"date":"20250324","usd":"31.01","rmb":"4.5312"}
+    // 幣別以兩個平行陣列保存，序列化時直接寫出欄位，不另外建立 Map
+    @JsonSerialize(using = CurrencyInfo.Serializer.class)
     public static class CurrencyInfo {
+        private static final String[] EMPTY = new String[0];
+
         private String date; // 格式：yyyyMMdd
-        private String usd;  // 例如 "31.01"
+        private String[] codes = EMPTY;  // 幣別代碼
+        private String[] values = EMPTY; // 對應匯率
+        private int size;
+
+        public CurrencyInfo() {
+        }
+
+        // 預先指定幣別數量，避免陣列擴充
+        public CurrencyInfo(int capacity) {
+            this.codes = new String[capacity];
+            this.values = new String[capacity];
+        }
 
         public String getDate() {
             return date;
@@ -50,11 +84,60 @@ public class ExchangeRateQueryResponse {
         public void setDate(String date) {
             this.date = date;
         }
+        @JsonIgnore
+        public Map<String, String> getRates() {
+            Map<String, String> rates = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                rates.put(codes[i], values[i]);
+            }
+            return rates;
+        }
+        @JsonIgnore
+        public boolean hasRates() {
+            return size > 0;
+        }
+        @JsonAnySetter
+        public void setRate(String currency, String rate) {
+            for (int i = 0; i < size; i++) {
+                if (codes[i].equals(currency)) {
+                    values[i] = rate;
+                    return;
+                }
+            }
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size + 1);
+                values = Arrays.copyOf(values, size + 1);
+            }
+            codes[size] = currency;
+            values[size++] = rate;
+        }
+        @JsonIgnore
         public String getUsd() {
-            return usd;
+            for (int i = 0; i < size; i++) {
+                if ("usd".equals(codes[i])) {
+                    return values[i];
+                }
+            }
+            return null;
         }
         public void setUsd(String usd) {
-            this.usd = usd;
+            setRate("usd", usd);
+        }
+
+        static class Serializer extends StdSerializer<CurrencyInfo> {
+            Serializer() {
+                super(CurrencyInfo.class);
+            }
+
+            @Override
+            public void serialize(CurrencyInfo info, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                gen.writeStringField("date", info.date);
+                for (int i = 0; i < info.size; i++) {
+                    gen.writeStringField(info.codes[i], info.values[i]);
+                }
+                gen.writeEndObject();
+            }
         }
     }
 }
@@ -0,0 +1,125 @@
+package com.example.forex.dto;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.util.FixedWidthFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 查詢結果的欄位式（columnar）表示：日期一條 int 陣列，每個幣別一條平行的 long 陣列（匯率放大 10^RATE_SCALE）。
+ * 供大量資料的用戶端使用，JSON 輸出為
+ * {"error":{...},"dates":[20250324,...],"rates":{"usd":[31.01,...],"rmb":[4.5312,...]}}，
+ * 二進位輸出見 ExchangeRateSeriesBinaryConverter。
+ */
+@JsonSerialize(using = ExchangeRateSeries.ColumnarSerializer.class)
+public class ExchangeRateSeries {
+
+    public static final int RATE_SCALE = 4;
+    // 當日該幣別無資料
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private ExchangeRateQueryResponse.ErrorInfo error;
+    private final CurrencyPair[] pairs;
+    private int[] epochDays;
+    private long[][] rates; // rates[幣別 index][列]
+    private int size;
+
+    // 錯誤結果，不含資料
+    public ExchangeRateSeries(ExchangeRateQueryResponse.ErrorInfo error) {
+        this(List.of(), 0);
+        this.error = error;
+    }
+
+    public ExchangeRateSeries(List<CurrencyPair> pairs, int capacity) {
+        this.pairs = pairs.toArray(new CurrencyPair[0]);
+        this.epochDays = new int[capacity];
+        this.rates = new long[this.pairs.length][capacity];
+    }
+
+    // 加入一列，scaledRates 依 pairs 順序，呼叫端可重複使用同一個陣列
+    public void addRow(int epochDay, long[] scaledRates) {
+        if (size == epochDays.length) {
+            int capacity = Math.max(16, size * 2);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            for (int p = 0; p < pairs.length; p++) {
+                rates[p] = Arrays.copyOf(rates[p], capacity);
+            }
+        }
+        epochDays[size] = epochDay;
+        for (int p = 0; p < pairs.length; p++) {
+            rates[p][size] = scaledRates[p];
+        }
+        size++;
+    }
+
+    public ExchangeRateQueryResponse.ErrorInfo getError() {
+        return error;
+    }
+    public void setError(ExchangeRateQueryResponse.ErrorInfo error) {
+        this.error = error;
+    }
+    public int getPairCount() {
+        return pairs.length;
+    }
+    public CurrencyPair getPair(int index) {
+        return pairs[index];
+    }
+    public int size() {
+        return size;
+    }
+    public int epochDay(int row) {
+        return epochDays[row];
+    }
+    // 沒有資料時回傳 MISSING
+    public long scaledRate(int pairIndex, int row) {
+        return rates[pairIndex][row];
+    }
+
+    static class ColumnarSerializer extends StdSerializer<ExchangeRateSeries> {
+        ColumnarSerializer() {
+            super(ExchangeRateSeries.class);
+        }
+
+        @Override
+        public void serialize(ExchangeRateSeries series, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            if (series.error != null) {
+                gen.writeObjectFieldStart("error");
+                gen.writeStringField("code", series.error.getCode());
+                gen.writeStringField("message", series.error.getMessage());
+                gen.writeEndObject();
+            }
+            if (series.pairs.length > 0) {
+                // 日期以 yyyyMMdd 整數輸出
+                gen.writeArrayFieldStart("dates");
+                for (int row = 0; row < series.size; row++) {
+                    gen.writeNumber(FixedWidthFormat.dateNumber(series.epochDays[row]));
+                }
+                gen.writeEndArray();
+                // 匯率以數字輸出，小數位數與一般查詢相同（CurrencyPair.displayScale），無資料為 null
+                gen.writeObjectFieldStart("rates");
+                for (int p = 0; p < series.pairs.length; p++) {
+                    CurrencyPair pair = series.pairs[p];
+                    gen.writeArrayFieldStart(pair.getCode());
+                    long[] values = series.rates[p];
+                    for (int row = 0; row < series.size; row++) {
+                        if (values[row] == MISSING) {
+                            gen.writeNull();
+                        } else {
+                            gen.writeNumber(FixedWidthFormat.formatScaled(values[row], RATE_SCALE, pair.getDisplayScale()));
+                        }
+                    }
+                    gen.writeEndArray();
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+}
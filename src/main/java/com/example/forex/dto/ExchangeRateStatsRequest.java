@@ -0,0 +1,36 @@
+package com.example.forex.dto;
+
+import java.util.List;
+//接收前端傳進來的統計查詢條件
+public class ExchangeRateStatsRequest {
+    private String startDate;     // 格式：yyyy/MM/dd，例如 "2025/01/02"
+    private String endDate;       // 格式：yyyy/MM/dd，例如 "2025/03/26"
+    private String currency;      // 單一幣別，例如 "usd"
+    private List<Integer> windows; // 移動平均視窗天數，例如 [5, 20]，未指定時使用預設的 EMA 視窗
+
+    public String getStartDate() {
+        return startDate;
+    }
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+    public String getEndDate() {
+        return endDate;
+    }
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+    public String getCurrency() {
+        return currency;
+    }
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    public List<Integer> getWindows() {
+        return windows;
+    }
+    public void setWindows(List<Integer> windows) {
+        this.windows = windows;
+    }
+}
+//DTO（Data Transfer Object）用來在不同系統、不同層之間傳遞資料
@@ -0,0 +1,79 @@
+package com.example.forex.dto;
+
+import java.util.Map;
+//統計查詢結果：區間極值、平均、日報酬率標準差，以及結束日的 SMA / EMA
+public class ExchangeRateStatsResponse {
+
+    private ExchangeRateQueryResponse.ErrorInfo error;
+    private String currency;
+    private String lastDate;          // 區間內最後一個有資料的日期，格式：yyyyMMdd，SMA / EMA 以此日計算
+    private int count;                // 區間內資料筆數
+    private String min;
+    private String max;
+    private String mean;
+    private String returnStdDev;      // 日報酬率樣本標準差
+    private Map<String, String> sma;  // key 為視窗天數
+    private Map<String, String> ema;
+
+    public ExchangeRateQueryResponse.ErrorInfo getError() {
+        return error;
+    }
+    public void setError(ExchangeRateQueryResponse.ErrorInfo error) {
+        this.error = error;
+    }
+    public String getCurrency() {
+        return currency;
+    }
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+    public String getLastDate() {
+        return lastDate;
+    }
+    public void setLastDate(String lastDate) {
+        this.lastDate = lastDate;
+    }
+    public int getCount() {
+        return count;
+    }
+    public void setCount(int count) {
+        this.count = count;
+    }
+    public String getMin() {
+        return min;
+    }
+    public void setMin(String min) {
+        this.min = min;
+    }
+    public String getMax() {
+        return max;
+    }
+    public void setMax(String max) {
+        this.max = max;
+    }
+    public String getMean() {
+        return mean;
+    }
+    public void setMean(String mean) {
+        this.mean = mean;
+    }
+    public String getReturnStdDev() {
+        return returnStdDev;
+    }
+    public void setReturnStdDev(String returnStdDev) {
+        this.returnStdDev = returnStdDev;
+    }
+    public Map<String, String> getSma() {
+        return sma;
+    }
+    public void setSma(Map<String, String> sma) {
+        this.sma = sma;
+    }
+    public Map<String, String> getEma() {
+        return ema;
+    }
+    public void setEma(Map<String, String> ema) {
+        this.ema = ema;
+    }
+}
+//DTO（Data Transfer Object）用來在不同系統、不同層之間傳遞資料
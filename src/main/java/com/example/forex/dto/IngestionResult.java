@@ -0,0 +1,59 @@
+package com.example.forex.dto;
+//匯入結果統計：新增、更正、略過（已存在且內容相同）、失敗筆數
+public class IngestionResult {
+
+    private long inserted;
+    private long updated;
+    private long skipped;
+    private long failed;
+
+    public IngestionResult() {
+    }
+
+    public IngestionResult(long inserted, long skipped, long failed) {
+        this(inserted, 0, skipped, failed);
+    }
+
+    public IngestionResult(long inserted, long updated, long skipped, long failed) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.skipped = skipped;
+        this.failed = failed;
+    }
+
+    // 合併另一批次的統計結果
+    public IngestionResult plus(IngestionResult other) {
+        return new IngestionResult(inserted + other.inserted, updated + other.updated,
+                skipped + other.skipped, failed + other.failed);
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+    public long getUpdated() {
+        return updated;
+    }
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+    public long getSkipped() {
+        return skipped;
+    }
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+    public long getFailed() {
+        return failed;
+    }
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    @Override
+    public String toString() {
+        return "inserted=" + inserted + ", updated=" + updated + ", skipped=" + skipped + ", failed=" + failed;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.forex.event;
+
+import com.example.forex.model.ExchangeRate;
+
+import java.util.List;
+
+//匯入流程寫入新資料後發布的事件，供快取等元件同步更新
+public class ExchangeRatesSavedEvent {
+
+    private final List<ExchangeRate> rates;
+    // 由其他節點寫入、本節點依異動通知重新載入的資料
+    private final boolean replicated;
+    // 回補歷史資料寫入的區段，不是新發布的匯率
+    private final boolean backfill;
+
+    public ExchangeRatesSavedEvent(List<ExchangeRate> rates) {
+        this(rates, false);
+    }
+
+    public ExchangeRatesSavedEvent(List<ExchangeRate> rates, boolean replicated) {
+        this(rates, replicated, false);
+    }
+
+    public ExchangeRatesSavedEvent(List<ExchangeRate> rates, boolean replicated, boolean backfill) {
+        this.rates = rates;
+        this.replicated = replicated;
+        this.backfill = backfill;
+    }
+
+    public List<ExchangeRate> getRates() {
+        return rates;
+    }
+
+    public boolean isReplicated() {
+        return replicated;
+    }
+
+    public boolean isBackfill() {
+        return backfill;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.forex.format;
+
+import com.example.forex.dto.ExchangeRateSeries;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ExchangeRateSeries 的固定寬度二進位格式（application/vnd.forex.binary），全部為 little-endian：
+ * <pre>
+ * 標頭    : "FXR1"（4 bytes）| int32 列數 | uint8 幣別數 | uint8 匯率小數位數（4）
+ * 幣別    : 每個幣別 uint8 長度 + ASCII 代碼（例如 3 "usd"）
+ * 資料列  : int32 epoch-day | 每個幣別一個 int64 放大後匯率（無資料為 Long.MIN_VALUE）
+ * </pre>
+ * 每列長度固定為 4 + 8 * 幣別數，用戶端可直接以偏移量讀取，不需要解析文字。
+ * 只用於成功的結果，錯誤結果由 controller 改以 JSON 回傳。
+ */
+public class ExchangeRateSeriesBinaryConverter extends AbstractHttpMessageConverter<ExchangeRateSeries> {
+
+    private static final byte[] MAGIC = {'F', 'X', 'R', '1'};
+
+    public ExchangeRateSeriesBinaryConverter() {
+        super(SeriesMediaTypes.BINARY);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ExchangeRateSeries.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ExchangeRateSeries readInternal(Class<? extends ExchangeRateSeries> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支援讀取二進位匯率資料", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(ExchangeRateSeries series, MediaType contentType) {
+        return (long) encodedLength(series);
+    }
+
+    @Override
+    protected void writeInternal(ExchangeRateSeries series, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(encode(series));
+    }
+
+    public static byte[] encode(ExchangeRateSeries series) {
+        int pairCount = series.getPairCount();
+        ByteBuffer buffer = ByteBuffer.allocate(encodedLength(series)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC);
+        buffer.putInt(series.size());
+        buffer.put((byte) pairCount);
+        buffer.put((byte) ExchangeRateSeries.RATE_SCALE);
+        for (int p = 0; p < pairCount; p++) {
+            byte[] code = series.getPair(p).getCode().getBytes(StandardCharsets.US_ASCII);
+            buffer.put((byte) code.length);
+            buffer.put(code);
+        }
+        for (int row = 0; row < series.size(); row++) {
+            buffer.putInt(series.epochDay(row));
+            for (int p = 0; p < pairCount; p++) {
+                buffer.putLong(series.scaledRate(p, row));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static int encodedLength(ExchangeRateSeries series) {
+        int length = MAGIC.length + 4 + 1 + 1;
+        for (int p = 0; p < series.getPairCount(); p++) {
+            length += 1 + series.getPair(p).getCode().length();
+        }
+        return length + series.size() * (4 + 8 * series.getPairCount());
+    }
+}
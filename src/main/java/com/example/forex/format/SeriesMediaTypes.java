@@ -0,0 +1,18 @@
+package com.example.forex.format;
+
+import org.springframework.http.MediaType;
+
+// 查詢端點可協商的精簡格式
+public final class SeriesMediaTypes {
+
+    // 欄位式 JSON：dates[] 與每個幣別一條 rates[]
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.forex.columnar+json";
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+
+    // 固定寬度 little-endian 二進位，格式見 ExchangeRateSeriesBinaryConverter
+    public static final String BINARY_VALUE = "application/vnd.forex.binary";
+    public static final MediaType BINARY = MediaType.parseMediaType(BINARY_VALUE);
+
+    private SeriesMediaTypes() {
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.forex.metrics;
+
+import com.example.forex.dto.IngestionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 匯入與查詢各階段的 Micrometer 指標，透過 /actuator/prometheus 輸出：
+ * <ul>
+ *     <li>forex.fetch.http：呼叫 TAIFEX API 到收到回應標頭的時間（含重試），outcome=success/not_modified/unchanged/error</li>
+ *     <li>forex.fetch.payload：回應內容位元組數</li>
+ *     <li>forex.fetch.coalesced：抓取進行中又被觸發、直接共用進行中結果的次數</li>
+ *     <li>forex.ingest.parse：串流解析時間（不含寫入資料庫）</li>
+ *     <li>forex.ingest.write：每批 bulk upsert 寫入 MongoDB 的時間</li>
+ *     <li>forex.ingest.rows：result=inserted/updated/skipped/failed 筆數（updated 為更正既有日期的筆數）</li>
+ *     <li>forex.query：queryExchangeRates 延遲分布，依回傳代碼 code 與查詢天數 range 分組</li>
+ * </ul>
+ * 所有 Meter 在建構時就註冊好，查詢路徑上只做陣列取值，不再查找或配置 Meter。
+ */
+@Component
+public class ExchangeRateMetrics {
+
+    // 回傳代碼與查詢天數分組都是固定集合，避免 tag 數量無限成長
+    private static final String[] QUERY_CODES = {"0000", "E001", "E002", "E003", "E004"};
+    private static final int[] RANGE_LIMITS = {7, 31, 92, 366};
+    private static final String[] RANGE_TAGS = {"le_7d", "le_31d", "le_92d", "le_366d", "gt_366d", "none"};
+
+    private final Timer fetchSuccess;
+    private final Timer fetchNotModified;
+    private final Timer fetchUnchanged;
+    private final Timer fetchError;
+    private final DistributionSummary payloadBytes;
+    private final Counter coalescedFetches;
+    private final Timer parseTimer;
+    private final Timer writeTimer;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    private final Counter skippedRows;
+    private final Counter failedRows;
+    private final Timer[][] queryTimers = new Timer[QUERY_CODES.length + 1][RANGE_TAGS.length];
+
+    public ExchangeRateMetrics(MeterRegistry registry) {
+        fetchSuccess = fetchTimer(registry, "success");
+        fetchNotModified = fetchTimer(registry, "not_modified");
+        fetchUnchanged = fetchTimer(registry, "unchanged");
+        fetchError = fetchTimer(registry, "error");
+        payloadBytes = DistributionSummary.builder("forex.fetch.payload")
+                .description("TAIFEX API 回應內容大小")
+                .baseUnit("bytes")
+                .register(registry);
+        coalescedFetches = Counter.builder("forex.fetch.coalesced")
+                .description("抓取進行中再次觸發、共用進行中結果的次數")
+                .register(registry);
+        parseTimer = Timer.builder("forex.ingest.parse")
+                .description("匯率資料串流解析時間（不含寫入）")
+                .register(registry);
+        writeTimer = Timer.builder("forex.ingest.write")
+                .description("每批匯率資料 bulk upsert 寫入 MongoDB 的時間")
+                .publishPercentileHistogram()
+                .register(registry);
+        insertedRows = rowCounter(registry, "inserted");
+        updatedRows = rowCounter(registry, "updated");
+        skippedRows = rowCounter(registry, "skipped");
+        failedRows = rowCounter(registry, "failed");
+        for (int c = 0; c <= QUERY_CODES.length; c++) {
+            String code = c < QUERY_CODES.length ? QUERY_CODES[c] : "other";
+            for (int r = 0; r < RANGE_TAGS.length; r++) {
+                queryTimers[c][r] = Timer.builder("forex.query")
+                        .description("queryExchangeRates 延遲")
+                        .tag("code", code)
+                        .tag("range", RANGE_TAGS[r])
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(10))
+                        .register(registry);
+            }
+        }
+    }
+
+    public void recordFetch(String outcome, long nanos) {
+        Timer timer = switch (outcome) {
+            case "success" -> fetchSuccess;
+            case "not_modified" -> fetchNotModified;
+            case "unchanged" -> fetchUnchanged;
+            default -> fetchError;
+        };
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPayload(long bytes) {
+        payloadBytes.record(bytes);
+    }
+
+    public void recordCoalesced() {
+        coalescedFetches.increment();
+    }
+
+    public void recordParse(long nanos) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWrite(long nanos) {
+        writeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRows(IngestionResult result) {
+        insertedRows.increment(result.getInserted());
+        updatedRows.increment(result.getUpdated());
+        skippedRows.increment(result.getSkipped());
+        failedRows.increment(result.getFailed());
+    }
+
+    // startDate / endDate 無法解析或順序相反時歸在 range=none
+    public void recordQuery(String code, LocalDate startDate, LocalDate endDate, long nanos) {
+        queryTimers[codeIndex(code)][rangeIndex(startDate, endDate)].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static int codeIndex(String code) {
+        for (int i = 0; i < QUERY_CODES.length; i++) {
+            if (QUERY_CODES[i].equals(code)) {
+                return i;
+            }
+        }
+        return QUERY_CODES.length;
+    }
+
+    private static int rangeIndex(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            return RANGE_TAGS.length - 1;
+        }
+        long days = endDate.toEpochDay() - startDate.toEpochDay() + 1;
+        for (int i = 0; i < RANGE_LIMITS.length; i++) {
+            if (days <= RANGE_LIMITS[i]) {
+                return i;
+            }
+        }
+        return RANGE_LIMITS.length;
+    }
+
+    private static Timer fetchTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("forex.fetch.http")
+                .description("呼叫 TAIFEX API 到收到回應標頭的時間（含重試）")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter rowCounter(MeterRegistry registry, String result) {
+        return Counter.builder("forex.ingest.rows")
+                .description("匯入的匯率筆數")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.forex.model;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+//匯率換算支援的單一幣別，交叉匯率由 CurrencyPair 的報價經台幣或美元推算
+public enum CurrencyCode {
+
+    NTD("ntd", "twd"), // 新台幣
+    USD("usd"),        // 美元
+    RMB("rmb", "cny"), // 人民幣
+    EUR("eur"),        // 歐元
+    JPY("jpy"),        // 日圓
+    GBP("gbp"),        // 英鎊
+    AUD("aud"),        // 澳幣
+    HKD("hkd"),        // 港幣
+    ZAR("zar"),        // 南非幣
+    NZD("nzd");        // 紐幣
+
+    private static final Map<String, CurrencyCode> BY_NAME = new HashMap<>();
+
+    static {
+        for (CurrencyCode currency : values()) {
+            for (String name : currency.names) {
+                BY_NAME.put(name, currency);
+            }
+        }
+    }
+
+    private final String code;
+    private final String[] names; // 可接受的名稱，第一個為代碼
+
+    CurrencyCode(String... names) {
+        this.code = names[0];
+        this.names = names;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    // 依名稱查找，例如 "jpy"、"TWD"，不分大小寫，找不到回傳 null
+    public static CurrencyCode fromName(String name) {
+        return name == null ? null : BY_NAME.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+}
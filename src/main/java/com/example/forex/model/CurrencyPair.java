@@ -0,0 +1,71 @@
+package com.example.forex.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//臺交所 DailyForeignExchangeRates 提供的幣別組合
+// 本機匯率檔（LocalRateStore）以宣告順序記錄幣別，新增幣別只能加在最後
+public enum CurrencyPair {
+
+    USD("usd", "USD/NTD", 2),         // 美元對台幣（沿用原本回傳小數 2 位）
+    RMB("rmb", "RMB/NTD", 4),         // 人民幣對台幣
+    EUR_USD("eur_usd", "EUR/USD", 4), // 歐元對美元
+    USD_JPY("usd_jpy", "USD/JPY", 4), // 美元對日圓
+    GBP_USD("gbp_usd", "GBP/USD", 4), // 英鎊對美元
+    AUD_USD("aud_usd", "AUD/USD", 4), // 澳幣對美元
+    USD_HKD("usd_hkd", "USD/HKD", 4), // 美元對港幣
+    USD_RMB("usd_rmb", "USD/RMB", 4), // 美元對人民幣
+    USD_ZAR("usd_zar", "USD/ZAR", 4), // 美元對南非幣
+    NZD_USD("nzd_usd", "NZD/USD", 4); // 紐幣對美元
+
+    private static final Map<String, CurrencyPair> BY_FEED_KEY = new HashMap<>();
+    private static final Map<String, CurrencyPair> BY_NAME = new HashMap<>();
+
+    static {
+        for (CurrencyPair pair : values()) {
+            BY_FEED_KEY.put(pair.feedKey, pair);
+            BY_NAME.put(pair.code, pair);
+            BY_NAME.put(pair.feedKey.toLowerCase(Locale.ROOT), pair);
+        }
+    }
+
+    private final String code;    // 查詢參數、回傳欄位與 MongoDB 欄位名稱
+    private final String feedKey; // API 回傳的欄位名稱
+    private final int displayScale; // 查詢結果回傳的小數位數
+    private final List<CurrencyPair> singleton = List.of(this); // 單一幣別查詢共用的清單
+
+    CurrencyPair(String code, String feedKey, int displayScale) {
+        this.code = code;
+        this.feedKey = feedKey;
+        this.displayScale = displayScale;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getFeedKey() {
+        return feedKey;
+    }
+
+    public int getDisplayScale() {
+        return displayScale;
+    }
+
+    // 只含此幣別的不可變清單
+    public List<CurrencyPair> asList() {
+        return singleton;
+    }
+
+    // 依 API 欄位名稱查找，例如 "USD/NTD"，找不到回傳 null
+    public static CurrencyPair fromFeedKey(String feedKey) {
+        return BY_FEED_KEY.get(feedKey);
+    }
+
+    // 依查詢參數查找，接受代碼（"usd"、"eur_usd"）或幣別組合（"EUR/USD"），不分大小寫，找不到回傳 null
+    public static CurrencyPair fromName(String name) {
+        return name == null ? null : BY_NAME.get(name.trim().toLowerCase(Locale.ROOT));
+    }
+}
@@ -1,25 +1,32 @@
 package com.example.forex.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+//每個日期一筆文件，所有幣別的匯率存在同一筆的 rates 欄位中
 @Document(collection = "exchange_rate")
 public class ExchangeRate {
 
     @Id
     private String id;
-    private LocalDate date;       // 儲存日期
-    private BigDecimal usd;  // 美元對台幣匯率
+    @Indexed(unique = true)
+    private LocalDate date;       // 儲存日期（唯一）
+    private Map<String, BigDecimal> rates = new LinkedHashMap<>(); // key 為 CurrencyPair 代碼，例如 "usd"
+    private BigDecimal usd;  // 舊版文件的美元對台幣匯率，新資料改存於 rates
+    private long revision;   // 第一次寫入為 1，每次更正加 1；舊版文件沒有此欄位（0）
 
     public ExchangeRate() {
     }
 
     public ExchangeRate(LocalDate date, BigDecimal usd) {
         this.date = date;
-        this.usd = usd;
+        setRate(CurrencyPair.USD, usd);
     }
 
     // Getter & Setter
@@ -37,10 +44,65 @@ public class ExchangeRate {
         this.date = date;
     }
 
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+    public void setRates(Map<String, BigDecimal> rates) {
+        this.rates = rates;
+    }
+
+    // 取得指定幣別匯率，沒有資料時回傳 null
+    public BigDecimal getRate(CurrencyPair pair) {
+        BigDecimal rate = rates == null ? null : rates.get(pair.getCode());
+        if (rate == null && pair == CurrencyPair.USD) {
+            return usd;
+        }
+        return rate;
+    }
+    public void setRate(CurrencyPair pair, BigDecimal rate) {
+        if (rates == null) {
+            rates = new LinkedHashMap<>();
+        }
+        rates.put(pair.getCode(), rate);
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    // incoming 的每個幣別在這筆資料中都有相同的匯率（只比較數值，32.1 與 32.10 視為相同）
+    public boolean covers(ExchangeRate incoming) {
+        for (CurrencyPair pair : CurrencyPair.values()) {
+            BigDecimal value = incoming.getRate(pair);
+            BigDecimal current = getRate(pair);
+            if (value != null && (current == null || current.compareTo(value) != 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 以 incoming 更正後的內容：incoming 有的幣別覆寫，沒有的幣別保留原值，版本加 1
+    public ExchangeRate correctedBy(ExchangeRate incoming) {
+        ExchangeRate corrected = new ExchangeRate();
+        corrected.setDate(date);
+        for (CurrencyPair pair : CurrencyPair.values()) {
+            BigDecimal value = incoming.getRate(pair) != null ? incoming.getRate(pair) : getRate(pair);
+            if (value != null) {
+                corrected.setRate(pair, value);
+            }
+        }
+        corrected.setRevision(revision + 1);
+        return corrected;
+    }
+
     public BigDecimal getUsd() {
-        return usd;
+        return getRate(CurrencyPair.USD);
     }
     public void setUsd(BigDecimal usd) {
-        this.usd = usd;
+        setRate(CurrencyPair.USD, usd);
     }
 }
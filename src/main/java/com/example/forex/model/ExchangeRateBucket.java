@@ -0,0 +1,150 @@
+package com.example.forex.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//封存的歷史匯率：每個月份一筆文件，dates 與 rates.<幣別> 為依日期排序的平行陣列
+// 超出熱資料視窗的每日文件由 ExchangeRateArchiveService 併入，十年約 120 筆文件
+@Document(collection = "exchange_rate_monthly")
+public class ExchangeRateBucket {
+
+    @Id
+    private String id;          // 月份，格式：yyyy-MM（字串排序即時間順序）
+    private List<LocalDate> dates = new ArrayList<>();
+    private Map<String, List<BigDecimal>> rates = new LinkedHashMap<>(); // key 為 CurrencyPair 代碼，無資料為 null
+
+    public ExchangeRateBucket() {
+    }
+
+    // 以該月份的每日資料建立封存文件
+    public static ExchangeRateBucket of(YearMonth month, Collection<ExchangeRate> daily) {
+        ExchangeRateBucket bucket = new ExchangeRateBucket();
+        bucket.id = month.toString();
+        return bucket.merge(daily);
+    }
+
+    /**
+     * 熱資料視窗的起點：此日（含）之後的資料一定還在每日文件中。
+     * 以月份為單位封存，取 today - hotDays 所在月份的第一天。
+     */
+    public static LocalDate archiveCutoff(LocalDate today, int hotDays) {
+        return today.minusDays(hotDays).withDayOfMonth(1);
+    }
+
+    /**
+     * 合併兩個依日期排序的結果，同日期以 hot（每日文件）為準。
+     * 封存過程中每日文件刪除前兩邊會短暫同時存在。
+     */
+    public static List<ExchangeRate> combine(List<ExchangeRate> archived, List<ExchangeRate> hot) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        if (hot.isEmpty()) {
+            return archived;
+        }
+        List<ExchangeRate> merged = new ArrayList<>(archived.size() + hot.size());
+        int i = 0;
+        int j = 0;
+        while (i < archived.size() || j < hot.size()) {
+            if (j == hot.size()) {
+                merged.add(archived.get(i++));
+                continue;
+            }
+            if (i == archived.size()) {
+                merged.add(hot.get(j++));
+                continue;
+            }
+            int compare = archived.get(i).getDate().compareTo(hot.get(j).getDate());
+            if (compare < 0) {
+                merged.add(archived.get(i++));
+            } else {
+                if (compare == 0) {
+                    i++;
+                }
+                merged.add(hot.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    // 以新的每日資料更新，同日期以新資料為準，回傳自身
+    public ExchangeRateBucket merge(Collection<ExchangeRate> daily) {
+        TreeMap<LocalDate, ExchangeRate> byDate = new TreeMap<>();
+        for (ExchangeRate rate : toRates(LocalDate.MIN, LocalDate.MAX, List.of(CurrencyPair.values()))) {
+            byDate.put(rate.getDate(), rate);
+        }
+        for (ExchangeRate rate : daily) {
+            byDate.put(rate.getDate(), rate);
+        }
+        List<LocalDate> mergedDates = new ArrayList<>(byDate.keySet());
+        Map<String, List<BigDecimal>> mergedRates = new LinkedHashMap<>();
+        for (CurrencyPair pair : CurrencyPair.values()) {
+            List<BigDecimal> values = new ArrayList<>(mergedDates.size());
+            boolean any = false;
+            for (ExchangeRate rate : byDate.values()) {
+                BigDecimal value = rate.getRate(pair);
+                values.add(value);
+                any |= value != null;
+            }
+            if (any) {
+                mergedRates.put(pair.getCode(), values);
+            }
+        }
+        this.dates = mergedDates;
+        this.rates = mergedRates;
+        return this;
+    }
+
+    // 取出 [startDate, endDate] 之間的每日資料，只含所查幣別
+    public List<ExchangeRate> toRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+        List<ExchangeRate> result = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i++) {
+            LocalDate date = dates.get(i);
+            if (date.isBefore(startDate) || date.isAfter(endDate)) {
+                continue;
+            }
+            ExchangeRate rate = new ExchangeRate();
+            rate.setDate(date);
+            for (CurrencyPair pair : pairs) {
+                List<BigDecimal> values = rates == null ? null : rates.get(pair.getCode());
+                if (values != null && values.get(i) != null) {
+                    rate.setRate(pair, values.get(i));
+                }
+            }
+            result.add(rate);
+        }
+        return result;
+    }
+
+    // Getter & Setter
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<LocalDate> getDates() {
+        return dates;
+    }
+    public void setDates(List<LocalDate> dates) {
+        this.dates = dates;
+    }
+
+    public Map<String, List<BigDecimal>> getRates() {
+        return rates;
+    }
+    public void setRates(Map<String, List<BigDecimal>> rates) {
+        this.rates = rates;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.forex.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//每週、每月的 OHLC 彙總，匯入時隨每日資料更新，長期走勢圖直接讀取，不需展開每日資料
+@Document(collection = "exchange_rate_rollup")
+public class ExchangeRateRollup {
+
+    @Id
+    private String id;          // 期間代碼加起始日，例如 "month-2024-03-01"（同期間字串排序即時間順序）
+    private String period;      // RollupPeriod 代碼
+    private LocalDate start;    // 期間第一天
+    private LocalDate lastDate; // 期間內最後一個有資料的日期
+    private Map<String, Ohlc> rates = new LinkedHashMap<>(); // key 為 CurrencyPair 代碼
+
+    public static String id(RollupPeriod period, LocalDate start) {
+        return period.getCode() + "-" + start;
+    }
+
+    /**
+     * 以期間內依日期排序的每日資料計算彙總，沒有資料時回傳 null。
+     */
+    public static ExchangeRateRollup of(RollupPeriod period, LocalDate start, List<ExchangeRate> daily) {
+        if (daily.isEmpty()) {
+            return null;
+        }
+        ExchangeRateRollup rollup = new ExchangeRateRollup();
+        rollup.id = id(period, start);
+        rollup.period = period.getCode();
+        rollup.start = start;
+        rollup.lastDate = daily.get(daily.size() - 1).getDate();
+        for (CurrencyPair pair : CurrencyPair.values()) {
+            Ohlc ohlc = null;
+            for (ExchangeRate rate : daily) {
+                BigDecimal value = rate.getRate(pair);
+                if (value == null) {
+                    continue;
+                }
+                if (ohlc == null) {
+                    ohlc = new Ohlc(value, value, value, value);
+                } else {
+                    ohlc.high = ohlc.high.max(value);
+                    ohlc.low = ohlc.low.min(value);
+                    ohlc.close = value;
+                }
+            }
+            if (ohlc != null) {
+                rollup.rates.put(pair.getCode(), ohlc);
+            }
+        }
+        return rollup;
+    }
+
+    // 取得指定幣別的彙總，沒有資料時回傳 null
+    public Ohlc getRate(CurrencyPair pair) {
+        return rates == null ? null : rates.get(pair.getCode());
+    }
+
+    // Getter & Setter
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+    public void setStart(LocalDate start) {
+        this.start = start;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+    public void setLastDate(LocalDate lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public Map<String, Ohlc> getRates() {
+        return rates;
+    }
+    public void setRates(Map<String, Ohlc> rates) {
+        this.rates = rates;
+    }
+
+    //期間內第一筆、最高、最低與最後一筆匯率
+    public static class Ohlc {
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+
+        public Ohlc() {
+        }
+
+        public Ohlc(BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close) {
+            this.open = open;
+            this.high = high;
+            this.low = low;
+            this.close = close;
+        }
+
+        public BigDecimal getOpen() {
+            return open;
+        }
+        public void setOpen(BigDecimal open) {
+            this.open = open;
+        }
+        public BigDecimal getHigh() {
+            return high;
+        }
+        public void setHigh(BigDecimal high) {
+            this.high = high;
+        }
+        public BigDecimal getLow() {
+            return low;
+        }
+        public void setLow(BigDecimal low) {
+            this.low = low;
+        }
+        public BigDecimal getClose() {
+            return close;
+        }
+        public void setClose(BigDecimal close) {
+            this.close = close;
+        }
+    }
+}
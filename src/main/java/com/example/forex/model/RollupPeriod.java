@@ -0,0 +1,47 @@
+package com.example.forex.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+//預先彙總（OHLC）的期間：週以星期一為起點，月以 1 日為起點
+public enum RollupPeriod {
+
+    WEEK("week"),
+    MONTH("month");
+
+    private final String code;
+
+    RollupPeriod(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    // 日期所屬期間的第一天
+    public LocalDate start(LocalDate date) {
+        return this == WEEK ? date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : date.withDayOfMonth(1);
+    }
+
+    // 期間的最後一天（含）
+    public LocalDate end(LocalDate start) {
+        return this == WEEK ? start.plusDays(6) : start.with(TemporalAdjusters.lastDayOfMonth());
+    }
+
+    // 依代碼查找，例如 "week"，不分大小寫，找不到回傳 null
+    public static RollupPeriod fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (RollupPeriod period : values()) {
+            if (period.code.equals(normalized)) {
+                return period;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.forex.push;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.util.FixedWidthFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 新匯率的 Server-Sent Events 推播。
+ * <ul>
+ *   <li>只推播最新交易日：每次寫入取其中最新的日期（不早於已推播的最新日期，當日的更正也會再推播一次），
+ *       每個幣別一筆事件；回補歷史資料與較早日期的重新載入、更正不推播</li>
+ *   <li>事件內容在發布時序列化一次，所有訂閱者共用同一個字串；分送到各訂閱者的緩衝區由 dispatcher 執行緒處理，
+ *       不佔用寫入資料的執行緒</li>
+ *   <li>連線使用 Servlet 非同步請求（SseEmitter），不佔用請求執行緒；由少量 sender 執行緒輪流處理各訂閱者的緩衝區，
+ *       每次寫出交給 writer 執行緒並最多等待 send-timeout，逾時（半開或不讀取的連線）即關閉該訂閱者，
+ *       sender 繼續服務其他訂閱者；卡住的寫出只佔用 writer 執行緒，直到連線被容器關閉</li>
+ *   <li>每個訂閱者有固定大小的緩衝區，寫不完（客戶端太慢）時清空緩衝、送出 resync 事件並關閉連線，
+ *       不影響其他訂閱者，也不讓記憶體隨慢速客戶端成長</li>
+ *   <li>保留最近的事件，EventSource 重新連線時依 Last-Event-ID 補送；已超出保留範圍則送出 resync，
+ *       客戶端應改以查詢 API 重新取得資料</li>
+ *   <li>事件 id 為「啟動代號-序號」，序號只在同一個程序內連續；Last-Event-ID 來自其他 replica、
+ *       重新啟動前或尚未發布的序號時無法判斷漏了哪些事件，一律送出 resync</li>
+ * </ul>
+ * 由其他節點寫入、依異動通知重新載入的最新交易日也會推播，連到任何一個 replica 都能收到。
+ */
+@Component
+public class RateEventBroadcaster implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateEventBroadcaster.class);
+    static final String RATE_EVENT = "rate";
+    static final String RESYNC_EVENT = "resync";
+    // 佇列中的控制訊號
+    private static final Object HEARTBEAT = new Object();
+    private static final Object RESYNC = new Object();
+
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final int replaySize;
+    private final long timeoutMillis;
+    private final long sendTimeoutMillis;
+    private final ExecutorService senders;
+    // 實際呼叫 SseEmitter.send 的執行緒，閒置後回收
+    private final ExecutorService writers;
+    // 依事件順序分送到各訂閱者的緩衝區
+    private final ExecutorService dispatcher;
+    // 本程序的啟動代號，作為事件 id 的前綴
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong(1L << 40, 1L << 50), 36);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // 最近發布的事件，發布與訂閱時的補送都在 this 鎖內進行，避免事件遺漏或重複
+    private final ArrayDeque<RateEvent> recent = new ArrayDeque<>();
+    private long nextId = 1;
+    // 已推播的最新日期（epoch day）
+    private long latestDay = Long.MIN_VALUE;
+
+    public RateEventBroadcaster(@Value("${forex.stream.buffer-size:64}") int bufferSize,
+                                @Value("${forex.stream.max-subscribers:10000}") int maxSubscribers,
+                                @Value("${forex.stream.replay-size:1024}") int replaySize,
+                                @Value("${forex.stream.timeout:30m}") Duration timeout,
+                                @Value("${forex.stream.senders:2}") int senders,
+                                @Value("${forex.stream.send-timeout:10s}") Duration sendTimeout) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.replaySize = replaySize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutMillis = sendTimeout.toMillis();
+        AtomicInteger threadId = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senders), runnable -> {
+            Thread thread = new Thread(runnable, "rate-event-sender-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger writerId = new AtomicInteger();
+        this.writers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "rate-event-writer-" + writerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-event-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 建立訂閱，訂閱數已達上限時回傳 null。
+     * lastEventId 為 EventSource 重新連線時帶的 Last-Event-ID，沒有時為 null。
+     */
+    public SseEmitter subscribe(Set<CurrencyPair> pairs, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = register(pairs, lastEventId, new EventSink() {
+            @Override
+            public void send(SseEmitter.SseEventBuilder event) throws IOException {
+                emitter.send(event);
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        if (subscriber == null) {
+            return null;
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        return emitter;
+    }
+
+    synchronized Subscriber register(Set<CurrencyPair> pairs, String lastEventId, EventSink sink) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(pairs, sink, nextId - 1);
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            long lastId = parseSequence(lastEventId);
+            long oldest = recent.isEmpty() ? nextId : recent.peekFirst().id;
+            if (lastId <= 0 || lastId >= nextId || lastId + 1 < oldest) {
+                subscriber.enqueue(RESYNC);
+            } else {
+                subscriber.lastOffered = lastId;
+                for (RateEvent event : recent) {
+                    subscriber.offer(event);
+                }
+            }
+        }
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return subscriber;
+    }
+
+    @EventListener
+    public void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        if (event.isBackfill()) {
+            return;
+        }
+        ExchangeRate latest = event.getRates().stream().max(Comparator.comparing(ExchangeRate::getDate)).orElse(null);
+        if (latest == null) {
+            return;
+        }
+        List<RateEvent> published = new ArrayList<>();
+        synchronized (this) {
+            long day = latest.getDate().toEpochDay();
+            if (day < latestDay) {
+                return;
+            }
+            latestDay = day;
+            for (CurrencyPair pair : CurrencyPair.values()) {
+                BigDecimal value = latest.getRate(pair);
+                if (value == null) {
+                    continue;
+                }
+                RateEvent rateEvent = new RateEvent(nextId++, pair, data(latest, pair, value));
+                recent.addLast(rateEvent);
+                if (recent.size() > replaySize) {
+                    recent.removeFirst();
+                }
+                published.add(rateEvent);
+            }
+            // 在鎖內交給 dispatcher，分送順序與 id 順序相同
+            if (!published.isEmpty()) {
+                try {
+                    dispatcher.execute(() -> dispatch(published));
+                } catch (RejectedExecutionException e) {
+                    // 關閉中
+                }
+            }
+        }
+    }
+
+    private void dispatch(List<RateEvent> events) {
+        for (Subscriber subscriber : subscribers) {
+            for (RateEvent event : events) {
+                subscriber.offer(event);
+            }
+            subscriber.schedule();
+        }
+    }
+
+    // 讓代理伺服器與客戶端知道連線仍然有效，也能及早發現已斷線的連線
+    @Scheduled(fixedDelayString = "${forex.stream.heartbeat:30s}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(HEARTBEAT);
+            subscriber.schedule();
+        }
+    }
+
+    String getEpoch() {
+        return epoch;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void destroy() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        writers.shutdown();
+    }
+
+    // {"date":"20250324","currency":"usd","rate":"31.01"}，格式與查詢 API 相同
+    private static String data(ExchangeRate rate, CurrencyPair pair, BigDecimal value) {
+        String text = FixedWidthFormat.formatScaled(ExchangeRateCache.toScaled(value),
+                ExchangeRateCache.RATE_SCALE, pair.getDisplayScale());
+        return "{\"date\":\"" + FixedWidthFormat.formatDate(rate.getDate().toEpochDay())
+                + "\",\"currency\":\"" + pair.getCode() + "\",\"rate\":\"" + text + "\"}";
+    }
+
+    // 本程序發出的事件 id 回傳序號，其他程序或格式不符時回傳 0
+    private long parseSequence(String lastEventId) {
+        String id = lastEventId.trim();
+        if (!id.startsWith(epoch + "-")) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(id.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // 訂閱者的輸出端，正式環境為 SseEmitter，測試時可替換
+    interface EventSink {
+        void send(SseEmitter.SseEventBuilder event) throws IOException;
+
+        void close();
+    }
+
+    private static final class RateEvent {
+        final long id;
+        final CurrencyPair pair;
+        final String data;
+
+        RateEvent(long id, CurrencyPair pair, String data) {
+            this.id = id;
+            this.pair = pair;
+            this.data = data;
+        }
+    }
+
+    final class Subscriber {
+        private final Set<CurrencyPair> pairs;
+        private final EventSink sink;
+        private final ArrayBlockingQueue<Object> queue = new ArrayBlockingQueue<>(bufferSize + 1);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean overflowed;
+        // 已放入緩衝區（或訂閱前已發布、不需補送）的最後一筆事件 id；
+        // 訂閱時補送與 dispatcher 分送可能遇到同一筆事件，以此略過重複
+        private volatile long lastOffered;
+
+        Subscriber(Set<CurrencyPair> pairs, EventSink sink, long lastOffered) {
+            this.pairs = pairs;
+            this.sink = sink;
+            this.lastOffered = lastOffered;
+        }
+
+        void offer(RateEvent event) {
+            if (event.id <= lastOffered) {
+                return;
+            }
+            lastOffered = event.id;
+            if (overflowed || !pairs.contains(event.pair)) {
+                return;
+            }
+            // 多保留一格給 resync
+            if (queue.size() >= bufferSize || !queue.offer(event)) {
+                overflowed = true;
+                queue.clear();
+                queue.offer(RESYNC);
+                logger.info("SSE 訂閱者緩衝區已滿（{} 筆），通知重新同步後關閉連線", bufferSize);
+            }
+        }
+
+        void enqueue(Object signal) {
+            if (!overflowed) {
+                queue.offer(signal);
+            }
+        }
+
+        // 有待送事件且目前沒有 sender 處理時，交給 sender 執行緒
+        void schedule() {
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Object item;
+                while (!closed && (item = queue.poll()) != null) {
+                    if (item == RESYNC) {
+                        send(SseEmitter.event().name(RESYNC_EVENT).data("{}"));
+                        close();
+                    } else if (item == HEARTBEAT) {
+                        send(SseEmitter.event().comment(""));
+                    } else {
+                        RateEvent event = (RateEvent) item;
+                        send(SseEmitter.event().id(epoch + "-" + event.id).name(RATE_EVENT).data(event.data));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // 客戶端已斷線
+                close();
+            } finally {
+                draining.set(false);
+            }
+            schedule();
+        }
+
+        // 在 writer 執行緒寫出，sender 最多等待 send-timeout
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            Future<?> write = writers.submit(() -> {
+                sink.send(event);
+                return null;
+            });
+            try {
+                write.get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                write.cancel(true);
+                logger.info("SSE 訂閱者 {} ms 內未完成寫出，關閉連線", sendTimeoutMillis);
+                throw new IOException("SSE send timed out", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                subscribers.remove(this);
+                queue.clear();
+                // SseEmitter.complete 會等待進行中的 send，寫出卡住時不能在 sender 執行緒上等待
+                try {
+                    writers.execute(this::closeSink);
+                } catch (RejectedExecutionException e) {
+                    closeSink();
+                }
+            }
+        }
+
+        private void closeSink() {
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                // 連線已關閉
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.forex.repository;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.scheduler.StartupTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 啟動時建立 exchange_rate 的索引（Spring Data 預設不依 @Indexed 自動建立）：
+ * <ul>
+ *   <li>date 唯一索引：範圍查詢與排序都走這個索引</li>
+ *   <li>forex.mongo.currency-indexes 列出的幣別另建 {date, rates.幣別} 複合索引，
+ *       該幣別的單一幣別查詢只投影 date 與該匯率，所需欄位都在索引中</li>
+ * </ul>
+ * 與快取預熱相同在背景執行，MongoDB 尚未就緒時不拖慢啟動，之後定期重試；索引已存在時 MongoDB 直接略過。
+ */
+@Component
+public class ExchangeRateIndexInitializer implements StartupTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateIndexInitializer.class);
+
+    private final ExchangeRateRepository repository;
+    private final List<CurrencyPair> currencyIndexes;
+
+    public ExchangeRateIndexInitializer(ExchangeRateRepository repository,
+                                        @Value("${forex.mongo.currency-indexes:}") List<String> currencyIndexes) {
+        this.repository = repository;
+        this.currencyIndexes = new ArrayList<>();
+        for (String name : currencyIndexes) {
+            if (name.isBlank()) {
+                continue;
+            }
+            CurrencyPair pair = CurrencyPair.fromName(name);
+            if (pair == null) {
+                throw new IllegalArgumentException("forex.mongo.currency-indexes 含不支援的幣別: " + name);
+            }
+            this.currencyIndexes.add(pair);
+        }
+    }
+
+    @Override
+    public String getStartupTaskName() {
+        return "建立 exchange_rate 索引";
+    }
+
+    @Override
+    public void runStartupTask() {
+        ensureIndexes();
+    }
+
+    public void ensureIndexes() {
+        repository.ensureIndexes();
+        for (CurrencyPair pair : currencyIndexes) {
+            repository.ensureCurrencyIndex(pair);
+        }
+        logger.info("exchange_rate 索引已建立（幣別複合索引: {}）", currencyIndexes);
+    }
+}
@@ -10,11 +10,13 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ExchangeRateRepository extends MongoRepository<ExchangeRate, String> {
+public interface ExchangeRateRepository extends MongoRepository<ExchangeRate, String>, ExchangeRateRepositoryCustom {
     Optional<ExchangeRate> findByDate(LocalDate date);
     //找所有日期在 startDate ~ endDate 之間的資料
     // $gte (greater than or equal) ➔ 大於等於
     // $lte (less than or equal) ➔ 小於等於
-    @Query("{ 'date' : { $gte: ?0, $lte: ?1 } }")
+    // 依 date 排序（由 date 索引完成，不在記憶體排序），不回傳 _id
+    // 只讀每日文件（熱資料視窗內），可能早於視窗的區間改用 findRates
+    @Query(value = "{ 'date' : { $gte: ?0, $lte: ?1 } }", fields = "{ '_id' : 0 }", sort = "{ 'date' : 1 }")
     List<ExchangeRate> findByDateGreaterThanEqualAndDateLessThanEqual(LocalDate startDate, LocalDate endDate);
 }
@@ -0,0 +1,57 @@
+package com.example.forex.repository;
+
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.model.ExchangeRateRollup;
+import com.example.forex.model.RollupPeriod;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+//MongoRepository 無法表達的批次操作，由 ExchangeRateRepositoryImpl 以 MongoTemplate 實作
+public interface ExchangeRateRepositoryCustom {
+
+    // 一次查詢找出資料庫中已存在的日期（只投影 date 欄位），包含已封存的日期
+    Set<LocalDate> findExistingDates(Collection<LocalDate> dates);
+
+    // 一次查詢取出這些日期目前的內容（含 revision），已封存的日期由月份文件讀出（revision 為 0）
+    Map<LocalDate, ExchangeRate> findStoredRates(Collection<LocalDate> dates);
+
+    // 以 date 為鍵做 unordered bulk upsert，已存在的日期不覆寫；新增的文件 revision 至少為 1
+    IngestionResult bulkUpsert(List<ExchangeRate> rates);
+
+    // 更正既有日期：資料庫中的 revision 仍為 rate.revision - 1 時才整筆覆寫 rates（樂觀鎖），
+    // 版本不符（已被其他匯入更正）或只存在於月份封存文件的日期計為略過
+    IngestionResult bulkRevise(List<ExchangeRate> rates);
+
+    // 依日期由小到大取出區間資料，只投影 date 與所查幣別（不含 _id 與其他幣別），排序由 date 索引完成
+    // 區間早於熱資料視窗時一併讀取月份封存文件，呼叫端不需區分資料存在哪一層
+    List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs);
+
+    // 每日文件（熱資料）中最早的日期
+    Optional<LocalDate> findFirstDailyDate();
+
+    // 將該月份的每日文件併入月份封存文件後刪除，回傳搬移的日期數；中斷後重新執行結果相同
+    int archiveMonth(YearMonth month);
+
+    // 以 _id 寫入（覆寫）週、月彙總
+    void saveRollups(List<ExchangeRateRollup> rollups);
+
+    // 起始日在 [startDate, endDate] 之間的彙總，依起始日排序，只投影所查幣別
+    List<ExchangeRateRollup> findRollups(RollupPeriod period, LocalDate startDate, LocalDate endDate,
+                                         Collection<CurrencyPair> pairs);
+
+    boolean hasRollups();
+
+    // 建立 date 唯一索引，避免多個匯入同時執行時產生重複資料
+    void ensureIndexes();
+
+    // 建立 {date, rates.<幣別>} 複合索引，該幣別的單一幣別查詢所需欄位都在索引中
+    void ensureCurrencyIndex(CurrencyPair pair);
+}
@@ -0,0 +1,317 @@
+package com.example.forex.repository;
+
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.model.ExchangeRateBucket;
+import com.example.forex.model.ExchangeRateRollup;
+import com.example.forex.model.RollupPeriod;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class ExchangeRateRepositoryImpl implements ExchangeRateRepositoryCustom {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateRepositoryImpl.class);
+    // MongoDB duplicate key 錯誤碼
+    private static final int DUPLICATE_KEY = 11000;
+    private static final String RATES = "rates.";
+    private static final String LEGACY_USD = "usd";
+    private static final String REVISION = "revision";
+    private static final List<CurrencyPair> ALL_PAIRS = List.of(CurrencyPair.values());
+
+    private static final String ID = "_id";
+
+    private final MongoTemplate mongoTemplate;
+    private final int hotDays;
+    private volatile boolean indexesEnsured;
+
+    public ExchangeRateRepositoryImpl(MongoTemplate mongoTemplate) {
+        this(mongoTemplate, 400);
+    }
+
+    @Autowired
+    public ExchangeRateRepositoryImpl(MongoTemplate mongoTemplate, @Value("${forex.archive.hot-days:400}") int hotDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.hotDays = hotDays;
+    }
+
+    @Override
+    public Set<LocalDate> findExistingDates(Collection<LocalDate> dates) {
+        Set<LocalDate> existing = new HashSet<>();
+        if (dates.isEmpty()) {
+            return existing;
+        }
+        Query query = new Query(Criteria.where("date").in(dates));
+        query.fields().include("date");
+        for (ExchangeRate rate : mongoTemplate.find(query, ExchangeRate.class)) {
+            existing.add(rate.getDate());
+        }
+
+        // 早於熱資料視窗的日期可能已封存
+        LocalDate cutoff = archiveCutoff();
+        List<LocalDate> old = dates.stream().filter(date -> date.isBefore(cutoff)).toList();
+        if (!old.isEmpty()) {
+            Query archived = new Query(Criteria.where("dates").in(old));
+            archived.fields().include("dates");
+            Set<LocalDate> requested = new HashSet<>(old);
+            for (ExchangeRateBucket bucket : mongoTemplate.find(archived, ExchangeRateBucket.class)) {
+                for (LocalDate date : bucket.getDates()) {
+                    if (requested.contains(date)) {
+                        existing.add(date);
+                    }
+                }
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public Map<LocalDate, ExchangeRate> findStoredRates(Collection<LocalDate> dates) {
+        Map<LocalDate, ExchangeRate> stored = new HashMap<>();
+        if (dates.isEmpty()) {
+            return stored;
+        }
+        Query query = new Query(Criteria.where("date").in(dates));
+        query.fields().exclude(ID);
+        for (ExchangeRate rate : mongoTemplate.find(query, ExchangeRate.class)) {
+            stored.put(rate.getDate(), rate);
+        }
+
+        LocalDate cutoff = archiveCutoff();
+        List<LocalDate> old = dates.stream()
+                .filter(date -> date.isBefore(cutoff) && !stored.containsKey(date))
+                .sorted()
+                .toList();
+        if (!old.isEmpty()) {
+            Set<LocalDate> requested = new HashSet<>(old);
+            LocalDate first = old.get(0);
+            LocalDate last = old.get(old.size() - 1);
+            for (ExchangeRateBucket bucket : mongoTemplate.find(new Query(Criteria.where("dates").in(old)),
+                    ExchangeRateBucket.class)) {
+                for (ExchangeRate rate : bucket.toRates(first, last, ALL_PAIRS)) {
+                    if (requested.contains(rate.getDate())) {
+                        stored.put(rate.getDate(), rate);
+                    }
+                }
+            }
+        }
+        return stored;
+    }
+
+    @Override
+    public List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+        List<ExchangeRate> daily = mongoTemplate.find(rangeQuery(startDate, endDate, pairs), ExchangeRate.class);
+        LocalDate cutoff = archiveCutoff();
+        if (!startDate.isBefore(cutoff)) {
+            // 一般查詢（1 年內）都在熱資料視窗內，只讀每日文件
+            return daily;
+        }
+        LocalDate archivedEnd = endDate.isBefore(cutoff) ? endDate : cutoff.minusDays(1);
+        List<ExchangeRate> archived = new ArrayList<>();
+        for (ExchangeRateBucket bucket : mongoTemplate.find(bucketQuery(startDate, archivedEnd, pairs), ExchangeRateBucket.class)) {
+            archived.addAll(bucket.toRates(startDate, archivedEnd, pairs));
+        }
+        return ExchangeRateBucket.combine(archived, daily);
+    }
+
+    // 與查詢區間重疊的月份封存文件，依月份排序（_id 為 yyyy-MM），只投影所查幣別
+    static Query bucketQuery(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+        Query query = new Query(Criteria.where(ID).gte(YearMonth.from(startDate).toString())
+                .lte(YearMonth.from(endDate).toString()))
+                .with(Sort.by(Sort.Direction.ASC, ID));
+        query.fields().include("dates");
+        for (CurrencyPair pair : pairs) {
+            query.fields().include(RATES + pair.getCode());
+        }
+        return query;
+    }
+
+    private LocalDate archiveCutoff() {
+        return ExchangeRateBucket.archiveCutoff(LocalDate.now(), hotDays);
+    }
+
+    @Override
+    public Optional<LocalDate> findFirstDailyDate() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "date")).limit(1);
+        query.fields().include("date");
+        ExchangeRate first = mongoTemplate.findOne(query, ExchangeRate.class);
+        return Optional.ofNullable(first).map(ExchangeRate::getDate);
+    }
+
+    @Override
+    public int archiveMonth(YearMonth month) {
+        Query monthQuery = new Query(Criteria.where("date").gte(month.atDay(1)).lte(month.atEndOfMonth()))
+                .with(Sort.by(Sort.Direction.ASC, "date"));
+        List<ExchangeRate> daily = mongoTemplate.find(monthQuery, ExchangeRate.class);
+        if (daily.isEmpty()) {
+            return 0;
+        }
+        // 先寫入封存文件再刪除每日文件，中途失敗時兩邊都有資料，讀取時合併、下次執行再搬移
+        ExchangeRateBucket bucket = mongoTemplate.findById(month.toString(), ExchangeRateBucket.class);
+        bucket = bucket == null ? ExchangeRateBucket.of(month, daily) : bucket.merge(daily);
+        mongoTemplate.save(bucket);
+        // 只刪除已併入的日期，封存期間新寫入的同月份資料留到下次
+        List<LocalDate> dates = daily.stream().map(ExchangeRate::getDate).toList();
+        mongoTemplate.remove(new Query(Criteria.where("date").in(dates)), ExchangeRate.class);
+        return daily.size();
+    }
+
+    @Override
+    public void saveRollups(List<ExchangeRateRollup> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ExchangeRateRollup.class);
+        for (ExchangeRateRollup rollup : rollups) {
+            bulk.replaceOne(new Query(Criteria.where(ID).is(rollup.getId())), rollup, FindAndReplaceOptions.options().upsert());
+        }
+        bulk.execute();
+    }
+
+    @Override
+    public List<ExchangeRateRollup> findRollups(RollupPeriod period, LocalDate startDate, LocalDate endDate,
+                                                Collection<CurrencyPair> pairs) {
+        Query query = new Query(Criteria.where(ID).gte(ExchangeRateRollup.id(period, startDate))
+                .lte(ExchangeRateRollup.id(period, endDate)))
+                .with(Sort.by(Sort.Direction.ASC, ID));
+        query.fields().include("period").include("start").include("lastDate");
+        for (CurrencyPair pair : pairs) {
+            query.fields().include(RATES + pair.getCode());
+        }
+        return mongoTemplate.find(query, ExchangeRateRollup.class);
+    }
+
+    @Override
+    public boolean hasRollups() {
+        return mongoTemplate.exists(new Query(), ExchangeRateRollup.class);
+    }
+
+    static Query rangeQuery(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+        Query query = new Query(Criteria.where("date").gte(startDate).lte(endDate))
+                .with(Sort.by(Sort.Direction.ASC, "date"));
+        query.fields().include("date").exclude("_id");
+        for (CurrencyPair pair : pairs) {
+            query.fields().include(RATES + pair.getCode());
+            if (pair == CurrencyPair.USD) {
+                // 舊版文件的美元匯率存在頂層 usd 欄位
+                query.fields().include(LEGACY_USD);
+            }
+        }
+        return query;
+    }
+
+    @Override
+    public IngestionResult bulkUpsert(List<ExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return new IngestionResult();
+        }
+        ensureIndexes();
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ExchangeRate.class);
+        for (ExchangeRate rate : rates) {
+            // 只在新增時寫入，同日期已存在（例如另一個匯入搶先寫入）則視為略過
+            Update update = new Update().setOnInsert("rates", rate.getRates())
+                    .setOnInsert(REVISION, Math.max(rate.getRevision(), 1));
+            bulk.upsert(new Query(Criteria.where("date").is(rate.getDate())), update);
+        }
+
+        try {
+            BulkWriteResult result = bulk.execute();
+            long inserted = result.getUpserts().size();
+            return new IngestionResult(inserted, rates.size() - inserted, 0);
+        } catch (BulkOperationException e) {
+            long inserted = e.getResult().getUpserts().size();
+            long failed = 0;
+            for (BulkWriteError error : e.getErrors()) {
+                // duplicate key 表示同日期已被其他匯入寫入，計為略過
+                if (error.getCode() != DUPLICATE_KEY) {
+                    failed++;
+                    logger.warn("bulk upsert 失敗: index={}, message={}", error.getIndex(), error.getMessage());
+                }
+            }
+            return new IngestionResult(inserted, rates.size() - inserted - failed, failed);
+        }
+    }
+
+    @Override
+    public IngestionResult bulkRevise(List<ExchangeRate> rates) {
+        if (rates.isEmpty()) {
+            return new IngestionResult();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ExchangeRate.class);
+        for (ExchangeRate rate : rates) {
+            long expected = rate.getRevision() - 1;
+            Criteria criteria = Criteria.where("date").is(rate.getDate());
+            // 舊版文件沒有 revision 欄位，視為 0
+            criteria = expected == 0 ? criteria.and(REVISION).in(0L, null) : criteria.and(REVISION).is(expected);
+            // 不 upsert：已封存的日期在每日文件中找不到，不會因更正而出現在兩層
+            bulk.updateOne(new Query(criteria), new Update()
+                    .set("rates", rate.getRates())
+                    .set(REVISION, rate.getRevision())
+                    .unset(LEGACY_USD));
+        }
+
+        try {
+            long updated = bulk.execute().getMatchedCount();
+            return new IngestionResult(0, updated, rates.size() - updated, 0);
+        } catch (BulkOperationException e) {
+            long updated = e.getResult().getMatchedCount();
+            long failed = e.getErrors().size();
+            for (BulkWriteError error : e.getErrors()) {
+                logger.warn("bulk 更正失敗: index={}, message={}", error.getIndex(), error.getMessage());
+            }
+            return new IngestionResult(0, updated, rates.size() - updated - failed, failed);
+        }
+    }
+
+    @Override
+    public void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+        try {
+            mongoTemplate.indexOps(ExchangeRate.class)
+                    .ensureIndex(new Index().on("date", Sort.Direction.ASC).unique());
+            // 回補較早的日期時以此檢查是否已封存
+            mongoTemplate.indexOps(ExchangeRateBucket.class).ensureIndex(new Index().on("dates", Sort.Direction.ASC));
+            indexesEnsured = true;
+        } catch (RuntimeException e) {
+            // 既有資料若已有重複日期會建立失敗，不影響匯入本身
+            logger.warn("建立 date 唯一索引失敗: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void ensureCurrencyIndex(CurrencyPair pair) {
+        Index index = new Index().on("date", Sort.Direction.ASC).on(RATES + pair.getCode(), Sort.Direction.ASC)
+                .named("date_" + pair.getCode());
+        if (pair == CurrencyPair.USD) {
+            index.on(LEGACY_USD, Sort.Direction.ASC);
+        }
+        mongoTemplate.indexOps(ExchangeRate.class).ensureIndex(index);
+    }
+}
@@ -1,8 +1,11 @@
 package com.example.forex.scheduler;
 
+import com.example.forex.cluster.ClusterCoordinator;
+import com.example.forex.service.ExchangeRateArchiveService;
 import com.example.forex.service.ExchangeRateService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -11,16 +14,31 @@ public class ExchangeRateScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(ExchangeRateScheduler.class);
     private final ExchangeRateService exchangeRateService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final ExchangeRateArchiveService archiveService;
 
-    public ExchangeRateScheduler(ExchangeRateService exchangeRateService) {
+    // 含 @Scheduled 的 bean 在延遲初始化（fast 設定檔）時仍會於啟動時建立，
+    // 服務以 @Lazy 注入，第一次排程執行時才建立，不拖慢啟動
+    public ExchangeRateScheduler(@Lazy ExchangeRateService exchangeRateService, ClusterCoordinator clusterCoordinator,
+                                 @Lazy ExchangeRateArchiveService archiveService) {
         this.exchangeRateService = exchangeRateService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.archiveService = archiveService;
     }
 
-    // 每日 18:00:00 執行
+    // 每日 18:00:00 執行，多個 replica 時只有取得租約的節點呼叫 API，其他節點透過異動通知更新
     @Scheduled(cron = "0 0 18 * * ?")
     public void fetchExchangeRatesScheduled() {
-        logger.info("開始每日 18:00 呼叫 fetchExchangeRates");
-        exchangeRateService.fetchAndSaveExchangeRates();
-        logger.info("完成每日 18:00 呼叫 fetchExchangeRates");
+        clusterCoordinator.runIfLeader("daily-fetch", () -> {
+            logger.info("開始每日 18:00 呼叫 fetchExchangeRates");
+            exchangeRateService.fetchAndSaveExchangeRates();
+            logger.info("完成每日 18:00 呼叫 fetchExchangeRates");
+        });
+    }
+
+    // 每日 03:30 將熱資料視窗之前的每日文件併入月份文件，只有取得租約的節點執行
+    @Scheduled(cron = "${forex.archive.cron:0 30 3 * * ?}")
+    public void archiveScheduled() {
+        clusterCoordinator.runIfLeader("archive", archiveService::archive);
     }
 }
@@ -0,0 +1,167 @@
+package com.example.forex.scheduler;
+
+import com.example.forex.cluster.ClusterCoordinator;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.service.ExchangeRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 盤中輪詢模式：在發布時段內（預設平日 16:00 ~ 20:00）以短間隔檢查 TAIFEX 是否已發布當日資料，
+ * 不必等到固定的 18:00 排程。
+ * <ul>
+ *   <li>每次輪詢走 ExchangeRateService.pollExchangeRates：304 或內容雜湊相同時不解析，已知日期不再查資料庫</li>
+ *   <li>寫入的資料（含每日排程或其他節點寫入）包含當日日期後停止輪詢，直到下一個平日的發布時段；
+ *       只更正或補入較早日期時繼續輪詢</li>
+ *   <li>呼叫失敗時間隔加倍，最長到 max-interval</li>
+ *   <li>多個 replica 時以租約選出一個節點輪詢，其他節點透過異動通知更新</li>
+ * </ul>
+ * 預設關閉（forex.polling.enabled=false），每日 18:00 排程不受影響。
+ */
+@Component
+public class IntradayPollingScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(IntradayPollingScheduler.class);
+    private static final String LEASE = "intraday-poll";
+
+    enum Outcome { PUBLISHED, UNCHANGED, FAILED }
+
+    private final ExchangeRateService exchangeRateService;
+    private final ClusterCoordinator clusterCoordinator;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final Duration interval;
+    private final Duration maxInterval;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // 只在排程執行緒中存取
+    private LocalDate publishedOn;
+    private int consecutiveFailures;
+    // 已寫入的最新資料日期，由寫入資料的執行緒更新
+    private final AtomicReference<LocalDate> latestSaved = new AtomicReference<>();
+
+    public IntradayPollingScheduler(ExchangeRateService exchangeRateService, ClusterCoordinator clusterCoordinator,
+                                    TaskScheduler taskScheduler,
+                                    @Value("${forex.polling.enabled:false}") boolean enabled,
+                                    @Value("${forex.polling.window-start:16:00}") LocalTime windowStart,
+                                    @Value("${forex.polling.window-end:20:00}") LocalTime windowEnd,
+                                    @Value("${forex.polling.interval:2m}") Duration interval,
+                                    @Value("${forex.polling.max-interval:15m}") Duration maxInterval) {
+        this.exchangeRateService = exchangeRateService;
+        this.clusterCoordinator = clusterCoordinator;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.interval = interval;
+        this.maxInterval = maxInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime next = nextRun(LocalDateTime.now(zone), null);
+        logger.info("盤中輪詢已啟用，發布時段 {} ~ {}，第一次輪詢於 {}", windowStart, windowEnd, next);
+        schedule(next);
+    }
+
+    private void poll() {
+        Outcome outcome;
+        LocalDate expected = LocalDate.now(zone);
+        try {
+            clusterCoordinator.runIfLeader(LEASE, exchangeRateService::pollExchangeRates);
+            // 其他節點持有租約時照常排下一次（只嘗試取得租約），持有租約的節點停止後可以接手
+            outcome = isPublished(expected) ? Outcome.PUBLISHED : Outcome.UNCHANGED;
+        } catch (RuntimeException e) {
+            logger.warn("盤中輪詢失敗: {}", e.getMessage());
+            outcome = Outcome.FAILED;
+        }
+        LocalDateTime next = nextRun(LocalDateTime.now(zone), outcome);
+        if (outcome == Outcome.PUBLISHED) {
+            logger.info("已取得 {} 的新資料，下一次輪詢於 {}", publishedOn, next);
+        }
+        schedule(next);
+    }
+
+    /**
+     * 記錄寫入資料的最新日期；其他節點寫入、本節點依異動通知重新載入的資料也算，
+     * 該節點已取得當日資料時本節點不必再輪詢。
+     */
+    @EventListener
+    public void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        LocalDate latest = null;
+        for (ExchangeRate rate : event.getRates()) {
+            if (latest == null || rate.getDate().isAfter(latest)) {
+                latest = rate.getDate();
+            }
+        }
+        if (latest != null) {
+            latestSaved.accumulateAndGet(latest, (a, b) -> a == null || b.isAfter(a) ? b : a);
+        }
+    }
+
+    // 發布日（當日）的資料已寫入；只寫入較早日期（更正、補入）不算
+    boolean isPublished(LocalDate expected) {
+        LocalDate saved = latestSaved.get();
+        return saved != null && !saved.isBefore(expected);
+    }
+
+    private void schedule(LocalDateTime next) {
+        taskScheduler.schedule(this::poll, ZonedDateTime.of(next, zone).toInstant());
+    }
+
+    /**
+     * 依這次輪詢結果決定下一次時間（outcome 為 null 表示啟動時）：
+     * 當日已發布或已過發布時段時，排到下一個平日的時段開始；時段開始前排到時段開始；
+     * 時段內依連續失敗次數加倍間隔，超出時段則排到下一個平日。
+     */
+    LocalDateTime nextRun(LocalDateTime now, Outcome outcome) {
+        if (outcome == Outcome.PUBLISHED) {
+            publishedOn = now.toLocalDate();
+        }
+        consecutiveFailures = outcome == Outcome.FAILED ? consecutiveFailures + 1 : 0;
+
+        LocalDate today = now.toLocalDate();
+        if (!isPublishingDay(today) || today.equals(publishedOn) || !now.toLocalTime().isBefore(windowEnd)) {
+            return nextWindowStart(today.plusDays(1));
+        }
+        if (now.toLocalTime().isBefore(windowStart)) {
+            return today.atTime(windowStart);
+        }
+        Duration delay = interval.multipliedBy(1L << Math.min(consecutiveFailures, 16));
+        LocalDateTime next = now.plus(delay.compareTo(maxInterval) > 0 ? maxInterval : delay);
+        return next.isBefore(today.atTime(windowEnd)) ? next : nextWindowStart(today.plusDays(1));
+    }
+
+    private LocalDateTime nextWindowStart(LocalDate from) {
+        LocalDate day = from;
+        while (!isPublishingDay(day)) {
+            day = day.plusDays(1);
+        }
+        return day.atTime(windowStart);
+    }
+
+    // TAIFEX 週末不發布
+    private static boolean isPublishingDay(LocalDate date) {
+        return date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.forex.scheduler;
+
+/**
+ * 啟動完成後在背景執行的工作（預熱快取、與 MongoDB 同步、建立索引等），由 StartupTaskRunner 以共用的
+ * TaskExecutor 執行，不拖慢啟動。
+ * 拋出例外表示這次失敗（例如 MongoDB 尚未就緒），之後每 forex.startup.retry-interval 重試，直到成功或應用程式關閉；
+ * 實作需可重複執行。
+ */
+public interface StartupTask {
+
+    // 記錄用的名稱
+    String getStartupTaskName();
+
+    void runStartupTask();
+}
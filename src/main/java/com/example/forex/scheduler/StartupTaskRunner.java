@@ -0,0 +1,78 @@
+package com.example.forex.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 啟動完成後以 Spring Boot 提供的 applicationTaskExecutor 執行所有 StartupTask：
+ * <ul>
+ *   <li>失敗時記錄並每 forex.startup.retry-interval 重試，直到成功</li>
+ *   <li>應用程式開始關閉時（ContextClosedEvent，早於 executor 停止與 MongoDB 連線關閉）停止重試；
+ *       executor 由 Spring 管理，關閉時等待執行中的工作結束（spring.task.execution.shutdown.*）</li>
+ * </ul>
+ */
+@Component
+public class StartupTaskRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTaskRunner.class);
+
+    private final List<StartupTask> tasks;
+    private final TaskExecutor taskExecutor;
+    private final Duration retryInterval;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public StartupTaskRunner(List<StartupTask> tasks,
+                             @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                             @Value("${forex.startup.retry-interval:30s}") Duration retryInterval) {
+        this.tasks = tasks;
+        this.taskExecutor = taskExecutor;
+        this.retryInterval = retryInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (StartupTask task : tasks) {
+            taskExecutor.execute(() -> runUntilDone(task));
+        }
+    }
+
+    // 成功時回傳 true；應用程式關閉（或執行緒被中斷）時放棄重試並回傳 false
+    boolean runUntilDone(StartupTask task) {
+        for (int attempt = 1; stopped.getCount() > 0; attempt++) {
+            try {
+                task.runStartupTask();
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("{}失敗（第 {} 次），{} 後重試: {}", task.getStartupTaskName(), attempt, retryInterval,
+                        e.getMessage());
+            }
+            try {
+                if (stopped.await(retryInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        logger.info("應用程式關閉，停止{}", task.getStartupTaskName());
+        return false;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        stopped.countDown();
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.forex.service;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.conversion.CrossRateMatrix;
+import com.example.forex.dto.ConversionRequest;
+import com.example.forex.dto.ConversionResponse;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyCode;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.store.LocalRateStore;
+import com.example.forex.util.FixedPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 匯率換算：以儲存的匯率經台幣或美元推算任兩個幣別的交叉匯率。
+ * <p>
+ * 每個查詢日期對應一份 CrossRateMatrix（非交易日對應到之前最近一個有資料的日期），
+ * 建立後快取在記憶體中，有新資料寫入時清除；換算本身只用 long 運算，不產生 BigDecimal。
+ * 一個請求中快取沒有的日期依間隔分群，相近的日期以一次區間查詢讀取，相隔超過 maxFallbackDays 天的日期分別查詢。
+ */
+@Service
+public class CurrencyConversionService {
+
+    static final int MAX_CONVERSIONS = 100_000;
+    // 快取的日期數上限，超過時整個清除重建（一般只會查到少數幾個日期）
+    private static final int MAX_CACHED_DATES = 4096;
+
+    private final ExchangeRateRepository repository;
+    private final ExchangeRateCache cache;
+    private final LocalRateStore localStore; // 可為 null
+    private final int maxFallbackDays;
+    private final Map<Integer, CrossRateMatrix> matrices = new ConcurrentHashMap<>();
+    // 每次清除快取時遞增
+    private final AtomicLong generation = new AtomicLong();
+
+    public CurrencyConversionService(ExchangeRateRepository repository, ExchangeRateCache cache) {
+        this(repository, cache, null, 10);
+    }
+
+    @Autowired
+    public CurrencyConversionService(ExchangeRateRepository repository, ExchangeRateCache cache,
+                                     LocalRateStore localStore,
+                                     @Value("${forex.conversion.max-fallback-days:10}") int maxFallbackDays) {
+        this.repository = repository;
+        this.cache = cache;
+        this.localStore = localStore;
+        this.maxFallbackDays = maxFallbackDays;
+    }
+
+    // 有新資料（包含補寫較早的日期）時，已建立的交叉匯率可能不再是最近的交易日；
+    // 先遞增世代再清除，清除前開始讀取的交叉匯率表不會在清除後放回快取
+    @EventListener
+    public void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        generation.incrementAndGet();
+        matrices.clear();
+    }
+
+    /**
+     * 依序換算每一筆金額，各筆各自驗證，錯誤時只影響該筆。
+     * 先解析所有日期（相同的日期字串只解析一次），快取中沒有的日期依間隔分群、每群以一次區間查詢讀取後建立交叉匯率表。
+     */
+    public ConversionResponse convert(ConversionRequest request) {
+        List<ConversionRequest.Conversion> conversions = request.getConversions();
+        if (conversions == null || conversions.isEmpty() || conversions.size() > MAX_CONVERSIONS) {
+            return new ConversionResponse(
+                    new ExchangeRateQueryResponse.ErrorInfo("E013", "換算筆數須介於1~" + MAX_CONVERSIONS), null);
+        }
+
+        int[] days = new int[conversions.size()];
+        boolean[] validDates = new boolean[days.length];
+        TreeSet<Integer> distinctDays = new TreeSet<>();
+        String lastDateText = null;
+        boolean lastValid = false;
+        int lastDay = 0;
+        for (int i = 0; i < days.length; i++) {
+            ConversionRequest.Conversion conversion = conversions.get(i);
+            if (conversion == null || conversion.getDate() == null) {
+                continue;
+            }
+            if (!conversion.getDate().equals(lastDateText)) {
+                LocalDate date = ExchangeRateService.parseRequestDate(conversion.getDate());
+                lastDateText = conversion.getDate();
+                lastValid = date != null;
+                if (lastValid) {
+                    lastDay = (int) date.toEpochDay();
+                    distinctDays.add(lastDay);
+                }
+            }
+            days[i] = lastDay;
+            validDates[i] = lastValid;
+        }
+
+        Map<Integer, CrossRateMatrix> byDay = matricesFor(distinctDays);
+        ConversionResponse.Result[] results = new ConversionResponse.Result[conversions.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = validDates[i] ? convert(conversions.get(i), byDay.get(days[i]))
+                    : ConversionError.INVALID_DATE_FORMAT.result();
+        }
+        return new ConversionResponse(new ExchangeRateQueryResponse.ErrorInfo("0000", "成功"), Arrays.asList(results));
+    }
+
+    private static ConversionResponse.Result convert(ConversionRequest.Conversion conversion, CrossRateMatrix matrix) {
+        CurrencyCode from = CurrencyCode.fromName(conversion.getFrom());
+        CurrencyCode to = CurrencyCode.fromName(conversion.getTo());
+        if (from == null || to == null) {
+            return ConversionError.UNSUPPORTED_CURRENCY.result();
+        }
+        long amount;
+        try {
+            amount = FixedPoint.parse(conversion.getAmount(), ConversionResponse.Result.AMOUNT_SCALE);
+        } catch (NumberFormatException e) {
+            return ConversionError.INVALID_AMOUNT.result();
+        }
+        if (matrix.rate(from, to) == CrossRateMatrix.MISSING) {
+            return ConversionError.RATE_NOT_FOUND.result();
+        }
+        long converted;
+        try {
+            converted = matrix.convert(amount, from, to);
+        } catch (ArithmeticException e) {
+            return ConversionError.INVALID_AMOUNT.result();
+        }
+        return new ConversionResponse.Result(converted, matrix.rateText(from, to), matrix.dateText());
+    }
+
+    // 查詢日期對應的交叉匯率表，查詢日期（含）之前 maxFallbackDays 天內都沒有資料時回傳 CrossRateMatrix.EMPTY
+    CrossRateMatrix matrixFor(int epochDay) {
+        return matricesFor(new TreeSet<>(List.of(epochDay))).get(epochDay);
+    }
+
+    // 快取中沒有的日期一起讀取，讀取期間有新資料寫入時，結果只回傳給這次請求，不放進快取
+    private Map<Integer, CrossRateMatrix> matricesFor(NavigableSet<Integer> epochDays) {
+        Map<Integer, CrossRateMatrix> byDay = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int day : epochDays) {
+            CrossRateMatrix matrix = matrices.get(day);
+            if (matrix == null) {
+                missing.add(day);
+            } else {
+                byDay.put(day, matrix);
+            }
+        }
+        if (missing.isEmpty()) {
+            return byDay;
+        }
+
+        long loadedGeneration = generation.get();
+        Map<Integer, CrossRateMatrix> loaded = loadMatrices(missing);
+        byDay.putAll(loaded);
+        if (matrices.size() + loaded.size() > MAX_CACHED_DATES) {
+            matrices.clear();
+        }
+        if (loaded.size() <= MAX_CACHED_DATES && generation.get() == loadedGeneration) {
+            matrices.putAll(loaded);
+            // 放回時若剛好有新資料寫入，可能已錯過清除，撤回這次放入的內容
+            if (generation.get() != loadedGeneration) {
+                loaded.forEach(matrices::remove);
+            }
+        }
+        return byDay;
+    }
+
+    // 日期依間隔分群：與前一個日期相距超過 maxFallbackDays 天時另起一群，各群分別以區間查詢讀取，
+    // 避免相隔多年的日期把中間整段歷史一起讀進來
+    private Map<Integer, CrossRateMatrix> loadMatrices(List<Integer> sortedDays) {
+        Map<Integer, CrossRateMatrix> loaded = new HashMap<>();
+        int start = 0;
+        for (int i = 1; i <= sortedDays.size(); i++) {
+            if (i == sortedDays.size() || sortedDays.get(i) - sortedDays.get(i - 1) > maxFallbackDays) {
+                loadCluster(sortedDays.subList(start, i), loaded);
+                start = i;
+            }
+        }
+        return loaded;
+    }
+
+    // 以一次區間查詢（最早日期往前 maxFallbackDays 天 ~ 最晚日期）取得資料，每個日期取（含）之前最近一個有資料的日期；
+    // 依序使用快取、已同步的本機匯率檔與 MongoDB
+    private void loadCluster(List<Integer> sortedDays, Map<Integer, CrossRateMatrix> loaded) {
+        LocalDate startDate = LocalDate.ofEpochDay(sortedDays.get(0)).minusDays(maxFallbackDays);
+        LocalDate endDate = LocalDate.ofEpochDay(sortedDays.get(sortedDays.size() - 1));
+        long[] scaledRates = new long[CurrencyPair.values().length];
+
+        ExchangeRateCache.Snapshot cached = cache.lookup(startDate, endDate);
+        if (cached != null) {
+            int lastIndex = -1;
+            CrossRateMatrix last = CrossRateMatrix.EMPTY;
+            for (int day : sortedDays) {
+                int index = cached.upperBound(day) - 1;
+                if (index < 0 || cached.epochDay(index) < day - maxFallbackDays) {
+                    loaded.put(day, CrossRateMatrix.EMPTY);
+                    continue;
+                }
+                if (index != lastIndex) {
+                    for (CurrencyPair pair : CurrencyPair.values()) {
+                        scaledRates[pair.ordinal()] = cached.scaledRate(pair, index);
+                    }
+                    last = CrossRateMatrix.of(cached.epochDay(index), scaledRates);
+                    lastIndex = index;
+                }
+                loaded.put(day, last);
+            }
+            return;
+        }
+
+        List<CurrencyPair> pairs = Arrays.asList(CurrencyPair.values());
+        List<ExchangeRate> rates = localStore != null && localStore.isComplete()
+                ? localStore.findRates(startDate, endDate, pairs)
+                : repository.findRates(startDate, endDate, pairs);
+        // rates 依日期排序，查詢日期也由小到大，index 只往前移動
+        int index = -1;
+        int lastIndex = -1;
+        CrossRateMatrix last = CrossRateMatrix.EMPTY;
+        for (int day : sortedDays) {
+            while (index + 1 < rates.size() && rates.get(index + 1).getDate().toEpochDay() <= day) {
+                index++;
+            }
+            if (index < 0 || rates.get(index).getDate().toEpochDay() < day - maxFallbackDays) {
+                loaded.put(day, CrossRateMatrix.EMPTY);
+                continue;
+            }
+            if (index != lastIndex) {
+                ExchangeRate latest = rates.get(index);
+                for (CurrencyPair pair : CurrencyPair.values()) {
+                    BigDecimal value = latest.getRate(pair);
+                    scaledRates[pair.ordinal()] = value == null ? ExchangeRateCache.MISSING : ExchangeRateCache.toScaled(value);
+                }
+                last = CrossRateMatrix.of((int) latest.getDate().toEpochDay(), scaledRates);
+                lastIndex = index;
+            }
+            loaded.put(day, last);
+        }
+    }
+
+    // 單筆換算的錯誤代碼與訊息（不可變），Result 可被呼叫端修改，每筆建立新的
+    private enum ConversionError {
+        INVALID_DATE_FORMAT("E003", "日期格式錯誤"),
+        UNSUPPORTED_CURRENCY("E004", "不支援的幣別"),
+        INVALID_AMOUNT("E011", "金額格式錯誤"),
+        RATE_NOT_FOUND("E012", "查無匯率");
+
+        private final String code;
+        private final String message;
+
+        ConversionError(String code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
+        ConversionResponse.Result result() {
+            return new ConversionResponse.Result(code, message);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.forex.service;
+
+import com.example.forex.model.ExchangeRateBucket;
+import com.example.forex.repository.ExchangeRateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * 分層儲存：最近 forex.archive.hot-days 天留在每日文件（exchange_rate），
+ * 更早的資料依月份併入 exchange_rate_monthly，每日文件的筆數與索引大小維持固定。
+ * <p>
+ * 封存以整個月份為單位，只處理熱資料視窗起點所在月份之前的月份；
+ * 查詢由 repository 依區間自動合併兩層，呼叫端不需區分。
+ */
+@Service
+public class ExchangeRateArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateArchiveService.class);
+    // 快取預熱、叢集同步等只讀每日文件的流程最多往前 1 年
+    private static final int MIN_HOT_DAYS = 366;
+
+    private final ExchangeRateRepository repository;
+    private final int hotDays;
+
+    public ExchangeRateArchiveService(ExchangeRateRepository repository,
+                                      @Value("${forex.archive.hot-days:400}") int hotDays) {
+        if (hotDays < MIN_HOT_DAYS) {
+            throw new IllegalArgumentException("forex.archive.hot-days 不可小於 " + MIN_HOT_DAYS + ": " + hotDays);
+        }
+        this.repository = repository;
+        this.hotDays = hotDays;
+    }
+
+    /**
+     * 將熱資料視窗之前的每日文件逐月併入月份文件，回傳搬移的日期數。
+     * 每個月份獨立完成，中途失敗時已完成的月份不受影響，下次執行從剩下的月份繼續。
+     */
+    public int archive() {
+        LocalDate cutoff = ExchangeRateBucket.archiveCutoff(LocalDate.now(), hotDays);
+        Optional<LocalDate> first = repository.findFirstDailyDate();
+        if (first.isEmpty() || !first.get().isBefore(cutoff)) {
+            return 0;
+        }
+        int archived = 0;
+        int months = 0;
+        YearMonth end = YearMonth.from(cutoff);
+        for (YearMonth month = YearMonth.from(first.get()); month.isBefore(end); month = month.plusMonths(1)) {
+            int moved = repository.archiveMonth(month);
+            if (moved > 0) {
+                archived += moved;
+                months++;
+            }
+        }
+        logger.info("封存 {} 之前的每日匯率：{} 個月份，共 {} 個日期", cutoff, months, archived);
+        return archived;
+    }
+}
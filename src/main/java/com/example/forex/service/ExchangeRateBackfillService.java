@@ -0,0 +1,184 @@
+package com.example.forex.service;
+
+import com.example.forex.backfill.ApiBackfillSource;
+import com.example.forex.backfill.ArchiveBackfillSource;
+import com.example.forex.backfill.BackfillCheckpoint;
+import com.example.forex.backfill.BackfillSource;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.dto.BackfillRequest;
+import com.example.forex.dto.BackfillResponse;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.model.ExchangeRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 歷史資料回補：把日期區間切成固定天數的區段，以固定大小的執行緒池平行讀取，
+ * 每個區段的資料以一次 bulk upsert 寫入（與每日匯入共用 saveExchangeRates，快取與統計同步更新）。
+ * 每完成一個區段就寫入進度檔，中斷後以相同參數重新執行會從未完成的區段繼續。
+ * 同一時間只允許一個回補作業。
+ */
+@Service
+public class ExchangeRateBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateBackfillService.class);
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int MAX_CHUNK_DAYS = 3660;
+
+    private final ExchangeRateService exchangeRateService;
+    private final TaifexClient taifexClient;
+    private final Path archiveDir;
+    private final Path checkpointDir;
+    private final int workers;
+    private final int defaultChunkDays;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ExchangeRateBackfillService(ExchangeRateService exchangeRateService, TaifexClient taifexClient,
+                                       @Value("${forex.backfill.archive-dir:${user.home}/.forex/archive}") Path archiveDir,
+                                       @Value("${forex.backfill.checkpoint-dir:${user.home}/.forex/backfill}") Path checkpointDir,
+                                       @Value("${forex.backfill.workers:4}") int workers,
+                                       @Value("${forex.backfill.chunk-days:92}") int defaultChunkDays) {
+        this.exchangeRateService = exchangeRateService;
+        this.taifexClient = taifexClient;
+        this.archiveDir = archiveDir;
+        this.checkpointDir = checkpointDir;
+        this.workers = Math.max(1, workers);
+        this.defaultChunkDays = defaultChunkDays;
+    }
+
+    public BackfillResponse backfill(BackfillRequest request) {
+        LocalDate startDate;
+        LocalDate endDate;
+        try {
+            startDate = LocalDate.parse(request.getStartDate(), REQUEST_FORMATTER);
+            endDate = LocalDate.parse(request.getEndDate(), REQUEST_FORMATTER);
+        } catch (DateTimeParseException | NullPointerException e) {
+            return errorResponse("E003", "日期格式錯誤");
+        }
+        if (startDate.isAfter(endDate)) {
+            return errorResponse("E001", "日期區間不符");
+        }
+        String sourceName = request.getSource() == null ? "archive" : request.getSource().trim().toLowerCase();
+        if (!"archive".equals(sourceName) && !"api".equals(sourceName)) {
+            return errorResponse("E006", "不支援的回補來源");
+        }
+        int chunkDays = request.getChunkDays() == null ? defaultChunkDays : request.getChunkDays();
+        if (chunkDays <= 0 || chunkDays > MAX_CHUNK_DAYS) {
+            return errorResponse("E007", "區段天數須介於1~" + MAX_CHUNK_DAYS);
+        }
+        if (!running.compareAndSet(false, true)) {
+            return errorResponse("E008", "已有回補作業進行中");
+        }
+        try {
+            BackfillSource source;
+            try {
+                source = "api".equals(sourceName) ? new ApiBackfillSource(taifexClient) : new ArchiveBackfillSource(archiveDir);
+            } catch (IllegalArgumentException e) {
+                return errorResponse("E006", e.getMessage());
+            }
+            Path checkpointFile = checkpointDir.resolve("backfill-" + sourceName + "-"
+                    + startDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "-"
+                    + endDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + chunkDays + ".checkpoint");
+            return run(source, new BackfillCheckpoint(checkpointFile), startDate, endDate, chunkDays);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    BackfillResponse run(BackfillSource source, BackfillCheckpoint checkpoint,
+                         LocalDate startDate, LocalDate endDate, int chunkDays) {
+        long startedAt = System.nanoTime();
+        BackfillResponse response = new BackfillResponse();
+
+        // 切成 [chunkStart, chunkEnd] 區段，已記錄在進度檔中的略過
+        Map<LocalDate, LocalDate> pending = new LinkedHashMap<>();
+        int chunks = 0;
+        for (LocalDate chunkStart = startDate; !chunkStart.isAfter(endDate); chunkStart = chunkStart.plusDays(chunkDays)) {
+            chunks++;
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays - 1L);
+            if (!checkpoint.isCompleted(chunkStart)) {
+                pending.put(chunkStart, chunkEnd.isAfter(endDate) ? endDate : chunkEnd);
+            }
+        }
+        response.setChunks(chunks);
+        response.setResumedChunks(chunks - pending.size());
+
+        IngestionResult total = new IngestionResult();
+        int failedChunks = 0;
+        if (!pending.isEmpty()) {
+            AtomicInteger threadId = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, pending.size()), runnable -> {
+                Thread thread = new Thread(runnable, "exchange-rate-backfill-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                Map<LocalDate, Future<IngestionResult>> futures = new LinkedHashMap<>();
+                pending.forEach((chunkStart, chunkEnd) ->
+                        futures.put(chunkStart, pool.submit(() -> loadChunk(source, checkpoint, chunkStart, chunkEnd))));
+                for (Map.Entry<LocalDate, Future<IngestionResult>> entry : futures.entrySet()) {
+                    try {
+                        total = total.plus(entry.getValue().get());
+                    } catch (ExecutionException e) {
+                        failedChunks++;
+                        logger.warn("回補區段 {} 失敗，重新執行時會再處理: {}", entry.getKey(), e.getCause().getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("回補作業被中斷", e);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        if (failedChunks == 0) {
+            checkpoint.delete();
+            response.setError(new ExchangeRateQueryResponse.ErrorInfo("0000", "成功"));
+        } else {
+            response.setError(new ExchangeRateQueryResponse.ErrorInfo("E009", "部分區段匯入失敗，重新執行可從進度檔繼續"));
+        }
+        response.setFailedChunks(failedChunks);
+        response.setInserted(total.getInserted());
+        response.setSkipped(total.getSkipped());
+        response.setFailed(total.getFailed());
+        response.setElapsedMillis((System.nanoTime() - startedAt) / 1_000_000);
+        logger.info("回補 {} ~ {} 完成：區段 {}（續傳略過 {}，失敗 {}），{}，耗時 {} ms", startDate, endDate,
+                chunks, response.getResumedChunks(), failedChunks, total, response.getElapsedMillis());
+        return response;
+    }
+
+    private IngestionResult loadChunk(BackfillSource source, BackfillCheckpoint checkpoint,
+                                      LocalDate chunkStart, LocalDate chunkEnd) {
+        List<ExchangeRate> rates = new ArrayList<>();
+        long failed = source.read(chunkStart, chunkEnd, rates::add);
+        IngestionResult result = exchangeRateService.saveExchangeRates(rates).plus(new IngestionResult(0, 0, failed));
+        // 寫入成功後才記錄進度
+        checkpoint.markCompleted(chunkStart);
+        return result;
+    }
+
+    private static BackfillResponse errorResponse(String code, String message) {
+        BackfillResponse response = new BackfillResponse();
+        response.setError(new ExchangeRateQueryResponse.ErrorInfo(code, message));
+        return response;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.forex.service;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.dto.ExchangeRateHistoryRequest;
+import com.example.forex.dto.ExchangeRateHistoryResponse;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.model.ExchangeRateRollup;
+import com.example.forex.model.RollupPeriod;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.scheduler.StartupTask;
+import com.example.forex.util.FixedWidthFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 長期走勢：日資料由 repository 跨每日文件與月份封存文件讀取，
+ * 週、月資料直接讀取匯入時維護的 OHLC 彙總，十年的月走勢只讀約 120 筆文件。
+ */
+@Service
+public class ExchangeRateHistoryService implements StartupTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateHistoryService.class);
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final LocalDate HISTORY_FROM = LocalDate.of(1990, 1, 1);
+    private static final List<CurrencyPair> ALL_PAIRS = Arrays.asList(CurrencyPair.values());
+
+    private final ExchangeRateRepository repository;
+
+    public ExchangeRateHistoryService(ExchangeRateRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String getStartupTaskName() {
+        return "建立匯率彙總";
+    }
+
+    // 尚未有任何彙總時（第一次部署）在背景由歷史資料建立
+    @Override
+    public void runStartupTask() {
+        if (!repository.hasRollups()) {
+            rebuildRollups();
+        }
+    }
+
+    public void rebuildRollups() {
+        List<ExchangeRate> history = repository.findRates(HISTORY_FROM, LocalDate.now(), ALL_PAIRS);
+        List<ExchangeRateRollup> rollups = new ArrayList<>();
+        for (RollupPeriod period : RollupPeriod.values()) {
+            rollups.addAll(rollups(period, history, null));
+        }
+        repository.saveRollups(rollups);
+        logger.info("匯率彙總建立完成，共 {} 個日期、{} 筆彙總", history.size(), rollups.size());
+    }
+
+    /**
+     * 匯入流程寫入新資料後重新計算受影響的週與月（讀取涵蓋這些期間的每日資料一次）。
+     * 其他節點寫入的資料由寫入的節點負責，彙總存在共用的資料庫中，這裡略過。
+     */
+    @EventListener
+    public void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        if (event.isReplicated() || event.getRates().isEmpty()) {
+            return;
+        }
+        try {
+            refreshRollups(event.getRates());
+        } catch (RuntimeException e) {
+            // 彙總失敗不影響匯入本身
+            logger.warn("更新匯率彙總失敗: {}", e.getMessage());
+        }
+    }
+
+    void refreshRollups(Collection<ExchangeRate> saved) {
+        LocalDate from = null;
+        LocalDate to = null;
+        for (ExchangeRate rate : saved) {
+            for (RollupPeriod period : RollupPeriod.values()) {
+                LocalDate start = period.start(rate.getDate());
+                LocalDate end = period.end(start);
+                from = from == null || start.isBefore(from) ? start : from;
+                to = to == null || end.isAfter(to) ? end : to;
+            }
+        }
+        List<ExchangeRate> daily = repository.findRates(from, to, ALL_PAIRS);
+        List<ExchangeRateRollup> rollups = new ArrayList<>();
+        for (RollupPeriod period : RollupPeriod.values()) {
+            TreeSet<LocalDate> affected = new TreeSet<>();
+            saved.forEach(rate -> affected.add(period.start(rate.getDate())));
+            rollups.addAll(rollups(period, daily, affected));
+        }
+        repository.saveRollups(rollups);
+    }
+
+    // 依期間分組計算彙總，affected 不為 null 時只計算這些期間
+    private static List<ExchangeRateRollup> rollups(RollupPeriod period, List<ExchangeRate> daily,
+                                                    TreeSet<LocalDate> affected) {
+        Map<LocalDate, List<ExchangeRate>> byPeriod = new TreeMap<>();
+        for (ExchangeRate rate : daily) {
+            LocalDate start = period.start(rate.getDate());
+            if (affected == null || affected.contains(start)) {
+                byPeriod.computeIfAbsent(start, key -> new ArrayList<>()).add(rate);
+            }
+        }
+        List<ExchangeRateRollup> rollups = new ArrayList<>();
+        byPeriod.forEach((start, rates) -> rollups.add(ExchangeRateRollup.of(period, start, rates)));
+        return rollups;
+    }
+
+    public ExchangeRateHistoryResponse queryHistory(ExchangeRateHistoryRequest request) {
+        LocalDate startDate;
+        LocalDate endDate;
+        try {
+            startDate = LocalDate.parse(request.getStartDate(), REQUEST_FORMATTER);
+            endDate = LocalDate.parse(request.getEndDate(), REQUEST_FORMATTER);
+        } catch (DateTimeParseException | NullPointerException e) {
+            return errorResponse("E003", "日期格式錯誤");
+        }
+        if (startDate.isAfter(endDate)) {
+            return errorResponse("E001", "日期區間不符");
+        }
+        String currency = request.getCurrency() == null || request.getCurrency().isBlank() ? "usd" : request.getCurrency();
+        CurrencyPair pair = CurrencyPair.fromName(currency);
+        if (pair == null) {
+            return errorResponse("E004", "不支援的幣別");
+        }
+        String intervalName = request.getInterval() == null || request.getInterval().isBlank() ? "day" : request.getInterval();
+        RollupPeriod period = RollupPeriod.fromName(intervalName);
+        if (period == null && !"day".equalsIgnoreCase(intervalName.trim())) {
+            return errorResponse("E014", "不支援的資料間隔");
+        }
+
+        List<ExchangeRateHistoryResponse.Point> points = new ArrayList<>();
+        if (period == null) {
+            for (ExchangeRate rate : repository.findRates(startDate, endDate, pair.asList())) {
+                BigDecimal value = rate.getRate(pair);
+                if (value != null) {
+                    points.add(new ExchangeRateHistoryResponse.Point(
+                            FixedWidthFormat.formatDate(rate.getDate().toEpochDay()), null, null, null, format(value, pair)));
+                }
+            }
+        } else {
+            // 以涵蓋查詢區間的完整週、月為單位
+            for (ExchangeRateRollup rollup : repository.findRollups(period, period.start(startDate), endDate, pair.asList())) {
+                ExchangeRateRollup.Ohlc ohlc = rollup.getRate(pair);
+                if (ohlc != null) {
+                    points.add(new ExchangeRateHistoryResponse.Point(
+                            FixedWidthFormat.formatDate(rollup.getStart().toEpochDay()), format(ohlc.getOpen(), pair),
+                            format(ohlc.getHigh(), pair), format(ohlc.getLow(), pair), format(ohlc.getClose(), pair)));
+                }
+            }
+        }
+
+        ExchangeRateHistoryResponse response = new ExchangeRateHistoryResponse();
+        response.setError(new ExchangeRateQueryResponse.ErrorInfo("0000", "成功"));
+        response.setCurrency(pair.getCode());
+        response.setInterval(period == null ? "day" : period.getCode());
+        response.setPoints(points);
+        return response;
+    }
+
+    private static String format(BigDecimal value, CurrencyPair pair) {
+        return FixedWidthFormat.formatScaled(ExchangeRateCache.toScaled(value), ExchangeRateCache.RATE_SCALE,
+                pair.getDisplayScale());
+    }
+
+    private static ExchangeRateHistoryResponse errorResponse(String code, String message) {
+        ExchangeRateHistoryResponse response = new ExchangeRateHistoryResponse();
+        response.setError(new ExchangeRateQueryResponse.ErrorInfo(code, message));
+        return response;
+    }
+}
@@ -1,98 +1,696 @@
 package com.example.forex.service;
 
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.dto.BatchQueryRequest;
+import com.example.forex.dto.BatchQueryResponse;
+import com.example.forex.dto.CacheStatsResponse;
 import com.example.forex.dto.ExchangeRateQueryRequest;
 import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.dto.ExchangeRateSeries;
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.metrics.ExchangeRateMetrics;
+import com.example.forex.model.CurrencyPair;
 import com.example.forex.model.ExchangeRate;
 import com.example.forex.repository.ExchangeRateRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.forex.scheduler.StartupTask;
+import com.example.forex.store.IngestionJournal;
+import com.example.forex.store.LocalRateStore;
+import com.example.forex.util.CountingInputStream;
+import com.example.forex.util.FixedWidthFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
-public class ExchangeRateService {
+public class ExchangeRateService implements StartupTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateService.class);
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int KNOWN_RATES_DAYS = 400;
+
+    // 一次批次查詢的區間數上限
+    private static final int MAX_BATCH_RANGES = 1000;
 
     private final ExchangeRateRepository repository;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final ExchangeRateCache cache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaifexClient taifexClient;
+    private final ExchangeRateStreamParser streamParser;
+    private final int batchSize;
+    private final ExchangeRateMetrics metrics;
+    // 已與 MongoDB 同步的本機匯率檔，快取未命中時優先讀取；未設定時為 null
+    private final LocalRateStore localStore;
+    // 解析完成才寫入資料庫的預寫日誌
+    private final IngestionJournal journal;
+    // 近期已確認的資料庫內容（含 revision），內容相同的日期匯入時不必再查詢
+    private final ConcurrentNavigableMap<LocalDate, ExchangeRate> knownRates = new ConcurrentSkipListMap<>();
+    // 上一份成功處理的 API 回應內容的 SHA-256
+    private volatile byte[] lastPayloadHash;
+    // 進行中的抓取；排程與手動觸發同時發生時共用同一次的結果
+    private final AtomicReference<CompletableFuture<Optional<IngestionResult>>> inFlight = new AtomicReference<>();
+    // 匯入的寫入階段同一時間只有一個，中斷後待重播的匯入一定先於新的匯入寫入
+    private final ReentrantLock applyLock = new ReentrantLock();
+
+    // 不需要輸出指標時（單元測試、效能測試）使用
+    public ExchangeRateService(ExchangeRateRepository repository, ExchangeRateCache cache,
+                               ApplicationEventPublisher eventPublisher, TaifexClient taifexClient) {
+        this(repository, cache, eventPublisher, taifexClient, new ExchangeRateMetrics(new SimpleMeterRegistry()));
+    }
+
+    // 不使用本機匯率檔，所有快取未命中的查詢都讀取 MongoDB
+    public ExchangeRateService(ExchangeRateRepository repository, ExchangeRateCache cache,
+                               ApplicationEventPublisher eventPublisher, TaifexClient taifexClient,
+                               ExchangeRateMetrics metrics) {
+        this(repository, cache, eventPublisher, taifexClient, metrics, null);
+    }
 
-    public ExchangeRateService(ExchangeRateRepository repository) {
+    // 不使用匯入日誌：邊解析邊逐批寫入，程序中斷後無法重播
+    public ExchangeRateService(ExchangeRateRepository repository, ExchangeRateCache cache,
+                               ApplicationEventPublisher eventPublisher, TaifexClient taifexClient,
+                               ExchangeRateMetrics metrics, LocalRateStore localStore) {
+        this(repository, cache, eventPublisher, taifexClient, metrics, localStore, IngestionJournal.disabled());
+    }
+
+    @Autowired
+    public ExchangeRateService(ExchangeRateRepository repository, ExchangeRateCache cache,
+                               ApplicationEventPublisher eventPublisher, TaifexClient taifexClient,
+                               ExchangeRateMetrics metrics, LocalRateStore localStore, IngestionJournal journal) {
         this.repository = repository;
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+        this.cache = cache;
+        this.eventPublisher = eventPublisher;
+        this.taifexClient = taifexClient;
+        this.streamParser = new ExchangeRateStreamParser();
+        this.batchSize = ExchangeRateStreamParser.DEFAULT_BATCH_SIZE;
+        this.metrics = metrics;
+        this.localStore = localStore;
+        this.journal = journal;
     }
 
     public void fetchAndSaveExchangeRates() {
-        // 呼叫臺交所外匯 API
-        String apiUrl = "https://openapi.taifex.com.tw/v1/DailyForeignExchangeRates";
-        String response = restTemplate.getForObject(apiUrl, String.class);
+        fetchOnce(false);
+    }
 
+    /**
+     * 盤中輪詢用的抓取：回應內容先完整讀入並計算 SHA-256，與上次成功處理的內容相同時不解析。
+     * 內容未變更（304 或雜湊相同）時回傳 Optional.empty()。
+     * 每日回應只有數十 KB，先讀入記憶體的成本遠低於重複解析與查詢資料庫。
+     */
+    public Optional<IngestionResult> pollExchangeRates() {
+        return fetchOnce(true);
+    }
+
+    /**
+     * 同一時間只執行一次抓取：已有抓取進行中時不再呼叫 API，等待進行中的抓取並回傳相同的結果（或例外）。
+     * 進行中的是輪詢、後到的是每日抓取時也共用：輪詢的結果若為內容未變更，代表資料庫已是最新內容。
+     */
+    private Optional<IngestionResult> fetchOnce(boolean dropUnchanged) {
+        CompletableFuture<Optional<IngestionResult>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<IngestionResult>> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            metrics.recordCoalesced();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
         try {
-            // 假設 API 回傳 JSON 陣列格式，每個物件包含 "Date" 與 "USD/NTD"
-            JsonNode root = objectMapper.readTree(response);
-            if (root.isArray()) {
-                for (JsonNode node : root) {
-                    // 取得日期字串，格式預設為 "yyyyMMdd"
-                    String dateStr = node.get("Date").asText();
-                    LocalDate date = LocalDate.parse(dateStr, DateTimeFormatter.ofPattern("yyyyMMdd"));
-
-                    // 取得美元對台幣匯率（確認欄位名稱是否為 "USD/NTD"）
-                    if (node.has("USD/NTD")) {
-                        String rateStr = node.get("USD/NTD").asText();
-                        BigDecimal rate = new BigDecimal(rateStr);
-
-                        // 檢查資料庫中是否已存在相同日期的資料
-                        Optional<ExchangeRate> existing = repository.findByDate(date);
-                        if (existing.isEmpty()) {
-                            ExchangeRate exchangeRate = new ExchangeRate(date, rate);
-                            repository.save(exchangeRate);
-                        }
+            Optional<IngestionResult> result = fetch(dropUnchanged);
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.set(null);
+        }
+    }
+
+    private Optional<IngestionResult> fetch(boolean dropUnchanged) {
+        // 呼叫臺交所外匯 API，直接以串流解析回應內容，不先讀成字串
+        // bodyReader 在收到回應標頭時才被呼叫，呼叫前的時間即為 HTTP 延遲（含重試）
+        long startedAt = System.nanoTime();
+        long[] httpNanos = {-1};
+        boolean[] unchanged = {false};
+        Optional<IngestionResult> result;
+        try {
+            result = taifexClient.fetch(in -> {
+                httpNanos[0] = System.nanoTime() - startedAt;
+                CountingInputStream counting = new CountingInputStream(in);
+                try {
+                    if (!dropUnchanged) {
+                        DigestInputStream digesting = new DigestInputStream(counting, sha256());
+                        IngestionResult ingested = ingestExchangeRates(digesting);
+                        lastPayloadHash = digesting.getMessageDigest().digest();
+                        return ingested;
+                    }
+                    byte[] body = counting.readAllBytes();
+                    byte[] hash = sha256().digest(body);
+                    if (Arrays.equals(hash, lastPayloadHash)) {
+                        unchanged[0] = true;
+                        return null;
                     }
+                    IngestionResult ingested = ingestExchangeRates(new ByteArrayInputStream(body));
+                    // 處理成功才記住雜湊，失敗時下次仍會重新解析
+                    lastPayloadHash = hash;
+                    return ingested;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    metrics.recordPayload(counting.getCount());
                 }
+            });
+        } catch (RuntimeException e) {
+            if (httpNanos[0] < 0) {
+                metrics.recordFetch("error", System.nanoTime() - startedAt);
+            } else {
+                metrics.recordFetch("success", httpNanos[0]);
+            }
+            throw e;
+        }
+        if (unchanged[0]) {
+            metrics.recordFetch("unchanged", httpNanos[0]);
+            logger.info("匯率資料內容與上次相同（雜湊比對），略過解析");
+            return Optional.empty();
+        }
+        if (result.isEmpty()) {
+            metrics.recordFetch("not_modified", System.nanoTime() - startedAt);
+            logger.info("匯率資料與上次相同（304），略過解析");
+            return result;
+        }
+        metrics.recordFetch("success", httpNanos[0]);
+        logger.info("匯率資料匯入完成: {}，HTTP {} ms，總計 {} ms", result.get(),
+                httpNanos[0] / 1_000_000, (System.nanoTime() - startedAt) / 1_000_000);
+        return result;
+    }
+
+    public IngestionResult ingestExchangeRates(String json) {
+        return ingestExchangeRates(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 先完整解析 API 回應並逐批寫入匯入日誌，解析成功後才從日誌讀回各批寫入資料庫：
+     * 每批以一次查詢取出既有日期的內容，新日期以一次 unordered bulk upsert 寫入，
+     * 內容不同的既有日期（TAIFEX 更正）以版本號遞增的 bulk 更新覆寫。
+     * 單筆資料格式錯誤只計入失敗筆數；JSON 結構錯誤時丟出例外，資料庫完全不寫入。
+     * 沒有可用的匯入日誌時改為邊解析邊逐批寫入，記憶體用量不隨回應大小成長，JSON 結構錯誤前的批次會保留。
+     */
+    public IngestionResult ingestExchangeRates(InputStream in) {
+        if (!journal.isPersistent()) {
+            return ingestStreaming(in);
+        }
+        long startedAt = System.nanoTime();
+        IngestionJournal.Run run = journal.begin();
+        long failed;
+        try {
+            failed = streamParser.parse(in, batchSize, run::append);
+            run.seal();
+        } catch (RuntimeException e) {
+            run.abort();
+            throw e;
+        }
+        metrics.recordParse(System.nanoTime() - startedAt);
+        metrics.recordRows(new IngestionResult(0, 0, failed));
+        return apply(run).plus(new IngestionResult(0, 0, failed));
+    }
+
+    private IngestionResult ingestStreaming(InputStream in) {
+        long startedAt = System.nanoTime();
+        long[] saveNanos = {0};
+        IngestionResult[] total = {new IngestionResult()};
+        long failed;
+        applyLock.lock();
+        try {
+            failed = streamParser.parse(in, batchSize, batch -> {
+                long batchStartedAt = System.nanoTime();
+                total[0] = total[0].plus(saveBatch(batch, true));
+                saveNanos[0] += System.nanoTime() - batchStartedAt;
+            });
+        } finally {
+            applyLock.unlock();
+        }
+        // 解析與寫入交錯進行，解析時間 = 總時間 - 寫入批次的時間
+        metrics.recordParse(System.nanoTime() - startedAt - saveNanos[0]);
+        metrics.recordRows(new IngestionResult(0, 0, failed));
+        return total[0].plus(new IngestionResult(0, 0, failed));
+    }
+
+    @Override
+    public String getStartupTaskName() {
+        return "重播中斷的匯入";
+    }
+
+    /**
+     * 重播上次執行中斷、已解析完成但尚未全部寫入資料庫的匯入（寫入可重複執行，已寫入的日期內容相同而略過）。
+     * 啟動完成後在背景執行；MongoDB 尚未就緒時定期重試，下一次匯入寫入前也會先重播。
+     */
+    @Override
+    public void runStartupTask() {
+        if (journal.hasRecovered()) {
+            replayJournal();
+        }
+    }
+
+    public IngestionResult replayJournal() {
+        applyLock.lock();
+        try {
+            return replayRecovered();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private IngestionResult apply(IngestionJournal.Run run) {
+        applyLock.lock();
+        try {
+            replayRecovered();
+            IngestionResult[] total = {new IngestionResult()};
+            run.forEachBatch(batch -> total[0] = total[0].plus(saveBatch(batch, true)));
+            run.commit();
+            return total[0];
+        } catch (RuntimeException e) {
+            // 程序仍在執行，下一次抓取會取得較新的完整資料，不重播這次匯入
+            run.abort();
+            throw e;
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    // 呼叫端持有 applyLock；失敗時尚未完成的匯入放回待重播清單，下次寫入前重試
+    private IngestionResult replayRecovered() {
+        IngestionResult total = new IngestionResult();
+        List<IngestionJournal.Run> runs = journal.takeRecovered();
+        for (int i = 0; i < runs.size(); i++) {
+            IngestionJournal.Run run = runs.get(i);
+            IngestionResult[] replayed = {new IngestionResult()};
+            try {
+                run.forEachBatch(batch -> replayed[0] = replayed[0].plus(saveBatch(batch, true)));
+            } catch (RuntimeException e) {
+                journal.restoreRecovered(runs.subList(i, runs.size()));
+                throw e;
+            }
+            run.commit();
+            logger.info("重播中斷的匯入 #{}: {}", run.getId(), replayed[0]);
+            total = total.plus(replayed[0]);
+        }
+        return total;
+    }
+
+    /**
+     * 寫入一批已解析的匯率（例如回補歷史資料的一個區段），與 API 匯入相同以一次 bulk upsert 寫入新日期並通知快取；
+     * 已存在的日期一律略過，不更正（本機歷史檔可能比資料庫中更正後的內容舊）。
+     */
+    public IngestionResult saveExchangeRates(List<ExchangeRate> rates) {
+        return rates.isEmpty() ? new IngestionResult() : saveBatch(rates, false);
+    }
+
+    private IngestionResult saveBatch(List<ExchangeRate> batch, boolean correct) {
+        // 同一批中若出現重複日期，以第一筆為準
+        Map<LocalDate, ExchangeRate> parsed = new LinkedHashMap<>();
+        long skipped = 0;
+        for (ExchangeRate rate : batch) {
+            if (parsed.putIfAbsent(rate.getDate(), rate) != null) {
+                skipped++;
+            }
+        }
+
+        // 先排除本機已確認內容相同的日期：API 每次回傳近一個月的資料，通常只有最後一天是新的
+        for (var iterator = parsed.values().iterator(); iterator.hasNext(); ) {
+            ExchangeRate rate = iterator.next();
+            ExchangeRate known = knownRates.get(rate.getDate());
+            if (known != null && (!correct || known.covers(rate))) {
+                iterator.remove();
+                skipped++;
+            }
+        }
+        if (parsed.isEmpty()) {
+            IngestionResult result = new IngestionResult(0, skipped, 0);
+            metrics.recordRows(result);
+            return result;
+        }
+
+        // 一次查詢取出既有日期的內容，與解析結果比對
+        Map<LocalDate, ExchangeRate> stored = repository.findStoredRates(parsed.keySet());
+        List<ExchangeRate> newRates = new ArrayList<>();
+        List<ExchangeRate> corrections = new ArrayList<>();
+        for (ExchangeRate rate : parsed.values()) {
+            ExchangeRate current = stored.get(rate.getDate());
+            if (current == null) {
+                rate.setRevision(1);
+                newRates.add(rate);
+            } else if (!correct || current.covers(rate)) {
+                skipped++;
             } else {
-                throw new RuntimeException("API 回傳格式不是 JSON 陣列");
+                corrections.add(current.correctedBy(rate));
+            }
+        }
+
+        long writeStartedAt = System.nanoTime();
+        IngestionResult inserted = repository.bulkUpsert(newRates);
+        IngestionResult revised = corrections.isEmpty() ? new IngestionResult() : repository.bulkRevise(corrections);
+        metrics.recordWrite(System.nanoTime() - writeStartedAt);
+        remember(stored.values());
+        if (inserted.getFailed() == 0 && inserted.getSkipped() == 0) {
+            remember(newRates);
+        } else {
+            // 其他匯入搶先寫入或寫入失敗，下次重新查詢
+            newRates.forEach(rate -> knownRates.remove(rate.getDate()));
+        }
+        List<ExchangeRate> saved = new ArrayList<>(newRates);
+        if (revised.getUpdated() == corrections.size()) {
+            remember(corrections);
+            saved.addAll(corrections);
+            corrections.forEach(rate -> logger.info("匯率更正: {} revision {}", rate.getDate(), rate.getRevision()));
+        } else {
+            // 部分日期版本不符（其他匯入已先更正）或已封存：以資料庫目前的內容通知快取，下次匯入再重新比對
+            logger.warn("{} 筆匯率更正因版本不符或已封存未寫入", corrections.size() - revised.getUpdated());
+            List<LocalDate> dates = corrections.stream().map(ExchangeRate::getDate).toList();
+            Collection<ExchangeRate> current = repository.findStoredRates(dates).values();
+            remember(current);
+            saved.addAll(current);
+        }
+        if (inserted.getInserted() > 0 || revised.getUpdated() > 0) {
+            // 通知快取等元件有新資料寫入或既有資料被更正
+            eventPublisher.publishEvent(new ExchangeRatesSavedEvent(saved, false, !correct));
+        }
+        IngestionResult result = inserted.plus(revised).plus(new IngestionResult(0, skipped, 0));
+        metrics.recordRows(result);
+        return result;
+    }
+
+    // 資料不會刪除，只保留近期日期的內容，避免回補時無限成長
+    private void remember(Collection<ExchangeRate> rates) {
+        LocalDate retainFrom = LocalDate.now().minusDays(KNOWN_RATES_DAYS);
+        for (ExchangeRate rate : rates) {
+            if (!rate.getDate().isBefore(retainFrom)) {
+                knownRates.put(rate.getDate(), rate);
             }
-        } catch (Exception e) {
-            throw new RuntimeException("解析 JSON 失敗: " + e.getMessage(), e);
+        }
+        knownRates.headMap(retainFrom).clear();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
     public ExchangeRateQueryResponse queryExchangeRates(ExchangeRateQueryRequest request) {
+        long startedAt = System.nanoTime();
+        // 轉換日期字串 -> LocalDate
+        LocalDate startDate = parseRequestDate(request.getStartDate());
+        LocalDate endDate = parseRequestDate(request.getEndDate());
+        ExchangeRateQueryResponse response = queryExchangeRates(request, startDate, endDate);
+        metrics.recordQuery(response.getError().getCode(), startDate, endDate, System.nanoTime() - startedAt);
+        return response;
+    }
+
+    private ExchangeRateQueryResponse queryExchangeRates(ExchangeRateQueryRequest request,
+                                                         LocalDate startDate, LocalDate endDate) {
+        QueryError invalid = validate(startDate, endDate);
+        if (invalid != null) {
+            return invalid.response();
+        }
+
+        // 驗證幣別，可用逗號分隔一次查詢多個幣別，未指定時預設美元
+        List<CurrencyPair> pairs = parseCurrencies(request.getCurrency());
+        if (pairs == null) {
+            return QueryError.UNSUPPORTED_CURRENCY.response();
+        }
+
+        // 查詢資料：區間在快取涵蓋範圍內時直接以二分搜尋取出，不呼叫 MongoDB
+        // 所有幣別存在同一筆文件中，不論查幾個幣別都只掃描一次區間
+        ExchangeRateCache.Snapshot cached = cache.lookup(startDate, endDate);
+        if (cached != null) {
+            return successResponse(currencyInfos(cached, startDate, endDate, pairs));
+        }
+        List<ExchangeRate> rates = findRates(startDate, endDate, pairs);
+        return successResponse(currencyInfos(rates, 0, rates.size(), pairs));
+    }
+
+    /**
+     * 一次查詢多個區間，結果依原本的順序回傳，每個區間各自驗證並保留原本的錯誤代碼。
+     * 快取未命中的區間先依日期合併重疊或相鄰的部分，每個合併後的區間只讀取一次（幣別取聯集），
+     * 再依各區間的起訖日從讀出的資料中切出結果。
+     */
+    public BatchQueryResponse queryBatch(BatchQueryRequest request) {
+        List<ExchangeRateQueryRequest> queries = request.getQueries();
+        if (queries == null || queries.isEmpty() || queries.size() > MAX_BATCH_RANGES) {
+            return new BatchQueryResponse(QueryError.INVALID_BATCH_SIZE.errorInfo(), null);
+        }
+        long startedAt = System.nanoTime();
+        int size = queries.size();
+        ExchangeRateQueryResponse[] results = new ExchangeRateQueryResponse[size];
+        LocalDate[] startDates = new LocalDate[size];
+        LocalDate[] endDates = new LocalDate[size];
+        List<List<CurrencyPair>> pairsByQuery = new ArrayList<>(size);
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ExchangeRateQueryRequest query = queries.get(i);
+            List<CurrencyPair> pairs = null;
+            if (query == null) {
+                results[i] = QueryError.INVALID_DATE_FORMAT.response();
+            } else {
+                startDates[i] = parseRequestDate(query.getStartDate());
+                endDates[i] = parseRequestDate(query.getEndDate());
+                QueryError invalid = validate(startDates[i], endDates[i]);
+                if (invalid != null) {
+                    results[i] = invalid.response();
+                } else {
+                    pairs = parseCurrencies(query.getCurrency());
+                    if (pairs == null) {
+                        results[i] = QueryError.UNSUPPORTED_CURRENCY.response();
+                    } else {
+                        ExchangeRateCache.Snapshot cached = cache.lookup(startDates[i], endDates[i]);
+                        if (cached != null) {
+                            results[i] = successResponse(currencyInfos(cached, startDates[i], endDates[i], pairs));
+                        } else {
+                            misses.add(i);
+                        }
+                    }
+                }
+            }
+            pairsByQuery.add(pairs);
+        }
+
+        misses.sort(Comparator.comparing(i -> startDates[i]));
+        for (int k = 0; k < misses.size(); ) {
+            // 起始日不晚於目前合併區間結束日的隔天，即與目前區間重疊或相鄰
+            int first = k;
+            LocalDate mergedStart = startDates[misses.get(k)];
+            LocalDate mergedEnd = endDates[misses.get(k)];
+            EnumSet<CurrencyPair> mergedPairs = EnumSet.noneOf(CurrencyPair.class);
+            while (k < misses.size() && !startDates[misses.get(k)].isAfter(mergedEnd.plusDays(1))) {
+                int index = misses.get(k);
+                if (endDates[index].isAfter(mergedEnd)) {
+                    mergedEnd = endDates[index];
+                }
+                mergedPairs.addAll(pairsByQuery.get(index));
+                k++;
+            }
+            List<ExchangeRate> rates = findRates(mergedStart, mergedEnd, new ArrayList<>(mergedPairs));
+            for (int m = first; m < k; m++) {
+                int index = misses.get(m);
+                int from = indexOf(rates, startDates[index]);
+                int to = indexOf(rates, endDates[index].plusDays(1));
+                results[index] = successResponse(currencyInfos(rates, from, to, pairsByQuery.get(index)));
+            }
+        }
+
+        // 各區間平均分攤整批的處理時間
+        long nanos = (System.nanoTime() - startedAt) / size;
+        for (int i = 0; i < size; i++) {
+            metrics.recordQuery(results[i].getError().getCode(), startDates[i], endDates[i], nanos);
+        }
+        return new BatchQueryResponse(success(), Arrays.asList(results));
+    }
+
+    // 日期與匯率字串已在快取中格式化好，直接共用
+    private static List<ExchangeRateQueryResponse.CurrencyInfo> currencyInfos(
+            ExchangeRateCache.Snapshot cached, LocalDate startDate, LocalDate endDate, List<CurrencyPair> pairs) {
+        int from = cached.lowerBound((int) startDate.toEpochDay());
+        int to = cached.upperBound((int) endDate.toEpochDay());
+        List<ExchangeRateQueryResponse.CurrencyInfo> currencyInfoList = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            ExchangeRateQueryResponse.CurrencyInfo info = new ExchangeRateQueryResponse.CurrencyInfo(pairs.size());
+            for (int p = 0; p < pairs.size(); p++) {
+                CurrencyPair pair = pairs.get(p);
+                String rate = cached.rateText(pair, i);
+                if (rate != null) {
+                    info.setRate(pair.getCode(), rate);
+                }
+            }
+            // 當日所查幣別皆無資料則不回傳
+            if (info.hasRates()) {
+                info.setDate(cached.dateText(i));
+                currencyInfoList.add(info);
+            }
+        }
+        return currencyInfoList;
+    }
+
+    // rates 中 [from, to) 的資料組成 CurrencyInfo，rates 依日期排序
+    private static List<ExchangeRateQueryResponse.CurrencyInfo> currencyInfos(
+            List<ExchangeRate> rates, int from, int to, List<CurrencyPair> pairs) {
+        List<ExchangeRateQueryResponse.CurrencyInfo> currencyInfoList = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            ExchangeRate rate = rates.get(i);
+            ExchangeRateQueryResponse.CurrencyInfo info = new ExchangeRateQueryResponse.CurrencyInfo(pairs.size());
+            for (int p = 0; p < pairs.size(); p++) {
+                CurrencyPair pair = pairs.get(p);
+                BigDecimal value = rate.getRate(pair);
+                if (value != null) {
+                    info.setRate(pair.getCode(), formatRate(value, pair));
+                }
+            }
+            if (info.hasRates()) {
+                info.setDate(FixedWidthFormat.formatDate(rate.getDate().toEpochDay()));
+                currencyInfoList.add(info);
+            }
+        }
+        return currencyInfoList;
+    }
+
+    // 依日期排序的 rates 中第一個日期 >= date 的位置
+    private static int indexOf(List<ExchangeRate> rates, LocalDate date) {
+        int low = 0;
+        int high = rates.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rates.get(mid).getDate().isBefore(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static ExchangeRateQueryResponse successResponse(List<ExchangeRateQueryResponse.CurrencyInfo> currencyInfoList) {
         ExchangeRateQueryResponse response = new ExchangeRateQueryResponse();
+        response.setError(success());
+        response.setCurrency(currencyInfoList);
+        return response;
+    }
 
-        // 轉換日期字串 -> LocalDate
-        DateTimeFormatter requestFormatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
-        LocalDate startDate;
-        LocalDate endDate;
-        try {
-            startDate = LocalDate.parse(request.getStartDate(), requestFormatter);
-            endDate = LocalDate.parse(request.getEndDate(), requestFormatter);
-        } catch (Exception e) {
-            ExchangeRateQueryResponse.ErrorInfo errorInfo = new ExchangeRateQueryResponse.ErrorInfo();
-            errorInfo.setCode("E003");
-            errorInfo.setMessage("日期格式錯誤");
-            response.setError(errorInfo);
-            response.setCurrency(null);
-            return response;
+    /**
+     * 與 queryExchangeRates 相同的條件與驗證，結果以欄位式的 ExchangeRateSeries 回傳，
+     * 匯率保留放大後的 long，不建立每日的 CurrencyInfo 與字串，供 columnar JSON 與二進位格式使用。
+     */
+    public ExchangeRateSeries querySeries(ExchangeRateQueryRequest request) {
+        long startedAt = System.nanoTime();
+        LocalDate startDate = parseRequestDate(request.getStartDate());
+        LocalDate endDate = parseRequestDate(request.getEndDate());
+        ExchangeRateSeries series = querySeries(request, startDate, endDate);
+        metrics.recordQuery(series.getError().getCode(), startDate, endDate, System.nanoTime() - startedAt);
+        return series;
+    }
+
+    private ExchangeRateSeries querySeries(ExchangeRateQueryRequest request, LocalDate startDate, LocalDate endDate) {
+        QueryError invalid = validate(startDate, endDate);
+        if (invalid != null) {
+            return new ExchangeRateSeries(invalid.errorInfo());
+        }
+        List<CurrencyPair> pairs = parseCurrencies(request.getCurrency());
+        if (pairs == null) {
+            return new ExchangeRateSeries(QueryError.UNSUPPORTED_CURRENCY.errorInfo());
+        }
+
+        ExchangeRateSeries series;
+        long[] row = new long[pairs.size()];
+        ExchangeRateCache.Snapshot cached = cache.lookup(startDate, endDate);
+        if (cached != null) {
+            int from = cached.lowerBound((int) startDate.toEpochDay());
+            int to = cached.upperBound((int) endDate.toEpochDay());
+            series = new ExchangeRateSeries(pairs, Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                boolean hasRates = false;
+                for (int p = 0; p < row.length; p++) {
+                    row[p] = cached.scaledRate(pairs.get(p), i);
+                    hasRates |= row[p] != ExchangeRateCache.MISSING;
+                }
+                // 當日所查幣別皆無資料則不回傳
+                if (hasRates) {
+                    series.addRow(cached.epochDay(i), row);
+                }
+            }
+        } else {
+            List<ExchangeRate> rates = findRates(startDate, endDate, pairs);
+            series = new ExchangeRateSeries(pairs, rates.size());
+            for (ExchangeRate rate : rates) {
+                boolean hasRates = false;
+                for (int p = 0; p < row.length; p++) {
+                    BigDecimal value = rate.getRate(pairs.get(p));
+                    row[p] = value == null ? ExchangeRateSeries.MISSING : ExchangeRateCache.toScaled(value);
+                    hasRates |= value != null;
+                }
+                if (hasRates) {
+                    series.addRow((int) rate.getDate().toEpochDay(), row);
+                }
+            }
+        }
+        series.setError(success());
+        return series;
+    }
+
+    // 快取未命中：本機匯率檔已與 MongoDB 同步時直接讀取檔案，不受資料庫狀態影響；
+    // 否則查詢 MongoDB，只取回所查幣別的欄位，依日期排序
+    private List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, List<CurrencyPair> pairs) {
+        if (localStore != null && localStore.isComplete()) {
+            return localStore.findRates(startDate, endDate, pairs);
+        }
+        return repository.findRates(startDate, endDate, pairs);
+    }
+
+    // 日期與區間檢查，通過時回傳 null
+    private static QueryError validate(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            return QueryError.INVALID_DATE_FORMAT;
         }
 
         // 驗證起始日期不得大於結束日期
         if (startDate.isAfter(endDate)) {
-            ExchangeRateQueryResponse.ErrorInfo errorInfo = new ExchangeRateQueryResponse.ErrorInfo();
-            errorInfo.setCode("E001");
-            errorInfo.setMessage("日期區間不符");
-            response.setError(errorInfo);
-            response.setCurrency(null);
-            return response;
+            return QueryError.INVALID_DATE_RANGE;
         }
 
         // 驗證只允許查1年前 ~ 昨天
@@ -101,37 +699,134 @@ public class ExchangeRateService {
         LocalDate maxAllowed = today.minusDays(1);
 
         if (startDate.isBefore(minAllowed) || endDate.isAfter(maxAllowed)) {
-            ExchangeRateQueryResponse.ErrorInfo errorInfo = new ExchangeRateQueryResponse.ErrorInfo();
-            errorInfo.setCode("E002");
-            errorInfo.setMessage("日期區間僅限1年前~當下日期-1天");
-            response.setError(errorInfo);
-            response.setCurrency(null);
-            return response;
+            return QueryError.OUT_OF_ALLOWED_RANGE;
         }
+        return null;
+    }
 
-        // 查詢資料
-        List<ExchangeRate> rates = repository.findByDateGreaterThanEqualAndDateLessThanEqual(startDate, endDate);
+    /**
+     * 解析 yyyy/MM/dd，格式錯誤時回傳 null。
+     * 標準的 10 字元格式直接以數字運算解析，其他情況交給 DateTimeFormatter，結果與原本一致。
+     */
+    static LocalDate parseRequestDate(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.length() == 10 && text.charAt(4) == '/' && text.charAt(7) == '/') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            if (year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 28) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        try {
+            return LocalDate.parse(text, REQUEST_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
 
-        // 組 CurrencyInfo
-        DateTimeFormatter outputFormatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        List<ExchangeRateQueryResponse.CurrencyInfo> currencyInfoList = rates.stream().map(rate -> {
-            ExchangeRateQueryResponse.CurrencyInfo info = new ExchangeRateQueryResponse.CurrencyInfo();
-            info.setDate(rate.getDate().format(outputFormatter));
-            info.setUsd(rate.getUsd().setScale(2, RoundingMode.HALF_UP).toString());
-            return info;
-        }).collect(Collectors.toList());
+    // 解析 [from, to) 的十進位數字，含非數字字元時回傳 -1
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 
-        // 成功回傳
-        ExchangeRateQueryResponse.ErrorInfo successError = new ExchangeRateQueryResponse.ErrorInfo();
-        successError.setCode("0000");
-        successError.setMessage("成功");
-        response.setError(successError);
-        response.setCurrency(currencyInfoList);
+    // 解析查詢幣別，有不支援的幣別時回傳 null
+    private static List<CurrencyPair> parseCurrencies(String currency) {
+        if (currency == null || currency.isBlank()) {
+            return CurrencyPair.USD.asList();
+        }
+        if (currency.indexOf(',') < 0) {
+            CurrencyPair pair = CurrencyPair.fromName(currency);
+            return pair == null ? null : pair.asList();
+        }
+        List<CurrencyPair> pairs = new ArrayList<>();
+        for (String name : currency.split(",")) {
+            CurrencyPair pair = CurrencyPair.fromName(name);
+            if (pair == null) {
+                return null;
+            }
+            if (!pairs.contains(pair)) {
+                pairs.add(pair);
+            }
+        }
+        return pairs;
+    }
 
-        return response;
+    private static String formatRate(BigDecimal rate, CurrencyPair pair) {
+        // 一般報價（小數 4 位以內）走整數格式化，其餘交給 BigDecimal
+        if (rate.scale() >= 0 && rate.scale() <= ExchangeRateCache.RATE_SCALE && rate.precision() <= 15) {
+            return FixedWidthFormat.formatScaled(rate.unscaledValue().longValue(), rate.scale(), pair.getDisplayScale());
+        }
+        return rate.setScale(pair.getDisplayScale(), RoundingMode.HALF_UP).toString();
+    }
+
+    // 回應物件可被呼叫端修改，每次建立新的，不在請求之間共用
+    private static ExchangeRateQueryResponse.ErrorInfo success() {
+        return new ExchangeRateQueryResponse.ErrorInfo("0000", "成功");
+    }
+
+    /**
+     * HTTP 快取用的查詢結果版本（ETag），只依快取內容計算，不呼叫資料庫。
+     * 與查詢相同先驗證（E001 ~ E004），請求不合法或區間不在快取範圍內時回傳 null，
+     * 呼叫端不做條件式處理，不合法的請求一律由查詢回 400，不會因 If-None-Match 回 304。
+     */
+    public String queryVersion(ExchangeRateQueryRequest request) {
+        LocalDate startDate = parseRequestDate(request.getStartDate());
+        LocalDate endDate = parseRequestDate(request.getEndDate());
+        if (validate(startDate, endDate) != null || parseCurrencies(request.getCurrency()) == null) {
+            return null;
+        }
+        return cache.version(startDate, endDate);
+    }
+
+    // 結束日早於最新資料日期的區間，內容不會再因每日匯入而改變，可長期快取
+    public boolean isSettledRange(ExchangeRateQueryRequest request) {
+        LocalDate endDate = parseRequestDate(request.getEndDate());
+        return endDate != null && cache.isSettled(endDate);
+    }
+
+    public CacheStatsResponse getCacheStats() {
+        return cache.getStats();
     }
 
     public List<ExchangeRate> queryExchangeRates(LocalDate startDate, LocalDate endDate) {
         return repository.findByDateGreaterThanEqualAndDateLessThanEqual(startDate, endDate);
     }
+
+    // 查詢的錯誤代碼與訊息（不可變），回應物件每次依此建立新的
+    private enum QueryError {
+        INVALID_DATE_RANGE("E001", "日期區間不符"),
+        OUT_OF_ALLOWED_RANGE("E002", "日期區間僅限1年前~當下日期-1天"),
+        INVALID_DATE_FORMAT("E003", "日期格式錯誤"),
+        UNSUPPORTED_CURRENCY("E004", "不支援的幣別"),
+        INVALID_BATCH_SIZE("E010", "查詢區間數須介於1~" + MAX_BATCH_RANGES);
+
+        private final String code;
+        private final String message;
+
+        QueryError(String code, String message) {
+            this.code = code;
+            this.message = message;
+        }
+
+        ExchangeRateQueryResponse.ErrorInfo errorInfo() {
+            return new ExchangeRateQueryResponse.ErrorInfo(code, message);
+        }
+
+        ExchangeRateQueryResponse response() {
+            ExchangeRateQueryResponse response = new ExchangeRateQueryResponse();
+            response.setError(errorInfo());
+            return response;
+        }
+    }
 }
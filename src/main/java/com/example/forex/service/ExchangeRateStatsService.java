@@ -0,0 +1,247 @@
+package com.example.forex.service;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.dto.ExchangeRateStatsRequest;
+import com.example.forex.dto.ExchangeRateStatsResponse;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.scheduler.StartupTask;
+import com.example.forex.stats.RateSeriesIndex;
+import com.example.forex.util.FixedWidthFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 匯率統計：每個幣別一個 RateSeriesIndex，啟動後在背景由歷史資料建立，
+ * 之後隨匯入流程寫入的新資料逐日附加，查詢時不重新計算。
+ * 索引建立完成前查詢回傳 E015（503），不在請求執行緒讀取歷史資料。
+ */
+@Service
+public class ExchangeRateStatsService implements StartupTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateStatsService.class);
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final int MAX_WINDOW = 1000;
+    private static final LocalDate HISTORY_FROM = LocalDate.of(1990, 1, 1);
+
+    private final ExchangeRateRepository repository;
+    private final int[] emaWindows;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<CurrencyPair, RateSeriesIndex> indices = new EnumMap<>(CurrencyPair.class);
+    private volatile boolean loaded;
+
+    public ExchangeRateStatsService(ExchangeRateRepository repository,
+                                    @Value("${forex.stats.ema-windows:5,10,20,60}") int[] emaWindows) {
+        this.repository = repository;
+        this.emaWindows = emaWindows;
+        for (CurrencyPair pair : CurrencyPair.values()) {
+            indices.put(pair, new RateSeriesIndex(emaWindows));
+        }
+    }
+
+    @Override
+    public String getStartupTaskName() {
+        return "建立匯率統計索引";
+    }
+
+    // 啟動完成後在背景建立索引，不拖慢啟動；MongoDB 尚未就緒時由 StartupTaskRunner 重試
+    @Override
+    public void runStartupTask() {
+        load();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void load() {
+        if (loaded) {
+            return;
+        }
+        // findRates 會一併讀取已封存的月份文件
+        List<ExchangeRate> history = repository.findRates(HISTORY_FROM, LocalDate.now(), Arrays.asList(CurrencyPair.values()));
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                // 建立期間若已有新資料附加，一併合併
+                for (CurrencyPair pair : CurrencyPair.values()) {
+                    indices.put(pair, rebuild(indices.get(pair), history, pair, false));
+                }
+                loaded = true;
+                logger.info("匯率統計索引建立完成，共 {} 個日期", history.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        List<ExchangeRate> added = new ArrayList<>(event.getRates());
+        added.sort(Comparator.comparing(ExchangeRate::getDate));
+        lock.writeLock().lock();
+        try {
+            for (CurrencyPair pair : CurrencyPair.values()) {
+                RateSeriesIndex index = indices.get(pair);
+                boolean appendOnly = true;
+                for (ExchangeRate rate : added) {
+                    if (rate.getRate(pair) != null && rate.getDate().toEpochDay() <= index.lastEpochDay()) {
+                        appendOnly = false;
+                        break;
+                    }
+                }
+                if (appendOnly) {
+                    // 一般情況：新日期接在最後面，逐筆附加
+                    for (ExchangeRate rate : added) {
+                        BigDecimal value = rate.getRate(pair);
+                        if (value != null) {
+                            index.append((int) rate.getDate().toEpochDay(), ExchangeRateCache.toScaled(value));
+                        }
+                    }
+                } else {
+                    // 補寫較早的日期（例如回補歷史資料）或更正既有日期時才重建
+                    indices.put(pair, rebuild(index, added, pair, true));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ExchangeRateStatsResponse queryStats(ExchangeRateStatsRequest request) {
+        LocalDate startDate;
+        LocalDate endDate;
+        try {
+            startDate = LocalDate.parse(request.getStartDate(), REQUEST_FORMATTER);
+            endDate = LocalDate.parse(request.getEndDate(), REQUEST_FORMATTER);
+        } catch (DateTimeParseException | NullPointerException e) {
+            return errorResponse("E003", "日期格式錯誤");
+        }
+        if (startDate.isAfter(endDate)) {
+            return errorResponse("E001", "日期區間不符");
+        }
+        String currency = request.getCurrency() == null || request.getCurrency().isBlank() ? "usd" : request.getCurrency();
+        CurrencyPair pair = CurrencyPair.fromName(currency);
+        if (pair == null) {
+            return errorResponse("E004", "不支援的幣別");
+        }
+        List<Integer> windows = request.getWindows();
+        if (windows == null || windows.isEmpty()) {
+            windows = new ArrayList<>();
+            for (int window : emaWindows) {
+                windows.add(window);
+            }
+        }
+        for (Integer window : windows) {
+            if (window == null || window <= 0 || window > MAX_WINDOW) {
+                return errorResponse("E005", "移動平均視窗須介於1~" + MAX_WINDOW);
+            }
+        }
+        // 未設定的 EMA 視窗在查詢時計算，重複的視窗只算一次
+        Set<Integer> distinctWindows = new LinkedHashSet<>(windows);
+
+        if (!loaded) {
+            return errorResponse("E015", "統計索引建立中，請稍後再試");
+        }
+        ExchangeRateStatsResponse response = new ExchangeRateStatsResponse();
+        response.setError(new ExchangeRateQueryResponse.ErrorInfo("0000", "成功"));
+        response.setCurrency(pair.getCode());
+
+        lock.readLock().lock();
+        try {
+            RateSeriesIndex index = indices.get(pair);
+            int from = index.lowerBound((int) startDate.toEpochDay());
+            int to = index.floorIndex((int) endDate.toEpochDay());
+            if (from > to) {
+                response.setCount(0);
+                return response;
+            }
+
+            int count = to - from + 1;
+            response.setCount(count);
+            response.setLastDate(FixedWidthFormat.formatDate(index.epochDay(to)));
+            response.setMin(formatScaled(index.min(from, to)));
+            response.setMax(formatScaled(index.max(from, to)));
+            response.setMean(formatScaled((double) index.sum(from, to) / count));
+            response.setReturnStdDev(formatDouble(index.returnStdDev(from, to), 6));
+
+            // SMA / EMA 以區間最後一筆為基準，可使用區間開始前的歷史資料；每個請求的視窗都回傳兩者
+            Map<String, String> sma = new LinkedHashMap<>();
+            Map<String, String> ema = new LinkedHashMap<>();
+            for (Integer window : distinctWindows) {
+                sma.put(String.valueOf(window), formatScaled(index.sma(to, window)));
+                ema.put(String.valueOf(window), formatScaled(index.ema(to, window)));
+            }
+            response.setSma(sma);
+            response.setEma(ema);
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 以既有索引內容加上新資料重建索引，同日期 replace 為 true 時以新資料為準（剛寫入的更正），否則以既有資料為準
+    private RateSeriesIndex rebuild(RateSeriesIndex current, List<ExchangeRate> added, CurrencyPair pair, boolean replace) {
+        Map<Integer, Long> merged = new TreeMap<>();
+        for (int i = 0; i < current.size(); i++) {
+            merged.put(current.epochDay(i), current.rate(i));
+        }
+        for (ExchangeRate rate : added) {
+            BigDecimal value = rate.getRate(pair);
+            if (value != null) {
+                int epochDay = (int) rate.getDate().toEpochDay();
+                Long scaled = ExchangeRateCache.toScaled(value);
+                if (replace) {
+                    merged.put(epochDay, scaled);
+                } else {
+                    merged.putIfAbsent(epochDay, scaled);
+                }
+            }
+        }
+        RateSeriesIndex rebuilt = new RateSeriesIndex(emaWindows);
+        merged.forEach(rebuilt::append);
+        return rebuilt;
+    }
+
+    private static String formatScaled(long scaled) {
+        return FixedWidthFormat.formatScaled(scaled, ExchangeRateCache.RATE_SCALE, ExchangeRateCache.RATE_SCALE);
+    }
+
+    // 放大後的平均值轉回匯率字串，NaN（資料不足）回傳 null
+    private static String formatScaled(double scaled) {
+        return Double.isNaN(scaled) ? null : formatScaled(Math.round(scaled));
+    }
+
+    private static String formatDouble(double value, int scale) {
+        return Double.isNaN(value) ? null : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static ExchangeRateStatsResponse errorResponse(String code, String message) {
+        ExchangeRateStatsResponse response = new ExchangeRateStatsResponse();
+        response.setError(new ExchangeRateQueryResponse.ErrorInfo(code, message));
+        return response;
+    }
+}
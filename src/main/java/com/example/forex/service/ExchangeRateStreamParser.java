@@ -0,0 +1,114 @@
+package com.example.forex.service;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 以 Jackson JsonParser 逐 token 解析臺交所 DailyForeignExchangeRates 回應（所有 CurrencyPair 幣別），
+ * 不建立整份 JsonNode 樹，每累積 batchSize 筆就交給 batchConsumer 處理，
+ * 記憶體用量只與批次大小有關，與回應大小無關。
+ */
+public class ExchangeRateStreamParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateStreamParser.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final JsonFactory jsonFactory;
+
+    public ExchangeRateStreamParser() {
+        this(new JsonFactory());
+    }
+
+    public ExchangeRateStreamParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * 解析 JSON 陣列，回傳無法解析的筆數。
+     * 傳給 batchConsumer 的 List 每次都是新的，可由呼叫端保留。
+     */
+    public long parse(InputStream in, int batchSize, Consumer<List<ExchangeRate>> batchConsumer) {
+        long failed = 0;
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("API 回傳格式不是 JSON 陣列");
+            }
+
+            List<ExchangeRate> batch = new ArrayList<>(batchSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new RuntimeException("JSON 陣列未正常結束");
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+
+                String dateStr = null;
+                Map<CurrencyPair, String> values = new EnumMap<>(CurrencyPair.class);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    CurrencyPair pair;
+                    if ("Date".equals(field)) {
+                        dateStr = parser.getValueAsString();
+                    } else if ((pair = CurrencyPair.fromFeedKey(field)) != null) {
+                        String value = parser.getValueAsString();
+                        // 空白代表當日該幣別無報價
+                        if (value != null && !value.isBlank()) {
+                            values.put(pair, value);
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                // 沒有任何幣別匯率的資料不處理
+                if (values.isEmpty()) {
+                    continue;
+                }
+                try {
+                    ExchangeRate exchangeRate = new ExchangeRate();
+                    exchangeRate.setDate(LocalDate.parse(dateStr, DATE_FORMATTER));
+                    for (Map.Entry<CurrencyPair, String> entry : values.entrySet()) {
+                        exchangeRate.setRate(entry.getKey(), new BigDecimal(entry.getValue().trim()));
+                    }
+                    batch.add(exchangeRate);
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("略過無法解析的匯率資料: Date={}, rates={}", dateStr, values);
+                }
+
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("解析 JSON 失敗: " + e.getMessage(), e);
+        }
+        return failed;
+    }
+}
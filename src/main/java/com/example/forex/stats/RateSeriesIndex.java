@@ -0,0 +1,191 @@
+package com.example.forex.stats;
+
+import java.util.Arrays;
+
+/**
+ * 單一幣別的時間序列統計索引，資料依日期遞增附加（append），每次附加 O(log n)：
+ * <ul>
+ *     <li>匯率前綴和：任意區間平均、任意視窗 SMA 皆 O(1)</li>
+ *     <li>日報酬率與其平方的前綴和：區間報酬率標準差 O(1)</li>
+ *     <li>最小值/最大值 sparse table：區間極值 O(1)</li>
+ *     <li>設定好的視窗逐日遞推 EMA：查詢 O(1)；其他視窗查詢時由第一筆遞推，O(n)</li>
+ * </ul>
+ * 日期定位為二分搜尋，因此每次查詢為 O(log n)。匯率以放大 10^scale 的 long 保存。
+ * 非執行緒安全，由呼叫端負責同步。
+ */
+public class RateSeriesIndex {
+
+    private final int[] emaWindows;
+
+    private int size;
+    private int[] epochDays = new int[16];
+    private long[] rates = new long[16];
+    private long[] ratePrefix = new long[17];       // ratePrefix[i] = rates[0..i) 總和
+    private double[] returnPrefix = new double[17];  // 第 i 筆的日報酬率 = rates[i] / rates[i-1] - 1，第 0 筆為 0
+    private double[] returnSquarePrefix = new double[17];
+    private long[][] minTable = new long[1][16];     // minTable[k][i] = rates[i, i + 2^k) 最小值
+    private long[][] maxTable = new long[1][16];
+    private final double[][] ema;                    // ema[w][i] = 第 emaWindows[w] 視窗在第 i 筆的 EMA
+
+    public RateSeriesIndex(int[] emaWindows) {
+        this.emaWindows = emaWindows.clone();
+        this.ema = new double[emaWindows.length][16];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int lastEpochDay() {
+        return size == 0 ? Integer.MIN_VALUE : epochDays[size - 1];
+    }
+
+    public long rate(int index) {
+        return rates[index];
+    }
+
+    public int epochDay(int index) {
+        return epochDays[index];
+    }
+
+    /**
+     * 附加一筆資料，epochDay 必須大於目前最後一筆。
+     */
+    public void append(int epochDay, long rate) {
+        if (size > 0 && epochDay <= epochDays[size - 1]) {
+            throw new IllegalArgumentException("epochDay 必須遞增: " + epochDay);
+        }
+        ensureCapacity(size + 1);
+        int n = size;
+        epochDays[n] = epochDay;
+        rates[n] = rate;
+        ratePrefix[n + 1] = ratePrefix[n] + rate;
+
+        double dailyReturn = n == 0 || rates[n - 1] == 0 ? 0 : (double) rate / rates[n - 1] - 1;
+        returnPrefix[n + 1] = returnPrefix[n] + dailyReturn;
+        returnSquarePrefix[n + 1] = returnSquarePrefix[n] + dailyReturn * dailyReturn;
+
+        // 新增以 n 結尾、長度 2^k 的區間
+        minTable[0][n] = rate;
+        maxTable[0][n] = rate;
+        for (int k = 1; (1 << k) <= n + 1; k++) {
+            if (k == minTable.length) {
+                minTable = Arrays.copyOf(minTable, k + 1);
+                maxTable = Arrays.copyOf(maxTable, k + 1);
+                minTable[k] = new long[rates.length];
+                maxTable[k] = new long[rates.length];
+            }
+            int start = n - (1 << k) + 1;
+            int half = start + (1 << (k - 1));
+            minTable[k][start] = Math.min(minTable[k - 1][start], minTable[k - 1][half]);
+            maxTable[k][start] = Math.max(maxTable[k - 1][start], maxTable[k - 1][half]);
+        }
+
+        for (int w = 0; w < emaWindows.length; w++) {
+            double alpha = 2.0 / (emaWindows[w] + 1);
+            ema[w][n] = n == 0 ? rate : alpha * rate + (1 - alpha) * ema[w][n - 1];
+        }
+        size++;
+    }
+
+    // 第一個 epochDay >= day 的位置
+    public int lowerBound(int day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 最後一個 epochDay <= day 的位置，沒有則為 -1
+    public int floorIndex(int day) {
+        return day == Integer.MAX_VALUE ? size - 1 : lowerBound(day + 1) - 1;
+    }
+
+    // [from, to] 區間（含兩端）匯率總和
+    public long sum(int from, int to) {
+        return ratePrefix[to + 1] - ratePrefix[from];
+    }
+
+    public long min(int from, int to) {
+        int k = log2(to - from + 1);
+        return Math.min(minTable[k][from], minTable[k][to - (1 << k) + 1]);
+    }
+
+    public long max(int from, int to) {
+        int k = log2(to - from + 1);
+        return Math.max(maxTable[k][from], maxTable[k][to - (1 << k) + 1]);
+    }
+
+    // 以第 index 筆為結尾、window 筆的簡單移動平均（放大後的值），資料不足時回傳 NaN
+    public double sma(int index, int window) {
+        if (window <= 0 || index - window + 1 < 0) {
+            return Double.NaN;
+        }
+        return (double) sum(index - window + 1, index) / window;
+    }
+
+    /**
+     * 以第 index 筆為結尾、window 筆的 EMA（放大後的值），與設定好的視窗相同由第一筆開始遞推。
+     * 設定好的視窗 O(1)，其他視窗 O(index)。
+     */
+    public double ema(int index, int window) {
+        if (window <= 0 || index < 0 || index >= size) {
+            return Double.NaN;
+        }
+        for (int w = 0; w < emaWindows.length; w++) {
+            if (emaWindows[w] == window) {
+                return ema[w][index];
+            }
+        }
+        double alpha = 2.0 / (window + 1);
+        double value = rates[0];
+        for (int i = 1; i <= index; i++) {
+            value = alpha * rates[i] + (1 - alpha) * value;
+        }
+        return value;
+    }
+
+    /**
+     * [from, to] 區間內相鄰兩日報酬率的樣本標準差（報酬率數 = to - from），少於 2 個報酬率時回傳 NaN。
+     */
+    public double returnStdDev(int from, int to) {
+        int count = to - from;
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double sum = returnPrefix[to + 1] - returnPrefix[from + 1];
+        double sumSquares = returnSquarePrefix[to + 1] - returnSquarePrefix[from + 1];
+        double variance = (sumSquares - sum * sum / count) / (count - 1);
+        return Math.sqrt(Math.max(variance, 0));
+    }
+
+    private static int log2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rates.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, rates.length * 2);
+        epochDays = Arrays.copyOf(epochDays, newCapacity);
+        rates = Arrays.copyOf(rates, newCapacity);
+        ratePrefix = Arrays.copyOf(ratePrefix, newCapacity + 1);
+        returnPrefix = Arrays.copyOf(returnPrefix, newCapacity + 1);
+        returnSquarePrefix = Arrays.copyOf(returnSquarePrefix, newCapacity + 1);
+        for (int k = 0; k < minTable.length; k++) {
+            minTable[k] = Arrays.copyOf(minTable[k], newCapacity);
+            maxTable[k] = Arrays.copyOf(maxTable[k], newCapacity);
+        }
+        for (int w = 0; w < ema.length; w++) {
+            ema[w] = Arrays.copyOf(ema[w], newCapacity);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.forex.store;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 匯入的預寫日誌（write-ahead journal）：API 回應先完整解析並逐批附加到本機檔案，
+ * 解析成功才寫入「已封存」紀錄並 fsync，之後才從檔案讀回各批寫入 MongoDB，全部完成後寫入「已提交」。
+ * <ul>
+ *     <li>解析到一半失敗（JSON 格式錯誤、連線中斷）時整次匯入不寫入資料庫，不會只套用前幾批</li>
+ *     <li>寫入資料庫途中程序中斷時，重新啟動後重播已封存但未提交的匯入（寫入本身可重複執行）</li>
+ * </ul>
+ * 沒有進行中的匯入時檔案清空，大小只與單次匯入的資料量有關。停用或無法開啟檔案時 isPersistent 為 false，
+ * 匯入改為邊解析邊逐批寫入（不在記憶體中保留整次匯入），不提供「解析成功才寫入」與重播。
+ *
+ * 檔案格式（big-endian）：每筆紀錄為 int 長度、int CRC32、內容；內容第一個 byte 為類型，接著是 long 匯入編號。
+ *   BATCH：int 筆數，每筆 int epochDay、byte 幣別數，每個幣別 byte 幣別（CurrencyPair 宣告順序）、
+ *          int scale、short 長度、unscaled value 的 two's-complement bytes（與 BigDecimal 完全相同，不捨入）
+ *   SEALED：long 封存時間（epoch millis）；COMMITTED、ABORTED：無其他內容
+ * 中斷時寫到一半的最後一筆紀錄長度或 CRC 不符，載入時截掉。
+ */
+@Component
+public class IngestionJournal implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJournal.class);
+
+    private static final byte BATCH = 1;
+    private static final byte SEALED = 2;
+    private static final byte COMMITTED = 3;
+    private static final byte ABORTED = 4;
+    private static final int RECORD_HEADER = 8;
+    // 超過此時間的中斷匯入不重播：之後的抓取已取得較新的完整資料，重播舊內容反而可能蓋掉更正
+    private static final Duration MAX_REPLAY_AGE = Duration.ofDays(1);
+    private static final CurrencyPair[] PAIRS = CurrencyPair.values();
+
+    private FileChannel channel;
+    private FileLock lock;
+    // 目前檔案長度（下一筆紀錄的位置）
+    private long end;
+    private long nextRunId = 1;
+    // 本次啟動後開始、尚未提交或放棄的匯入
+    private final Set<Long> active = new HashSet<>();
+    // 上次執行中斷、待重播的匯入
+    private final List<Run> recovered = new ArrayList<>();
+
+    // 不使用日誌（單元測試、效能測試）
+    public static IngestionJournal disabled() {
+        return new IngestionJournal(false, null);
+    }
+
+    public IngestionJournal(Path path) {
+        this(true, path);
+    }
+
+    @Autowired
+    public IngestionJournal(@Value("${forex.journal.enabled:true}") boolean enabled,
+                            @Value("${forex.journal.path:${user.home}/.forex/ingest.journal}") Path path) {
+        if (!enabled || path == null) {
+            return;
+        }
+        try {
+            open(path);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("無法開啟匯入日誌 {}，中斷的匯入將無法重播: {}", path, e.toString());
+            closeQuietly();
+        }
+    }
+
+    private void open(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException("檔案已被其他程序使用");
+        }
+
+        // 依序讀出每個匯入的第一筆紀錄位置與狀態
+        Map<Long, Long> firstOffsets = new TreeMap<>();
+        Map<Long, Long> sealedAt = new HashMap<>();
+        Set<Long> finished = new HashSet<>();
+        long position = 0;
+        ByteBuffer record;
+        while ((record = read(position)) != null) {
+            byte type = record.get();
+            long runId = record.getLong();
+            firstOffsets.putIfAbsent(runId, position);
+            if (type == SEALED) {
+                sealedAt.put(runId, record.getLong());
+            } else if (type == COMMITTED || type == ABORTED) {
+                finished.add(runId);
+            }
+            nextRunId = Math.max(nextRunId, runId + 1);
+            position += RECORD_HEADER + record.limit();
+        }
+        if (position < channel.size()) {
+            logger.warn("匯入日誌 {} 結尾有 {} bytes 未寫完的紀錄，已截掉", path, channel.size() - position);
+            channel.truncate(position);
+        }
+        end = position;
+
+        long oldest = System.currentTimeMillis() - MAX_REPLAY_AGE.toMillis();
+        int discarded = 0;
+        for (Map.Entry<Long, Long> entry : firstOffsets.entrySet()) {
+            long runId = entry.getKey();
+            if (finished.contains(runId)) {
+                continue;
+            }
+            Long sealed = sealedAt.get(runId);
+            if (sealed != null && sealed >= oldest) {
+                recovered.add(new Run(runId, entry.getValue(), true));
+            } else {
+                // 解析未完成或過舊的匯入
+                discarded++;
+            }
+        }
+        if (recovered.isEmpty()) {
+            reset();
+        } else {
+            for (Run run : recovered) {
+                active.add(run.id);
+            }
+        }
+        logger.info("匯入日誌 {} 載入完成，待重播 {} 次匯入，捨棄 {} 次未完成的匯入", path, recovered.size(), discarded);
+    }
+
+    public boolean isPersistent() {
+        return channel != null;
+    }
+
+    // 開始一次匯入，只在 isPersistent 時使用
+    public synchronized Run begin() {
+        if (channel == null) {
+            throw new IllegalStateException("匯入日誌未開啟");
+        }
+        Run run = new Run(nextRunId++, end, false);
+        active.add(run.id);
+        return run;
+    }
+
+    /**
+     * 取出上次執行中斷、已封存但未提交的匯入（依開始順序），取出後清單清空。
+     * 呼叫端重播後以 commit 標記完成。
+     */
+    public synchronized List<Run> takeRecovered() {
+        List<Run> runs = new ArrayList<>(recovered);
+        recovered.clear();
+        return runs;
+    }
+
+    // 重播失敗時放回尚未完成的匯入，下次再重播
+    public synchronized void restoreRecovered(List<Run> runs) {
+        recovered.addAll(0, runs);
+    }
+
+    public synchronized boolean hasRecovered() {
+        return !recovered.isEmpty();
+    }
+
+    private synchronized void write(ByteBuffer payload, boolean force) {
+        if (channel == null) {
+            return;
+        }
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        header.putInt(payload.remaining()).putInt((int) crc.getValue()).flip();
+        try {
+            long position = end;
+            position += writeFully(header, position);
+            position += writeFully(payload, position);
+            if (force) {
+                channel.force(false);
+            }
+            end = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("無法寫入匯入日誌", e);
+        }
+    }
+
+    private synchronized void finish(Run run, byte type) {
+        if (!active.remove(run.id)) {
+            return;
+        }
+        write(payload(type, run.id, 0), false);
+        if (active.isEmpty() && recovered.isEmpty()) {
+            reset();
+        }
+    }
+
+    // 沒有進行中或待重播的匯入時清空檔案
+    private void reset() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.truncate(0);
+            end = 0;
+        } catch (IOException e) {
+            logger.warn("清空匯入日誌失敗: {}", e.toString());
+        }
+    }
+
+    private int writeFully(ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    // 讀取 position 的紀錄內容（不含長度與 CRC），檔案結束或紀錄不完整、CRC 不符時回傳 null
+    private ByteBuffer read(long position) throws IOException {
+        long size = channel.size();
+        if (position + RECORD_HEADER > size) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(header, position);
+        int length = header.getInt(0);
+        if (length <= 0 || position + RECORD_HEADER + length > size) {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(record, position + RECORD_HEADER);
+        CRC32 crc = new CRC32();
+        crc.update(record.duplicate());
+        return (int) crc.getValue() == header.getInt(4) ? record : null;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of journal");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static ByteBuffer payload(byte type, long runId, int capacity) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + capacity);
+        buffer.put(type).putLong(runId);
+        return buffer;
+    }
+
+    private static ByteBuffer encode(long runId, List<ExchangeRate> batch) {
+        List<byte[]> unscaled = new ArrayList<>();
+        int size = Integer.BYTES;
+        for (ExchangeRate rate : batch) {
+            size += Integer.BYTES + 1;
+            for (CurrencyPair pair : PAIRS) {
+                BigDecimal value = rate.getRate(pair);
+                if (value != null) {
+                    byte[] bytes = value.unscaledValue().toByteArray();
+                    unscaled.add(bytes);
+                    size += 1 + Integer.BYTES + Short.BYTES + bytes.length;
+                }
+            }
+        }
+        ByteBuffer buffer = payload(BATCH, runId, size);
+        buffer.putInt(batch.size());
+        int next = 0;
+        for (ExchangeRate rate : batch) {
+            buffer.putInt((int) rate.getDate().toEpochDay());
+            int countAt = buffer.position();
+            buffer.put((byte) 0);
+            byte count = 0;
+            for (CurrencyPair pair : PAIRS) {
+                BigDecimal value = rate.getRate(pair);
+                if (value != null) {
+                    byte[] bytes = unscaled.get(next++);
+                    buffer.put((byte) pair.ordinal()).putInt(value.scale()).putShort((short) bytes.length).put(bytes);
+                    count++;
+                }
+            }
+            buffer.put(countAt, count);
+        }
+        return buffer;
+    }
+
+    private static List<ExchangeRate> decode(ByteBuffer record) {
+        int count = record.getInt();
+        List<ExchangeRate> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ExchangeRate rate = new ExchangeRate();
+            rate.setDate(LocalDate.ofEpochDay(record.getInt()));
+            int pairs = record.get();
+            for (int p = 0; p < pairs; p++) {
+                CurrencyPair pair = PAIRS[record.get()];
+                int scale = record.getInt();
+                byte[] bytes = new byte[record.getShort() & 0xFFFF];
+                record.get(bytes);
+                rate.setRate(pair, new BigDecimal(new BigInteger(bytes), scale));
+            }
+            batch.add(rate);
+        }
+        return batch;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("關閉匯入日誌失敗: {}", e.toString());
+        }
+        lock = null;
+        channel = null;
+    }
+
+    /**
+     * 一次匯入：begin 之後逐批 append，解析完成時 seal，套用到資料庫後 commit；失敗時 abort。
+     * forEachBatch 依附加順序由檔案讀回各批，不在記憶體中保留整次匯入。
+     */
+    public final class Run {
+
+        private final long id;
+        // 此匯入第一筆紀錄在檔案中的位置
+        private final long firstOffset;
+        private boolean sealed;
+
+        private Run(long id, long firstOffset, boolean sealed) {
+            this.id = id;
+            this.firstOffset = firstOffset;
+            this.sealed = sealed;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void append(List<ExchangeRate> batch) {
+            write(encode(id, batch), false);
+        }
+
+        // 解析完成：fsync 之後此匯入在中斷後可以重播
+        public void seal() {
+            ByteBuffer payload = payload(SEALED, id, Long.BYTES);
+            payload.putLong(System.currentTimeMillis());
+            write(payload, true);
+            sealed = true;
+        }
+
+        public void forEachBatch(Consumer<List<ExchangeRate>> consumer) {
+            if (!sealed) {
+                throw new IllegalStateException("匯入尚未解析完成: " + id);
+            }
+            try {
+                long position = firstOffset;
+                ByteBuffer record;
+                while ((record = read(position)) != null) {
+                    position += RECORD_HEADER + record.limit();
+                    byte type = record.get();
+                    if (record.getLong() != id) {
+                        // 同時進行的其他匯入
+                        continue;
+                    }
+                    if (type == BATCH) {
+                        consumer.accept(decode(record));
+                    } else if (type == SEALED) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("無法讀取匯入日誌", e);
+            }
+        }
+
+        public void commit() {
+            finish(this, COMMITTED);
+        }
+
+        public void abort() {
+            finish(this, ABORTED);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.forex.store;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.scheduler.StartupTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 本機的匯率檔案：MongoDB 緩慢或無法連線時仍可回答查詢，重新啟動後不必等待資料庫即可預熱快取。
+ * 檔案只附加固定長度的紀錄（epoch-day、幣別、放大 10^4 的匯率），以 memory-mapped file 讀寫。
+ * 記憶體中另保存依 (日期, 幣別) 排序的 long[] 索引，每個元素同時包含日期、幣別與紀錄位置，
+ * 區間查詢以二分搜尋定位後直接從映射的檔案讀取匯率，不複製檔案內容。
+ * 與快取相同，讀取端只看 volatile 的不可變 State，寫入時整份替換。
+ *
+ * 檔案格式（little-endian）：
+ *   標頭 32 bytes：magic "FXS1"、int 版本、long 已提交的紀錄數、int 旗標（bit 0：已與 MongoDB 完整同步）、保留
+ *   紀錄 16 bytes：int epochDay、byte 幣別（CurrencyPair 宣告順序）、3 bytes 保留、long 匯率
+ * 先寫紀錄再更新標頭的紀錄數，寫到一半中斷時只會遺失尚未提交的紀錄。
+ * 更正既有的 (日期, 幣別) 時附加一筆新紀錄，索引改指向新紀錄；載入時同一 (日期, 幣別) 以最後一筆為準。
+ */
+@Component
+public class LocalRateStore implements DisposableBean, StartupTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRateStore.class);
+
+    private static final int MAGIC = 'F' | 'X' << 8 | 'S' << 16 | '1' << 24;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int FLAGS_OFFSET = 16;
+    private static final int FLAG_COMPLETE = 1;
+    private static final int INITIAL_CAPACITY = 4096; // 紀錄筆數，之後每次不足時加倍
+    // 同步時查詢的最早日期，臺交所資料不會早於此日
+    private static final LocalDate SYNC_FROM = LocalDate.of(1990, 1, 1);
+    private static final CurrencyPair[] PAIRS = CurrencyPair.values();
+
+    private final ExchangeRateRepository repository;
+    private FileChannel channel;
+    private FileLock lock;
+    // 開啟失敗或停用時為 null，所有讀寫都略過
+    private volatile State state;
+    // 檔案標頭的旗標：之前的執行曾與 MongoDB 完整同步過（內容可能已落後停機期間的更正）
+    private volatile boolean synchronizedBefore;
+    // 本次啟動後已與 MongoDB 完整同步
+    private volatile boolean complete;
+    // 同步期間由事件寫入的日期，比同步讀到的資料新，同步時不覆寫；未同步時為 null
+    private Set<LocalDate> savedDuringSync;
+
+    public LocalRateStore(ExchangeRateRepository repository, Path path) {
+        this(repository, true, path);
+    }
+
+    @Autowired
+    public LocalRateStore(ExchangeRateRepository repository,
+                          @Value("${forex.store.enabled:true}") boolean enabled,
+                          @Value("${forex.store.path:${user.home}/.forex/rates.fxs}") Path path) {
+        this.repository = repository;
+        if (!enabled) {
+            logger.info("本機匯率檔已停用");
+            return;
+        }
+        try {
+            open(path);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("無法開啟本機匯率檔 {}，查詢將只使用 MongoDB: {}", path, e.toString());
+            closeQuietly();
+        }
+    }
+
+    private void open(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException("檔案已被其他程序使用");
+        }
+
+        boolean created = channel.size() == 0;
+        long capacity = Math.max(channel.size(), HEADER_SIZE + (long) INITIAL_CAPACITY * RECORD_SIZE);
+        MappedByteBuffer buffer = map(capacity);
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(COUNT_OFFSET, 0);
+            buffer.putInt(FLAGS_OFFSET, 0);
+            buffer.force();
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("不是本機匯率檔或版本不符");
+        }
+
+        int count = (int) buffer.getLong(COUNT_OFFSET);
+        long[] keys = new long[count];
+        for (int slot = 0; slot < count; slot++) {
+            int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            keys[slot] = key(buffer.getInt(offset), buffer.get(offset + 4), slot);
+        }
+        Arrays.sort(keys);
+        state = new State(buffer, latestOnly(keys), count);
+        synchronizedBefore = (buffer.getInt(FLAGS_OFFSET) & FLAG_COMPLETE) != 0;
+        logger.info("本機匯率檔 {} 載入 {} 筆紀錄{}", path, count, synchronizedBefore ? "" : "（尚未與 MongoDB 同步）");
+    }
+
+    // 映射的大小超過檔案大小時會自動延長檔案
+    private MappedByteBuffer map(long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    @Override
+    public String getStartupTaskName() {
+        return "本機匯率檔同步";
+    }
+
+    // 啟動完成後在背景與 MongoDB 同步，不拖慢啟動；在此之前已同步過的檔案內容可直接使用
+    @Override
+    public void runStartupTask() {
+        synchronize();
+    }
+
+    /**
+     * 讀取 MongoDB 的完整歷史，附加檔案中缺少的紀錄並以資料庫的內容取代不同的匯率，完成後標記為已同步。
+     * 每次啟動都執行一次，補上停機期間其他節點寫入、回補或更正的資料；讀取失敗時拋出例外，檔案維持未同步。
+     */
+    public void synchronize() {
+        if (state == null) {
+            return;
+        }
+        Set<LocalDate> saved = new HashSet<>();
+        synchronized (this) {
+            savedDuringSync = saved;
+        }
+        try {
+            // findRates 會一併讀取已封存的月份文件
+            List<ExchangeRate> rates = new ArrayList<>(
+                    repository.findRates(SYNC_FROM, LocalDate.now(), Arrays.asList(CurrencyPair.values())));
+            int written;
+            synchronized (this) {
+                rates.removeIf(rate -> saved.contains(rate.getDate()));
+                written = replace(rates);
+            }
+            markComplete();
+            logger.info("本機匯率檔同步完成，寫入 {} 筆紀錄", written);
+        } finally {
+            synchronized (this) {
+                savedDuringSync = null;
+            }
+        }
+    }
+
+    // 本節點匯入或從其他節點同步的資料剛寫入資料庫，一律寫入檔案，更正的匯率取代原值
+    @EventListener
+    public synchronized void onExchangeRatesSaved(ExchangeRatesSavedEvent event) {
+        if (savedDuringSync != null) {
+            event.getRates().forEach(rate -> savedDuringSync.add(rate.getDate()));
+        }
+        replace(event.getRates());
+    }
+
+    /**
+     * 附加檔案中還沒有的 (日期, 幣別) 紀錄，已存在時保留原值。
+     * 回傳實際附加的紀錄數。
+     */
+    public int append(List<ExchangeRate> rates) {
+        return write(rates, false);
+    }
+
+    /**
+     * 與 append 相同，但已存在且匯率不同的 (日期, 幣別) 也附加新紀錄取代原值（資料庫中的更正）。
+     */
+    public int replace(List<ExchangeRate> rates) {
+        return write(rates, true);
+    }
+
+    private synchronized int write(List<ExchangeRate> rates, boolean replace) {
+        State current = state;
+        if (current == null) {
+            return 0;
+        }
+        // 同一批中重複的 (日期, 幣別) 以第一筆為準
+        Set<Long> seen = new HashSet<>();
+        int[] days = new int[rates.size() * PAIRS.length];
+        byte[] pairs = new byte[days.length];
+        long[] values = new long[days.length];
+        // 被取代的紀錄在索引中的 key
+        long[] replaced = new long[days.length];
+        int n = 0;
+        int r = 0;
+        for (ExchangeRate rate : rates) {
+            if (rate.getDate() == null) {
+                continue;
+            }
+            int day = (int) rate.getDate().toEpochDay();
+            for (CurrencyPair pair : PAIRS) {
+                BigDecimal value = rate.getRate(pair);
+                if (value == null || !seen.add(key(day, pair.ordinal(), 0))) {
+                    continue;
+                }
+                int index = current.find(day, pair);
+                if (index >= 0) {
+                    long existing = current.keys[index];
+                    if (!replace || current.buffer.getLong(HEADER_SIZE + (int) existing * RECORD_SIZE + 8)
+                            == ExchangeRateCache.toScaled(value)) {
+                        continue;
+                    }
+                    replaced[r++] = existing;
+                }
+                days[n] = day;
+                pairs[n] = (byte) pair.ordinal();
+                values[n] = ExchangeRateCache.toScaled(value);
+                n++;
+            }
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        try {
+            MappedByteBuffer buffer = current.buffer;
+            long required = HEADER_SIZE + (long) (current.count + n) * RECORD_SIZE;
+            if (required > buffer.capacity()) {
+                buffer = map(Math.max(required, HEADER_SIZE + 2L * (buffer.capacity() - HEADER_SIZE)));
+            }
+            long[] added = new long[n];
+            for (int i = 0; i < n; i++) {
+                int slot = current.count + i;
+                int offset = HEADER_SIZE + slot * RECORD_SIZE;
+                buffer.putInt(offset, days[i]);
+                buffer.putInt(offset + 4, pairs[i] & 0xFF);
+                buffer.putLong(offset + 8, values[i]);
+                added[i] = key(days[i], pairs[i], slot);
+            }
+            buffer.force();
+            buffer.putLong(COUNT_OFFSET, current.count + n);
+            buffer.force();
+            Arrays.sort(added);
+            long[] keys = current.keys;
+            if (r > 0) {
+                Arrays.sort(replaced, 0, r);
+                long[] kept = new long[keys.length - r];
+                int k = 0;
+                for (long key : keys) {
+                    if (Arrays.binarySearch(replaced, 0, r, key) < 0) {
+                        kept[k++] = key;
+                    }
+                }
+                keys = kept;
+            }
+            state = new State(buffer, merge(keys, added), current.count + n);
+            return n;
+        } catch (IOException e) {
+            logger.warn("寫入本機匯率檔失敗: {}", e.toString());
+            return 0;
+        }
+    }
+
+    private synchronized void markComplete() {
+        State current = state;
+        if (current != null && !complete) {
+            if (!synchronizedBefore) {
+                current.buffer.putInt(FLAGS_OFFSET, current.buffer.getInt(FLAGS_OFFSET) | FLAG_COMPLETE);
+                current.buffer.force();
+                synchronizedBefore = true;
+            }
+            complete = true;
+        }
+    }
+
+    /**
+     * 本次啟動後已與 MongoDB 完整同步時才能取代資料庫回答查詢：
+     * 之前同步過的檔案可能缺少停機期間其他節點的更正，同步完成前查詢仍讀資料庫。
+     */
+    public boolean isComplete() {
+        return state != null && complete;
+    }
+
+    /**
+     * 檔案曾與 MongoDB 完整同步過（本次或之前的執行），可在啟動時先預熱快取；
+     * 預熱的值之後由 MongoDB 的預熱取代。
+     */
+    public boolean wasSynchronized() {
+        return state != null && (complete || synchronizedBefore);
+    }
+
+    public int size() {
+        State current = state;
+        return current == null ? 0 : current.keys.length;
+    }
+
+    /**
+     * 依日期、幣別順序逐筆讀取區間內的紀錄，匯率直接從映射的檔案讀出。
+     */
+    public void scan(LocalDate startDate, LocalDate endDate, RecordVisitor visitor) {
+        State current = state;
+        if (current == null || startDate.isAfter(endDate)) {
+            return;
+        }
+        long[] keys = current.keys;
+        int to = lowerBound(keys, key((int) endDate.toEpochDay() + 1, 0, 0));
+        for (int i = lowerBound(keys, key((int) startDate.toEpochDay(), 0, 0)); i < to; i++) {
+            long key = keys[i];
+            visitor.accept((int) (key >> 40), PAIRS[(int) (key >>> 32) & 0xFF],
+                    current.buffer.getLong(HEADER_SIZE + (int) key * RECORD_SIZE + 8));
+        }
+    }
+
+    /**
+     * 與 ExchangeRateRepository.findRates 相同：只含所查幣別，依日期排序。
+     */
+    public List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+        boolean[] wanted = new boolean[PAIRS.length];
+        for (CurrencyPair pair : pairs) {
+            wanted[pair.ordinal()] = true;
+        }
+        List<ExchangeRate> rates = new ArrayList<>();
+        ExchangeRate[] last = {null};
+        scan(startDate, endDate, (epochDay, pair, scaledRate) -> {
+            if (!wanted[pair.ordinal()]) {
+                return;
+            }
+            if (last[0] == null || last[0].getDate().toEpochDay() != epochDay) {
+                last[0] = new ExchangeRate();
+                last[0].setDate(LocalDate.ofEpochDay(epochDay));
+                rates.add(last[0]);
+            }
+            last[0].setRate(pair, ExchangeRateCache.fromScaled(scaledRate));
+        });
+        return rates;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        State current = state;
+        if (current != null) {
+            current.buffer.force();
+        }
+        state = null;
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            lock = null;
+            channel = null;
+        } catch (IOException e) {
+            logger.warn("關閉本機匯率檔失敗: {}", e.toString());
+        }
+    }
+
+    // 日期放在最高位，排序結果即為 (日期, 幣別) 順序；低 32 位元為紀錄位置
+    private static long key(int epochDay, int pair, int slot) {
+        return (long) epochDay << 40 | (long) (pair & 0xFF) << 32 | (slot & 0xFFFFFFFFL);
+    }
+
+    // 第一個 >= key 的位置
+    private static int lowerBound(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // 已排序的索引中同一 (日期, 幣別) 只保留最後寫入（位置最大）的紀錄
+    private static long[] latestOnly(long[] keys) {
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i + 1 < keys.length && (keys[i + 1] & ~0xFFFFFFFFL) == (keys[i] & ~0xFFFFFFFFL)) {
+                continue;
+            }
+            keys[n++] = keys[i];
+        }
+        return n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    // 兩個已排序陣列合併；每日新增的資料通常都在最後，只需一次複製
+    private static long[] merge(long[] a, long[] b) {
+        long[] merged = Arrays.copyOf(a, a.length + b.length);
+        if (a.length == 0 || b[0] > a[a.length - 1]) {
+            System.arraycopy(b, 0, merged, a.length, b.length);
+            return merged;
+        }
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            merged[n++] = j >= b.length || (i < a.length && a[i] < b[j]) ? a[i++] : b[j++];
+        }
+        return merged;
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void accept(int epochDay, CurrencyPair pair, long scaledRate);
+    }
+
+    // 映射的檔案、排序好的索引與已提交的紀錄數；檔案擴大時換成新的映射
+    private static final class State {
+
+        private final MappedByteBuffer buffer;
+        private final long[] keys;
+        private final int count;
+
+        private State(MappedByteBuffer buffer, long[] keys, int count) {
+            this.buffer = buffer;
+            this.keys = keys;
+            this.count = count;
+        }
+
+        // (日期, 幣別) 的索引位置，不存在時回傳負值
+        int find(int epochDay, CurrencyPair pair) {
+            long prefix = key(epochDay, pair.ordinal(), 0);
+            int index = lowerBound(keys, prefix);
+            return index < keys.length && (keys[index] & ~0xFFFFFFFFL) == prefix ? index : -1;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.forex.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 以放大後的 long 表示的定點數運算（例如 scale=4 時 1234567 代表 123.4567），
+ * 匯率換算的熱路徑以此取代 BigDecimal，捨入方式皆為 HALF_UP（與 BigDecimal 相同，負數遠離零）。
+ */
+public final class FixedPoint {
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private FixedPoint() {
+    }
+
+    public static long pow10(int scale) {
+        return POW10[scale];
+    }
+
+    /**
+     * 十進位字串轉為 scale 位小數的整數，超過的小數位數以 HALF_UP 捨入。
+     * 一般寫法（"-1234.5"）直接逐字解析，科學記號等其他寫法交給 BigDecimal；
+     * 格式錯誤或超出 long 範圍時丟出 NumberFormatException。
+     */
+    public static long parse(String text, int scale) {
+        if (text == null) {
+            throw new NumberFormatException("null");
+        }
+        int length = text.length();
+        int pos = 0;
+        boolean negative = false;
+        if (pos < length && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            negative = text.charAt(pos) == '-';
+            pos++;
+        }
+        long value = 0;
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        boolean plain = true;
+        for (; pos < length && plain; pos++) {
+            char c = text.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                if (integerDigits == 18) {
+                    plain = false; // 可能超出 long，交給 BigDecimal
+                } else {
+                    value = value * 10 + (c - '0');
+                    integerDigits++;
+                }
+            } else if (c == '.') {
+                pos++;
+                for (; pos < length; pos++) {
+                    c = text.charAt(pos);
+                    if (c < '0' || c > '9') {
+                        plain = false;
+                        break;
+                    }
+                    if (fractionDigits < scale) {
+                        value = value * 10 + (c - '0');
+                        fractionDigits++;
+                    } else if (fractionDigits == scale) {
+                        roundUp = c >= '5';
+                        fractionDigits++;
+                    }
+                }
+                break;
+            } else {
+                plain = false;
+            }
+        }
+        if (!plain || integerDigits + Math.min(fractionDigits, scale) > 18
+                || (integerDigits == 0 && fractionDigits == 0)) {
+            return parseSlow(text, scale);
+        }
+        if (fractionDigits < scale) {
+            value *= POW10[scale - fractionDigits];
+        }
+        if (roundUp) {
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    private static long parseSlow(String text, int scale) {
+        try {
+            return new BigDecimal(text.trim()).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("超出範圍: " + text);
+        }
+    }
+
+    /**
+     * 計算 value * factor / divisor，以 HALF_UP 捨入；divisor 須為小於 2^31 的正數（例如 10^9）。
+     * 乘積超過 64 位元時以 128 位元的高低兩半做長除法，結果超出 long 時丟出 ArithmeticException。
+     */
+    public static long multiplyDivide(long value, long factor, long divisor) {
+        if (value == Long.MIN_VALUE || factor == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        boolean negative = (value < 0) != (factor < 0);
+        long a = Math.abs(value);
+        long b = Math.abs(factor);
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long quotient;
+        long remainder;
+        if (high == 0 && low >= 0) {
+            quotient = low / divisor;
+            remainder = low % divisor;
+        } else {
+            // 依序除以 32 位元的四段，divisor < 2^31 使 (餘數 << 32) 不會溢位
+            long q3 = (high >>> 32) / divisor;
+            long r = (high >>> 32) % divisor;
+            long current = (r << 32) | (high & 0xFFFF_FFFFL);
+            long q2 = current / divisor;
+            r = current % divisor;
+            current = (r << 32) | (low >>> 32);
+            long q1 = current / divisor;
+            r = current % divisor;
+            current = (r << 32) | (low & 0xFFFF_FFFFL);
+            long q0 = current / divisor;
+            remainder = current % divisor;
+            if (q3 != 0 || q2 != 0 || q1 > Integer.MAX_VALUE) {
+                throw new ArithmeticException("long overflow");
+            }
+            quotient = (q1 << 32) | q0;
+        }
+        if (remainder * 2 >= divisor) {
+            quotient = Math.addExact(quotient, 1);
+        }
+        return negative ? -quotient : quotient;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.forex.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 查詢回傳用的固定寬度格式化，直接以整數運算產生字串，
+ * 取代 LocalDate.format 與 BigDecimal.setScale(...).toString() 在熱路徑上的中間物件。
+ */
+public final class FixedWidthFormat {
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private FixedWidthFormat() {
+    }
+
+    /**
+     * epoch-day 轉 yyyyMMdd，結果與 LocalDate.ofEpochDay(epochDay).format(BASIC_ISO_DATE) 相同。
+     */
+    public static String formatDate(long epochDay) {
+        int number = dateNumber(epochDay);
+        if (number < 0) {
+            return LocalDate.ofEpochDay(epochDay).format(DateTimeFormatter.BASIC_ISO_DATE);
+        }
+        byte[] buf = new byte[8];
+        writeDigits(buf, 0, number, 8);
+        return new String(buf, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * epoch-day 轉 yyyyMMdd 整數（例如 20250324），年份超出 0~9999 時回傳 -1。
+     */
+    public static int dateNumber(long epochDay) {
+        // 民用曆換算（Howard Hinnant civil_from_days），以 3 月為年初避開閏日
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            return -1;
+        }
+        return (int) (year * 10000 + month * 100 + day);
+    }
+
+    /**
+     * 以 scale 位小數的整數表示（例如 scale=4 時 329451 代表 32.9451）輸出 displayScale 位小數字串，
+     * 捨入方式為 HALF_UP，結果與 BigDecimal.valueOf(scaled, scale).setScale(displayScale, HALF_UP).toString() 相同。
+     */
+    public static String formatScaled(long scaled, int scale, int displayScale) {
+        boolean negative = scaled < 0;
+        long abs = Math.abs(scaled);
+        if (displayScale < scale) {
+            long divisor = POW10[scale - displayScale];
+            long remainder = abs % divisor;
+            abs = abs / divisor + (remainder * 2 >= divisor ? 1 : 0);
+        } else if (displayScale > scale) {
+            abs *= POW10[displayScale - scale];
+        }
+
+        long unit = POW10[displayScale];
+        long integer = abs / unit;
+        long fraction = abs % unit;
+        int integerDigits = 1;
+        for (long v = integer; v >= 10; v /= 10) {
+            integerDigits++;
+        }
+        int length = (negative && abs != 0 ? 1 : 0) + integerDigits + (displayScale > 0 ? displayScale + 1 : 0);
+        byte[] buf = new byte[length];
+        int pos = 0;
+        if (negative && abs != 0) {
+            buf[pos++] = '-';
+        }
+        writeDigits(buf, pos, integer, integerDigits);
+        pos += integerDigits;
+        if (displayScale > 0) {
+            buf[pos++] = '.';
+            writeDigits(buf, pos, fraction, displayScale);
+        }
+        return new String(buf, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeDigits(byte[] buf, int offset, long value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.example.forex;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"forex.store.enabled=false", "forex.journal.enabled=false"})
 class ForexApplicationTests {
 
 	@Test
@@ -0,0 +1,169 @@
+package com.example.forex.cache;
+
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.store.LocalRateStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class ExchangeRateCacheTest {
+
+    private final LocalDate today = LocalDate.now();
+    private ExchangeRateRepository repository;
+    private ExchangeRateCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(ExchangeRateRepository.class);
+        cache = new ExchangeRateCache(repository);
+    }
+
+    /**
+     * 測試預熱前：
+     * 尚未預熱時一律未命中，由呼叫端改查資料庫。
+     */
+    @Test
+    public void testLookup_MissBeforeWarmUp() {
+        assertNull(cache.lookup(today.minusDays(10), today.minusDays(1)));
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    /**
+     * 測試預熱與區間查詢：
+     * 預熱後以二分搜尋取出區間內的資料，新寫入的資料合併進快取，既有日期的更正取代原值。
+     */
+    @Test
+    public void testWarmUpAndRangeLookup() {
+        Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(
+                        new ExchangeRate(today.minusDays(3), new BigDecimal("32.1")),
+                        new ExchangeRate(today.minusDays(5), new BigDecimal("32.0"))));
+        cache.warmUp();
+
+        cache.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                new ExchangeRate(today.minusDays(1), new BigDecimal("32.25")),
+                new ExchangeRate(today.minusDays(3), new BigDecimal("99.9")))));
+
+        ExchangeRateCache.Snapshot snapshot = cache.lookup(today.minusDays(4), today.minusDays(1));
+        assertNotNull(snapshot);
+        int from = snapshot.lowerBound((int) today.minusDays(4).toEpochDay());
+        int to = snapshot.upperBound((int) today.minusDays(1).toEpochDay());
+        assertEquals(2, to - from);
+        assertEquals(today.minusDays(3).toEpochDay(), snapshot.epochDay(from));
+        assertEquals(999000, snapshot.scaledRate(CurrencyPair.USD, from));
+        assertEquals(322500, snapshot.scaledRate(CurrencyPair.USD, from + 1));
+
+        // 超出快取涵蓋範圍的區間視為未命中
+        assertNull(cache.lookup(today.minusYears(2), today.minusDays(1)));
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(3, cache.getStats().getSize());
+    }
+
+    /**
+     * 測試本機匯率檔預熱後的資料庫預熱：
+     * 檔案中的值可能是其他節點更正前的舊值，以資料庫為準；預熱期間剛寫入的資料保留。
+     */
+    @Test
+    public void testWarmUpFromDatabaseReplacesLocalStoreValues(@TempDir Path tempDir) {
+        Mockito.when(repository.findRates(any(), any(), any())).thenReturn(List.of(
+                new ExchangeRate(today.minusDays(3), new BigDecimal("32.1")),
+                new ExchangeRate(today.minusDays(2), new BigDecimal("32.2"))));
+        LocalRateStore store = new LocalRateStore(repository, tempDir.resolve("rates.fxs"));
+        try {
+            store.synchronize();
+            ExchangeRateCache cache = new ExchangeRateCache(repository, store, true);
+            cache.warmUpFromLocalStore();
+            Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any())).thenAnswer(invocation -> {
+                // 預熱查詢期間寫入的更正比查詢結果新
+                cache.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                        new ExchangeRate(today.minusDays(2), new BigDecimal("32.25")))));
+                return List.of(new ExchangeRate(today.minusDays(3), new BigDecimal("32.15")),
+                        new ExchangeRate(today.minusDays(2), new BigDecimal("32.2")));
+            });
+            cache.warmUp();
+
+            ExchangeRateCache.Snapshot snapshot = cache.lookup(today.minusDays(3), today.minusDays(2));
+            int from = snapshot.lowerBound((int) today.minusDays(3).toEpochDay());
+            assertEquals(321500, snapshot.scaledRate(CurrencyPair.USD, from));
+            assertEquals(322500, snapshot.scaledRate(CurrencyPair.USD, from + 1));
+        } finally {
+            store.destroy();
+        }
+    }
+
+    /**
+     * 測試資料版本（ETag）：
+     * 只有區間內的資料改變時版本才改變；結束日早於最新資料日期的區間視為已定案。
+     */
+    @Test
+    public void testVersionChangesOnlyForAffectedRanges() {
+        Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(
+                        new ExchangeRate(today.minusDays(10), new BigDecimal("32.1")),
+                        new ExchangeRate(today.minusDays(5), new BigDecimal("32.0"))));
+        assertNull(cache.version(today.minusDays(10), today.minusDays(1)));
+        cache.warmUp();
+
+        String older = cache.version(today.minusDays(12), today.minusDays(8));
+        String recent = cache.version(today.minusDays(6), today.minusDays(1));
+        assertNotNull(older);
+        assertTrue(cache.isSettled(today.minusDays(8)));
+        assertFalse(cache.isSettled(today.minusDays(5)));
+
+        cache.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                new ExchangeRate(today.minusDays(2), new BigDecimal("32.2")))));
+
+        assertEquals(older, cache.version(today.minusDays(12), today.minusDays(8)));
+        assertNotEquals(recent, cache.version(today.minusDays(6), today.minusDays(1)));
+        assertTrue(cache.isSettled(today.minusDays(5)));
+        // 超出快取涵蓋範圍
+        assertNull(cache.version(today.minusYears(2), today.minusDays(1)));
+    }
+
+    /**
+     * 測試資料版本由內容決定：
+     * 以不同方式載入相同資料的兩個快取（例如重新啟動後或另一個 replica）版本相同；
+     * 更正匯率後版本改變，改回原值後恢復。
+     */
+    @Test
+    public void testVersionIsDerivedFromContent() {
+        List<ExchangeRate> rates = List.of(
+                new ExchangeRate(today.minusDays(3), new BigDecimal("32.1")),
+                new ExchangeRate(today.minusDays(2), new BigDecimal("32.2")));
+        Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any())).thenReturn(rates);
+        cache.warmUp();
+
+        ExchangeRateRepository emptyRepository = Mockito.mock(ExchangeRateRepository.class);
+        ExchangeRateCache replica = new ExchangeRateCache(emptyRepository);
+        replica.warmUp();
+        replica.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rates.get(1))));
+        replica.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rates.get(0))));
+
+        String version = cache.version(today.minusDays(6), today.minusDays(1));
+        assertEquals(version, replica.version(today.minusDays(6), today.minusDays(1)));
+
+        replica.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                new ExchangeRate(today.minusDays(3), new BigDecimal("32.15")))));
+        assertNotEquals(version, replica.version(today.minusDays(6), today.minusDays(1)));
+        replica.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rates.get(0))));
+        assertEquals(version, replica.version(today.minusDays(6), today.minusDays(1)));
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.forex.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以本機 stub HTTP server 測試 TaifexClient 的重試、逾時、熔斷與條件式 GET。
+ */
+public class TaifexClientTest {
+
+    private static final String BODY = "[{\"Date\":\"20250324\",\"USD/NTD\":\"32.9\"}]";
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> ifNoneMatchHeaders = new CopyOnWriteArrayList<>();
+    // 依序回應的狀態碼，用完後固定回應最後一個
+    private volatile int[] statuses = {200};
+    private volatile long responseDelayMillis;
+    // 回應內容送出一半後停頓的時間，模擬內容讀到一半逾時
+    private volatile long bodyStallMillis;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/DailyForeignExchangeRates", exchange -> {
+            int index = requests.getAndIncrement();
+            ifNoneMatchHeaders.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-None-Match")));
+            int[] plan = statuses;
+            int status = plan[Math.min(index, plan.length - 1)];
+            sleep(responseDelayMillis);
+            if (status == 200 && "\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                status = 304;
+            }
+            if (status == 200) {
+                byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body, 0, body.length / 2);
+                    out.flush();
+                    sleep(bodyStallMillis);
+                    out.write(body, body.length / 2, body.length - body.length / 2);
+                } catch (IOException e) {
+                    // 客戶端已逾時斷線
+                }
+            } else {
+                exchange.sendResponseHeaders(status, -1);
+            }
+            exchange.close();
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 測試重試：
+     * 前兩次回應 503，第三次成功，應重試後取得資料。
+     */
+    @Test
+    public void testFetch_RetriesServerErrors() {
+        statuses = new int[]{503, 503, 200};
+        TaifexClient client = client(Duration.ofSeconds(2), 3, 3);
+
+        Optional<String> body = client.fetch(TaifexClientTest::read);
+
+        assertEquals(BODY, body.orElseThrow());
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    /**
+     * 測試條件式 GET：
+     * 第二次請求帶上次的 ETag，伺服器回 304 時不呼叫 bodyReader。
+     */
+    @Test
+    public void testFetch_NotModifiedSkipsParsing() {
+        TaifexClient client = client(Duration.ofSeconds(2), 1, 3);
+        assertTrue(client.fetch(TaifexClientTest::read).isPresent());
+
+        AtomicInteger parsed = new AtomicInteger();
+        Optional<String> second = client.fetch(in -> {
+            parsed.incrementAndGet();
+            return read(in);
+        });
+
+        assertTrue(second.isEmpty());
+        assertEquals(0, parsed.get());
+        assertEquals(List.of("null", "\"v1\""), ifNoneMatchHeaders);
+    }
+
+    /**
+     * 測試讀取逾時：
+     * 伺服器遲遲不回應時，應在逾時後放棄，不會無限期卡住。
+     */
+    @Test
+    public void testFetch_ReadTimeout() {
+        responseDelayMillis = 1_000;
+        TaifexClient client = client(Duration.ofMillis(200), 2, 3);
+
+        long start = System.nanoTime();
+        TaifexClientException e = assertThrows(TaifexClientException.class, () -> client.fetch(TaifexClientTest::read));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(2, requests.get());
+        assertTrue(elapsedMillis < 1_500, "elapsed " + elapsedMillis + " ms");
+        assertTrue(e.getCause() != null);
+    }
+
+    /**
+     * 測試熔斷：
+     * 連續失敗達門檻後，後續呼叫直接拒絕，不再送出請求。
+     */
+    @Test
+    public void testFetch_CircuitOpensAfterConsecutiveFailures() {
+        statuses = new int[]{500};
+        TaifexClient client = client(Duration.ofSeconds(2), 1, 2);
+
+        assertThrows(TaifexClientException.class, () -> client.fetch(TaifexClientTest::read));
+        assertThrows(TaifexClientException.class, () -> client.fetch(TaifexClientTest::read));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        TaifexClientException rejected = assertThrows(TaifexClientException.class,
+                () -> client.fetch(TaifexClientTest::read));
+        assertNull(rejected.getCause());
+        assertEquals(2, requests.get());
+    }
+
+    /**
+     * 測試不可重試的錯誤：
+     * 4xx（429 除外）直接失敗，不重試。
+     */
+    @Test
+    public void testFetch_ClientErrorIsNotRetried() {
+        statuses = new int[]{404};
+        TaifexClient client = client(Duration.ofSeconds(2), 3, 3);
+
+        assertThrows(TaifexClientException.class, () -> client.fetch(TaifexClientTest::read));
+        assertEquals(1, requests.get());
+    }
+
+    /**
+     * 測試熔斷器只計算上游的失敗：
+     * bodyReader 處理內容時失敗（例如 MongoDB 無法寫入）不會熔斷；讀取回應內容途中逾時才計為失敗。
+     */
+    @Test
+    public void testFetch_ProcessingErrorsDoNotOpenCircuit() {
+        TaifexClient client = client(Duration.ofMillis(200), 1, 1);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, () -> client.fetch(in -> {
+                read(in);
+                throw new IllegalStateException("資料庫無法連線");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+
+        bodyStallMillis = 1_000;
+        RuntimeException e = assertThrows(RuntimeException.class, () -> client.fetch(TaifexClientTest::read));
+        assertTrue(e.getCause() instanceof IOException);
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+    }
+
+    /**
+     * 測試 HALF_OPEN 的試探呼叫沒有正常結束（拋出 Error、重試等待被中斷）時仍記錄為失敗，
+     * 熔斷器回到 OPEN 並在期滿後再次放行，不會停在 HALF_OPEN 而永遠拒絕呼叫。
+     */
+    @Test
+    public void testFetch_HalfOpenProbeAlwaysRecordsOutcome() {
+        statuses = new int[]{500};
+        TaifexClient client = client(Duration.ofSeconds(2), 2, 1, Duration.ZERO);
+        assertThrows(TaifexClientException.class, () -> client.fetch(TaifexClientTest::read));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        Thread.currentThread().interrupt();
+        TaifexClientException interrupted = assertThrows(TaifexClientException.class,
+                () -> client.fetch(TaifexClientTest::read));
+        assertTrue(interrupted.getCause() instanceof InterruptedException);
+        assertTrue(Thread.interrupted());
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        statuses = new int[]{200};
+        assertThrows(StackOverflowError.class, () -> client.fetch(in -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        assertEquals(BODY, client.fetch(TaifexClientTest::read).orElseThrow());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    private TaifexClient client(Duration readTimeout, int maxAttempts, int circuitFailureThreshold) {
+        return client(readTimeout, maxAttempts, circuitFailureThreshold, Duration.ofMinutes(1));
+    }
+
+    private TaifexClient client(Duration readTimeout, int maxAttempts, int circuitFailureThreshold,
+                                Duration circuitOpenDuration) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/DailyForeignExchangeRates";
+        return new TaifexClient(url, Duration.ofSeconds(1), readTimeout, maxAttempts,
+                Duration.ofMillis(10), Duration.ofMillis(50), circuitFailureThreshold, circuitOpenDuration);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String read(InputStream in) {
+        try {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.forex.cluster;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import com.example.forex.service.ExchangeRateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClusterCoordinatorTest {
+
+    private InMemoryClusterStore store;
+    private InMemoryExchangeRateRepository repository;
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    public void setUp() {
+        // 兩個節點共用同一個資料庫與協調資料，各自有自己的快取
+        store = new InMemoryClusterStore();
+        repository = new InMemoryExchangeRateRepository();
+        repository.save(new ExchangeRate(LocalDate.now().minusDays(10), new BigDecimal("30.1")));
+        nodeA = new Node("node-a");
+        nodeB = new Node("node-b");
+    }
+
+    /**
+     * 測試租約：多個節點同時觸發排程時只有一個執行；執行失敗會釋放租約讓其他節點重試。
+     */
+    @Test
+    public void testOnlyOneNodeRunsScheduledTask() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                Node node = new Node("node-" + i);
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return node.coordinator.runIfLeader("daily-fetch", runs::incrementAndGet);
+                }));
+            }
+            start.countDown();
+            int leaders = 0;
+            for (Future<Boolean> result : results) {
+                leaders += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, leaders);
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThrows(IllegalStateException.class, () -> nodeA.coordinator.runIfLeader("retry", () -> {
+            throw new IllegalStateException("TAIFEX unavailable");
+        }));
+        assertTrue(nodeB.coordinator.runIfLeader("retry", runs::incrementAndGet));
+        assertFalse(nodeA.coordinator.runIfLeader("retry", runs::incrementAndGet));
+    }
+
+    /**
+     * 測試異動通知：節點 A 寫入的新資料，節點 B 輪詢後載入自己的快取；
+     * 重新載入的資料不會再被轉發，節點 A 也不會重新載入自己的異動。
+     */
+    @Test
+    public void testFollowerReloadsChangesFromLeader() {
+        nodeA.coordinator.pollChanges();
+        nodeB.coordinator.pollChanges();
+        LocalDate newDate = LocalDate.now().minusDays(1);
+
+        nodeA.service.saveExchangeRates(List.of(new ExchangeRate(newDate, new BigDecimal("31.25"))));
+        assertEquals(1, store.latestSequence());
+        assertEquals(312_500, rate(nodeA, newDate));
+        assertEquals(ExchangeRateCache.MISSING, rate(nodeB, newDate));
+
+        nodeB.coordinator.pollChanges();
+        nodeA.coordinator.pollChanges();
+        assertEquals(312_500, rate(nodeB, newDate));
+        assertEquals(1, nodeB.replicatedEvents.get());
+        assertEquals(0, nodeA.replicatedEvents.get());
+        assertEquals(1, store.latestSequence());
+    }
+
+    /**
+     * 測試序號空洞：較小的序號尚未寫入時先等待，補上後依序套用。
+     */
+    @Test
+    public void testWaitsForSequenceGap() {
+        nodeB.coordinator.pollChanges();
+        LocalDate first = LocalDate.now().minusDays(3);
+        LocalDate second = LocalDate.now().minusDays(2);
+        repository.save(new ExchangeRate(first, new BigDecimal("30.5")));
+        repository.save(new ExchangeRate(second, new BigDecimal("30.6")));
+
+        long reserved = store.reserveSequence();
+        store.publishChange("node-a", second, second);
+        nodeB.coordinator.pollChanges();
+        assertEquals(ExchangeRateCache.MISSING, rate(nodeB, second));
+
+        store.putChange(new ClusterChange(reserved, "node-a", first, first));
+        nodeB.coordinator.pollChanges();
+        assertEquals(305_000, rate(nodeB, first));
+        assertEquals(306_000, rate(nodeB, second));
+    }
+
+    private static long rate(Node node, LocalDate date) {
+        ExchangeRateCache.Snapshot snapshot = node.cache.lookup(date, date);
+        int index = snapshot.lowerBound((int) date.toEpochDay());
+        if (index >= snapshot.upperBound((int) date.toEpochDay())) {
+            return ExchangeRateCache.MISSING;
+        }
+        return snapshot.scaledRate(CurrencyPair.USD, index);
+    }
+
+    // 模擬一個 replica：本機事件只送到自己的快取與協調器
+    private class Node {
+        final ExchangeRateCache cache = new ExchangeRateCache(repository);
+        final AtomicInteger replicatedEvents = new AtomicInteger();
+        final ClusterCoordinator coordinator;
+        final ExchangeRateService service;
+
+        Node(String nodeId) {
+            cache.warmUp();
+            coordinator = new ClusterCoordinator(store, repository, event -> dispatch((ExchangeRatesSavedEvent) event),
+                    true, Duration.ofMinutes(10), Duration.ofHours(1), nodeId);
+            service = new ExchangeRateService(repository, cache, event -> dispatch((ExchangeRatesSavedEvent) event),
+                    Mockito.mock(TaifexClient.class));
+        }
+
+        private void dispatch(ExchangeRatesSavedEvent event) {
+            if (event.isReplicated()) {
+                replicatedEvents.incrementAndGet();
+            }
+            cache.onExchangeRatesSaved(event);
+            coordinator.onExchangeRatesSaved(event);
+        }
+    }
+}
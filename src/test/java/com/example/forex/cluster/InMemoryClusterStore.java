@@ -0,0 +1,75 @@
+package com.example.forex.cluster;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 以記憶體實作的 ClusterStore，供測試模擬多個節點共用同一個 MongoDB。
+ * 所有操作以同一把鎖序列化，與 MongoDB 單一文件操作的原子性一致。
+ */
+public class InMemoryClusterStore implements ClusterStore {
+
+    private final Map<String, String> leaseOwners = new HashMap<>();
+    private final Map<String, Instant> leaseExpiries = new HashMap<>();
+    private final TreeMap<Long, ClusterChange> changes = new TreeMap<>();
+    private long sequence;
+
+    @Override
+    public synchronized boolean tryAcquireLease(String name, String owner, Duration ttl) {
+        Instant now = Instant.now();
+        String current = leaseOwners.get(name);
+        if (current != null && !current.equals(owner) && leaseExpiries.get(name).isAfter(now)) {
+            return false;
+        }
+        leaseOwners.put(name, owner);
+        leaseExpiries.put(name, now.plus(ttl));
+        return true;
+    }
+
+    @Override
+    public synchronized void releaseLease(String name, String owner) {
+        if (owner.equals(leaseOwners.get(name))) {
+            leaseOwners.remove(name);
+            leaseExpiries.remove(name);
+        }
+    }
+
+    @Override
+    public synchronized long publishChange(String origin, LocalDate fromDate, LocalDate toDate) {
+        long next = ++sequence;
+        changes.put(next, new ClusterChange(next, origin, fromDate, toDate));
+        return next;
+    }
+
+    // 模擬序號已配置、通知尚未寫入的情形
+    public synchronized long reserveSequence() {
+        return ++sequence;
+    }
+
+    public synchronized void putChange(ClusterChange change) {
+        changes.put(change.getSequence(), change);
+    }
+
+    @Override
+    public synchronized List<ClusterChange> changesSince(long sequence, int limit) {
+        List<ClusterChange> result = new ArrayList<>();
+        for (ClusterChange change : changes.tailMap(sequence, false).values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(change);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long latestSequence() {
+        return sequence;
+    }
+}
@@ -4,6 +4,10 @@ import com.example.forex.dto.ExchangeRateQueryRequest;
 import com.example.forex.dto.ExchangeRateQueryResponse;
 import com.example.forex.dto.ExchangeRateQueryResponse.CurrencyInfo;
 import com.example.forex.dto.ExchangeRateQueryResponse.ErrorInfo;
+import com.example.forex.dto.ExchangeRateSeries;
+import com.example.forex.format.ExchangeRateSeriesBinaryConverter;
+import com.example.forex.format.SeriesMediaTypes;
+import com.example.forex.model.CurrencyPair;
 import com.example.forex.service.ExchangeRateService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -22,6 +26,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -170,4 +175,96 @@ public class ExchangeRateControllerTest {
         Mockito.verify(exchangeRateService, times(1)).fetchAndSaveExchangeRates();
     }
 
+    /**
+     * 測試 GET 查詢的 HTTP 快取：
+     * 回應帶 ETag 與 Cache-Control；If-None-Match 相同時回 304 且不執行查詢。
+     */
+    @Test
+    public void testGetQuery_ETagAndNotModified() throws Exception {
+        ExchangeRateQueryResponse mockResponse = new ExchangeRateQueryResponse();
+        mockResponse.setError(new ErrorInfo("0000", "成功"));
+        mockResponse.setCurrency(List.of(createCurrencyInfo("20250324", "31.01")));
+        Mockito.when(exchangeRateService.queryVersion(any(ExchangeRateQueryRequest.class))).thenReturn("abc-3");
+        Mockito.when(exchangeRateService.isSettledRange(any(ExchangeRateQueryRequest.class))).thenReturn(true);
+        Mockito.when(exchangeRateService.queryExchangeRates(any(ExchangeRateQueryRequest.class))).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/exchangeRates/query")
+                        .param("startDate", "2025/03/24")
+                        .param("endDate", "2025/03/26")
+                        .param("currency", "usd"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc-3\""))
+                .andExpect(header().string("Cache-Control", "max-age=2592000, public"))
+                .andExpect(jsonPath("$.currency[0].usd", is("31.01")));
+
+        mockMvc.perform(get("/api/exchangeRates/query")
+                        .param("startDate", "2025/03/24")
+                        .param("endDate", "2025/03/26")
+                        .param("currency", "usd")
+                        .header("If-None-Match", "W/\"abc-2\", \"abc-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc-3\""))
+                .andExpect(content().string(""));
+
+        Mockito.verify(exchangeRateService, times(1))
+                .queryExchangeRates(any(ExchangeRateQueryRequest.class));
+    }
+
+    /**
+     * 測試內容協商：
+     * Accept 為欄位式 JSON 或二進位時改用 querySeries，各格式有不同的 ETag 並帶 Vary: Accept；
+     * 未指定 Accept 時維持原本的 JSON。
+     */
+    @Test
+    public void testQuery_ContentNegotiation() throws Exception {
+        ExchangeRateSeries series = new ExchangeRateSeries(List.of(CurrencyPair.USD), 1);
+        series.addRow((int) LocalDate.of(2025, 3, 24).toEpochDay(), new long[]{310_100});
+        series.setError(new ErrorInfo("0000", "成功"));
+        Mockito.when(exchangeRateService.querySeries(any(ExchangeRateQueryRequest.class))).thenReturn(series);
+        Mockito.when(exchangeRateService.queryVersion(any(ExchangeRateQueryRequest.class))).thenReturn("abc-3");
+        String requestJson = "{\"startDate\": \"2025/03/24\", \"endDate\": \"2025/03/26\"}";
+
+        mockMvc.perform(post("/api/exchangeRates/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(SeriesMediaTypes.COLUMNAR_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SeriesMediaTypes.COLUMNAR_JSON))
+                .andExpect(jsonPath("$.dates[0]", is(20250324)))
+                .andExpect(jsonPath("$.rates.usd[0]", is(31.01)));
+
+        mockMvc.perform(get("/api/exchangeRates/query")
+                        .param("startDate", "2025/03/24")
+                        .param("endDate", "2025/03/26")
+                        .accept(SeriesMediaTypes.BINARY))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SeriesMediaTypes.BINARY))
+                .andExpect(header().string("ETag", "\"abc-3-bin\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().bytes(ExchangeRateSeriesBinaryConverter.encode(series)));
+
+        // 偏好二進位但也接受 JSON 時仍選二進位；兩種格式的 ETag 不會互相命中
+        mockMvc.perform(get("/api/exchangeRates/query")
+                        .param("startDate", "2025/03/24")
+                        .param("endDate", "2025/03/26")
+                        .header("Accept", "application/json;q=0.5, application/vnd.forex.binary")
+                        .header("If-None-Match", "\"abc-3-col\""))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SeriesMediaTypes.BINARY));
+
+        // 錯誤時以 JSON 回傳錯誤碼
+        Mockito.when(exchangeRateService.querySeries(any(ExchangeRateQueryRequest.class)))
+                .thenReturn(new ExchangeRateSeries(new ErrorInfo("E001", "日期區間不符")));
+        mockMvc.perform(post("/api/exchangeRates/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(SeriesMediaTypes.BINARY)
+                        .content(requestJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(SeriesMediaTypes.COLUMNAR_JSON))
+                .andExpect(jsonPath("$.error.code", is("E001")));
+
+        Mockito.verify(exchangeRateService, Mockito.never())
+                .queryExchangeRates(any(ExchangeRateQueryRequest.class));
+    }
+
 }
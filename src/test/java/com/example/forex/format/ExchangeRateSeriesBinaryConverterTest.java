@@ -0,0 +1,55 @@
+package com.example.forex.format;
+
+import com.example.forex.dto.ExchangeRateSeries;
+import com.example.forex.model.CurrencyPair;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ExchangeRateSeriesBinaryConverterTest {
+
+    /**
+     * 測試二進位格式：依文件的固定寬度 little-endian 格式逐欄位解碼，
+     * 並確認同一份資料的欄位式 JSON 輸出。
+     */
+    @Test
+    public void testBinaryLayoutAndColumnarJson() throws Exception {
+        ExchangeRateSeries series = new ExchangeRateSeries(List.of(CurrencyPair.USD, CurrencyPair.RMB), 1);
+        int day1 = (int) LocalDate.of(2025, 3, 24).toEpochDay();
+        int day2 = (int) LocalDate.of(2025, 3, 25).toEpochDay();
+        series.addRow(day1, new long[]{310_100, 45_312});
+        series.addRow(day2, new long[]{310_250, ExchangeRateSeries.MISSING});
+
+        byte[] bytes = ExchangeRateSeriesBinaryConverter.encode(series);
+        assertEquals(4 + 4 + 2 + (1 + 3) * 2 + 2 * (4 + 8 * 2), bytes.length);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        assertEquals("FXR1", new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(2, buffer.getInt());
+        assertEquals(2, buffer.get());
+        assertEquals(ExchangeRateSeries.RATE_SCALE, buffer.get());
+        for (String expected : new String[]{"usd", "rmb"}) {
+            byte[] code = new byte[buffer.get()];
+            buffer.get(code);
+            assertEquals(expected, new String(code, StandardCharsets.US_ASCII));
+        }
+        assertEquals(day1, buffer.getInt());
+        assertEquals(310_100, buffer.getLong());
+        assertEquals(45_312, buffer.getLong());
+        assertEquals(day2, buffer.getInt());
+        assertEquals(310_250, buffer.getLong());
+        assertEquals(Long.MIN_VALUE, buffer.getLong());
+        assertEquals(0, buffer.remaining());
+
+        assertEquals("{\"dates\":[20250324,20250325],\"rates\":{\"usd\":[31.01,31.03],\"rmb\":[4.5312,null]}}",
+                new ObjectMapper().writeValueAsString(series));
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.forex.push;
+
+import com.example.forex.controller.ExchangeRateStreamController;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RateEventBroadcasterTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 24);
+
+    private final RateEventBroadcaster broadcaster = new RateEventBroadcaster(4, 3, 8, Duration.ofMinutes(1), 2, Duration.ofSeconds(30));
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.destroy();
+    }
+
+    /**
+     * 測試推播：每個訂閱者只收到訂閱的幣別，事件依序帶遞增的 id。
+     */
+    @Test
+    public void testFanOutFilteredByCurrency() throws Exception {
+        RecordingSink usd = new RecordingSink(null);
+        RecordingSink all = new RecordingSink(null);
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), null, usd);
+        broadcaster.register(EnumSet.allOf(CurrencyPair.class), null, all);
+
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE, "31.01", "4.5312"))));
+
+        assertEquals("id:" + id(1) + "\nevent:rate\ndata:{\"date\":\"20250324\",\"currency\":\"usd\",\"rate\":\"31.01\"}\n\n", usd.next());
+        assertEquals("id:" + id(1) + "\nevent:rate\ndata:{\"date\":\"20250324\",\"currency\":\"usd\",\"rate\":\"31.01\"}\n\n", all.next());
+        assertEquals("id:" + id(2) + "\nevent:rate\ndata:{\"date\":\"20250324\",\"currency\":\"rmb\",\"rate\":\"4.5312\"}\n\n", all.next());
+        assertNull(usd.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 測試只推播最新交易日：一次寫入多個日期只推最新的一天，回補與較早日期的寫入不推播，當日更正再推一次。
+     */
+    @Test
+    public void testOnlyLatestTradingDayIsPushed() throws Exception {
+        RecordingSink sink = new RecordingSink(null);
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), null, sink);
+
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                rate(DATE, "31.01", null), rate(DATE.minusDays(1), "31.00", null), rate(DATE.minusDays(2), "30.99", null))));
+        assertEquals("id:" + id(1) + "\nevent:rate\ndata:{\"date\":\"20250324\",\"currency\":\"usd\",\"rate\":\"31.01\"}\n\n", sink.next());
+
+        List<ExchangeRate> chunk = new ArrayList<>();
+        for (int i = 1; i <= 92; i++) {
+            chunk.add(rate(DATE.plusDays(i), "32.00", null));
+        }
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(chunk, false, true));
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE.minusDays(5), "30.50", null)), true));
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE, "31.05", null)), true));
+        assertEquals("id:" + id(2) + "\nevent:rate\ndata:{\"date\":\"20250324\",\"currency\":\"usd\",\"rate\":\"31.05\"}\n\n", sink.next());
+        assertNull(sink.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 測試慢速訂閱者：緩衝區滿時只有該訂閱者收到 resync 並被關閉，其他訂閱者照常收到全部事件。
+     */
+    @Test
+    public void testSlowSubscriberIsResyncedWithoutAffectingOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(release);
+        RecordingSink fast = new RecordingSink(null);
+        RateEventBroadcaster.Subscriber slowSubscriber = broadcaster.register(EnumSet.of(CurrencyPair.USD), null, slow);
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), null, fast);
+
+        // 每次寫入一個日期，跟得上的訂閱者每筆都收到
+        for (int i = 0; i < 10; i++) {
+            broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE.plusDays(i), "31.0" + i, null))));
+            assertTrue(fast.next().startsWith("id:" + id(i + 1) + "\n"));
+            if (i == 0) {
+                // 慢速訂閱者卡在送出第一筆
+                assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(2, broadcaster.getSubscriberCount());
+
+        release.countDown();
+        // 送出中的第一筆之後是 resync，不會收到緩衝區之後的事件
+        assertTrue(slow.next().startsWith("id:" + id(1) + "\n"));
+        assertEquals("event:resync\ndata:{}\n\n", slow.next());
+        assertTrue(slow.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(slowSubscriber.isClosed());
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    /**
+     * 測試寫出逾時：只有一個 sender 時，寫不動的訂閱者在 send-timeout 後被關閉，其他訂閱者照常收到事件。
+     */
+    @Test
+    public void testStalledSendDoesNotBlockOtherSubscribers() throws Exception {
+        RateEventBroadcaster single = new RateEventBroadcaster(4, 3, 8, Duration.ofMinutes(1), 1, Duration.ofMillis(200));
+        CountDownLatch never = new CountDownLatch(1);
+        try {
+            RecordingSink stalled = new RecordingSink(never);
+            RecordingSink other = new RecordingSink(null);
+            RateEventBroadcaster.Subscriber stalledSubscriber = single.register(EnumSet.of(CurrencyPair.USD), null, stalled);
+            single.register(EnumSet.of(CurrencyPair.USD), null, other);
+
+            for (int i = 0; i < 3; i++) {
+                single.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE.plusDays(i), "31.0" + i, null))));
+                assertTrue(other.next().startsWith("id:" + single.getEpoch() + "-" + (i + 1) + "\n"));
+            }
+            assertTrue(stalled.closed.await(5, TimeUnit.SECONDS));
+            assertTrue(stalledSubscriber.isClosed());
+            assertEquals(1, single.getSubscriberCount());
+        } finally {
+            never.countDown();
+            single.destroy();
+        }
+    }
+
+    /**
+     * 測試重新連線：依 Last-Event-ID 補送之後的事件；超出保留範圍時送出 resync；訂閱數有上限。
+     */
+    @Test
+    public void testReplayAfterReconnect() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE.plusDays(i), "31.0" + i, "4.5"))));
+        }
+        // 共 10 筆事件，只保留最近 8 筆（id 3 ~ 10）
+        RecordingSink resumed = new RecordingSink(null);
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), id(6), resumed);
+        assertTrue(resumed.next().startsWith("id:" + id(7) + "\n"));
+        assertTrue(resumed.next().startsWith("id:" + id(9) + "\n"));
+
+        RecordingSink tooOld = new RecordingSink(null);
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), id(1), tooOld);
+        assertEquals("event:resync\ndata:{}\n\n", tooOld.next());
+        assertTrue(tooOld.closed.await(5, TimeUnit.SECONDS));
+
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), null, new RecordingSink(null));
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), null, new RecordingSink(null));
+        assertNull(broadcaster.register(EnumSet.of(CurrencyPair.USD), null, new RecordingSink(null)));
+    }
+
+    /**
+     * 測試無法辨識的 Last-Event-ID：其他 replica 或重新啟動前的 id、尚未發布的序號、
+     * 舊格式的純數字 id 都無法得知漏了哪些事件，一律送出 resync；最新的 id 不補送也不 resync。
+     */
+    @Test
+    public void testResyncOnForeignOrFutureEventId() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE.plusDays(i), "31.0" + i, null))));
+        }
+        RateEventBroadcaster otherReplica = new RateEventBroadcaster(4, 3, 8, Duration.ofMinutes(1), 1, Duration.ofSeconds(30));
+        try {
+            for (String lastEventId : List.of(otherReplica.getEpoch() + "-2", id(500), id(4), "2", "garbage")) {
+                RecordingSink sink = new RecordingSink(null);
+                broadcaster.register(EnumSet.of(CurrencyPair.USD), lastEventId, sink);
+                assertEquals("event:resync\ndata:{}\n\n", sink.next(), lastEventId);
+                assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            otherReplica.destroy();
+        }
+
+        RecordingSink upToDate = new RecordingSink(null);
+        broadcaster.register(EnumSet.of(CurrencyPair.USD), id(3), upToDate);
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE.plusDays(3), "31.03", null))));
+        assertTrue(upToDate.next().startsWith("id:" + id(4) + "\n"));
+    }
+
+    /**
+     * 測試 SSE 端點：以非同步請求保持連線，新資料寫入後推送 rate 事件；不支援的幣別回 400。
+     */
+    @Test
+    public void testStreamEndpoint() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ExchangeRateStreamController(broadcaster)).build();
+        MvcResult result = mockMvc.perform(get("/api/exchangeRates/stream").param("currency", "usd,rmb"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        broadcaster.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(rate(DATE, "31.01", "4.5312"))));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = "";
+        while (!body.contains("\"rmb\"") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains("event:rate\ndata:{\"date\":\"20250324\",\"currency\":\"usd\",\"rate\":\"31.01\"}"));
+        assertTrue(body.contains("\"currency\":\"rmb\""));
+        assertEquals("text/event-stream", result.getResponse().getContentType());
+
+        mockMvc.perform(get("/api/exchangeRates/stream").param("currency", "xyz"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String id(long sequence) {
+        return broadcaster.getEpoch() + "-" + sequence;
+    }
+
+    private static ExchangeRate rate(LocalDate date, String usd, String rmb) {
+        ExchangeRate rate = new ExchangeRate(date, new BigDecimal(usd));
+        if (rmb != null) {
+            rate.setRate(CurrencyPair.RMB, new BigDecimal(rmb));
+        }
+        return rate;
+    }
+
+    // 記錄收到的事件文字；blockUntil 不為 null 時第一次送出會卡住，模擬寫不動的客戶端
+    private static class RecordingSink implements RateEventBroadcaster.EventSink {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+        final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch blockUntil;
+
+        RecordingSink(CountDownLatch blockUntil) {
+            this.blockUntil = blockUntil;
+        }
+
+        @Override
+        public void send(SseEmitter.SseEventBuilder event) {
+            sending.countDown();
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType data : event.build()) {
+                text.append(data.getData());
+            }
+            events.add(text.toString());
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertTrue(event != null, "未在時間內收到事件");
+            return event;
+        }
+    }
+}
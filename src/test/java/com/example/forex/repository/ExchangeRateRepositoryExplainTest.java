@@ -0,0 +1,172 @@
+package com.example.forex.repository;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.model.ExchangeRateBucket;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 以真實 MongoDB 驗證範圍查詢的執行計畫：走索引（IXSCAN）、沒有記憶體排序（SORT），以及月份封存後的讀取。
+ * 連線位址可用 -Dforex.test.mongodb.uri 指定，預設 localhost:27017；連不上時略過。
+ * 每次使用隨機名稱的資料庫，結束後刪除。
+ */
+public class ExchangeRateRepositoryExplainTest {
+
+    private static final String MONGODB_URI = System.getProperty("forex.test.mongodb.uri", "mongodb://localhost:27017");
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private ExchangeRateRepositoryImpl repository;
+
+    @BeforeEach
+    public void setUp() {
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(MONGODB_URI))
+                .applyToClusterSettings(builder -> builder.serverSelectionTimeout(1, TimeUnit.SECONDS))
+                .build());
+        boolean reachable;
+        try {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            reachable = true;
+        } catch (MongoException e) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "MongoDB 無法連線（" + MONGODB_URI + "），略過執行計畫測試");
+
+        mongoTemplate = new MongoTemplate(client, "forex_explain_" + UUID.randomUUID().toString().replace("-", ""));
+        repository = new ExchangeRateRepositoryImpl(mongoTemplate);
+        repository.ensureIndexes();
+        repository.ensureCurrencyIndex(CurrencyPair.USD);
+        // 逆序寫入，確認結果順序來自索引而非寫入順序
+        List<ExchangeRate> rates = new ArrayList<>();
+        for (int i = 399; i >= 0; i--) {
+            ExchangeRate rate = new ExchangeRate(FIRST_DATE.plusDays(i), new BigDecimal("30.5"));
+            rate.setRate(CurrencyPair.RMB, new BigDecimal("4.5"));
+            rate.setRate(CurrencyPair.USD_JPY, new BigDecimal("150.1"));
+            rates.add(rate);
+        }
+        repository.bulkUpsert(rates);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (mongoTemplate != null) {
+            mongoTemplate.getDb().drop();
+        }
+        client.close();
+    }
+
+    /**
+     * 測試執行計畫：單一與多幣別的範圍查詢都以索引掃描並由索引排序，結果只含 date 與所查幣別。
+     */
+    @Test
+    public void testRangeQueryUsesIndexWithoutInMemorySort() {
+        LocalDate start = FIRST_DATE.plusDays(100);
+        LocalDate end = FIRST_DATE.plusDays(199);
+        for (List<CurrencyPair> pairs : List.of(List.of(CurrencyPair.USD), List.of(CurrencyPair.RMB, CurrencyPair.USD_JPY))) {
+            List<String> stages = new ArrayList<>();
+            collectStages(explain(ExchangeRateRepositoryImpl.rangeQuery(start, end, pairs)), stages);
+            assertTrue(stages.contains("IXSCAN"), "stages: " + stages);
+            assertFalse(stages.contains("SORT"), "stages: " + stages);
+            assertFalse(stages.contains("COLLSCAN"), "stages: " + stages);
+
+            List<ExchangeRate> result = repository.findRates(start, end, pairs);
+            assertEquals(100, result.size());
+            for (int i = 0; i < result.size(); i++) {
+                ExchangeRate rate = result.get(i);
+                assertEquals(start.plusDays(i), rate.getDate());
+                assertNull(rate.getId());
+                assertEquals(pairs.size(), rate.getRates().size());
+            }
+        }
+    }
+
+    /**
+     * 測試分層儲存：每日文件依月份併入封存文件後，跨兩層的查詢結果不變，
+     * 封存文件以 _id 範圍讀取（索引掃描），十三個多月的資料只讀 14 筆封存文件。
+     */
+    @Test
+    public void testArchivedMonthsReadThroughBuckets() {
+        LocalDate start = FIRST_DATE.plusDays(20);
+        LocalDate end = FIRST_DATE.plusDays(379);
+        List<CurrencyPair> pairs = List.of(CurrencyPair.USD, CurrencyPair.USD_JPY);
+        List<ExchangeRate> before = repository.findRates(start, end, pairs);
+
+        int moved = 0;
+        for (YearMonth month = YearMonth.from(FIRST_DATE); !month.isAfter(YearMonth.from(FIRST_DATE.plusDays(399))); month = month.plusMonths(1)) {
+            moved += repository.archiveMonth(month);
+        }
+        assertEquals(400, moved);
+        assertTrue(repository.findFirstDailyDate().isEmpty());
+        assertEquals(14, mongoTemplate.count(new Query(), ExchangeRateBucket.class));
+
+        List<String> stages = new ArrayList<>();
+        collectStages(explain(ExchangeRateRepositoryImpl.bucketQuery(start, end, pairs), ExchangeRateBucket.class), stages);
+        assertFalse(stages.contains("COLLSCAN"), "stages: " + stages);
+
+        List<ExchangeRate> after = repository.findRates(start, end, pairs);
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).getDate(), after.get(i).getDate());
+            assertEquals(before.get(i).getRate(CurrencyPair.USD_JPY), after.get(i).getRate(CurrencyPair.USD_JPY));
+            assertNull(after.get(i).getRate(CurrencyPair.RMB));
+        }
+        assertEquals(1, repository.findExistingDates(List.of(start, LocalDate.of(2030, 1, 1))).size());
+    }
+
+    private Document explain(Query query) {
+        return explain(query, ExchangeRate.class);
+    }
+
+    private Document explain(Query query, Class<?> type) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(type);
+        Document explained = mongoTemplate.getCollection(mongoTemplate.getCollectionName(type))
+                .find(mapper.getMappedObject(query.getQueryObject(), entity))
+                .projection(mapper.getMappedFields(query.getFieldsObject(), entity))
+                .sort(mapper.getMappedSort(query.getSortObject(), entity))
+                .explain();
+        return explained.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+    }
+
+    // 執行計畫是巢狀的 stage / inputStage(s)，收集所有 stage 名稱
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
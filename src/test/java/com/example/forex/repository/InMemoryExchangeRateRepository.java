@@ -0,0 +1,364 @@
+package com.example.forex.repository;
+
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.model.ExchangeRateBucket;
+import com.example.forex.model.ExchangeRateRollup;
+import com.example.forex.model.RollupPeriod;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 以記憶體實作的 ExchangeRateRepository，供單元測試與效能測試取代 MongoDB，
+ * 行為與 date 唯一索引下的 MongoDB 一致：同一日期只會有一筆。
+ * 月份封存文件與週、月彙總各以一個 Map 模擬，熱資料視窗不限制讀取（一律合併兩層）。
+ * 不支援 Query by Example。
+ */
+public class InMemoryExchangeRateRepository implements ExchangeRateRepository {
+
+    private final ConcurrentSkipListMap<LocalDate, ExchangeRate> store = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<YearMonth, ExchangeRateBucket> buckets = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, ExchangeRateRollup> rollups = new ConcurrentSkipListMap<>();
+    private final AtomicLong rangeQueries = new AtomicLong();
+
+    // 範圍查詢被呼叫的次數，用來驗證快取是否生效
+    public long getRangeQueryCount() {
+        return rangeQueries.get();
+    }
+
+    @Override
+    public Optional<ExchangeRate> findByDate(LocalDate date) {
+        return Optional.ofNullable(store.get(date));
+    }
+
+    @Override
+    public List<ExchangeRate> findByDateGreaterThanEqualAndDateLessThanEqual(LocalDate startDate, LocalDate endDate) {
+        rangeQueries.incrementAndGet();
+        if (startDate.isAfter(endDate)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(store.subMap(startDate, true, endDate, true).values());
+    }
+
+    @Override
+    public List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+        List<ExchangeRate> projected = new ArrayList<>();
+        for (ExchangeRate rate : findByDateGreaterThanEqualAndDateLessThanEqual(startDate, endDate)) {
+            // 與 MongoDB 投影相同，只保留 date 與所查幣別
+            ExchangeRate copy = new ExchangeRate();
+            copy.setDate(rate.getDate());
+            for (CurrencyPair pair : pairs) {
+                if (rate.getRate(pair) != null) {
+                    copy.setRate(pair, rate.getRate(pair));
+                }
+            }
+            projected.add(copy);
+        }
+        if (buckets.isEmpty() || startDate.isAfter(endDate)) {
+            return projected;
+        }
+        List<ExchangeRate> archived = new ArrayList<>();
+        for (ExchangeRateBucket bucket : buckets.subMap(YearMonth.from(startDate), true, YearMonth.from(endDate), true).values()) {
+            archived.addAll(bucket.toRates(startDate, endDate, pairs));
+        }
+        return ExchangeRateBucket.combine(archived, projected);
+    }
+
+    @Override
+    public Set<LocalDate> findExistingDates(Collection<LocalDate> dates) {
+        Set<LocalDate> existing = new HashSet<>();
+        for (LocalDate date : dates) {
+            if (store.containsKey(date)) {
+                existing.add(date);
+            }
+            ExchangeRateBucket bucket = buckets.get(YearMonth.from(date));
+            if (bucket != null && bucket.getDates().contains(date)) {
+                existing.add(date);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public Map<LocalDate, ExchangeRate> findStoredRates(Collection<LocalDate> dates) {
+        Map<LocalDate, ExchangeRate> stored = new HashMap<>();
+        for (LocalDate date : dates) {
+            ExchangeRate rate = store.get(date);
+            if (rate != null) {
+                stored.put(date, copy(rate));
+                continue;
+            }
+            ExchangeRateBucket bucket = buckets.get(YearMonth.from(date));
+            if (bucket != null && bucket.getDates().contains(date)) {
+                stored.put(date, bucket.toRates(date, date, List.of(CurrencyPair.values())).get(0));
+            }
+        }
+        return stored;
+    }
+
+    // 每日文件（熱資料）的筆數，不含已封存的日期
+    public int getDailyCount() {
+        return store.size();
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    @Override
+    public Optional<LocalDate> findFirstDailyDate() {
+        return store.isEmpty() ? Optional.empty() : Optional.of(store.firstKey());
+    }
+
+    @Override
+    public synchronized int archiveMonth(YearMonth month) {
+        List<ExchangeRate> daily = new ArrayList<>(store.subMap(month.atDay(1), true, month.atEndOfMonth(), true).values());
+        if (daily.isEmpty()) {
+            return 0;
+        }
+        ExchangeRateBucket bucket = buckets.get(month);
+        buckets.put(month, bucket == null ? ExchangeRateBucket.of(month, daily) : bucket.merge(daily));
+        daily.forEach(rate -> store.remove(rate.getDate()));
+        return daily.size();
+    }
+
+    @Override
+    public void saveRollups(List<ExchangeRateRollup> saved) {
+        saved.forEach(rollup -> rollups.put(rollup.getId(), rollup));
+    }
+
+    @Override
+    public List<ExchangeRateRollup> findRollups(RollupPeriod period, LocalDate startDate, LocalDate endDate,
+                                                Collection<CurrencyPair> pairs) {
+        return new ArrayList<>(rollups.subMap(ExchangeRateRollup.id(period, startDate), true,
+                ExchangeRateRollup.id(period, endDate), true).values());
+    }
+
+    @Override
+    public boolean hasRollups() {
+        return !rollups.isEmpty();
+    }
+
+    // 與 MongoDB 相同，寫入的是呼叫端物件的複本，之後修改呼叫端的物件不影響已儲存的內容
+    @Override
+    public synchronized IngestionResult bulkUpsert(List<ExchangeRate> rates) {
+        long inserted = 0;
+        for (ExchangeRate rate : rates) {
+            ExchangeRate copy = copy(rate);
+            copy.setRevision(Math.max(rate.getRevision(), 1));
+            if (store.putIfAbsent(rate.getDate(), withId(copy)) == null) {
+                inserted++;
+            }
+        }
+        return new IngestionResult(inserted, rates.size() - inserted, 0);
+    }
+
+    @Override
+    public synchronized IngestionResult bulkRevise(List<ExchangeRate> rates) {
+        long updated = 0;
+        for (ExchangeRate rate : rates) {
+            ExchangeRate current = store.get(rate.getDate());
+            if (current != null && current.getRevision() == rate.getRevision() - 1) {
+                ExchangeRate copy = copy(rate);
+                copy.setId(current.getId());
+                store.put(rate.getDate(), copy);
+                updated++;
+            }
+        }
+        return new IngestionResult(0, updated, rates.size() - updated, 0);
+    }
+
+    @Override
+    public void ensureIndexes() {
+    }
+
+    @Override
+    public void ensureCurrencyIndex(CurrencyPair pair) {
+    }
+
+    @Override
+    public <S extends ExchangeRate> S save(S entity) {
+        store.put(entity.getDate(), withId(entity));
+        return entity;
+    }
+
+    @Override
+    public <S extends ExchangeRate> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends ExchangeRate> S insert(S entity) {
+        if (store.putIfAbsent(entity.getDate(), withId(entity)) != null) {
+            throw new DuplicateKeyException("duplicate date: " + entity.getDate());
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends ExchangeRate> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        for (S entity : entities) {
+            inserted.add(insert(entity));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Optional<ExchangeRate> findById(String id) {
+        return store.values().stream().filter(rate -> id.equals(rate.getId())).findFirst();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<ExchangeRate> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public List<ExchangeRate> findAllById(Iterable<String> ids) {
+        List<ExchangeRate> found = new ArrayList<>();
+        for (String id : ids) {
+            findById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        findById(id).ifPresent(this::delete);
+    }
+
+    @Override
+    public void delete(ExchangeRate entity) {
+        store.remove(entity.getDate());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        for (String id : ids) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends ExchangeRate> entities) {
+        for (ExchangeRate entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        store.clear();
+    }
+
+    // 只支援依日期排序，資料本身即以日期排序
+    @Override
+    public List<ExchangeRate> findAll(Sort sort) {
+        List<ExchangeRate> all = findAll();
+        Sort.Order order = sort.getOrderFor("date");
+        if (order != null && order.isDescending()) {
+            Collections.reverse(all);
+        }
+        return all;
+    }
+
+    @Override
+    public Page<ExchangeRate> findAll(Pageable pageable) {
+        List<ExchangeRate> all = findAll(pageable.getSort());
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public <S extends ExchangeRate> Optional<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    @Override
+    public <S extends ExchangeRate> List<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    @Override
+    public <S extends ExchangeRate> List<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    @Override
+    public <S extends ExchangeRate> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    @Override
+    public <S extends ExchangeRate> long count(Example<S> example) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    @Override
+    public <S extends ExchangeRate> boolean exists(Example<S> example) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    @Override
+    public <S extends ExchangeRate, R> R findBy(Example<S> example,
+                                                Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new UnsupportedOperationException("Query by Example is not supported");
+    }
+
+    private static ExchangeRate copy(ExchangeRate rate) {
+        ExchangeRate copy = new ExchangeRate();
+        copy.setId(rate.getId());
+        copy.setDate(rate.getDate());
+        for (CurrencyPair pair : CurrencyPair.values()) {
+            if (rate.getRate(pair) != null) {
+                copy.setRate(pair, rate.getRate(pair));
+            }
+        }
+        copy.setRevision(rate.getRevision());
+        return copy;
+    }
+
+    private static <S extends ExchangeRate> S withId(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(entity.getDate().toString());
+        }
+        return entity;
+    }
+}
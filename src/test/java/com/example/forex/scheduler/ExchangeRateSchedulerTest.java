@@ -1,13 +1,21 @@
 package com.example.forex.scheduler;
 
+import com.example.forex.cluster.ClusterCoordinator;
+import com.example.forex.cluster.ClusterStore;
+import com.example.forex.cluster.InMemoryClusterStore;
 import com.example.forex.service.ExchangeRateService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.*;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 
-@SpringBootTest
+import java.time.Duration;
+
+@SpringBootTest(properties = {"forex.store.enabled=false", "forex.journal.enabled=false"})
 public class ExchangeRateSchedulerTest {
 
     @Autowired
@@ -17,6 +25,22 @@ public class ExchangeRateSchedulerTest {
     @MockBean
     private ExchangeRateService exchangeRateService;
 
+    @Autowired
+    private ClusterStore clusterStore;
+
+    @Autowired
+    private ClusterCoordinator clusterCoordinator;
+
+    // 以記憶體的租約取代 MongoDB，單一節點必定取得租約
+    @TestConfiguration
+    static class ClusterStoreConfig {
+        @Bean
+        @Primary
+        ClusterStore inMemoryClusterStore() {
+            return new InMemoryClusterStore();
+        }
+    }
+
     @Test
     public void testFetchExchangeRatesScheduled() {
         // 執行批次方法
@@ -25,4 +49,16 @@ public class ExchangeRateSchedulerTest {
         // 驗證 ExchangeRateService.fetchAndSaveExchangeRates() 是否被呼叫一次
         Mockito.verify(exchangeRateService, Mockito.times(1)).fetchAndSaveExchangeRates();
     }
+
+    @Test
+    public void testSecondNodeSkipsWhileLeaseHeld() {
+        // 另一個節點已取得今日的租約（先清掉本節點在其他測試取得的租約）
+        clusterStore.releaseLease("daily-fetch", clusterCoordinator.getNodeId());
+        clusterStore.tryAcquireLease("daily-fetch", "other-node", Duration.ofMinutes(10));
+
+        scheduler.fetchExchangeRatesScheduled();
+
+        Mockito.verify(exchangeRateService, Mockito.never()).fetchAndSaveExchangeRates();
+        clusterStore.releaseLease("daily-fetch", "other-node");
+    }
 }
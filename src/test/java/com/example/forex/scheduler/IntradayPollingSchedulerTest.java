@@ -0,0 +1,83 @@
+package com.example.forex.scheduler;
+
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.scheduler.IntradayPollingScheduler.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntradayPollingSchedulerTest {
+
+    // 2025/03/24 為星期一
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 24, 0, 0);
+
+    private final IntradayPollingScheduler scheduler = new IntradayPollingScheduler(null, null, null, true,
+            LocalTime.of(16, 0), LocalTime.of(20, 0), Duration.ofMinutes(2), Duration.ofMinutes(15));
+
+    /**
+     * 測試輪詢時間：時段前等到時段開始，時段內固定間隔，取得新資料後停到下一個平日。
+     */
+    @Test
+    public void testNextRun_WindowAndBackOffAfterPublication() {
+        assertEquals(MONDAY.withHour(16), scheduler.nextRun(MONDAY.withHour(9), null));
+        assertEquals(MONDAY.withHour(16).withMinute(2), scheduler.nextRun(MONDAY.withHour(16), Outcome.UNCHANGED));
+        // 時段結束前最後一次
+        assertEquals(MONDAY.plusDays(1).withHour(16),
+                scheduler.nextRun(MONDAY.withHour(19).withMinute(59), Outcome.UNCHANGED));
+
+        // 當日已發布：同一天再觸發也直接排到隔天
+        assertEquals(MONDAY.plusDays(1).withHour(16), scheduler.nextRun(MONDAY.withHour(17), Outcome.PUBLISHED));
+        assertEquals(MONDAY.plusDays(1).withHour(16), scheduler.nextRun(MONDAY.withHour(17).withMinute(5), null));
+
+        // 星期五發布後跳過週末
+        LocalDateTime friday = MONDAY.plusDays(4).withHour(18);
+        assertEquals(MONDAY.plusDays(7).withHour(16), scheduler.nextRun(friday, Outcome.PUBLISHED));
+    }
+
+    /**
+     * 測試失敗退避：間隔逐次加倍，最長 15 分鐘，成功後恢復原本間隔。
+     */
+    @Test
+    public void testNextRun_FailureBackoff() {
+        LocalDateTime now = MONDAY.withHour(17);
+        assertEquals(now.plusMinutes(4), scheduler.nextRun(now, Outcome.FAILED));
+        assertEquals(now.plusMinutes(8), scheduler.nextRun(now, Outcome.FAILED));
+        assertEquals(now.plusMinutes(15), scheduler.nextRun(now, Outcome.FAILED));
+        assertEquals(now.plusMinutes(15), scheduler.nextRun(now, Outcome.FAILED));
+        assertEquals(now.plusMinutes(2), scheduler.nextRun(now, Outcome.UNCHANGED));
+    }
+
+    /**
+     * 測試發布判斷：只寫入較早日期（更正、補入）不算當日已發布，寫入當日日期後才算。
+     */
+    @Test
+    public void testIsPublished_RequiresExpectedDate() {
+        LocalDate monday = MONDAY.toLocalDate();
+        assertFalse(scheduler.isPublished(monday));
+
+        scheduler.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                new ExchangeRate(monday.minusDays(3), new BigDecimal("30.5")),
+                new ExchangeRate(monday.minusDays(4), new BigDecimal("30.4")))));
+        assertFalse(scheduler.isPublished(monday));
+        assertTrue(scheduler.isPublished(monday.minusDays(3)));
+
+        scheduler.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                new ExchangeRate(monday, new BigDecimal("30.6"))), true));
+        assertTrue(scheduler.isPublished(monday));
+
+        // 之後再更正較早日期不影響
+        scheduler.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(
+                new ExchangeRate(monday.minusDays(7), new BigDecimal("30.1")))));
+        assertTrue(scheduler.isPublished(monday));
+    }
+}
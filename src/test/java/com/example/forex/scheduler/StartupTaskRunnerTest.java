@@ -0,0 +1,91 @@
+package com.example.forex.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StartupTaskRunnerTest {
+
+    /**
+     * 測試失敗重試：每個工作失敗後依間隔重試直到成功，之後不再執行。
+     */
+    @Test
+    public void testFailedTaskRetriedUntilSuccess() {
+        CountingTask flaky = new CountingTask(2);
+        CountingTask healthy = new CountingTask(0);
+        StartupTaskRunner runner = new StartupTaskRunner(List.of(flaky, healthy), new SyncTaskExecutor(),
+                Duration.ofMillis(1));
+
+        runner.start();
+
+        assertEquals(3, flaky.attempts.get());
+        assertEquals(1, healthy.attempts.get());
+    }
+
+    /**
+     * 測試應用程式關閉：等待重試中的工作立即結束，不等到下一次重試。
+     */
+    @Test
+    public void testStopEndsRetrying() throws Exception {
+        CountDownLatch failedOnce = new CountDownLatch(1);
+        StartupTask failing = new StartupTask() {
+            @Override
+            public String getStartupTaskName() {
+                return "測試工作";
+            }
+
+            @Override
+            public void runStartupTask() {
+                failedOnce.countDown();
+                throw new IllegalStateException("MongoDB 尚未就緒");
+            }
+        };
+        StartupTaskRunner runner = new StartupTaskRunner(List.of(failing), new SyncTaskExecutor(), Duration.ofHours(1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> done = executor.submit(() -> runner.runUntilDone(failing));
+            assertTrue(failedOnce.await(5, TimeUnit.SECONDS));
+
+            runner.stop();
+
+            assertFalse(done.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // 前 failures 次拋出例外，之後成功
+    private static class CountingTask implements StartupTask {
+
+        private final int failures;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        CountingTask(int failures) {
+            this.failures = failures;
+        }
+
+        @Override
+        public String getStartupTaskName() {
+            return "測試工作";
+        }
+
+        @Override
+        public void runStartupTask() {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IllegalStateException("MongoDB 尚未就緒");
+            }
+        }
+    }
+}
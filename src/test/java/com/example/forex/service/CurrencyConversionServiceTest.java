@@ -0,0 +1,236 @@
+package com.example.forex.service;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.dto.ConversionRequest;
+import com.example.forex.dto.ConversionResponse;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CurrencyConversionServiceTest {
+
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    // 最近一個已過的星期五，隔天起為週末
+    private final LocalDate friday = LocalDate.now().minusDays(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.FRIDAY));
+    private InMemoryExchangeRateRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new InMemoryExchangeRateRepository();
+        ExchangeRate rate = new ExchangeRate(friday, new BigDecimal("32.1"));
+        rate.setRate(CurrencyPair.RMB, new BigDecimal("4.4123"));
+        rate.setRate(CurrencyPair.EUR_USD, new BigDecimal("1.0812"));
+        rate.setRate(CurrencyPair.USD_JPY, new BigDecimal("149.85"));
+        repository.bulkUpsert(List.of(rate, new ExchangeRate(friday.minusDays(1), new BigDecimal("31.9"))));
+    }
+
+    /**
+     * 測試交叉匯率與非交易日：
+     * 週末的日期使用星期五的匯率，日圓對歐元經美元推算，台幣與人民幣直接使用對台幣的報價；
+     * 不論由快取或資料庫讀取，結果都相同。
+     */
+    @Test
+    public void testConvert_CrossRatesWithWeekendFallback() {
+        for (boolean warm : new boolean[]{true, false}) {
+            ExchangeRateCache cache = new ExchangeRateCache(repository);
+            if (warm) {
+                cache.warmUp();
+            }
+            CurrencyConversionService service = new CurrencyConversionService(repository, cache);
+
+            ConversionRequest request = request(
+                    new ConversionRequest.Conversion("10000", "jpy", "eur", format(friday.plusDays(2))),
+                    new ConversionRequest.Conversion("100", "rmb", "twd", format(friday.plusDays(1))),
+                    new ConversionRequest.Conversion("-1.5", "USD", "NTD", format(friday)),
+                    new ConversionRequest.Conversion("1", "usd", "ntd", format(friday.minusDays(1))));
+            ConversionResponse response = service.convert(request);
+            assertEquals("0000", response.getError().getCode());
+
+            ConversionResponse.Result jpyEur = response.getResults().get(0);
+            assertEquals("0000", jpyEur.getCode());
+            assertEquals(friday.format(DateTimeFormatter.BASIC_ISO_DATE), jpyEur.getRateDate());
+            BigDecimal rate = BigDecimal.ONE.divide(new BigDecimal("149.85").multiply(new BigDecimal("1.0812")),
+                    MathContext.DECIMAL128).setScale(9, RoundingMode.HALF_UP);
+            assertEquals(rate.toPlainString(), jpyEur.getRate());
+            assertEquals(new BigDecimal("10000").multiply(rate).setScale(4, RoundingMode.HALF_UP).toPlainString(),
+                    jpyEur.getAmount());
+
+            assertEquals("441.2300", response.getResults().get(1).getAmount());
+            assertEquals("4.412300000", response.getResults().get(1).getRate());
+            assertEquals("-48.1500", response.getResults().get(2).getAmount());
+            // 前一天只有美元報價
+            assertEquals("31.9000", response.getResults().get(3).getAmount());
+        }
+    }
+
+    /**
+     * 測試單筆錯誤：
+     * 日期、幣別、金額錯誤或查無匯率只影響該筆，其餘照常換算；筆數超過上限時整個請求失敗。
+     * 回傳的錯誤結果不在各筆與各請求之間共用。
+     */
+    @Test
+    public void testConvert_PerItemErrors() {
+        CurrencyConversionService service = new CurrencyConversionService(repository, new ExchangeRateCache(repository));
+        String date = format(friday);
+        ConversionResponse response = service.convert(request(
+                new ConversionRequest.Conversion("1", "usd", "ntd", "2025-03-21"),
+                new ConversionRequest.Conversion("1", "usd", "chf", date),
+                new ConversionRequest.Conversion("1,000", "usd", "ntd", date),
+                new ConversionRequest.Conversion("1", "gbp", "ntd", date),
+                new ConversionRequest.Conversion("1", "usd", "ntd", format(friday.minusYears(3))),
+                new ConversionRequest.Conversion("2", "ntd", "usd", date)));
+        assertEquals("0000", response.getError().getCode());
+        List<String> codes = new ArrayList<>();
+        response.getResults().forEach(result -> codes.add(result.getCode()));
+        assertEquals(List.of("E003", "E004", "E011", "E012", "E012", "0000"), codes);
+        assertNull(response.getResults().get(3).getAmount());
+        assertEquals("0.0623", response.getResults().get(5).getAmount());
+        // 每筆錯誤是各自的物件，修改其中一筆不影響其他筆與之後的請求
+        response.getResults().get(3).setCode("XXXX");
+        assertEquals("E012", response.getResults().get(4).getCode());
+        assertEquals("E012", service.convert(request(
+                new ConversionRequest.Conversion("1", "gbp", "ntd", date))).getResults().get(0).getCode());
+
+        List<ConversionRequest.Conversion> tooMany = new ArrayList<>();
+        for (int i = 0; i <= CurrencyConversionService.MAX_CONVERSIONS; i++) {
+            tooMany.add(new ConversionRequest.Conversion("1", "usd", "ntd", date));
+        }
+        ConversionRequest request = new ConversionRequest();
+        request.setConversions(tooMany);
+        assertEquals("E013", service.convert(request).getError().getCode());
+    }
+
+    /**
+     * 測試交叉匯率表快取：
+     * 同一日期只讀取一次資料；寫入新資料後清除，改用新的最近交易日。
+     */
+    @Test
+    public void testConvert_MatrixCachedUntilNewRatesSaved() {
+        CurrencyConversionService service = new CurrencyConversionService(repository, new ExchangeRateCache(repository));
+        LocalDate monday = friday.plusDays(3);
+        ConversionRequest request = request(new ConversionRequest.Conversion("1", "usd", "ntd", format(monday)));
+        assertEquals("32.1000", service.convert(request).getResults().get(0).getAmount());
+        long queries = repository.getRangeQueryCount();
+        service.convert(request);
+        assertEquals(queries, repository.getRangeQueryCount());
+
+        ExchangeRate mondayRate = new ExchangeRate(monday, new BigDecimal("32.5"));
+        repository.bulkUpsert(List.of(mondayRate));
+        service.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(mondayRate)));
+        ConversionResponse.Result result = service.convert(request).getResults().get(0);
+        assertEquals("32.5000", result.getAmount());
+        assertEquals(monday.format(DateTimeFormatter.BASIC_ISO_DATE), result.getRateDate());
+    }
+
+    /**
+     * 測試讀取期間寫入新資料：
+     * 新資料寫入前讀到的交叉匯率表只用於該次換算，不留在快取中，下一次換算使用新資料。
+     */
+    @Test
+    public void testConvert_MatrixLoadedBeforeSaveIsNotCached() {
+        LocalDate monday = friday.plusDays(3);
+        CurrencyConversionService[] service = new CurrencyConversionService[1];
+        InMemoryExchangeRateRepository racing = new InMemoryExchangeRateRepository() {
+            @Override
+            public List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+                List<ExchangeRate> rates = repository.findRates(startDate, endDate, pairs);
+                if (findByDate(monday).isEmpty()) {
+                    // 查詢回傳後、放入快取前，星期一的匯率寫入
+                    ExchangeRate mondayRate = new ExchangeRate(monday, new BigDecimal("32.5"));
+                    bulkUpsert(List.of(mondayRate));
+                    repository.bulkUpsert(List.of(mondayRate));
+                    service[0].onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(mondayRate)));
+                }
+                return rates;
+            }
+        };
+        service[0] = new CurrencyConversionService(racing, new ExchangeRateCache(racing));
+        int day = (int) monday.toEpochDay();
+        assertEquals(friday.toEpochDay(), service[0].matrixFor(day).epochDay());
+        assertEquals(monday.toEpochDay(), service[0].matrixFor(day).epochDay());
+    }
+
+    /**
+     * 測試一個請求中的多個日期：相近且快取中沒有的日期以一次區間查詢讀取。
+     */
+    @Test
+    public void testConvert_LoadsRequestDateSpanOnce() {
+        CurrencyConversionService service = new CurrencyConversionService(repository, new ExchangeRateCache(repository));
+        List<ConversionRequest.Conversion> conversions = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            conversions.add(new ConversionRequest.Conversion("1", "usd", "ntd", format(friday.minusDays(i))));
+        }
+        conversions.add(new ConversionRequest.Conversion("1", "usd", "ntd", format(friday.plusDays(2))));
+        ConversionRequest request = new ConversionRequest();
+        request.setConversions(conversions);
+        long queries = repository.getRangeQueryCount();
+
+        List<ConversionResponse.Result> results = service.convert(request).getResults();
+
+        assertEquals(queries + 1, repository.getRangeQueryCount());
+        assertEquals("32.1000", results.get(0).getAmount());
+        assertEquals("31.9000", results.get(1).getAmount());
+        // 更早的日期之前沒有資料；週末使用星期五的匯率
+        assertEquals("E012", results.get(2).getCode());
+        assertEquals("E012", results.get(59).getCode());
+        assertEquals("32.1000", results.get(60).getAmount());
+    }
+
+    /**
+     * 測試相隔多年的日期：各自以只涵蓋該日期（往前 maxFallbackDays 天）的區間查詢讀取，不會讀入中間的歷史資料。
+     */
+    @Test
+    public void testConvert_DistantDatesLoadedSeparately() {
+        LocalDate earlier = friday.minusYears(10);
+        repository.bulkUpsert(List.of(new ExchangeRate(earlier, new BigDecimal("30.5"))));
+        List<LocalDate[]> ranges = new ArrayList<>();
+        InMemoryExchangeRateRepository recording = new InMemoryExchangeRateRepository() {
+            @Override
+            public List<ExchangeRate> findRates(LocalDate startDate, LocalDate endDate, Collection<CurrencyPair> pairs) {
+                ranges.add(new LocalDate[]{startDate, endDate});
+                return repository.findRates(startDate, endDate, pairs);
+            }
+        };
+        CurrencyConversionService service = new CurrencyConversionService(recording, new ExchangeRateCache(recording));
+
+        List<ConversionResponse.Result> results = service.convert(request(
+                new ConversionRequest.Conversion("1", "usd", "ntd", format(earlier)),
+                new ConversionRequest.Conversion("1", "usd", "ntd", format(friday)))).getResults();
+
+        assertEquals("30.5000", results.get(0).getAmount());
+        assertEquals("32.1000", results.get(1).getAmount());
+        assertEquals(2, ranges.size());
+        assertEquals(earlier.minusDays(10), ranges.get(0)[0]);
+        assertEquals(earlier, ranges.get(0)[1]);
+        assertEquals(friday.minusDays(10), ranges.get(1)[0]);
+        assertEquals(friday, ranges.get(1)[1]);
+    }
+
+    private static ConversionRequest request(ConversionRequest.Conversion... conversions) {
+        ConversionRequest request = new ConversionRequest();
+        request.setConversions(List.of(conversions));
+        return request;
+    }
+
+    private static String format(LocalDate date) {
+        return date.format(REQUEST_FORMATTER);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.forex.service;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ExchangeRateArchiveServiceTest {
+
+    /**
+     * 測試封存：
+     * 熱資料視窗之前的每日資料依月份併入封存文件，視窗內的留在每日文件；
+     * 跨兩層的區間查詢結果與封存前相同，已封存的日期仍視為已存在；重複執行不再搬移。
+     */
+    @Test
+    public void testArchiveMovesOldMonthsAndQueriesSpanTiers() {
+        InMemoryExchangeRateRepository repository = new InMemoryExchangeRateRepository();
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusYears(3);
+        List<ExchangeRate> rates = new ArrayList<>();
+        for (LocalDate date = first; date.isBefore(today); date = date.plusDays(1)) {
+            ExchangeRate rate = new ExchangeRate(date, BigDecimal.valueOf(30_0000 + date.getDayOfYear(), 4));
+            rate.setRate(CurrencyPair.USD_JPY, BigDecimal.valueOf(140 + date.getMonthValue()));
+            rates.add(rate);
+        }
+        repository.bulkUpsert(rates);
+        List<CurrencyPair> pairs = Arrays.asList(CurrencyPair.values());
+        List<ExchangeRate> before = repository.findRates(first, today, pairs);
+
+        ExchangeRateArchiveService service = new ExchangeRateArchiveService(repository, 400);
+        int archived = service.archive();
+        LocalDate cutoff = today.minusDays(400).withDayOfMonth(1);
+        assertEquals(ChronoUnit.MONTHS.between(YearMonth.from(first), YearMonth.from(cutoff)), repository.getBucketCount());
+        assertEquals(before.size() - archived, repository.getDailyCount());
+        assertEquals(cutoff, repository.findFirstDailyDate().orElseThrow());
+        assertEquals(0, service.archive());
+
+        List<ExchangeRate> after = repository.findRates(first, today, pairs);
+        assertEquals(before.size(), after.size());
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.get(i).getDate(), after.get(i).getDate());
+            assertEquals(before.get(i).getRates(), after.get(i).getRates());
+        }
+        assertEquals(Set.of(first, cutoff), repository.findExistingDates(List.of(first, cutoff, today)));
+    }
+
+    /**
+     * 測試熱資料視窗設定：快取與叢集同步只讀每日文件，視窗須涵蓋 1 年。
+     */
+    @Test
+    public void testHotWindowMustCoverOneYear() {
+        InMemoryExchangeRateRepository repository = new InMemoryExchangeRateRepository();
+        assertThrows(IllegalArgumentException.class, () -> new ExchangeRateArchiveService(repository, 200));
+        assertEquals(0, new ExchangeRateArchiveService(repository, 366).archive());
+    }
+}
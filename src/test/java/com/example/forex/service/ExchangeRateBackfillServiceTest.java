@@ -0,0 +1,154 @@
+package com.example.forex.service;
+
+import com.example.forex.backfill.BackfillCheckpoint;
+import com.example.forex.backfill.BackfillSource;
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.dto.BackfillRequest;
+import com.example.forex.dto.BackfillResponse;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExchangeRateBackfillServiceTest {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryExchangeRateRepository repository;
+    private ExchangeRateBackfillService backfillService;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new InMemoryExchangeRateRepository();
+        ExchangeRateService exchangeRateService = new ExchangeRateService(repository,
+                new ExchangeRateCache(repository), event -> { }, Mockito.mock(TaifexClient.class));
+        backfillService = new ExchangeRateBackfillService(exchangeRateService, Mockito.mock(TaifexClient.class),
+                tempDir.resolve("archive"), tempDir.resolve("checkpoint"), 4, 30);
+    }
+
+    /**
+     * 測試從本機歷史檔回補：
+     * 年度 CSV 與 JSON 檔各自只讀取重疊的區段，全部寫入後刪除進度檔。
+     */
+    @Test
+    public void testBackfillFromArchive() throws IOException {
+        Path archive = Files.createDirectories(tempDir.resolve("archive"));
+        StringBuilder csv = new StringBuilder("Date,USD/NTD,RMB/NTD\n");
+        for (LocalDate date = LocalDate.of(2015, 1, 1); date.getYear() == 2015; date = date.plusDays(1)) {
+            csv.append(date.format(DATE_FORMATTER)).append(",30.1234,4.8765\n");
+        }
+        csv.append("20151231x,30.1,4.8\n");
+        Files.writeString(archive.resolve("2015.csv"), csv);
+        StringBuilder json = new StringBuilder("[");
+        for (LocalDate date = LocalDate.of(2016, 1, 1); date.getYear() == 2016; date = date.plusDays(1)) {
+            json.append(json.length() > 1 ? "," : "")
+                    .append("{\"Date\":\"").append(date.format(DATE_FORMATTER)).append("\",\"USD/NTD\":\"31.5\"}");
+        }
+        Files.writeString(archive.resolve("2016.json"), json.append(']'));
+
+        BackfillRequest request = new BackfillRequest();
+        request.setStartDate("2015/01/01");
+        request.setEndDate("2016/12/31");
+        BackfillResponse response = backfillService.backfill(request);
+
+        assertEquals("0000", response.getError().getCode());
+        assertEquals(25, response.getChunks());
+        assertEquals(0, response.getFailedChunks());
+        assertEquals(365 + 366, response.getInserted());
+        assertEquals(1, response.getFailed());
+        assertEquals(365 + 366, repository.count());
+        assertEquals(new BigDecimal("4.8765"),
+                repository.findByDate(LocalDate.of(2015, 6, 1)).orElseThrow().getRate(CurrencyPair.RMB));
+        try (var files = Files.list(tempDir.resolve("checkpoint"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * 測試續傳：
+     * 失敗的區段不寫入進度檔，重新執行時只處理未完成的區段。
+     */
+    @Test
+    public void testResumeFromCheckpointAfterFailure() {
+        LocalDate from = LocalDate.of(2020, 1, 1);
+        LocalDate to = LocalDate.of(2020, 4, 29); // 120 天，切成 4 個區段
+        LocalDate brokenChunk = from.plusDays(60);
+        AtomicInteger reads = new AtomicInteger();
+        BackfillSource flaky = (chunkFrom, chunkTo, consumer) -> {
+            reads.incrementAndGet();
+            if (chunkFrom.equals(brokenChunk)) {
+                throw new IllegalStateException("archive unavailable");
+            }
+            return emit(chunkFrom, chunkTo, consumer);
+        };
+        Path checkpointFile = tempDir.resolve("checkpoint").resolve("job.checkpoint");
+
+        BackfillResponse first = backfillService.run(flaky, new BackfillCheckpoint(checkpointFile), from, to, 30);
+        assertEquals("E009", first.getError().getCode());
+        assertEquals(4, first.getChunks());
+        assertEquals(1, first.getFailedChunks());
+        assertEquals(90, first.getInserted());
+        assertTrue(Files.exists(checkpointFile));
+
+        reads.set(0);
+        BackfillSource healthy = (chunkFrom, chunkTo, consumer) -> {
+            reads.incrementAndGet();
+            return emit(chunkFrom, chunkTo, consumer);
+        };
+        BackfillResponse second = backfillService.run(healthy, new BackfillCheckpoint(checkpointFile), from, to, 30);
+        assertEquals("0000", second.getError().getCode());
+        assertEquals(3, second.getResumedChunks());
+        assertEquals(1, reads.get());
+        assertEquals(30, second.getInserted());
+        assertEquals(120, repository.count());
+        assertFalse(Files.exists(checkpointFile));
+    }
+
+    /**
+     * 測試參數檢查：不支援的來源與超出範圍的區段天數。
+     */
+    @Test
+    public void testValidation() {
+        BackfillRequest request = new BackfillRequest();
+        request.setStartDate("2020/01/01");
+        request.setEndDate("2020/12/31");
+        request.setSource("ftp");
+        assertEquals("E006", backfillService.backfill(request).getError().getCode());
+
+        request.setSource("archive");
+        request.setChunkDays(0);
+        assertEquals("E007", backfillService.backfill(request).getError().getCode());
+
+        request.setChunkDays(null);
+        // 歷史資料目錄不存在
+        assertEquals("E006", backfillService.backfill(request).getError().getCode());
+        assertEquals(0, repository.count());
+    }
+
+    private static long emit(LocalDate from, LocalDate to, Consumer<ExchangeRate> consumer) {
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            consumer.accept(new ExchangeRate(date, new BigDecimal("30.5")));
+        }
+        return 0;
+    }
+}
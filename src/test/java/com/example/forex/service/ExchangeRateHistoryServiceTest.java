@@ -0,0 +1,101 @@
+package com.example.forex.service;
+
+import com.example.forex.dto.ExchangeRateHistoryRequest;
+import com.example.forex.dto.ExchangeRateHistoryResponse;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ExchangeRateHistoryServiceTest {
+
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    /**
+     * 測試十年月走勢：
+     * 彙總由歷史資料建立後，月間隔只讀取彙總（120 筆），不讀每日資料；
+     * 日間隔跨封存文件與每日文件回傳所有交易日。
+     */
+    @Test
+    public void testTenYearMonthlyChartReadsRollups() {
+        InMemoryExchangeRateRepository repository = new InMemoryExchangeRateRepository();
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        LocalDate last = LocalDate.of(2024, 12, 31);
+        List<ExchangeRate> rates = new ArrayList<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            if (date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                rates.add(new ExchangeRate(date, BigDecimal.valueOf(30_0000 + date.getDayOfMonth() * 100L, 4)));
+            }
+        }
+        repository.bulkUpsert(rates);
+        new ExchangeRateArchiveService(repository, 400).archive();
+        ExchangeRateHistoryService service = new ExchangeRateHistoryService(repository);
+        service.rebuildRollups();
+
+        long rangeQueries = repository.getRangeQueryCount();
+        ExchangeRateHistoryResponse monthly = service.queryHistory(request(first, last, "month"));
+        assertEquals("0000", monthly.getError().getCode());
+        assertEquals(rangeQueries, repository.getRangeQueryCount());
+        assertEquals(120, monthly.getPoints().size());
+        ExchangeRateHistoryResponse.Point january = monthly.getPoints().get(0);
+        assertEquals("20150101", january.getDate());
+        assertEquals("30.01", january.getOpen());  // 1/1（四）
+        assertEquals("30.30", january.getHigh());  // 1/30（五）
+        assertEquals("30.01", january.getLow());
+        assertEquals("30.30", january.getClose());
+
+        ExchangeRateHistoryResponse daily = service.queryHistory(request(first, last, null));
+        assertEquals(rates.size(), daily.getPoints().size());
+        assertNull(daily.getPoints().get(0).getOpen());
+        assertEquals("30.01", daily.getPoints().get(0).getClose());
+        assertEquals("E014", service.queryHistory(request(first, last, "year")).getError().getCode());
+    }
+
+    /**
+     * 測試匯入時更新彙總：新資料寫入後所屬的週與月重新計算，週以星期一為起點。
+     */
+    @Test
+    public void testRollupsRefreshedOnSave() {
+        InMemoryExchangeRateRepository repository = new InMemoryExchangeRateRepository();
+        ExchangeRateHistoryService service = new ExchangeRateHistoryService(repository);
+        LocalDate monday = LocalDate.of(2025, 3, 3);
+        List<ExchangeRate> first = List.of(new ExchangeRate(monday, new BigDecimal("31.5")),
+                new ExchangeRate(monday.plusDays(1), new BigDecimal("31.1")));
+        repository.bulkUpsert(first);
+        service.onExchangeRatesSaved(new ExchangeRatesSavedEvent(first));
+        List<ExchangeRate> second = List.of(new ExchangeRate(monday.plusDays(2), new BigDecimal("31.8")));
+        repository.bulkUpsert(second);
+        service.onExchangeRatesSaved(new ExchangeRatesSavedEvent(second));
+        // 其他節點寫入的資料由該節點更新彙總
+        service.onExchangeRatesSaved(new ExchangeRatesSavedEvent(List.of(new ExchangeRate(monday.plusDays(3),
+                new BigDecimal("99"))), true));
+
+        ExchangeRateHistoryResponse weekly = service.queryHistory(request(monday.plusDays(4), monday.plusDays(4), "week"));
+        assertEquals(1, weekly.getPoints().size());
+        ExchangeRateHistoryResponse.Point week = weekly.getPoints().get(0);
+        assertEquals("20250303", week.getDate());
+        assertEquals("31.50", week.getOpen());
+        assertEquals("31.80", week.getHigh());
+        assertEquals("31.10", week.getLow());
+        assertEquals("31.80", week.getClose());
+    }
+
+    private static ExchangeRateHistoryRequest request(LocalDate start, LocalDate end, String interval) {
+        ExchangeRateHistoryRequest request = new ExchangeRateHistoryRequest();
+        request.setStartDate(start.format(REQUEST_FORMATTER));
+        request.setEndDate(end.format(REQUEST_FORMATTER));
+        request.setCurrency("usd");
+        request.setInterval(interval);
+        return request;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.forex.service;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.event.ExchangeRatesSavedEvent;
+import com.example.forex.metrics.ExchangeRateMetrics;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import com.example.forex.store.IngestionJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class ExchangeRateIngestionConcurrencyTest {
+
+    // 超過一個批次（500 筆），解析途中會交出多個批次
+    private static final int DAYS = 1200;
+
+    @TempDir
+    Path tempDir;
+
+    private final LocalDate first = LocalDate.now().minusDays(DAYS);
+    private InMemoryExchangeRateRepository repository;
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new InMemoryExchangeRateRepository();
+        pool = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 測試 single-flight：
+     * 抓取進行中時排程、手動觸發與盤中輪詢都不再呼叫 API，等待並共用同一次的結果；結束後的下一次呼叫重新抓取。
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testConcurrentFetchesShareOneRun() throws Exception {
+        TaifexClient taifexClient = Mockito.mock(TaifexClient.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(taifexClient.fetch(any())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.ofNullable(((Function<InputStream, Object>) invocation.getArgument(0))
+                    .apply(stream(payload(0, 3, "32.9"))));
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExchangeRateService service = service(taifexClient, registry);
+
+        List<Future<Optional<IngestionResult>>> results = new ArrayList<>();
+        results.add(pool.submit(service::pollExchangeRates));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 6; i++) {
+            boolean poll = i % 2 == 0;
+            results.add(pool.submit(() -> {
+                if (poll) {
+                    return service.pollExchangeRates();
+                }
+                service.fetchAndSaveExchangeRates();
+                return Optional.empty();
+            }));
+        }
+        // 等到其他呼叫都在等待進行中的抓取
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("forex.fetch.coalesced").counter().count() < 6 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        IngestionResult shared = results.get(0).get(5, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(3, shared.getInserted());
+        for (int i = 1; i < results.size(); i += 2) {
+            assertSame(shared, results.get(i).get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        for (Future<Optional<IngestionResult>> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        Mockito.verify(taifexClient, Mockito.times(1)).fetch(any());
+        assertEquals(6.0, registry.get("forex.fetch.coalesced").counter().count());
+        assertEquals(3, repository.count());
+
+        // 進行中的抓取結束後不再共用
+        assertTrue(service.pollExchangeRates().isEmpty());
+        Mockito.verify(taifexClient, Mockito.times(2)).fetch(any());
+    }
+
+    /**
+     * 測試同時匯入相同內容：
+     * 多個節點（各自的服務與已知日期）同時匯入，每個日期只寫入一次，新增筆數合計等於日期數。
+     */
+    @Test
+    public void testConcurrentIngestionsInsertEachDateOnce() throws Exception {
+        String payload = payload(0, DAYS, "30.5");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IngestionResult>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ExchangeRateService service = service(Mockito.mock(TaifexClient.class), new SimpleMeterRegistry());
+            for (int j = 0; j < 2; j++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return service.ingestExchangeRates(payload);
+                }));
+            }
+        }
+        start.countDown();
+        long inserted = 0;
+        for (Future<IngestionResult> result : results) {
+            IngestionResult ingested = result.get(30, TimeUnit.SECONDS);
+            assertEquals(DAYS, ingested.getInserted() + ingested.getSkipped());
+            assertEquals(0, ingested.getUpdated());
+            inserted += ingested.getInserted();
+        }
+        assertEquals(DAYS, inserted);
+        assertEquals(DAYS, repository.count());
+        repository.findAll().forEach(rate -> assertEquals(1, rate.getRevision()));
+    }
+
+    /**
+     * 測試更正：
+     * 內容不同的既有日期覆寫並遞增版本，沒有報價的幣別保留原值；快取收到通知後回傳更正後的匯率。
+     * 兩個節點同時更正相同日期時以版本號做樂觀鎖，每次成功的更正都反映在版本號上，不會互相覆蓋而遺失。
+     */
+    @Test
+    public void testCorrectionsUpdateRowsWithRevisions() throws Exception {
+        ExchangeRateCache cache = new ExchangeRateCache(repository);
+        ExchangeRateService service = new ExchangeRateService(repository, cache,
+                event -> cache.onExchangeRatesSaved((ExchangeRatesSavedEvent) event), Mockito.mock(TaifexClient.class),
+                new ExchangeRateMetrics(new SimpleMeterRegistry()), null, IngestionJournal.disabled());
+        LocalDate day = first.plusDays(DAYS - 2);
+        service.ingestExchangeRates("[{\"Date\":\"" + format(day) + "\",\"USD/NTD\":\"32.9\",\"RMB/NTD\":\"4.5\"}]");
+        cache.warmUp();
+
+        IngestionResult corrected = service.ingestExchangeRates(payload(DAYS - 3, DAYS - 1, "32.95"));
+        assertEquals(1, corrected.getInserted());
+        assertEquals(1, corrected.getUpdated());
+        ExchangeRate stored = repository.findByDate(day).orElseThrow();
+        assertEquals(2, stored.getRevision());
+        assertEquals(new BigDecimal("32.95"), stored.getRate(CurrencyPair.USD));
+        assertEquals(new BigDecimal("4.5"), stored.getRate(CurrencyPair.RMB));
+        ExchangeRateCache.Snapshot snapshot = cache.lookup(day, day);
+        assertEquals(329500, snapshot.scaledRate(CurrencyPair.USD, snapshot.lowerBound((int) day.toEpochDay())));
+
+        // 數值相同（小數位數不同）不算更正
+        IngestionResult same = service.ingestExchangeRates(payload(DAYS - 3, DAYS - 1, "32.950"));
+        assertEquals(2, same.getSkipped());
+        assertEquals(0, same.getUpdated());
+
+        service.ingestExchangeRates(payload(0, DAYS, "30"));
+        Map<LocalDate, Long> before = new HashMap<>();
+        repository.findAll().forEach(rate -> before.put(rate.getDate(), rate.getRevision()));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IngestionResult>> results = new ArrayList<>();
+        String[] values = {"31", "32"};
+        for (String value : values) {
+            ExchangeRateService node = service(Mockito.mock(TaifexClient.class), new SimpleMeterRegistry());
+            results.add(pool.submit(() -> {
+                start.await();
+                return node.ingestExchangeRates(payload(0, DAYS, value));
+            }));
+        }
+        start.countDown();
+        long updated = 0;
+        for (Future<IngestionResult> result : results) {
+            updated += result.get(30, TimeUnit.SECONDS).getUpdated();
+        }
+        long revisions = 0;
+        for (ExchangeRate rate : repository.findAll()) {
+            revisions += rate.getRevision() - before.get(rate.getDate());
+            BigDecimal usd = rate.getRate(CurrencyPair.USD);
+            assertTrue(usd.compareTo(new BigDecimal("31")) == 0 || usd.compareTo(new BigDecimal("32")) == 0);
+        }
+        assertTrue(updated >= DAYS);
+        assertEquals(updated, revisions);
+    }
+
+    /**
+     * 測試 JSON 結構錯誤：
+     * 解析到一半失敗時前面已解析的批次也不寫入，資料庫維持原狀；修正後重新匯入正常寫入。
+     */
+    @Test
+    public void testParseErrorLeavesDatabaseUntouched() throws Exception {
+        Path path = tempDir.resolve("ingest.journal");
+        IngestionJournal journal = new IngestionJournal(path);
+        ExchangeRateService service = new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(TaifexClient.class), new ExchangeRateMetrics(new SimpleMeterRegistry()), null, journal);
+        String payload = payload(0, DAYS, "30.5");
+        String truncated = payload.substring(0, payload.length() - 1) + ",{\"Date\":";
+
+        assertThrows(RuntimeException.class, () -> service.ingestExchangeRates(truncated));
+        assertEquals(0, repository.count());
+        assertEquals(0, Files.size(path));
+
+        assertEquals(DAYS, service.ingestExchangeRates(payload).getInserted());
+        assertEquals(0, Files.size(path));
+        journal.destroy();
+    }
+
+    /**
+     * 測試停用匯入日誌：邊解析邊逐批寫入，不保留整次匯入；結構錯誤前已解析的完整批次已寫入資料庫。
+     */
+    @Test
+    public void testWithoutJournalBatchesAreWrittenWhileParsing() {
+        ExchangeRateService service = new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(TaifexClient.class), new ExchangeRateMetrics(new SimpleMeterRegistry()), null,
+                IngestionJournal.disabled());
+        String payload = payload(0, DAYS, "30.5");
+        String truncated = payload.substring(0, payload.length() - 1) + ",{\"Date\":";
+
+        assertThrows(RuntimeException.class, () -> service.ingestExchangeRates(truncated));
+        long written = repository.count();
+        assertEquals(0, written % ExchangeRateStreamParser.DEFAULT_BATCH_SIZE);
+        assertTrue(written > 0);
+
+        assertEquals(DAYS - written, service.ingestExchangeRates(payload).getInserted());
+        assertEquals(DAYS, repository.count());
+    }
+
+    /**
+     * 測試中斷後重播：
+     * 寫入資料庫前程序中斷的匯入在重新啟動後寫入，重複重播不會重複寫入；之後的匯入照常進行。
+     */
+    @Test
+    public void testReplaysJournalAfterCrash() throws Exception {
+        Path path = tempDir.resolve("ingest.journal");
+        IngestionJournal crashed = new IngestionJournal(path);
+        IngestionJournal.Run run = crashed.begin();
+        List<ExchangeRate> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(new ExchangeRate(first.plusDays(i), new BigDecimal("31.25")));
+        }
+        run.append(batch);
+        run.seal();
+        crashed.destroy();
+
+        IngestionJournal journal = new IngestionJournal(path);
+        ExchangeRateService service = new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(TaifexClient.class), new ExchangeRateMetrics(new SimpleMeterRegistry()), null, journal);
+        assertEquals(10, service.replayJournal().getInserted());
+        assertEquals(0, service.replayJournal().getInserted());
+        assertEquals(0, Files.size(path));
+
+        IngestionResult next = service.ingestExchangeRates(payload(5, 15, "31.25"));
+        assertEquals(5, next.getInserted());
+        assertEquals(5, next.getSkipped());
+        assertEquals(15, repository.count());
+        journal.destroy();
+    }
+
+    private ExchangeRateService service(TaifexClient taifexClient, SimpleMeterRegistry registry) {
+        return new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class), taifexClient,
+                new ExchangeRateMetrics(registry));
+    }
+
+    // first 之後第 from ~ to - 1 天的美元匯率
+    private String payload(int from, int to, String usd) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            json.append("{\"Date\":\"").append(format(first.plusDays(i))).append("\",\"USD/NTD\":\"")
+                    .append(usd).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static String format(LocalDate date) {
+        return date.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
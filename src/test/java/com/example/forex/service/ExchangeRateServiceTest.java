@@ -0,0 +1,350 @@
+package com.example.forex.service;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.dto.BatchQueryRequest;
+import com.example.forex.dto.BatchQueryResponse;
+import com.example.forex.dto.ExchangeRateQueryRequest;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.dto.IngestionResult;
+import com.example.forex.metrics.ExchangeRateMetrics;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+
+public class ExchangeRateServiceTest {
+
+    private ExchangeRateRepository repository;
+    private ExchangeRateService service;
+
+    @BeforeEach
+    public void setUp() {
+        repository = Mockito.mock(ExchangeRateRepository.class);
+        service = new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class), Mockito.mock(TaifexClient.class));
+    }
+
+    /**
+     * 測試批次匯入：
+     * 已存在且內容相同的日期略過，新日期以一次 bulk upsert 寫入，格式錯誤的資料計入失敗。
+     */
+    @Test
+    public void testIngestExchangeRates_BulkUpsertNewDatesOnly() {
+        String json = "[" +
+                "{\"Date\":\"20250324\",\"USD/NTD\":\"32.9\"}," +
+                "{\"Date\":\"20250325\",\"USD/NTD\":\"32.95\"}," +
+                "{\"Date\":\"20250326\",\"USD/NTD\":\"N/A\"}," +
+                "{\"Date\":\"20250327\",\"USD/NTD\":\"33.01\"}" +
+                "]";
+
+        LocalDate existing = LocalDate.of(2025, 3, 24);
+        Mockito.when(repository.findStoredRates(any()))
+                .thenReturn(Map.of(existing, new ExchangeRate(existing, new BigDecimal("32.90"))));
+        Mockito.when(repository.bulkUpsert(anyList()))
+                .thenAnswer(invocation -> new IngestionResult(((List<?>) invocation.getArgument(0)).size(), 0, 0));
+
+        IngestionResult result = service.ingestExchangeRates(json);
+
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getSkipped());
+        assertEquals(1, result.getFailed());
+
+        // 驗證只查詢一次、只寫入一次，且只包含新日期
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExchangeRate>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(repository, times(1)).findStoredRates(any());
+        Mockito.verify(repository, times(1)).bulkUpsert(captor.capture());
+        Mockito.verify(repository, Mockito.never()).bulkRevise(anyList());
+        List<ExchangeRate> written = captor.getValue();
+        assertEquals(2, written.size());
+        assertEquals(LocalDate.of(2025, 3, 25), written.get(0).getDate());
+        assertEquals(new BigDecimal("32.95"), written.get(0).getUsd());
+        assertEquals(LocalDate.of(2025, 3, 27), written.get(1).getDate());
+    }
+
+    @Test
+    public void testIngestExchangeRates_NotArray() {
+        assertThrows(RuntimeException.class, () -> service.ingestExchangeRates("{\"Date\":\"20250324\"}"));
+    }
+
+    /**
+     * 測試快取命中：
+     * 快取預熱後，查詢區間在快取範圍內時不呼叫資料庫。
+     */
+    @Test
+    public void testQueryExchangeRates_ServedFromCache() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        ExchangeRateCache cache = new ExchangeRateCache(repository);
+        Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(new ExchangeRate(yesterday, new BigDecimal("32.945"))));
+        cache.warmUp();
+        Mockito.clearInvocations(repository);
+        service = new ExchangeRateService(repository, cache, Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(TaifexClient.class));
+
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(yesterday.minusDays(7).format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setEndDate(yesterday.format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setCurrency("usd");
+        ExchangeRateQueryResponse response = service.queryExchangeRates(request);
+
+        assertEquals("0000", response.getError().getCode());
+        assertEquals(1, response.getCurrency().size());
+        assertEquals(yesterday.format(DateTimeFormatter.BASIC_ISO_DATE), response.getCurrency().get(0).getDate());
+        assertEquals("32.95", response.getCurrency().get(0).getUsd());
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    /**
+     * 測試查詢版本（ETag）：合法的請求由快取內容計算，不合法的請求（幣別、區間、格式）沒有版本，
+     * 不會因 If-None-Match 回 304。
+     */
+    @Test
+    public void testQueryVersion_OnlyForValidRequests() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        ExchangeRateCache cache = new ExchangeRateCache(repository);
+        Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any()))
+                .thenReturn(List.of(new ExchangeRate(yesterday, new BigDecimal("32.945"))));
+        cache.warmUp();
+        service = new ExchangeRateService(repository, cache, Mockito.mock(ApplicationEventPublisher.class),
+                Mockito.mock(TaifexClient.class));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(yesterday.minusDays(7).format(formatter));
+        request.setEndDate(yesterday.format(formatter));
+        request.setCurrency("usd");
+        assertNotNull(service.queryVersion(request));
+
+        request.setCurrency("xyz");
+        assertNull(service.queryVersion(request));
+        request.setCurrency("usd");
+        request.setEndDate(LocalDate.now().format(formatter));
+        assertNull(service.queryVersion(request));
+        request.setEndDate("2025-03-24");
+        assertNull(service.queryVersion(request));
+        request.setStartDate(yesterday.format(formatter));
+        request.setEndDate(yesterday.minusDays(1).format(formatter));
+        assertNull(service.queryVersion(request));
+    }
+
+    /**
+     * 測試多幣別查詢：
+     * 一次範圍查詢取出所有幣別，只回傳請求的幣別；當日沒有所查幣別的資料不回傳。
+     */
+    @Test
+    public void testQueryExchangeRates_MultipleCurrencies() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        ExchangeRate full = new ExchangeRate(yesterday.minusDays(1), new BigDecimal("32.9"));
+        full.setRate(CurrencyPair.RMB, new BigDecimal("4.53124"));
+        full.setRate(CurrencyPair.USD_JPY, new BigDecimal("150.1"));
+        ExchangeRate usdOnly = new ExchangeRate(yesterday, new BigDecimal("33"));
+        Mockito.when(repository.findRates(any(), any(), any()))
+                .thenReturn(List.of(full, usdOnly));
+
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(yesterday.minusDays(7).format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setEndDate(yesterday.format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setCurrency("rmb, USD/JPY");
+        ExchangeRateQueryResponse response = service.queryExchangeRates(request);
+
+        assertEquals("0000", response.getError().getCode());
+        assertEquals(1, response.getCurrency().size());
+        assertEquals("4.5312", response.getCurrency().get(0).getRates().get("rmb"));
+        assertEquals("150.1000", response.getCurrency().get(0).getRates().get("usd_jpy"));
+        assertNull(response.getCurrency().get(0).getUsd());
+        Mockito.verify(repository, times(1))
+                .findRates(any(), any(), Mockito.eq(List.of(CurrencyPair.RMB, CurrencyPair.USD_JPY)));
+
+        request.setCurrency("usd,btc");
+        assertEquals("E004", service.queryExchangeRates(request).getError().getCode());
+    }
+
+    /**
+     * 測試指標：
+     * 查詢依回傳代碼與查詢天數分組記錄延遲，匯入記錄新增/略過/失敗筆數與寫入時間。
+     */
+    @Test
+    public void testMetricsRecorded() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service = new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class), Mockito.mock(TaifexClient.class),
+                new ExchangeRateMetrics(registry));
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Mockito.when(repository.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any())).thenReturn(List.of());
+        Mockito.when(repository.bulkUpsert(anyList()))
+                .thenAnswer(invocation -> new IngestionResult(((List<?>) invocation.getArgument(0)).size(), 0, 0));
+
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(yesterday.minusDays(29).format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setEndDate(yesterday.format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        service.queryExchangeRates(request);
+        request.setStartDate("2025/13/01");
+        service.queryExchangeRates(request);
+
+        assertEquals(1, registry.get("forex.query").tags("code", "0000", "range", "le_31d").timer().count());
+        assertEquals(1, registry.get("forex.query").tags("code", "E003", "range", "none").timer().count());
+
+        service.ingestExchangeRates("[{\"Date\":\"20250324\",\"USD/NTD\":\"32.9\"},"
+                + "{\"Date\":\"20250325\",\"USD/NTD\":\"N/A\"}]");
+        assertEquals(1.0, registry.get("forex.ingest.rows").tag("result", "inserted").counter().count());
+        assertEquals(1.0, registry.get("forex.ingest.rows").tag("result", "failed").counter().count());
+        assertEquals(1, registry.get("forex.ingest.write").timer().count());
+        assertEquals(1, registry.get("forex.ingest.parse").timer().count());
+    }
+
+    /**
+     * 測試盤中輪詢：
+     * 內容與上次相同時不解析也不查詢資料庫；內容變更時，已寫入過且內容相同的日期不再查詢，只有新日期送到寫入。
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPollExchangeRates_DropsUnchangedPayloadAndKnownDates() {
+        TaifexClient taifexClient = Mockito.mock(TaifexClient.class);
+        LocalDate today = LocalDate.now();
+        String[] payload = {"[" + row(today.minusDays(3), "32.9") + "," + row(today.minusDays(2), "32.95") + "]"};
+        Mockito.when(taifexClient.fetch(any())).thenAnswer(invocation -> Optional.ofNullable(
+                ((Function<InputStream, Object>) invocation.getArgument(0))
+                        .apply(new ByteArrayInputStream(payload[0].getBytes(StandardCharsets.UTF_8)))));
+        service = new ExchangeRateService(repository, new ExchangeRateCache(repository),
+                Mockito.mock(ApplicationEventPublisher.class), taifexClient);
+        Mockito.when(repository.bulkUpsert(anyList()))
+                .thenAnswer(invocation -> new IngestionResult(((List<?>) invocation.getArgument(0)).size(), 0, 0));
+
+        assertEquals(2, service.pollExchangeRates().orElseThrow().getInserted());
+        assertTrue(service.pollExchangeRates().isEmpty());
+        Mockito.verify(repository, times(1)).findStoredRates(any());
+
+        payload[0] = payload[0].replace("]", "," + row(today.minusDays(1), "33.01") + "]");
+        IngestionResult result = service.pollExchangeRates().orElseThrow();
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getSkipped());
+        ArgumentCaptor<Collection<LocalDate>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(repository, times(2)).findStoredRates(captor.capture());
+        assertEquals(List.of(today.minusDays(1)), List.copyOf(captor.getValue()));
+    }
+
+    /**
+     * 測試批次查詢：
+     * 重疊或相鄰的區間合併成一次範圍查詢，結果依原本順序切出；不合法的區間保留各自的錯誤代碼。
+     */
+    @Test
+    public void testQueryBatch_MergesOverlappingRanges() {
+        InMemoryExchangeRateRepository inMemory = new InMemoryExchangeRateRepository();
+        LocalDate first = LocalDate.now().minusDays(60);
+        List<ExchangeRate> rates = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ExchangeRate rate = new ExchangeRate(first.plusDays(i), BigDecimal.valueOf(3000 + i, 2));
+            rate.setRate(CurrencyPair.RMB, new BigDecimal("4.5"));
+            rates.add(rate);
+        }
+        inMemory.bulkUpsert(rates);
+        // 停用快取，所有區間都讀取資料庫
+        service = new ExchangeRateService(inMemory, new ExchangeRateCache(inMemory, null, false),
+                Mockito.mock(ApplicationEventPublisher.class), Mockito.mock(TaifexClient.class));
+
+        BatchQueryRequest request = new BatchQueryRequest();
+        request.setQueries(List.of(
+                batchQuery(first.plusDays(40), first.plusDays(45), "usd"),
+                batchQuery(first, first.plusDays(9), "usd"),
+                batchQuery(first.plusDays(5), first.plusDays(14), "rmb"),
+                batchQuery(first.plusDays(15), first.plusDays(19), "usd,rmb"),
+                batchQuery(first.plusDays(9), first, "usd"),
+                batchQuery(first, first.plusDays(3), "btc"),
+                batchQuery(first.minusYears(2), first, "usd")));
+        BatchQueryResponse response = service.queryBatch(request);
+
+        assertEquals("0000", response.getError().getCode());
+        // [0, 19] 與 [40, 45] 各一次
+        assertEquals(2, inMemory.getRangeQueryCount());
+        List<ExchangeRateQueryResponse> results = response.getResults();
+        assertEquals(7, results.size());
+        assertEquals(6, results.get(0).getCurrency().size());
+        assertEquals("30.40", results.get(0).getCurrency().get(0).getUsd());
+        assertEquals(10, results.get(1).getCurrency().size());
+        assertNull(results.get(1).getCurrency().get(0).getRates().get("rmb"));
+        assertEquals(10, results.get(2).getCurrency().size());
+        assertEquals(first.plusDays(5).format(DateTimeFormatter.BASIC_ISO_DATE), results.get(2).getCurrency().get(0).getDate());
+        assertNull(results.get(2).getCurrency().get(0).getUsd());
+        assertEquals(5, results.get(3).getCurrency().size());
+        assertEquals("4.5000", results.get(3).getCurrency().get(4).getRates().get("rmb"));
+        assertEquals("30.19", results.get(3).getCurrency().get(4).getUsd());
+        assertEquals("E001", results.get(4).getError().getCode());
+        assertEquals("E004", results.get(5).getError().getCode());
+        assertEquals("E002", results.get(6).getError().getCode());
+
+        request.setQueries(List.of());
+        assertEquals("E010", service.queryBatch(request).getError().getCode());
+    }
+
+    /**
+     * 測試日期格式與回應物件：
+     * 西元 0 年與原本的 yyyy 格式一樣視為格式錯誤（E003）；
+     * 呼叫端修改回傳的錯誤或成功回應，不影響之後的請求與批次中的其他區間。
+     */
+    @Test
+    public void testQueryResponsesAreNotShared() {
+        ExchangeRateQueryRequest request = batchQuery(LocalDate.now().minusDays(2), LocalDate.now().minusDays(1), "btc");
+        request.setStartDate("0000/01/01");
+        ExchangeRateQueryResponse yearZero = service.queryExchangeRates(request);
+        assertEquals("E003", yearZero.getError().getCode());
+        yearZero.getError().setCode("XXXX");
+        yearZero.setCurrency(new ArrayList<>());
+        ExchangeRateQueryResponse again = service.queryExchangeRates(request);
+        assertEquals("E003", again.getError().getCode());
+        assertNull(again.getCurrency());
+
+        request.setStartDate(LocalDate.now().minusDays(2).format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        service.queryExchangeRates(request).getError().setMessage("changed");
+        assertEquals("不支援的幣別", service.queryExchangeRates(request).getError().getMessage());
+
+        BatchQueryRequest batch = new BatchQueryRequest();
+        batch.setQueries(List.of(request, request));
+        BatchQueryResponse response = service.queryBatch(batch);
+        response.getError().setCode("XXXX");
+        response.getResults().get(0).getError().setCode("XXXX");
+        assertEquals("E004", response.getResults().get(1).getError().getCode());
+        assertEquals("0000", service.queryBatch(batch).getError().getCode());
+    }
+
+    private static ExchangeRateQueryRequest batchQuery(LocalDate startDate, LocalDate endDate, String currency) {
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(startDate.format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setEndDate(endDate.format(DateTimeFormatter.ofPattern("yyyy/MM/dd")));
+        request.setCurrency(currency);
+        return request;
+    }
+
+    private static String row(LocalDate date, String usd) {
+        return "{\"Date\":\"" + date.format(DateTimeFormatter.BASIC_ISO_DATE) + "\",\"USD/NTD\":\"" + usd + "\"}";
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.forex.service;
+
+import com.example.forex.dto.ExchangeRateStatsRequest;
+import com.example.forex.dto.ExchangeRateStatsResponse;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class ExchangeRateStatsServiceTest {
+
+    /**
+     * 測試索引建立前的查詢：回傳 E015 且不在請求執行緒讀取歷史資料；
+     * 背景建立在 MongoDB 失敗時拋出例外（由 StartupTaskRunner 重試），重試成功後查詢正常回傳。
+     */
+    @Test
+    public void testQueryBeforeIndexLoadedReturnsNotReady() {
+        ExchangeRateRepository repository = mock(ExchangeRateRepository.class);
+        ExchangeRateStatsService service = new ExchangeRateStatsService(repository, new int[]{5});
+
+        ExchangeRateStatsResponse notReady = service.queryStats(request("2025/03/03", "2025/03/05"));
+        assertEquals("E015", notReady.getError().getCode());
+        verifyNoInteractions(repository);
+
+        LocalDate first = LocalDate.of(2025, 3, 3);
+        when(repository.findRates(any(), any(), any()))
+                .thenThrow(new IllegalStateException("MongoDB 尚未就緒"))
+                .thenReturn(List.of(new ExchangeRate(first, new BigDecimal("30.10")),
+                        new ExchangeRate(first.plusDays(1), new BigDecimal("30.20")),
+                        new ExchangeRate(first.plusDays(2), new BigDecimal("30.30"))));
+        assertFalse(service.isLoaded());
+        assertThrows(IllegalStateException.class, service::runStartupTask);
+        assertFalse(service.isLoaded());
+        service.runStartupTask();
+        assertTrue(service.isLoaded());
+        verify(repository, times(2)).findRates(any(), any(), any());
+
+        ExchangeRateStatsResponse ready = service.queryStats(request("2025/03/03", "2025/03/05"));
+        assertEquals("0000", ready.getError().getCode());
+        assertEquals(3, ready.getCount());
+        assertEquals("30.2000", ready.getMean());
+        assertEquals("30.1889", ready.getEma().get("5"));
+    }
+
+    /**
+     * 測試未預先計算的 EMA 視窗：查詢時計算並回傳，與預先計算的視窗結果一致；重複的視窗只回傳一次。
+     */
+    @Test
+    public void testEmaForWindowsNotPrecomputed() {
+        ExchangeRateRepository repository = mock(ExchangeRateRepository.class);
+        LocalDate first = LocalDate.of(2025, 3, 3);
+        when(repository.findRates(any(), any(), any())).thenReturn(List.of(
+                new ExchangeRate(first, new BigDecimal("30.10")),
+                new ExchangeRate(first.plusDays(1), new BigDecimal("30.20")),
+                new ExchangeRate(first.plusDays(2), new BigDecimal("30.30"))));
+        ExchangeRateStatsService precomputed = new ExchangeRateStatsService(repository, new int[]{3});
+        ExchangeRateStatsService onDemand = new ExchangeRateStatsService(repository, new int[]{5});
+        precomputed.load();
+        onDemand.load();
+
+        ExchangeRateStatsRequest request = request("2025/03/03", "2025/03/05");
+        request.setWindows(List.of(3, 5, 3));
+        ExchangeRateStatsResponse response = onDemand.queryStats(request);
+        assertEquals("0000", response.getError().getCode());
+        assertEquals(List.of("3", "5"), List.copyOf(response.getEma().keySet()));
+        // 0.5 * 30.30 + 0.5 * (0.5 * 30.20 + 0.5 * 30.10)
+        assertEquals("30.2250", response.getEma().get("3"));
+        assertEquals(precomputed.queryStats(request).getEma().get("3"), response.getEma().get("3"));
+    }
+
+    private static ExchangeRateStatsRequest request(String startDate, String endDate) {
+        ExchangeRateStatsRequest request = new ExchangeRateStatsRequest();
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setCurrency("usd");
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.forex.service;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExchangeRateStreamParserTest {
+
+    private final ExchangeRateStreamParser parser = new ExchangeRateStreamParser();
+
+    /**
+     * 測試一般解析：
+     * 每筆資料保留所有幣別，略過不認得的欄位與空白報價，格式錯誤的資料計入失敗筆數。
+     */
+    @Test
+    public void testParse_SkipsUnknownFieldsAndCountsFailures() {
+        String json = "[" +
+                "{\"Date\":\"20250324\",\"USD/NTD\":\"32.9\",\"RMB/NTD\":\"4.53\",\"EUR/USD\":\"1.08\",\"XYZ/NTD\":\"1\"}," +
+                "{\"Date\":\"20250325\",\"RMB/NTD\":\"4.54\",\"USD/NTD\":\"\"}," +
+                "{\"Date\":\"2025-03-26\",\"USD/NTD\":\"32.95\"}," +
+                "{\"Date\":\"20250327\",\"USD/NTD\":\"33.01\"}" +
+                "]";
+
+        List<ExchangeRate> rates = new ArrayList<>();
+        long failed = parser.parse(toStream(json), 10, rates::addAll);
+
+        assertEquals(1, failed);
+        assertEquals(3, rates.size());
+        assertEquals(LocalDate.of(2025, 3, 24), rates.get(0).getDate());
+        assertEquals(3, rates.get(0).getRates().size());
+        assertEquals(new BigDecimal("1.08"), rates.get(0).getRate(CurrencyPair.EUR_USD));
+        assertEquals(LocalDate.of(2025, 3, 25), rates.get(1).getDate());
+        assertNull(rates.get(1).getUsd());
+        assertEquals(new BigDecimal("4.54"), rates.get(1).getRate(CurrencyPair.RMB));
+        assertEquals(LocalDate.of(2025, 3, 27), rates.get(2).getDate());
+    }
+
+    @Test
+    public void testParse_NotArray() {
+        assertThrows(RuntimeException.class, () -> parser.parse(toStream("{}"), 10, batch -> { }));
+    }
+
+    /**
+     * 測試大型檔案：
+     * 產生約 45MB 的本機合成檔案，逐批解析時每隔一段時間 GC 後量測 heap，
+     * 使用量應維持平穩，不隨檔案大小成長。
+     */
+    @Test
+    public void testParse_LargeFileKeepsHeapFlat(@TempDir Path dir) throws IOException {
+        int rows = 1_000_000;
+        int batchSize = ExchangeRateStreamParser.DEFAULT_BATCH_SIZE;
+        Path file = dir.resolve("DailyForeignExchangeRates.json");
+        writeSyntheticPayload(file, rows);
+        long fileSize = Files.size(file);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        long[] count = {0};
+        long[] maxBatch = {0};
+        long[] peakGrowth = {0};
+        long failed;
+        try (InputStream in = Files.newInputStream(file)) {
+            failed = parser.parse(in, batchSize, batch -> {
+                count[0] += batch.size();
+                maxBatch[0] = Math.max(maxBatch[0], batch.size());
+                // 每 200 批量測一次 GC 後仍存活的 heap
+                if ((count[0] / batchSize) % 200 == 0) {
+                    System.gc();
+                    long growth = memory.getHeapMemoryUsage().getUsed() - baseline;
+                    peakGrowth[0] = Math.max(peakGrowth[0], growth);
+                }
+            });
+        }
+
+        assertEquals(0, failed);
+        assertEquals(rows, count[0]);
+        assertEquals(batchSize, maxBatch[0]);
+        assertTrue(peakGrowth[0] < 16L * 1024 * 1024,
+                "heap 成長 " + peakGrowth[0] + " bytes，檔案大小 " + fileSize + " bytes");
+    }
+
+    private static void writeSyntheticPayload(Path file, int rows) throws IOException {
+        LocalDate date = LocalDate.of(1990, 1, 1);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write('[');
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write("{\"Date\":\"");
+                writer.write(date.plusDays(i).toString().replace("-", ""));
+                writer.write("\",\"USD/NTD\":\"");
+                writer.write(Integer.toString(30 + i % 5));
+                writer.write('.');
+                writer.write(Integer.toString(1000 + i % 9000));
+                writer.write("\"}");
+            }
+            writer.write(']');
+        }
+    }
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
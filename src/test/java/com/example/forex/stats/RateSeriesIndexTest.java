@@ -0,0 +1,109 @@
+package com.example.forex.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateSeriesIndexTest {
+
+    /**
+     * 測試逐筆附加後的區間統計：
+     * 與直接逐筆計算的結果比對（最小值、最大值、總和、SMA、EMA、日報酬率標準差）。
+     */
+    @Test
+    public void testIncrementalAppendMatchesBruteForce() {
+        int n = 700;
+        int[] windows = {5, 20};
+        Random random = new Random(7);
+        long[] rates = new long[n];
+        RateSeriesIndex index = new RateSeriesIndex(windows);
+        long rate = 320_000;
+        for (int i = 0; i < n; i++) {
+            rate += random.nextInt(2_001) - 1_000;
+            rates[i] = rate;
+            // 跳過週末般的日期空洞
+            index.append(20_000 + i * 7 / 5, rate);
+        }
+        assertEquals(n, index.size());
+
+        for (int t = 0; t < 500; t++) {
+            int from = random.nextInt(n);
+            int to = from + random.nextInt(n - from);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long sum = 0;
+            for (int i = from; i <= to; i++) {
+                min = Math.min(min, rates[i]);
+                max = Math.max(max, rates[i]);
+                sum += rates[i];
+            }
+            assertEquals(min, index.min(from, to));
+            assertEquals(max, index.max(from, to));
+            assertEquals(sum, index.sum(from, to));
+            if (to - from >= 2) {
+                assertEquals(bruteForceStdDev(rates, from, to), index.returnStdDev(from, to), 1e-9);
+            } else {
+                assertTrue(Double.isNaN(index.returnStdDev(from, to)));
+            }
+        }
+
+        // SMA / EMA
+        int last = n - 1;
+        long sum = 0;
+        for (int i = last - 19; i <= last; i++) {
+            sum += rates[i];
+        }
+        assertEquals(sum / 20.0, index.sma(last, 20), 1e-9);
+        assertTrue(Double.isNaN(index.sma(3, 5)));
+        double ema = rates[0];
+        for (int i = 1; i < n; i++) {
+            ema = 2.0 / 6 * rates[i] + (1 - 2.0 / 6) * ema;
+        }
+        assertEquals(ema, index.ema(last, 5), 1e-6);
+        // 未設定的視窗查詢時遞推，結果與逐日遞推相同
+        double ema7 = rates[0];
+        for (int i = 1; i <= last - 3; i++) {
+            ema7 = 2.0 / 8 * rates[i] + (1 - 2.0 / 8) * ema7;
+        }
+        assertEquals(ema7, index.ema(last - 3, 7), 1e-6);
+        assertTrue(Double.isNaN(index.ema(last, 0)));
+    }
+
+    /**
+     * 測試日期定位：
+     * lowerBound / floorIndex 對應區間的第一筆與最後一筆。
+     */
+    @Test
+    public void testDateLookupAndOrdering() {
+        RateSeriesIndex index = new RateSeriesIndex(new int[]{5});
+        index.append(100, 1);
+        index.append(102, 2);
+        index.append(105, 3);
+
+        assertEquals(1, index.lowerBound(101));
+        assertEquals(0, index.floorIndex(101));
+        assertEquals(2, index.floorIndex(200));
+        assertEquals(-1, index.floorIndex(99));
+        assertThrows(IllegalArgumentException.class, () -> index.append(105, 4));
+    }
+
+    private static double bruteForceStdDev(long[] rates, int from, int to) {
+        int count = to - from;
+        double[] returns = new double[count];
+        double mean = 0;
+        for (int i = 0; i < count; i++) {
+            returns[i] = (double) rates[from + i + 1] / rates[from + i] - 1;
+            mean += returns[i];
+        }
+        mean /= count;
+        double squares = 0;
+        for (double r : returns) {
+            squares += (r - mean) * (r - mean);
+        }
+        return Math.sqrt(squares / (count - 1));
+    }
+}
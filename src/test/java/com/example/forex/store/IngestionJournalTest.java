@@ -0,0 +1,89 @@
+package com.example.forex.store;
+
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IngestionJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<IngestionJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        opened.forEach(IngestionJournal::destroy);
+    }
+
+    /**
+     * 測試中斷後重播：
+     * 已封存未提交的匯入在重新開啟後可完整讀回（匯率的數值與小數位數都不變）；
+     * 解析未完成的匯入與寫到一半的最後一筆紀錄捨棄，重播提交後檔案清空。
+     */
+    @Test
+    public void testRecoversSealedRunsAfterCrash() throws Exception {
+        Path path = tempDir.resolve("ingest.journal");
+        IngestionJournal journal = open(path);
+        LocalDate day = LocalDate.of(2025, 3, 24);
+        ExchangeRate first = new ExchangeRate(day, new BigDecimal("32.1050"));
+        first.setRate(CurrencyPair.USD_JPY, new BigDecimal("149.85"));
+        first.setRate(CurrencyPair.USD_ZAR, new BigDecimal("18.123456789012345678901234567890"));
+        IngestionJournal.Run sealed = journal.begin();
+        sealed.append(List.of(first));
+        IngestionJournal.Run unsealed = journal.begin();
+        unsealed.append(List.of(new ExchangeRate(day.plusDays(2), new BigDecimal("33"))));
+        sealed.append(List.of(new ExchangeRate(day.plusDays(1), new BigDecimal("-0.5"))));
+        sealed.seal();
+        journal.destroy();
+        Files.write(path, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        IngestionJournal reopened = open(path);
+        assertTrue(reopened.hasRecovered());
+        List<IngestionJournal.Run> runs = reopened.takeRecovered();
+        assertEquals(1, runs.size());
+        assertEquals(sealed.getId(), runs.get(0).getId());
+        List<ExchangeRate> replayed = new ArrayList<>();
+        runs.get(0).forEachBatch(replayed::addAll);
+        assertEquals(2, replayed.size());
+        assertEquals(day, replayed.get(0).getDate());
+        assertEquals(new BigDecimal("32.1050"), replayed.get(0).getRate(CurrencyPair.USD));
+        assertEquals(new BigDecimal("149.85"), replayed.get(0).getRate(CurrencyPair.USD_JPY));
+        assertEquals(first.getRate(CurrencyPair.USD_ZAR), replayed.get(0).getRate(CurrencyPair.USD_ZAR));
+        assertEquals(new BigDecimal("-0.5"), replayed.get(1).getRate(CurrencyPair.USD));
+
+        // 新的匯入編號接在既有紀錄之後
+        IngestionJournal.Run next = reopened.begin();
+        assertTrue(next.getId() > unsealed.getId());
+        assertThrows(IllegalStateException.class, () -> next.forEachBatch(batch -> { }));
+        next.abort();
+        assertTrue(Files.size(path) > 0);
+        runs.get(0).commit();
+        assertEquals(0, Files.size(path));
+
+        reopened.destroy();
+        assertFalse(open(path).hasRecovered());
+    }
+
+    private IngestionJournal open(Path path) {
+        IngestionJournal journal = new IngestionJournal(path);
+        assertTrue(journal.isPersistent());
+        opened.add(journal);
+        return journal;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.forex.store;
+
+import com.example.forex.cache.ExchangeRateCache;
+import com.example.forex.client.TaifexClient;
+import com.example.forex.dto.ExchangeRateQueryRequest;
+import com.example.forex.dto.ExchangeRateQueryResponse;
+import com.example.forex.metrics.ExchangeRateMetrics;
+import com.example.forex.model.CurrencyPair;
+import com.example.forex.model.ExchangeRate;
+import com.example.forex.repository.ExchangeRateRepository;
+import com.example.forex.repository.InMemoryExchangeRateRepository;
+import com.example.forex.service.ExchangeRateService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+public class LocalRateStoreTest {
+
+    private static final DateTimeFormatter REQUEST_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    @TempDir
+    Path tempDir;
+
+    private final List<LocalRateStore> opened = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        opened.forEach(LocalRateStore::destroy);
+    }
+
+    /**
+     * 測試附加與區間查詢：
+     * 不依寫入順序，結果依日期排序且只含所查幣別；已存在的 (日期, 幣別) 保留原值。
+     */
+    @Test
+    public void testAppendDeduplicatesAndScansInDateOrder() {
+        LocalRateStore store = open(new InMemoryExchangeRateRepository());
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        ExchangeRate later = rate(day.plusDays(2), "31.5", "4.41");
+        ExchangeRate earlier = rate(day, "31.25", null);
+        assertEquals(3, store.append(List.of(later, earlier, rate(day, "99", null))));
+        // 已存在的美元匯率不覆寫，只補上人民幣
+        assertEquals(1, store.append(List.of(rate(day, "30", "4.4"))));
+        assertEquals(0, store.append(List.of(later)));
+
+        List<ExchangeRate> usd = store.findRates(day, day.plusDays(5), CurrencyPair.USD.asList());
+        assertEquals(2, usd.size());
+        assertEquals(day, usd.get(0).getDate());
+        assertEquals(new BigDecimal("31.2500"), usd.get(0).getRate(CurrencyPair.USD));
+        assertNull(usd.get(0).getRate(CurrencyPair.RMB));
+        assertEquals(day.plusDays(2), usd.get(1).getDate());
+
+        List<ExchangeRate> rmb = store.findRates(day.plusDays(1), day.plusDays(2), CurrencyPair.RMB.asList());
+        assertEquals(1, rmb.size());
+        assertEquals(new BigDecimal("4.4100"), rmb.get(0).getRate(CurrencyPair.RMB));
+        assertNull(rmb.get(0).getRate(CurrencyPair.USD));
+    }
+
+    /**
+     * 測試檔案超過初始容量時擴大映射，重新開啟後紀錄與同步狀態都保留。
+     */
+    @Test
+    public void testReopenAfterGrowing() {
+        InMemoryExchangeRateRepository repository = new InMemoryExchangeRateRepository();
+        LocalDate first = LocalDate.of(2010, 1, 1);
+        List<ExchangeRate> rates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ExchangeRate rate = new ExchangeRate(first.plusDays(i), new BigDecimal("30.0001"));
+            for (CurrencyPair pair : CurrencyPair.values()) {
+                if (pair != CurrencyPair.USD) {
+                    rate.setRate(pair, BigDecimal.valueOf(i, 2));
+                }
+            }
+            rates.add(rate);
+        }
+        repository.bulkUpsert(rates);
+        LocalRateStore store = open(repository);
+        assertFalse(store.isComplete());
+        store.synchronize();
+        assertTrue(store.isComplete());
+        int records = 1000 * CurrencyPair.values().length;
+        assertEquals(records, store.size());
+        store.destroy();
+
+        // 重新開啟後可預熱快取，但本次同步完成前不取代資料庫回答查詢
+        LocalRateStore reopened = open(repository);
+        assertTrue(reopened.wasSynchronized());
+        assertFalse(reopened.isComplete());
+        assertEquals(records, reopened.size());
+        long[] sum = {0};
+        int[] lastDay = {Integer.MIN_VALUE};
+        reopened.scan(first, first.plusDays(999), (epochDay, pair, scaledRate) -> {
+            assertTrue(epochDay >= lastDay[0]);
+            lastDay[0] = epochDay;
+            if (pair == CurrencyPair.RMB) {
+                sum[0] += scaledRate;
+            }
+        });
+        // 0.00 + 0.01 + ... + 9.99，放大 10^4
+        assertEquals(999L * 1000 / 2 * 100, sum[0]);
+    }
+
+    /**
+     * 測試停機期間其他節點更正的匯率：重新同步時以資料庫的內容取代檔案中的舊值。
+     */
+    @Test
+    public void testSynchronizeAppliesCorrections() {
+        InMemoryExchangeRateRepository repository = new InMemoryExchangeRateRepository();
+        LocalDate day = LocalDate.of(2025, 3, 24);
+        repository.bulkUpsert(List.of(rate(day, "31.1", "4.4")));
+        LocalRateStore store = open(repository);
+        store.synchronize();
+        store.destroy();
+
+        ExchangeRate corrected = rate(day, "31.15", "4.4");
+        corrected.setRevision(2);
+        assertEquals(1, repository.bulkRevise(List.of(corrected)).getUpdated());
+        LocalRateStore reopened = open(repository);
+        reopened.synchronize();
+        List<ExchangeRate> rates = reopened.findRates(day, day, List.of(CurrencyPair.USD, CurrencyPair.RMB));
+        assertEquals(new BigDecimal("31.1500"), rates.get(0).getRate(CurrencyPair.USD));
+        assertEquals(new BigDecimal("4.4000"), rates.get(0).getRate(CurrencyPair.RMB));
+        assertEquals(2, reopened.size());
+        reopened.destroy();
+        assertEquals(new BigDecimal("31.1500"),
+                open(repository).findRates(day, day, CurrencyPair.USD.asList()).get(0).getRate(CurrencyPair.USD));
+    }
+
+    /**
+     * 測試 MongoDB 無法連線：
+     * 同步過的本機匯率檔在啟動時預熱快取，不呼叫資料庫；快取未命中的查詢要等本次啟動同步完成後才改讀檔案，
+     * 同步前仍讀資料庫，不回傳停機期間可能已被更正的舊值。
+     */
+    @Test
+    public void testServesQueriesWhileMongoDown() {
+        InMemoryExchangeRateRepository source = new InMemoryExchangeRateRepository();
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        source.bulkUpsert(List.of(rate(yesterday.minusDays(1), "31.1", "4.4"), rate(yesterday, "31.2", "4.5")));
+        LocalRateStore synced = open(source);
+        synced.synchronize();
+        synced.destroy();
+
+        ExchangeRateRepository down = Mockito.mock(ExchangeRateRepository.class);
+        Mockito.when(down.findRates(any(), any(), any())).thenThrow(new DataAccessResourceFailureException("down"));
+        Mockito.when(down.findByDateGreaterThanEqualAndDateLessThanEqual(any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        LocalRateStore store = open(down);
+
+        ExchangeRateQueryRequest request = new ExchangeRateQueryRequest();
+        request.setStartDate(yesterday.minusDays(7).format(REQUEST_FORMATTER));
+        request.setEndDate(yesterday.format(REQUEST_FORMATTER));
+        request.setCurrency("usd,rmb");
+        ExchangeRateCache warmed = new ExchangeRateCache(down, store, true);
+        // 本機匯率檔的預熱完成，MongoDB 的預熱失敗（之後由 StartupTaskRunner 重試）
+        assertThrows(DataAccessResourceFailureException.class, warmed::runStartupTask);
+        assertQueryServed(new ExchangeRateService(down, warmed, event -> { },
+                Mockito.mock(TaifexClient.class), new ExchangeRateMetrics(new SimpleMeterRegistry()), store), request);
+        Mockito.verify(down, Mockito.never()).findRates(any(), any(), any());
+
+        // 停用快取：本次尚未同步，查詢讀資料庫
+        assertFalse(store.isComplete());
+        ExchangeRateService uncached = new ExchangeRateService(down, new ExchangeRateCache(down, store, false), event -> { },
+                Mockito.mock(TaifexClient.class), new ExchangeRateMetrics(new SimpleMeterRegistry()), store);
+        assertThrows(DataAccessResourceFailureException.class, () -> uncached.queryExchangeRates(request));
+        store.destroy();
+
+        // 啟動時同步成功、之後 MongoDB 停機：查詢改讀檔案
+        ExchangeRateRepository flaky = Mockito.mock(ExchangeRateRepository.class);
+        Mockito.when(flaky.findRates(any(), any(), any()))
+                .thenAnswer(invocation -> source.findRates(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        LocalRateStore resynced = open(flaky);
+        resynced.synchronize();
+        assertTrue(resynced.isComplete());
+        assertQueryServed(new ExchangeRateService(flaky, new ExchangeRateCache(flaky, resynced, false), event -> { },
+                Mockito.mock(TaifexClient.class), new ExchangeRateMetrics(new SimpleMeterRegistry()), resynced), request);
+        Mockito.verify(flaky, Mockito.times(1)).findRates(any(), any(), any());
+    }
+
+    private static void assertQueryServed(ExchangeRateService service, ExchangeRateQueryRequest request) {
+        ExchangeRateQueryResponse response = service.queryExchangeRates(request);
+        assertEquals("0000", response.getError().getCode());
+        assertEquals(2, response.getCurrency().size());
+        assertEquals("31.20", response.getCurrency().get(1).getRates().get("usd"));
+        assertEquals("4.5000", response.getCurrency().get(1).getRates().get("rmb"));
+    }
+
+    private LocalRateStore open(ExchangeRateRepository repository) {
+        LocalRateStore store = new LocalRateStore(repository, tempDir.resolve("rates.fxs"));
+        opened.add(store);
+        return store;
+    }
+
+    private static ExchangeRate rate(LocalDate date, String usd, String rmb) {
+        ExchangeRate rate = new ExchangeRate(date, new BigDecimal(usd));
+        if (rmb != null) {
+            rate.setRate(CurrencyPair.RMB, new BigDecimal(rmb));
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FixedPointTest {
+
+    /**
+     * 測試字串解析：
+     * 結果須與 BigDecimal.setScale(scale, HALF_UP) 相同，格式錯誤時丟出 NumberFormatException。
+     */
+    @Test
+    public void testParse_MatchesBigDecimal() {
+        String[] texts = {"0", "12", "-12", "+3.5", "1234.5678", "0.00005", "-0.00005", "0.00004", "1.", ".5",
+                "922337203685477.5807", "000000000000000000001.25", "1e3", "-2.5E-3", " 7 "};
+        for (String text : texts) {
+            assertEquals(new BigDecimal(text.trim()).setScale(4, RoundingMode.HALF_UP).unscaledValue().longValueExact(),
+                    FixedPoint.parse(text, 4), text);
+        }
+        for (String text : new String[]{"", "-", ".", "abc", "1.2.3", "12a", "99999999999999999999"}) {
+            assertThrows(NumberFormatException.class, () -> FixedPoint.parse(text, 4), text);
+        }
+    }
+
+    /**
+     * 測試乘除：
+     * 含 128 位元乘積的情況，結果須與 BigDecimal 以 HALF_UP 捨入相同，超出 long 時丟出 ArithmeticException。
+     */
+    @Test
+    public void testMultiplyDivide_MatchesBigDecimal() {
+        Random random = new Random(42);
+        long divisor = 1_000_000_000L;
+        for (int i = 0; i < 100_000; i++) {
+            long value = i % 2 == 0 ? random.nextLong() >> random.nextInt(64) : random.nextInt();
+            long factor = (random.nextLong() >>> 1) >> random.nextInt(64);
+            if (random.nextBoolean()) {
+                factor = -factor;
+            }
+            BigDecimal expected = new BigDecimal(value).multiply(new BigDecimal(factor))
+                    .divide(new BigDecimal(divisor), 0, RoundingMode.HALF_UP);
+            if (expected.unscaledValue().bitLength() < Long.SIZE) {
+                assertEquals(expected.longValueExact(), FixedPoint.multiplyDivide(value, factor, divisor));
+            } else {
+                long v = value;
+                long f = factor;
+                assertThrows(ArithmeticException.class, () -> FixedPoint.multiplyDivide(v, f, divisor));
+            }
+        }
+        assertEquals(1, FixedPoint.multiplyDivide(1, 500_000_000L, divisor));
+        assertEquals(-1, FixedPoint.multiplyDivide(-1, 500_000_000L, divisor));
+        assertEquals(0, FixedPoint.multiplyDivide(1, 499_999_999L, divisor));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.forex.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FixedWidthFormatTest {
+
+    /**
+     * 測試日期格式化：
+     * 結果須與 LocalDate.format(BASIC_ISO_DATE) 相同，含閏年與世紀邊界。
+     */
+    @Test
+    public void testFormatDate_MatchesLocalDate() {
+        LocalDate date = LocalDate.of(1899, 12, 25);
+        LocalDate end = LocalDate.of(2101, 3, 5);
+        while (!date.isAfter(end)) {
+            assertEquals(date.format(DateTimeFormatter.BASIC_ISO_DATE), FixedWidthFormat.formatDate(date.toEpochDay()));
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * 測試匯率格式化：
+     * 結果須與 BigDecimal.setScale(displayScale, HALF_UP).toString() 相同。
+     */
+    @Test
+    public void testFormatScaled_MatchesBigDecimal() {
+        Random random = new Random(42);
+        long[] fixed = {0, 5, 49, 50, 99, 995, 1000, 329450, 329449, 999_999, -329450, -1};
+        for (long scaled : fixed) {
+            assertSameAsBigDecimal(scaled);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertSameAsBigDecimal(random.nextInt(100_000_000) - 1_000_000);
+        }
+    }
+
+    private static void assertSameAsBigDecimal(long scaled) {
+        for (int displayScale = 0; displayScale <= 6; displayScale++) {
+            String expected = BigDecimal.valueOf(scaled, 4).setScale(displayScale, RoundingMode.HALF_UP).toString();
+            assertEquals(expected, FixedWidthFormat.formatScaled(scaled, 4, displayScale),
+                    "scaled=" + scaled + ", displayScale=" + displayScale);
+        }
+    }
+}